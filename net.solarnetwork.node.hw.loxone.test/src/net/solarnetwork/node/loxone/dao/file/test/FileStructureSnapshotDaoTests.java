@@ -0,0 +1,194 @@
+/* ==================================================================
+ * FileStructureSnapshotDaoTests.java - 19/10/2026 8:34:12 AM
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.node.loxone.dao.file.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import net.solarnetwork.node.loxone.dao.file.FileStructureSnapshotDao;
+import net.solarnetwork.node.loxone.domain.Category;
+import net.solarnetwork.node.loxone.domain.CategoryType;
+import net.solarnetwork.node.loxone.domain.Config;
+import net.solarnetwork.node.loxone.domain.Control;
+import net.solarnetwork.node.loxone.domain.ControlType;
+import net.solarnetwork.node.loxone.domain.Room;
+import net.solarnetwork.node.loxone.domain.StructureSnapshot;
+
+/**
+ * Unit tests for the {@link FileStructureSnapshotDao} class.
+ *
+ * @author matt
+ * @version 1.0
+ */
+public class FileStructureSnapshotDaoTests {
+
+	private static final Long TEST_CONFIG_ID = 123L;
+	private static final Date TEST_DATE = new Date(1474273695000L);
+
+	private Path dir;
+	private FileStructureSnapshotDao dao;
+
+	@Before
+	public void setup() throws IOException {
+		dir = Files.createTempDirectory("loxone-snapshot-");
+		dao = new FileStructureSnapshotDao();
+		dao.setDirectory(dir.toString());
+	}
+
+	@After
+	public void teardown() throws IOException {
+		try (Stream<Path> paths = Files.walk(dir)) {
+			paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+		}
+	}
+
+	private StructureSnapshot createTestSnapshot() {
+		Category category = new Category();
+		category.setUuid(UUID.randomUUID());
+		category.setConfigId(TEST_CONFIG_ID);
+		category.setName("Lights");
+		category.setDefaultRating(2);
+		category.setImage("lights.svg");
+		category.setType(CategoryType.Lights);
+
+		Room room = new Room();
+		room.setUuid(UUID.randomUUID());
+		room.setConfigId(TEST_CONFIG_ID);
+		room.setName("Küche");
+		room.setDefaultRating(0);
+
+		Control control = new Control(UUID.randomUUID(), TEST_CONFIG_ID);
+		control.setName("Dimmer");
+		control.setDefaultRating(1);
+		control.setType(ControlType.Dimmer);
+		control.setRoom(room.getUuid());
+		control.setCategory(category.getUuid());
+		Map<String, UUID> states = new LinkedHashMap<>(2);
+		states.put("position", UUID.randomUUID());
+		states.put("min", UUID.randomUUID());
+		control.setStates(states);
+
+		Control control2 = new Control(UUID.randomUUID(), TEST_CONFIG_ID);
+		control2.setName("Switch");
+		control2.setDefaultRating(0);
+		control2.setType(ControlType.Switch);
+
+		return new StructureSnapshot(TEST_CONFIG_ID, TEST_DATE, Collections.singletonList(category),
+				Collections.singletonList(room), Arrays.asList(control, control2));
+	}
+
+	@Test
+	public void noSnapshot() {
+		assertNull("No snapshot stored", dao.getSnapshot(TEST_CONFIG_ID));
+	}
+
+	@Test
+	public void storeAndGet() {
+		StructureSnapshot snapshot = createTestSnapshot();
+		dao.storeSnapshot(snapshot);
+
+		StructureSnapshot result = dao.getSnapshot(TEST_CONFIG_ID);
+		assertNotNull("Snapshot restored", result);
+		assertEquals("Config ID", TEST_CONFIG_ID, result.getConfigId());
+		assertEquals("Date", TEST_DATE, result.getLastModified());
+		assertTrue("Current for config", result.isCurrentFor(new Config(TEST_CONFIG_ID, TEST_DATE)));
+		assertFalse("Not current for other date",
+				result.isCurrentFor(new Config(TEST_CONFIG_ID, new Date())));
+
+		assertEquals("Category count", 1, result.getCategories().size());
+		Category expectedCategory = snapshot.getCategories().get(0);
+		Category category = result.getCategories().get(0);
+		assertEquals("Category", expectedCategory, category);
+		assertEquals("Category name", expectedCategory.getName(), category.getName());
+		assertEquals("Category rating", expectedCategory.getDefaultRating(),
+				category.getDefaultRating());
+		assertEquals("Category image", expectedCategory.getImage(), category.getImage());
+		assertEquals("Category type", expectedCategory.getType(), category.getType());
+
+		assertEquals("Room count", 1, result.getRooms().size());
+		Room expectedRoom = snapshot.getRooms().get(0);
+		Room room = result.getRooms().get(0);
+		assertEquals("Room", expectedRoom, room);
+		assertEquals("Room name", expectedRoom.getName(), room.getName());
+		assertNull("Room image", room.getImage());
+
+		assertEquals("Control count", 2, result.getControls().size());
+		for ( int i = 0; i < 2; i++ ) {
+			Control expected = snapshot.getControls().get(i);
+			Control control = result.getControls().get(i);
+			assertEquals("Control " + i, expected, control);
+			assertEquals("Control name " + i, expected.getName(), control.getName());
+			assertEquals("Control rating " + i, expected.getDefaultRating(),
+					control.getDefaultRating());
+			assertEquals("Control type " + i, expected.getType(), control.getType());
+			assertEquals("Control room " + i, expected.getRoom(), control.getRoom());
+			assertEquals("Control category " + i, expected.getCategory(), control.getCategory());
+			assertEquals("Control states " + i, expected.getStates(), control.getStates());
+		}
+	}
+
+	@Test
+	public void storeReplaces() {
+		dao.storeSnapshot(createTestSnapshot());
+		Date date = new Date(TEST_DATE.getTime() + 1000L);
+		dao.storeSnapshot(new StructureSnapshot(TEST_CONFIG_ID, date, null, null, null));
+
+		StructureSnapshot result = dao.getSnapshot(TEST_CONFIG_ID);
+		assertEquals("Date", date, result.getLastModified());
+		assertTrue("No controls", result.getControls().isEmpty());
+	}
+
+	@Test
+	public void otherConfig() {
+		dao.storeSnapshot(createTestSnapshot());
+		assertNull("No snapshot for other config", dao.getSnapshot(456L));
+	}
+
+	@Test
+	public void corruptSnapshot() throws IOException {
+		dao.storeSnapshot(createTestSnapshot());
+		try (Stream<Path> paths = Files.list(dir)) {
+			Path file = paths.findFirst().get();
+			Files.write(file, "not a snapshot".getBytes(StandardCharsets.UTF_8));
+		}
+		assertNull("Corrupt snapshot ignored", dao.getSnapshot(TEST_CONFIG_ID));
+	}
+
+}
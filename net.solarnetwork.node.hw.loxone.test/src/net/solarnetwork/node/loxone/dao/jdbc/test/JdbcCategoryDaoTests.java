@@ -22,6 +22,7 @@
 
 package net.solarnetwork.node.loxone.dao.jdbc.test;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.UUID;
 import org.junit.Assert;
@@ -37,7 +38,7 @@ import net.solarnetwork.node.test.AbstractNodeTransactionalTest;
  * Unit tests for the {@link JdbcCategoryDao} class.
  *
  * @author matt
- * @version 1.2
+ * @version 1.3
  */
 public class JdbcCategoryDaoTests extends AbstractNodeTransactionalTest {
 
@@ -110,6 +111,47 @@ public class JdbcCategoryDaoTests extends AbstractNodeTransactionalTest {
 		Assert.assertNull("Category no longer available", cat);
 	}
 
+	@Test
+	public void storeAll() {
+		insert();
+		Category old = lastCategory;
+
+		Category c1 = new Category();
+		c1.setUuid(UUID.randomUUID());
+		c1.setConfigId(TEST_CONFIG_ID);
+		c1.setName("One");
+		c1.setType(CategoryType.Lights);
+		Category c2 = new Category();
+		c2.setUuid(UUID.randomUUID());
+		c2.setConfigId(TEST_CONFIG_ID);
+		c2.setName("Two");
+		c2.setType(CategoryType.Shading);
+		dao.storeAll(TEST_CONFIG_ID, Arrays.asList(c1, c2));
+
+		Assert.assertNull("Existing category replaced", dao.load(TEST_CONFIG_ID, old.getUuid()));
+		List<Category> results = dao.findAllForConfig(TEST_CONFIG_ID, null);
+		Assert.assertEquals("Stored count", 2, results.size());
+		Category category = dao.load(TEST_CONFIG_ID, c2.getUuid());
+		Assert.assertEquals("Name", c2.getName(), category.getName());
+		Assert.assertEquals("Type", c2.getType(), category.getType());
+	}
+
+	@Test
+	public void syncAll() {
+		storeAll();
+		List<Category> stored = dao.findAllForConfig(TEST_CONFIG_ID, null);
+		Category c1 = stored.get(0);
+		Category c2 = stored.get(1);
+
+		Assert.assertEquals("Nothing changed", 0, dao.syncAll(TEST_CONFIG_ID, stored));
+
+		c1.setName("Updated");
+		Assert.assertEquals("Changed count", 2, dao.syncAll(TEST_CONFIG_ID, Arrays.asList(c1)));
+		Assert.assertEquals("Updated name", "Updated",
+				dao.load(TEST_CONFIG_ID, c1.getUuid()).getName());
+		Assert.assertNull("Removed category", dao.load(TEST_CONFIG_ID, c2.getUuid()));
+	}
+
 	@Test
 	public void findForName() {
 		insert();
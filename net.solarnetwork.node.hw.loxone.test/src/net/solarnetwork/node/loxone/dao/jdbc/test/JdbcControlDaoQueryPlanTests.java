@@ -0,0 +1,209 @@
+/* ==================================================================
+ * JdbcControlDaoQueryPlanTests.java - 19/10/2026 10:06:48 AM
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.node.loxone.dao.jdbc.test;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.transaction.BeforeTransaction;
+import org.springframework.util.FileCopyUtils;
+import net.solarnetwork.node.dao.jdbc.DatabaseSetup;
+import net.solarnetwork.node.loxone.dao.jdbc.JdbcControlDao;
+import net.solarnetwork.node.loxone.dao.jdbc.JdbcDatumPropertyUUIDSetDao;
+import net.solarnetwork.node.loxone.dao.jdbc.JdbcDatumUUIDSetDao;
+import net.solarnetwork.node.loxone.dao.jdbc.JdbcSourceMappingDao;
+import net.solarnetwork.node.loxone.dao.jdbc.JdbcValueEventDao;
+import net.solarnetwork.node.loxone.domain.Control;
+import net.solarnetwork.node.loxone.domain.ControlType;
+import net.solarnetwork.node.test.AbstractNodeTransactionalTest;
+
+/**
+ * Query plan regression tests for the {@link JdbcControlDao} SQL resources.
+ *
+ * <p>
+ * Each query is executed against a populated database with the Derby runtime
+ * statistics enabled, and the resulting plan is checked for table scans of
+ * the tables that should be accessed by index.
+ * </p>
+ *
+ * @author matt
+ * @version 1.0
+ */
+public class JdbcControlDaoQueryPlanTests extends AbstractNodeTransactionalTest {
+
+	private static final Long TEST_CONFIG_ID = 123L;
+	private static final Long TEST_OTHER_CONFIG_ID = 321L;
+	private static final int CONTROL_COUNT = 200;
+	private static final int STATE_COUNT = 5;
+
+	private static final String[] STATE_NAMES = new String[] { "value", "position", "active",
+			"min", "max" };
+
+	private JdbcControlDao dao;
+	private JdbcTemplate jdbc;
+	private List<Control> controls;
+
+	@BeforeTransaction
+	public void setup() {
+		DatabaseSetup setup = new DatabaseSetup();
+		setup.setDataSource(dataSource);
+		setup.init();
+
+		JdbcDatumUUIDSetDao uuidSetDao = new JdbcDatumUUIDSetDao();
+		uuidSetDao.setDataSource(dataSource);
+		uuidSetDao.init();
+
+		JdbcDatumPropertyUUIDSetDao propSetDao = new JdbcDatumPropertyUUIDSetDao();
+		propSetDao.setDataSource(dataSource);
+		propSetDao.init();
+
+		JdbcValueEventDao eventDao = new JdbcValueEventDao();
+		eventDao.setDataSource(dataSource);
+		eventDao.init();
+
+		JdbcSourceMappingDao smapDao = new JdbcSourceMappingDao();
+		smapDao.setDataSource(dataSource);
+		smapDao.init();
+
+		dao = new JdbcControlDao();
+		dao.setDataSource(dataSource);
+		dao.init();
+	}
+
+	@Before
+	public void populate() {
+		jdbc = new JdbcTemplate(dataSource);
+		controls = populateConfig(TEST_CONFIG_ID);
+		populateConfig(TEST_OTHER_CONFIG_ID);
+	}
+
+	private List<Control> populateConfig(Long configId) {
+		List<Control> result = new ArrayList<>(CONTROL_COUNT);
+		List<Object[]> events = new ArrayList<>(CONTROL_COUNT * STATE_COUNT);
+		List<Object[]> props = new ArrayList<>(CONTROL_COUNT);
+		for ( int i = 0; i < CONTROL_COUNT; i++ ) {
+			Control control = new Control(UUID.randomUUID(), configId);
+			control.setName("Control " + i);
+			control.setDefaultRating(0);
+			control.setType(ControlType.Meter);
+			Map<String, UUID> states = new LinkedHashMap<>(STATE_COUNT);
+			for ( String name : STATE_NAMES ) {
+				UUID event = UUID.randomUUID();
+				states.put(name, event);
+				events.add(new Object[] { event.getMostSignificantBits(),
+						event.getLeastSignificantBits(), configId, (double) i });
+				if ( i % 4 == 0 && "value".equals(name) ) {
+					props.add(new Object[] { event.getMostSignificantBits(),
+							event.getLeastSignificantBits(), configId });
+				}
+			}
+			control.setStates(states);
+			result.add(control);
+		}
+		dao.storeAll(configId, result);
+		jdbc.batchUpdate(
+				"INSERT INTO solarnode.loxone_vevent (uuid_hi, uuid_lo, config_id, fvalue) VALUES (?,?,?,?)",
+				events);
+		jdbc.batchUpdate(
+				"INSERT INTO solarnode.loxone_propset (uuid_hi, uuid_lo, config_id) VALUES (?,?,?)",
+				props);
+		return result;
+	}
+
+	private String sqlResource(String name) {
+		try {
+			return FileCopyUtils.copyToString(new InputStreamReader(
+					JdbcControlDao.class.getResourceAsStream(name), StandardCharsets.UTF_8));
+		} catch ( IOException e ) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private String queryPlan(String sql, Object... params) {
+		jdbc.update("CALL SYSCS_UTIL.SYSCS_SET_RUNTIMESTATISTICS(1)");
+		try {
+			jdbc.queryForList(sql, params);
+			return jdbc.queryForObject("VALUES SYSCS_UTIL.SYSCS_GET_RUNTIMESTATISTICS()",
+					String.class);
+		} finally {
+			jdbc.update("CALL SYSCS_UTIL.SYSCS_SET_RUNTIMESTATISTICS(0)");
+		}
+	}
+
+	private static void assertNoTableScan(String plan, String... tableNames) {
+		Assert.assertNotNull("Query plan available", plan);
+		for ( String tableName : tableNames ) {
+			Assert.assertFalse("No table scan of " + tableName + " in plan:\n" + plan,
+					plan.contains("Table Scan ResultSet for " + tableName));
+		}
+	}
+
+	@Test
+	public void findForStateUuid() {
+		Control control = controls.get(CONTROL_COUNT / 2);
+		UUID event = control.getStates().get("position");
+		String plan = queryPlan(sqlResource("control-find-for-state-uuid.sql"), TEST_CONFIG_ID,
+				event.getMostSignificantBits(), event.getLeastSignificantBits());
+		assertNoTableScan(plan, "LOXONE_CONTROL_STATE", "LOXONE_CONTROL");
+		Assert.assertTrue("State looked up by event index in plan:\n" + plan,
+				plan.contains("LOXONE_CONTROL_STATE_EVENT_IDX"));
+	}
+
+	@Test
+	public void findForPropSet() {
+		String plan = queryPlan(sqlResource("control-find-for-propset.sql"), TEST_CONFIG_ID);
+		assertNoTableScan(plan, "LOXONE_CONTROL_STATE", "LOXONE_CONTROL", "LOXONE_PROPSET",
+				"LOXONE_VEVENT");
+	}
+
+	@Test
+	public void findForPropSetView() {
+		String plan = queryPlan(sqlResource("control-find-for-propset-view.sql"), TEST_CONFIG_ID);
+		assertNoTableScan(plan, "LOXONE_CONTROL_STATE", "LOXONE_CONTROL", "LOXONE_PROPSET");
+	}
+
+	@Test
+	public void findStatesForControl() {
+		Control control = controls.get(CONTROL_COUNT / 2);
+		String plan = queryPlan(sqlResource("control_states-find-for-control.sql"),
+				control.getUuid().getMostSignificantBits(),
+				control.getUuid().getLeastSignificantBits(), TEST_CONFIG_ID);
+		assertNoTableScan(plan, "LOXONE_CONTROL_STATE");
+	}
+
+	@Test
+	public void countForConfig() {
+		String plan = queryPlan(sqlResource("control-count-for-config.sql"), TEST_CONFIG_ID);
+		assertNoTableScan(plan, "LOXONE_CONTROL");
+	}
+
+}
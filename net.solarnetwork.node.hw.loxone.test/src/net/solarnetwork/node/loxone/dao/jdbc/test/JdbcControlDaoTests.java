@@ -22,6 +22,8 @@
 
 package net.solarnetwork.node.loxone.dao.jdbc.test;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -32,6 +34,8 @@ import org.junit.After;
 import org.junit.Assert;
 import org.junit.Test;
 import org.springframework.test.context.transaction.BeforeTransaction;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import net.solarnetwork.node.dao.jdbc.DatabaseSetup;
 import net.solarnetwork.node.loxone.dao.DatumPropertyUUIDSetDao;
 import net.solarnetwork.node.loxone.dao.DatumUUIDSetDao;
@@ -62,7 +66,7 @@ import net.solarnetwork.node.test.AbstractNodeTransactionalTest;
  * Unit tests for the {@link JdbcControlDao} class.
  *
  * @author matt
- * @version 1.3
+ * @version 1.6
  */
 public class JdbcControlDaoTests extends AbstractNodeTransactionalTest {
 
@@ -178,6 +182,119 @@ public class JdbcControlDaoTests extends AbstractNodeTransactionalTest {
 		Assert.assertNull("Control no longer available", cat);
 	}
 
+	@Test
+	public void storeAll() {
+		insertWithStates();
+		Control old = lastControl;
+
+		Control c1 = createControl(UUID.randomUUID());
+		c1.setStates(getTestStatesMap());
+		Control c2 = createControl(UUID.randomUUID());
+		dao.storeAll(TEST_CONFIG_ID, Arrays.asList(c1, c2));
+
+		Assert.assertNull("Existing control replaced", dao.load(TEST_CONFIG_ID, old.getUuid()));
+		Assert.assertEquals("Stored count", 2, dao.countForConfig(TEST_CONFIG_ID));
+		Control control = dao.load(TEST_CONFIG_ID, c1.getUuid());
+		Assert.assertNotNull("Control inserted", control);
+		Assert.assertEquals("Name", c1.getName(), control.getName());
+		Assert.assertEquals("State map", c1.getStates(), control.getStates());
+		Assert.assertEquals("No states", Collections.emptyMap(),
+				dao.load(TEST_CONFIG_ID, c2.getUuid()).getStates());
+	}
+
+	@Test
+	public void storeAllEmpty() {
+		insertWithStates();
+		dao.storeAll(TEST_CONFIG_ID, null);
+		Assert.assertEquals("Stored count", 0, dao.countForConfig(TEST_CONFIG_ID));
+	}
+
+	@Test
+	public void storeAllWithCache() {
+		setupCaches();
+		Control c1 = createControl(UUID.randomUUID());
+		c1.setStates(getTestStatesMap());
+		dao.storeAll(TEST_CONFIG_ID, Arrays.asList(c1));
+
+		Cache<ConfigUUIDKey, Control> cache = dao.getEntityCache();
+		Assert.assertSame("Cached control", c1,
+				cache.get(new ConfigUUIDKey(TEST_CONFIG_ID, c1.getUuid())));
+		for ( UUID stateUuid : c1.getStates().values() ) {
+			Assert.assertSame("Cached control for state", c1,
+					cache.get(new ConfigUUIDKey(TEST_CONFIG_ID, stateUuid)));
+		}
+	}
+
+	@Test
+	public void syncAllUnchanged() {
+		Control c1 = createControl(UUID.randomUUID());
+		c1.setStates(getTestStatesMap());
+		Control c2 = createControl(UUID.randomUUID());
+		dao.storeAll(TEST_CONFIG_ID, Arrays.asList(c1, c2));
+
+		int result = dao.syncAll(TEST_CONFIG_ID, Arrays.asList(c1, c2));
+		Assert.assertEquals("Nothing changed", 0, result);
+		Assert.assertEquals("Stored count", 2, dao.countForConfig(TEST_CONFIG_ID));
+	}
+
+	@Test
+	public void syncAll() {
+		Control c1 = createControl(UUID.randomUUID());
+		c1.setStates(getTestStatesMap());
+		Control c2 = createControl(UUID.randomUUID());
+		Control c3 = createControl(UUID.randomUUID());
+		dao.storeAll(TEST_CONFIG_ID, Arrays.asList(c1, c2, c3));
+
+		// change c1 states, remove c2, keep c3, add c4
+		Control c1b = createControl(c1.getUuid());
+		c1b.setName(c1.getName());
+		c1b.setRoom(c1.getRoom());
+		c1b.setCategory(c1.getCategory());
+		Map<String, UUID> states = new LinkedHashMap<>(c1.getStates());
+		states.put("bim", UUID.randomUUID());
+		c1b.setStates(states);
+		Control c4 = createControl(UUID.randomUUID());
+		int result = dao.syncAll(TEST_CONFIG_ID, Arrays.asList(c1b, c3, c4));
+
+		Assert.assertEquals("Changed count", 3, result);
+		Assert.assertEquals("Stored count", 3, dao.countForConfig(TEST_CONFIG_ID));
+		Assert.assertNull("Removed control", dao.load(TEST_CONFIG_ID, c2.getUuid()));
+		Assert.assertNotNull("Added control", dao.load(TEST_CONFIG_ID, c4.getUuid()));
+		Control control = dao.load(TEST_CONFIG_ID, c1.getUuid());
+		Assert.assertEquals("Updated states", states, control.getStates());
+	}
+
+	@Test
+	public void syncAllWithCache() {
+		setupCaches();
+		Control c1 = createControl(UUID.randomUUID());
+		c1.setStates(getTestStatesMap());
+		Control c2 = createControl(UUID.randomUUID());
+		c2.setName("Other");
+		dao.storeAll(TEST_CONFIG_ID, Arrays.asList(c1, c2));
+		List<Control> named = dao.findAllForConfigAndName(TEST_CONFIG_ID, c2.getName(), null);
+
+		// replace c1 with a copy without states; c2 is unchanged
+		Control c1b = createControl(c1.getUuid());
+		c1b.setName(c1.getName());
+		c1b.setRoom(c1.getRoom());
+		c1b.setCategory(c1.getCategory());
+		int result = dao.syncAll(TEST_CONFIG_ID, Arrays.asList(c1b, c2));
+		Assert.assertEquals("Changed count", 1, result);
+
+		Cache<ConfigUUIDKey, Control> cache = dao.getEntityCache();
+		Assert.assertSame("Updated control cached", c1b,
+				cache.get(new ConfigUUIDKey(TEST_CONFIG_ID, c1.getUuid())));
+		for ( UUID stateUuid : c1.getStates().values() ) {
+			Assert.assertNull("Removed state no longer cached",
+					cache.get(new ConfigUUIDKey(TEST_CONFIG_ID, stateUuid)));
+		}
+		Assert.assertSame("Unchanged control still cached", c2,
+				cache.get(new ConfigUUIDKey(TEST_CONFIG_ID, c2.getUuid())));
+		Assert.assertSame("Unchanged name still cached", named, dao.getEntityNameCache()
+				.get(new ConfigNameKey(TEST_CONFIG_ID, c2.getName())));
+	}
+
 	@Test
 	public void getByPK() {
 		insert();
@@ -400,6 +517,12 @@ public class JdbcControlDaoTests extends AbstractNodeTransactionalTest {
 	private ValueEvent insertValueEvent(UUID uuid, double value) {
 		ValueEvent event = new ValueEvent(uuid, TEST_CONFIG_ID, value);
 		valueEventDao.storeEvent(event);
+
+		// the test transaction is rolled back, so run its commit callbacks directly
+		for ( TransactionSynchronization s : TransactionSynchronizationManager
+				.getSynchronizations() ) {
+			s.afterCommit();
+		}
 		return event;
 	}
 
@@ -573,6 +696,83 @@ public class JdbcControlDaoTests extends AbstractNodeTransactionalTest {
 		Assert.assertEquals("Bam value", Double.valueOf(bamEvent.getValue()), propParams.getValue());
 	}
 
+	@Test
+	public void findForDatumsView() {
+		dao.setValueEventDao(valueEventDao);
+		findForDatumsOneControlMultiMatch();
+	}
+
+	@Test
+	public void findForDatumsViewCurrentValues() {
+		findForDatumsView();
+
+		UUID fooUUID = lastControl.getStates().get("foo");
+		ValueEvent fooEvent = insertValueEvent(fooUUID, 321);
+
+		List<UUIDEntityParametersPair<Control, ControlDatumParameters>> results = dao
+				.findAllForDatumPropertyUUIDEntities(TEST_CONFIG_ID);
+		Assert.assertEquals("Match count", 1, results.size());
+		ValueEventDatumParameters propParams = results.get(0).getParameters()
+				.getDatumPropertyParameters().get(fooUUID);
+		Assert.assertEquals("Foo value updated", Double.valueOf(fooEvent.getValue()),
+				propParams.getValue());
+	}
+
+	@Test
+	public void findForDatumsViewNoValue() {
+		dao.setValueEventDao(valueEventDao);
+		insertWithStates();
+
+		UUID fooUUID = lastControl.getStates().get("foo");
+		UUID barUUID = lastControl.getStates().get("bar");
+		datumSetDao.store(new BasicDatumUUIDEntity(TEST_CONFIG_ID, lastControl.getUuid(),
+				new BasicDatumUUIDEntityParameters(500)));
+		datumPropSetDao.store(new BasicDatumPropertyUUIDEntity(TEST_CONFIG_ID, fooUUID,
+				new BasicDatumPropertyUUIDEntityParameters(DatumValueType.Accumulating)));
+		datumPropSetDao.store(new BasicDatumPropertyUUIDEntity(TEST_CONFIG_ID, barUUID,
+				new BasicDatumPropertyUUIDEntityParameters(DatumValueType.Instantaneous)));
+
+		// only "foo" has a value
+		insertValueEvent(fooUUID, 123);
+
+		List<UUIDEntityParametersPair<Control, ControlDatumParameters>> results = dao
+				.findAllForDatumPropertyUUIDEntities(TEST_CONFIG_ID);
+		Assert.assertEquals("Match count", 1, results.size());
+		Map<UUID, ValueEventDatumParameters> props = results.get(0).getParameters()
+				.getDatumPropertyParameters();
+		Assert.assertEquals("Only property with value", Collections.singleton(fooUUID),
+				props.keySet());
+	}
+
+	@Test
+	public void findForDatumsViewInvalidated() {
+		findForDatumsView();
+
+		Control control2 = createControl(UUID.randomUUID());
+		Map<String, UUID> map = new LinkedHashMap<>(2);
+		map.put("bam", UUID.randomUUID());
+		control2.setStates(map);
+		dao.store(control2);
+		UUID bamUUID = control2.getStates().get("bam");
+		datumSetDao.store(new BasicDatumUUIDEntity(TEST_CONFIG_ID, control2.getUuid(),
+				new BasicDatumUUIDEntityParameters(300)));
+		insertValueEvent(bamUUID, 345);
+
+		List<UUIDEntityParametersPair<Control, ControlDatumParameters>> results = dao
+				.findAllForDatumPropertyUUIDEntities(TEST_CONFIG_ID);
+		Assert.assertEquals("Match count without property", 1, results.size());
+
+		// the property set is changed outside the DAO
+		datumPropSetDao.store(new BasicDatumPropertyUUIDEntity(TEST_CONFIG_ID, bamUUID,
+				new BasicDatumPropertyUUIDEntityParameters(DatumValueType.Accumulating)));
+		results = dao.findAllForDatumPropertyUUIDEntities(TEST_CONFIG_ID);
+		Assert.assertEquals("View not changed", 1, results.size());
+
+		dao.invalidateDatumPropertyUUIDEntities(TEST_CONFIG_ID);
+		results = dao.findAllForDatumPropertyUUIDEntities(TEST_CONFIG_ID);
+		Assert.assertEquals("Match count", 2, results.size());
+	}
+
 	@Test
 	public void findForName() {
 		insert();
@@ -694,12 +894,39 @@ public class JdbcControlDaoTests extends AbstractNodeTransactionalTest {
 		Control cat = dao.load(TEST_CONFIG_ID, lastControl.getUuid());
 		Assert.assertNull("Control no longer available", cat);
 
-		Control cachedEntity = dao.getEntityCache()
-				.get(new ConfigUUIDKey(lastControl.getConfigId(), lastControl.getUuid()));
+		Assert.assertEquals("Cache generation advanced", 1L,
+				dao.getEntityCacheGeneration(TEST_CONFIG_ID));
+		Control cachedEntity = dao.getEntityCache().get(new ConfigUUIDKey(lastControl.getConfigId(),
+				lastControl.getUuid(), dao.getEntityCacheGeneration(TEST_CONFIG_ID)));
 		Assert.assertNull("Cached control no longer available", cachedEntity);
 		List<Control> cachedEntities = dao.getEntityNameCache()
-				.get(new ConfigNameKey(lastControl.getConfigId(), lastControl.getName()));
+				.get(new ConfigNameKey(lastControl.getConfigId(), lastControl.getName(),
+						dao.getEntityNameCacheGeneration(TEST_CONFIG_ID)));
 		Assert.assertNull("Cached control name list no longer available", cachedEntities);
 	}
 
+	@Test
+	public void deleteForConfigWithCacheOtherConfigStillCached() {
+		setupCaches();
+		Control other = new Control(UUID.randomUUID(), TEST_CONFIG_ID + 1);
+		other.setName(TEST_NAME);
+		other.setDefaultRating(TEST_DEFAULT_RATING);
+		other.setType(ControlType.Meter);
+		dao.store(other);
+		insert();
+
+		dao.deleteAllForConfig(TEST_CONFIG_ID);
+		Assert.assertEquals("Other config cache generation unchanged", 0L,
+				dao.getEntityCacheGeneration(other.getConfigId()));
+		Assert.assertSame("Other config control still cached", other, dao.getEntityCache()
+				.get(new ConfigUUIDKey(other.getConfigId(), other.getUuid())));
+		Assert.assertNull("Deleted control not loaded from cache",
+				dao.load(TEST_CONFIG_ID, lastControl.getUuid()));
+
+		// store again after delete is cached under the new generation
+		dao.store(lastControl);
+		Assert.assertSame("Control cached under new generation", lastControl,
+				dao.load(TEST_CONFIG_ID, lastControl.getUuid()));
+	}
+
 }
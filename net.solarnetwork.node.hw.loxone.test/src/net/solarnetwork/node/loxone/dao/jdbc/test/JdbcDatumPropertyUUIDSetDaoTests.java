@@ -28,6 +28,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import org.junit.After;
 import org.junit.Assert;
 import org.junit.Test;
 import org.springframework.test.context.transaction.BeforeTransaction;
@@ -35,6 +38,7 @@ import net.solarnetwork.node.dao.jdbc.DatabaseSetup;
 import net.solarnetwork.node.loxone.dao.jdbc.JdbcDatumPropertyUUIDSetDao;
 import net.solarnetwork.node.loxone.domain.BasicDatumPropertyUUIDEntity;
 import net.solarnetwork.node.loxone.domain.BasicDatumPropertyUUIDEntityParameters;
+import net.solarnetwork.node.loxone.domain.ConfigUUIDKey;
 import net.solarnetwork.node.loxone.domain.DatumPropertyUUIDEntity;
 import net.solarnetwork.node.loxone.domain.DatumPropertyUUIDEntityParameters;
 import net.solarnetwork.node.loxone.domain.DatumValueType;
@@ -44,7 +48,7 @@ import net.solarnetwork.node.test.AbstractNodeTransactionalTest;
  * Unit tests for the {@link JdbcDatumPropertyUUIDSetDaoTests} class.
  *
  * @author matt
- * @version 1.1
+ * @version 1.3
  */
 public class JdbcDatumPropertyUUIDSetDaoTests extends AbstractNodeTransactionalTest {
 
@@ -52,6 +56,7 @@ public class JdbcDatumPropertyUUIDSetDaoTests extends AbstractNodeTransactionalT
 
 	private JdbcDatumPropertyUUIDSetDao dao;
 	private BasicDatumPropertyUUIDEntity lastEntity;
+	private CacheManager cacheManager;
 
 	@BeforeTransaction
 	public void setup() {
@@ -64,6 +69,13 @@ public class JdbcDatumPropertyUUIDSetDaoTests extends AbstractNodeTransactionalT
 		dao.init();
 	}
 
+	@After
+	public void teardown() {
+		if ( cacheManager != null ) {
+			cacheManager.close();
+		}
+	}
+
 	private BasicDatumPropertyUUIDEntity createTestBasicDatumPropertyUUIDEntity() {
 		BasicDatumPropertyUUIDEntity entity = new BasicDatumPropertyUUIDEntity();
 		entity.setUuid(UUID.randomUUID());
@@ -309,4 +321,28 @@ public class JdbcDatumPropertyUUIDSetDaoTests extends AbstractNodeTransactionalT
 				found.getParameters().getDatumValueType());
 	}
 
+	@Test
+	public void manageSetUpdateParametersWithCache() {
+		cacheManager = CacheUtils.createCacheManager();
+		Cache<ConfigUUIDKey, DatumPropertyUUIDEntity> cache = CacheUtils.createCache(cacheManager,
+				"DatumPropertyUUIDSet", ConfigUUIDKey.class, DatumPropertyUUIDEntity.class, null);
+		dao.setEntityCache(cache);
+		insertWithParameters();
+		DatumPropertyUUIDEntity found = dao.load(lastEntity.getConfigId(), lastEntity.getUuid());
+		final ConfigUUIDKey key = new ConfigUUIDKey(lastEntity.getConfigId(), lastEntity.getUuid());
+		Assert.assertSame("Loaded entity cached", found, cache.get(key));
+
+		BasicDatumPropertyUUIDEntityParameters params = new BasicDatumPropertyUUIDEntityParameters();
+		params.setDatumValueType(DatumValueType.Accumulating);
+		Map<UUID, DatumPropertyUUIDEntityParameters> parameters = Collections
+				.singletonMap(lastEntity.getUuid(), params);
+		dao.updateSetForConfig(TEST_CONFIG_ID, null, null, parameters);
+		Assert.assertNull("Updated entity removed from cache", cache.get(key));
+
+		found = dao.load(lastEntity.getConfigId(), lastEntity.getUuid());
+		Assert.assertNotNull("BasicDatumPropertyUUIDEntity found", found);
+		Assert.assertEquals("Datum type value", params.getDatumValueType(),
+				found.getParameters().getDatumValueType());
+	}
+
 }
@@ -23,6 +23,7 @@
 package net.solarnetwork.node.loxone.dao.jdbc.test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
@@ -40,7 +41,7 @@ import net.solarnetwork.node.test.AbstractNodeTransactionalTest;
  * Unit tests for the {@link JdbcSourceMappingDao} class.
  *
  * @author matt
- * @version 1.1
+ * @version 1.3
  */
 public class JdbcSourceMappingDaoTests extends AbstractNodeTransactionalTest {
 
@@ -100,6 +101,12 @@ public class JdbcSourceMappingDaoTests extends AbstractNodeTransactionalTest {
 		Assert.assertEquals("Updated source ID", orig.getSourceId(), updated.getSourceId());
 	}
 
+	@Test(expected = UnsupportedOperationException.class)
+	public void syncAll() {
+		insert();
+		dao.syncAll(TEST_CONFIG_ID, Arrays.asList(createTestSourceMapping("Added")));
+	}
+
 	@Test
 	public void deleteForConfig() {
 		insert();
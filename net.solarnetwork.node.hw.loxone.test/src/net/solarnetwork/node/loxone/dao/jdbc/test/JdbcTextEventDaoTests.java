@@ -0,0 +1,285 @@
+/* ==================================================================
+ * JdbcTextEventDaoTests.java - 19/10/2026 10:31:54 PM
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.node.loxone.dao.jdbc.test;
+
+import static org.easymock.EasyMock.anyObject;
+import static org.easymock.EasyMock.eq;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ScheduledFuture;
+import org.easymock.EasyMock;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.test.context.transaction.BeforeTransaction;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import net.solarnetwork.node.dao.jdbc.DatabaseSetup;
+import net.solarnetwork.node.loxone.dao.jdbc.JdbcTextEventDao;
+import net.solarnetwork.node.loxone.domain.TextEvent;
+import net.solarnetwork.node.test.AbstractNodeTransactionalTest;
+
+/**
+ * Unit tests for the {@link JdbcTextEventDao} class.
+ *
+ * @author matt
+ * @version 1.2
+ */
+public class JdbcTextEventDaoTests extends AbstractNodeTransactionalTest {
+
+	private static final Long TEST_CONFIG_ID = 123L;
+	private static final String TEST_TEXT = "Hello, world.";
+
+	private JdbcTextEventDao dao;
+	private TextEvent lastTextEvent;
+
+	@BeforeTransaction
+	public void setup() {
+		DatabaseSetup setup = new DatabaseSetup();
+		setup.setDataSource(dataSource);
+		setup.init();
+
+		dao = new JdbcTextEventDao();
+		dao.setDataSource(dataSource);
+		dao.init();
+	}
+
+	private int persistedRowCount() {
+		return new JdbcTemplate(dataSource)
+				.queryForObject("SELECT COUNT(*) FROM solarnode.loxone_tevent", Integer.class);
+	}
+
+	private static void afterCommit() {
+		// the test transaction is rolled back, so run its commit callbacks directly
+		for ( TransactionSynchronization s : TransactionSynchronizationManager
+				.getSynchronizations() ) {
+			s.afterCommit();
+		}
+	}
+
+	@Test
+	public void insert() {
+		TextEvent event = new TextEvent(UUID.randomUUID(), TEST_CONFIG_ID, UUID.randomUUID(),
+				TEST_TEXT);
+		dao.storeEvent(event);
+		lastTextEvent = event;
+	}
+
+	@Test
+	public void getByPK() {
+		insert();
+		TextEvent event = dao.loadEvent(TEST_CONFIG_ID, lastTextEvent.getUuid());
+		Assert.assertNotNull("TextEvent inserted", event);
+		Assert.assertNotNull("Created", event.getCreated());
+		Assert.assertEquals("UUID", lastTextEvent.getUuid(), event.getUuid());
+		Assert.assertEquals("Icon", lastTextEvent.getIconUUID(), event.getIconUUID());
+		Assert.assertEquals("Text", lastTextEvent.getText(), event.getText());
+	}
+
+	@Test
+	public void update() {
+		insert();
+		TextEvent modified = new TextEvent(lastTextEvent.getUuid(), TEST_CONFIG_ID,
+				Instant.ofEpochMilli(System.currentTimeMillis() + 1000), null, "Goodbye.");
+		dao.storeEvent(modified);
+		TextEvent updated = dao.loadEvent(TEST_CONFIG_ID, modified.getUuid());
+		Assert.assertNull("Updated icon", updated.getIconUUID());
+		Assert.assertEquals("Updated text", modified.getText(), updated.getText());
+		Assert.assertEquals("Updated created date", modified.getCreated(), updated.getCreated());
+	}
+
+	@Test
+	public void storeChangedEventsSkipsUnchanged() {
+		insert();
+		afterCommit();
+		TextEvent same = new TextEvent(lastTextEvent.getUuid(), TEST_CONFIG_ID,
+				Instant.ofEpochMilli(System.currentTimeMillis() + 1000), lastTextEvent.getIconUUID(),
+				TEST_TEXT);
+		TextEvent changed = new TextEvent(UUID.randomUUID(), TEST_CONFIG_ID, null, "New");
+
+		List<TextEvent> result = dao.storeChangedEvents(Arrays.asList(same, changed));
+
+		Assert.assertEquals("Only changed stored", Arrays.asList(changed), result);
+		Assert.assertEquals("Row count", 2, persistedRowCount());
+		TextEvent persisted = dao.loadEvent(TEST_CONFIG_ID, lastTextEvent.getUuid());
+		Assert.assertEquals("Unchanged created date", lastTextEvent.getCreated(),
+				persisted.getCreated());
+	}
+
+	@Test
+	public void storeChangedEventsAfterReload() {
+		insert();
+
+		// a new DAO loads the latest texts from the database
+		JdbcTextEventDao reloaded = new JdbcTextEventDao();
+		reloaded.setDataSource(dataSource);
+		reloaded.init();
+		TextEvent same = new TextEvent(lastTextEvent.getUuid(), TEST_CONFIG_ID,
+				lastTextEvent.getIconUUID(), TEST_TEXT);
+		Assert.assertTrue("Unchanged",
+				reloaded.storeChangedEvents(Collections.singletonList(same)).isEmpty());
+	}
+
+	@Test
+	public void storeChangedEventsNotCommitted() {
+		insert();
+
+		// without a commit the stored text is not remembered, so is stored again
+		TextEvent same = new TextEvent(lastTextEvent.getUuid(), TEST_CONFIG_ID,
+				lastTextEvent.getIconUUID(), TEST_TEXT);
+		Assert.assertEquals("Stored again", Arrays.asList(same),
+				dao.storeChangedEvents(Collections.singletonList(same)));
+	}
+
+	@Test
+	public void storeChangedEventsAfterTruncatedReload() {
+		final Instant now = Instant.now();
+		TextEvent[] events = new TextEvent[3];
+		for ( int i = 0; i < events.length; i++ ) {
+			events[i] = new TextEvent(UUID.randomUUID(), TEST_CONFIG_ID,
+					now.plusSeconds(i - events.length), null, "Text " + i);
+			dao.storeEvent(events[i]);
+		}
+
+		// a new DAO loads only the newest texts from the database
+		JdbcTextEventDao reloaded = new JdbcTextEventDao();
+		reloaded.setDataSource(dataSource);
+		reloaded.setMaxLatestEventsPerConfig(2);
+		reloaded.init();
+		Assert.assertTrue("Newest unchanged",
+				reloaded.storeChangedEvents(Arrays.asList(events[1], events[2])).isEmpty());
+		Assert.assertEquals("Oldest not held", Arrays.asList(events[0]),
+				reloaded.storeChangedEvents(Collections.singletonList(events[0])));
+		Assert.assertEquals("Latest from database", 3,
+				reloaded.getLatestEvents(TEST_CONFIG_ID).size());
+	}
+
+	@Test
+	public void latestEvents() {
+		insert();
+		TextEvent other = new TextEvent(UUID.randomUUID(), TEST_CONFIG_ID, null, "Other");
+		dao.storeEvent(other);
+		afterCommit();
+
+		List<TextEvent> results = dao.getLatestEvents(TEST_CONFIG_ID);
+		Assert.assertEquals("Latest count", 2, results.size());
+		Assert.assertTrue("Latest events", results.containsAll(Arrays.asList(lastTextEvent, other)));
+		Assert.assertTrue("Other config", dao.getLatestEvents(-1L).isEmpty());
+	}
+
+	@Test
+	public void latestEventsTruncated() {
+		dao.setMaxLatestEventsPerConfig(1);
+		for ( int i = 0; i < 3; i++ ) {
+			dao.storeEvent(new TextEvent(UUID.randomUUID(), TEST_CONFIG_ID, null, "Text " + i));
+		}
+		afterCommit();
+		Assert.assertEquals("Latest from database", 3, dao.getLatestEvents(TEST_CONFIG_ID).size());
+	}
+
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	@Test
+	public void latestEventsTruncatedWithPending() {
+		TaskScheduler scheduler = EasyMock.createMock(TaskScheduler.class);
+		ScheduledFuture<?> future = EasyMock.createMock(ScheduledFuture.class);
+		expect(scheduler.scheduleWithFixedDelay(anyObject(Runnable.class), anyObject(Instant.class),
+				eq(Duration.ofMillis(1000L)))).andReturn((ScheduledFuture) future);
+		replay(scheduler, future);
+		dao.setMaxLatestEventsPerConfig(1);
+		for ( int i = 0; i < 3; i++ ) {
+			dao.storeEvent(new TextEvent(UUID.randomUUID(), TEST_CONFIG_ID, null, "Text " + i));
+		}
+		afterCommit();
+		final UUID persistedUuid = dao.findAllForConfig(TEST_CONFIG_ID, null).get(0).getUuid();
+		dao.setTaskScheduler(scheduler);
+		dao.setWriteBehindFlushMs(1000L);
+
+		TextEvent modified = new TextEvent(persistedUuid, TEST_CONFIG_ID, null, "Modified");
+		TextEvent added = new TextEvent(UUID.randomUUID(), TEST_CONFIG_ID, null, "Added");
+		dao.storeEvents(Arrays.asList(modified, added));
+
+		List<TextEvent> results = dao.getLatestEvents(TEST_CONFIG_ID);
+		verify(scheduler);
+		Assert.assertEquals("Latest count", 4, results.size());
+		Assert.assertTrue("Pending events included",
+				results.containsAll(Arrays.asList(modified, added)));
+		for ( TextEvent event : results ) {
+			if ( event.getUuid().equals(persistedUuid) ) {
+				Assert.assertEquals("Pending text replaces persisted", "Modified", event.getText());
+			}
+		}
+	}
+
+	@Test
+	public void longTextTruncated() {
+		char[] chars = new char[JdbcTextEventDao.MAX_TEXT_LENGTH + 10];
+		Arrays.fill(chars, 'a');
+		TextEvent event = new TextEvent(UUID.randomUUID(), TEST_CONFIG_ID, null, new String(chars));
+		dao.storeEvent(event);
+		Assert.assertEquals("Truncated text stored", 1,
+				new JdbcTemplate(dataSource).queryForObject(
+						"SELECT COUNT(*) FROM solarnode.loxone_tevent WHERE LENGTH(txt) = ?",
+						Integer.class, JdbcTextEventDao.MAX_TEXT_LENGTH).intValue());
+	}
+
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	@Test
+	public void writeBehindCoalesces() {
+		TaskScheduler scheduler = EasyMock.createMock(TaskScheduler.class);
+		ScheduledFuture<?> future = EasyMock.createMock(ScheduledFuture.class);
+		expect(scheduler.scheduleWithFixedDelay(anyObject(Runnable.class), anyObject(Instant.class),
+				eq(Duration.ofMillis(1000L)))).andReturn((ScheduledFuture) future);
+		replay(scheduler, future);
+		dao.setTaskScheduler(scheduler);
+		dao.setWriteBehindFlushMs(1000L);
+
+		UUID uuid = UUID.randomUUID();
+		TextEvent e1 = new TextEvent(uuid, TEST_CONFIG_ID, null, "One");
+		TextEvent e2 = new TextEvent(uuid, TEST_CONFIG_ID, null, "Two");
+		dao.storeEvents(Arrays.asList(e1));
+		dao.storeEvents(Arrays.asList(e2));
+
+		Assert.assertTrue("Same as pending",
+				dao.storeChangedEvents(Arrays.asList(new TextEvent(uuid, TEST_CONFIG_ID, null, "Two")))
+						.isEmpty());
+		Assert.assertEquals("Nothing persisted before flush", 0, persistedRowCount());
+		Assert.assertEquals("Pending event is latest", Arrays.asList(e2),
+				dao.getLatestEvents(TEST_CONFIG_ID));
+
+		dao.flushEvents();
+
+		verify(scheduler);
+		Assert.assertEquals("Latest event persisted", 1, persistedRowCount());
+		Assert.assertEquals("Persisted text", "Two",
+				dao.findAllForConfig(TEST_CONFIG_ID, null).get(0).getText());
+	}
+
+}
@@ -22,26 +22,40 @@
 
 package net.solarnetwork.node.loxone.dao.jdbc.test;
 
+import static org.easymock.EasyMock.anyObject;
+import static org.easymock.EasyMock.eq;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.Arrays;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.ScheduledFuture;
 import javax.cache.Cache;
 import javax.cache.CacheManager;
+import org.easymock.EasyMock;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.test.context.transaction.BeforeTransaction;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import net.solarnetwork.node.dao.jdbc.DatabaseSetup;
 import net.solarnetwork.node.loxone.dao.jdbc.JdbcValueEventDao;
 import net.solarnetwork.node.loxone.domain.ConfigUUIDKey;
 import net.solarnetwork.node.loxone.domain.ValueEvent;
+import net.solarnetwork.node.loxone.domain.ValueEventStateTable;
 import net.solarnetwork.node.test.AbstractNodeTransactionalTest;
 
 /**
  * Unit tests for the {@link JdbcValueEventDao} class.
  *
  * @author matt
- * @version 2.1
+ * @version 2.5
  */
 public class JdbcValueEventDaoTests extends AbstractNodeTransactionalTest {
 
@@ -157,4 +171,172 @@ public class JdbcValueEventDaoTests extends AbstractNodeTransactionalTest {
 		ValueEvent control = dao.loadEvent(TEST_CONFIG_ID, lastValueEvent.getUuid());
 		Assert.assertSame("Cached entity", cachedEntity, control);
 	}
+
+	@Test
+	public void storeEventsBatch() {
+		insert();
+		ValueEvent modified = new ValueEvent(lastValueEvent.getUuid(), TEST_CONFIG_ID,
+				Instant.ofEpochMilli(System.currentTimeMillis() + 1000), 234.5);
+		ValueEvent added = new ValueEvent(UUID.randomUUID(), TEST_CONFIG_ID, 345.6);
+
+		dao.storeEvents(Arrays.asList(modified, added));
+
+		List<ValueEvent> results = dao.findAllForConfig(TEST_CONFIG_ID, null);
+		Assert.assertEquals("Match count", 2, results.size());
+		ValueEvent updated = dao.loadEvent(TEST_CONFIG_ID, modified.getUuid());
+		Assert.assertEquals("Updated value", modified.getValue(), updated.getValue(), 0.1);
+		Assert.assertEquals("Updated created date", modified.getCreated(), updated.getCreated());
+		ValueEvent inserted = dao.loadEvent(TEST_CONFIG_ID, added.getUuid());
+		Assert.assertNotNull("Inserted", inserted);
+		Assert.assertEquals("Inserted value", added.getValue(), inserted.getValue(), 0.1);
+	}
+
+	@Test
+	public void storeEventsBatchWithCache() {
+		setupCaches();
+		ValueEvent e1 = new ValueEvent(UUID.randomUUID(), TEST_CONFIG_ID, 1.0);
+		ValueEvent e2 = new ValueEvent(UUID.randomUUID(), TEST_CONFIG_ID, 2.0);
+
+		dao.storeEvents(Arrays.asList(e1, e2));
+
+		for ( ValueEvent e : Arrays.asList(e1, e2) ) {
+			ValueEvent cachedEntity = dao.getEntityCache()
+					.get(new ConfigUUIDKey(e.getConfigId(), e.getUuid()));
+			Assert.assertSame("Cached entity", e, cachedEntity);
+		}
+	}
+
+	@Test
+	public void loadStateTable() {
+		insert();
+		ValueEventStateTable table = dao.getStateTable(TEST_CONFIG_ID);
+		Assert.assertNotNull("State table", table);
+		Assert.assertEquals("State count", 1, table.size());
+		ValueEvent state = table.get(lastValueEvent.getUuid());
+		Assert.assertNotNull("State loaded", state);
+		Assert.assertEquals("Value", lastValueEvent.getValue(), state.getValue(), 0.1);
+		Assert.assertSame("Same table returned", table, dao.getStateTable(TEST_CONFIG_ID));
+	}
+
+	@Test
+	public void loadStateTableNoMatch() {
+		insert();
+		ValueEventStateTable table = dao.getStateTable(-1L);
+		Assert.assertNotNull("State table", table);
+		Assert.assertEquals("State count", 0, table.size());
+	}
+
+	private static void afterCommit() {
+		// the test transaction is rolled back, so run its commit callbacks directly
+		for ( TransactionSynchronization s : TransactionSynchronizationManager
+				.getSynchronizations() ) {
+			s.afterCommit();
+		}
+	}
+
+	@Test
+	public void stateTableUpdatedByStoreEvents() {
+		insert();
+		ValueEventStateTable table = dao.getStateTable(TEST_CONFIG_ID);
+		ValueEvent modified = new ValueEvent(lastValueEvent.getUuid(), TEST_CONFIG_ID,
+				Instant.ofEpochMilli(System.currentTimeMillis() + 1000), 234.5);
+		ValueEvent added = new ValueEvent(UUID.randomUUID(), TEST_CONFIG_ID, 345.6);
+
+		dao.storeEvents(Arrays.asList(modified, added));
+
+		Assert.assertEquals("State table not updated before commit", 1, table.size());
+		Assert.assertEquals("Committed value before commit", lastValueEvent.getValue(),
+				table.get(modified.getUuid()).getValue(), 0.1);
+
+		afterCommit();
+
+		Assert.assertEquals("State count", 2, table.size());
+		Assert.assertEquals("Updated value", modified.getValue(),
+				table.get(modified.getUuid()).getValue(), 0.1);
+		Assert.assertEquals("Updated created date", modified.getCreated(),
+				table.get(modified.getUuid()).getCreated());
+		Assert.assertEquals("Added value", added.getValue(), table.get(added.getUuid()).getValue(),
+				0.1);
+	}
+
+	@Test
+	public void reloadStateTable() {
+		insert();
+		ValueEventStateTable table = dao.getStateTable(TEST_CONFIG_ID);
+		ValueEventStateTable reloaded = dao.reloadStateTable(TEST_CONFIG_ID);
+		Assert.assertNotSame("New table loaded", table, reloaded);
+		Assert.assertSame("Reloaded table returned", reloaded, dao.getStateTable(TEST_CONFIG_ID));
+		Assert.assertEquals("State count", 1, reloaded.size());
+	}
+
+	private int persistedRowCount() {
+		return new JdbcTemplate(dataSource)
+				.queryForObject("SELECT COUNT(*) FROM solarnode.loxone_vevent", Integer.class);
+	}
+
+	private TaskScheduler setupWriteBehind(int maxDirtyCount) {
+		TaskScheduler scheduler = EasyMock.createMock(TaskScheduler.class);
+		ScheduledFuture<?> future = EasyMock.createMock(ScheduledFuture.class);
+		expect(scheduler.scheduleWithFixedDelay(anyObject(Runnable.class), anyObject(Instant.class),
+				eq(Duration.ofMillis(1000L)))).andReturn((ScheduledFuture) future);
+		replay(scheduler, future);
+		dao.setTaskScheduler(scheduler);
+		dao.setWriteBehindFlushMs(1000L);
+		dao.setWriteBehindMaxDirtyCount(maxDirtyCount);
+		return scheduler;
+	}
+
+	@Test
+	public void writeBehindCoalesces() {
+		TaskScheduler scheduler = setupWriteBehind(100);
+		UUID uuid = UUID.randomUUID();
+		ValueEvent e1 = new ValueEvent(uuid, TEST_CONFIG_ID, 1.0);
+		ValueEvent e2 = new ValueEvent(uuid, TEST_CONFIG_ID,
+				Instant.ofEpochMilli(System.currentTimeMillis() + 1000), 2.0);
+
+		dao.storeEvent(e1);
+		dao.storeEvents(Arrays.asList(e2));
+
+		Assert.assertEquals("Nothing persisted before flush", 0, persistedRowCount());
+		Assert.assertSame("Pending event loaded", e2, dao.loadEvent(TEST_CONFIG_ID, uuid));
+		List<ValueEvent> found = dao.findAllForConfig(TEST_CONFIG_ID, null);
+		Assert.assertEquals("Pending event found", Arrays.asList(e2), found);
+
+		dao.flushEvents();
+
+		verify(scheduler);
+		Assert.assertEquals("Latest event persisted", 1, persistedRowCount());
+		ValueEvent persisted = dao.findAllForConfig(TEST_CONFIG_ID, null).get(0);
+		Assert.assertEquals("Persisted value", 2.0, persisted.getValue(), 0.1);
+	}
+
+	@Test
+	public void writeBehindFlushWhenFull() {
+		TaskScheduler scheduler = setupWriteBehind(2);
+
+		dao.storeEvent(new ValueEvent(UUID.randomUUID(), TEST_CONFIG_ID, 1.0));
+		Assert.assertEquals("Nothing persisted before full", 0, persistedRowCount());
+
+		dao.storeEvent(new ValueEvent(UUID.randomUUID(), TEST_CONFIG_ID, 2.0));
+
+		verify(scheduler);
+		Assert.assertEquals("Persisted when full", 2, persistedRowCount());
+	}
+
+	@Test
+	public void writeBehindStateTable() {
+		setupWriteBehind(100);
+		ValueEvent event = new ValueEvent(UUID.randomUUID(), TEST_CONFIG_ID, 1.0);
+		dao.storeEvent(event);
+
+		ValueEventStateTable table = dao.getStateTable(TEST_CONFIG_ID);
+		Assert.assertNull("Pending state not loaded", table.get(event.getUuid()));
+
+		dao.flushEvents();
+		Assert.assertNull("State table not updated before commit", table.get(event.getUuid()));
+
+		afterCommit();
+		Assert.assertNotNull("Flushed state added after commit", table.get(event.getUuid()));
+	}
+
 }
@@ -0,0 +1,223 @@
+/* ==================================================================
+ * ConfigUUIDKeyBenchmark.java - 19/10/2026 4:05:17 PM
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.node.loxone.domain.test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import net.solarnetwork.node.loxone.domain.ConfigUUIDKey;
+
+/**
+ * JMH benchmark of {@link ConfigUUIDKey} cache lookups, compared to the
+ * previous key that wrapped a {@code Long} and a {@code UUID}.
+ *
+ * <p>
+ * The keys are looked up in concurrent maps, like the heap store of a cache,
+ * populated with {@code size} entries spread over
+ * {@code configs} configurations, similar to a node connected to several
+ * Miniservers. Run via the {@link #main(String[])} method with the JMH
+ * annotation processor on the class path.
+ * </p>
+ *
+ * @author matt
+ * @version 1.1
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConfigUUIDKeyBenchmark {
+
+	/** The number of state UUIDs cached per control. */
+	private static final int STATES_PER_CONTROL = 4;
+
+	@Param({ "1000", "10000", "50000" })
+	private int size;
+
+	@Param({ "3" })
+	private int configs;
+
+	private Map<LegacyKey, Object> legacyCache;
+	private Map<ConfigUUIDKey, Object> cache;
+	private Long[] configIds;
+	private UUID[] uuids;
+	private UUID[][] stateUuids;
+	private int index;
+
+	/**
+	 * The key previously used, for comparison.
+	 */
+	private static final class LegacyKey {
+
+		private final Long configId;
+		private final UUID uuid;
+
+		private LegacyKey(Long configId, UUID uuid) {
+			super();
+			this.configId = configId;
+			this.uuid = uuid;
+		}
+
+		@Override
+		public int hashCode() {
+			final int prime = 31;
+			int result = 1;
+			result = prime * result + configId.hashCode();
+			result = prime * result + uuid.hashCode();
+			return result;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if ( this == obj ) {
+				return true;
+			}
+			if ( !(obj instanceof LegacyKey) ) {
+				return false;
+			}
+			LegacyKey other = (LegacyKey) obj;
+			return configId.equals(other.configId) && uuid.equals(other.uuid);
+		}
+
+	}
+
+	/**
+	 * Populate the caches.
+	 */
+	@Setup(Level.Trial)
+	public void setup() {
+		Random rng = new Random(size);
+		legacyCache = new ConcurrentHashMap<>(size);
+		cache = new ConcurrentHashMap<>(size);
+		configIds = new Long[size];
+		uuids = new UUID[size];
+		stateUuids = new UUID[size][STATES_PER_CONTROL];
+		final Object value = new Object();
+		for ( int i = 0; i < size; i++ ) {
+			// new Long instances, as config IDs are read from the database
+			configIds[i] = new Long(1000L + (i % configs));
+			uuids[i] = new UUID(rng.nextLong(), rng.nextLong());
+			for ( int j = 0; j < STATES_PER_CONTROL; j++ ) {
+				stateUuids[i][j] = new UUID(rng.nextLong(), rng.nextLong());
+			}
+			legacyCache.put(new LegacyKey(new Long(configIds[i]), uuids[i]), value);
+			cache.put(new ConfigUUIDKey(new Long(configIds[i]), uuids[i], 0L), value);
+		}
+	}
+
+	private int next() {
+		int i = index++;
+		if ( index >= size ) {
+			index = 0;
+		}
+		return i;
+	}
+
+	/**
+	 * Look up an entry with a new legacy key.
+	 *
+	 * @return the cached value
+	 */
+	@Benchmark
+	public Object getLegacyKey() {
+		int i = next();
+		return legacyCache.get(new LegacyKey(configIds[i], uuids[i]));
+	}
+
+	/**
+	 * Look up an entry with a new compact key.
+	 *
+	 * @return the cached value
+	 */
+	@Benchmark
+	public Object getCompactKey() {
+		int i = next();
+		return cache.get(new ConfigUUIDKey(configIds[i], uuids[i], 0L));
+	}
+
+	/**
+	 * Cache a control under its state UUIDs with legacy keys.
+	 *
+	 * @return the cache
+	 */
+	@Benchmark
+	public Object putStatesLegacyKey() {
+		int i = next();
+		Map<LegacyKey, Object> entries = new HashMap<>(STATES_PER_CONTROL + 1);
+		for ( UUID state : stateUuids[i] ) {
+			entries.put(new LegacyKey(configIds[i], state), uuids[i]);
+		}
+		legacyCache.putAll(entries);
+		return legacyCache;
+	}
+
+	/**
+	 * Cache a control under its state UUIDs with compact keys.
+	 *
+	 * @return the cache
+	 */
+	@Benchmark
+	public Object putStatesCompactKey() {
+		int i = next();
+		Map<ConfigUUIDKey, Object> entries = new HashMap<>(STATES_PER_CONTROL + 1);
+		for ( UUID state : stateUuids[i] ) {
+			entries.put(new ConfigUUIDKey(configIds[i], state, 0L), uuids[i]);
+		}
+		cache.putAll(entries);
+		return cache;
+	}
+
+	/**
+	 * Run the benchmark.
+	 *
+	 * @param args
+	 *        the arguments, not used
+	 * @throws RunnerException
+	 *         if the benchmark fails
+	 */
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(ConfigUUIDKeyBenchmark.class.getSimpleName())
+				.build()).run();
+	}
+
+}
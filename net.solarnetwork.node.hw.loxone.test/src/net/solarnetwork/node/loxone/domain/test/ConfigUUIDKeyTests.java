@@ -0,0 +1,69 @@
+/* ==================================================================
+ * ConfigUUIDKeyTests.java - 19/10/2026 3:52:40 PM
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.node.loxone.domain.test;
+
+import java.util.UUID;
+import org.junit.Assert;
+import org.junit.Test;
+import net.solarnetwork.node.loxone.domain.ConfigUUIDKey;
+
+/**
+ * Test cases for the {@link ConfigUUIDKey} class.
+ *
+ * @author matt
+ * @version 1.0
+ */
+public class ConfigUUIDKeyTests {
+
+	private static final Long TEST_CONFIG_ID = 123L;
+	private static final UUID TEST_UUID = UUID.fromString("0c4f8d5e-0277-46e8-ffff-ba8e5f6e1b1a");
+
+	@Test
+	public void properties() {
+		ConfigUUIDKey key = new ConfigUUIDKey(TEST_CONFIG_ID, TEST_UUID, 2L);
+		Assert.assertEquals("Config ID", TEST_CONFIG_ID, key.getConfigId());
+		Assert.assertEquals("UUID", TEST_UUID, key.getUuid());
+		Assert.assertEquals("Generation", 2L, key.getGeneration());
+	}
+
+	@Test
+	public void equality() {
+		ConfigUUIDKey key = new ConfigUUIDKey(TEST_CONFIG_ID, TEST_UUID);
+		ConfigUUIDKey same = new ConfigUUIDKey(new Long(TEST_CONFIG_ID),
+				new UUID(TEST_UUID.getMostSignificantBits(), TEST_UUID.getLeastSignificantBits()),
+				0L);
+		Assert.assertEquals("Equal", key, same);
+		Assert.assertEquals("Hash", key.hashCode(), same.hashCode());
+		Assert.assertNotEquals("Other config", key, new ConfigUUIDKey(321L, TEST_UUID));
+		Assert.assertNotEquals("Other UUID", key, new ConfigUUIDKey(TEST_CONFIG_ID,
+				new UUID(TEST_UUID.getLeastSignificantBits(), TEST_UUID.getMostSignificantBits())));
+		Assert.assertNotEquals("Other generation", key,
+				new ConfigUUIDKey(TEST_CONFIG_ID, TEST_UUID, 1L));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void nullUuid() {
+		new ConfigUUIDKey(TEST_CONFIG_ID, null);
+	}
+
+}
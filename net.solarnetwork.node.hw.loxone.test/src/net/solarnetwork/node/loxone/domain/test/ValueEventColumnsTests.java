@@ -0,0 +1,92 @@
+/* ==================================================================
+ * ValueEventColumnsTests.java - 19/10/2026 8:10:37 PM
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.node.loxone.domain.test;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.UUID;
+import org.junit.Assert;
+import org.junit.Test;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.solarnetwork.node.loxone.domain.TextEvent;
+import net.solarnetwork.node.loxone.domain.ValueEvent;
+import net.solarnetwork.node.loxone.domain.ValueEventColumns;
+
+/**
+ * Test cases for the {@link ValueEventColumns} class.
+ *
+ * @author matt
+ * @version 1.0
+ */
+public class ValueEventColumnsTests {
+
+	private static final Long TEST_CONFIG_ID = 123L;
+	private static final Instant TEST_DATE = Instant.ofEpochMilli(1760856506000L);
+
+	private static final UUID UUID_1 = UUID.fromString("0e839a0b-00d8-1ab1-ffff-a1b98ee6c71d");
+	private static final UUID UUID_2 = UUID.fromString("0e839a0b-00d8-1ab1-ffff-a1b98ee6c71e");
+
+	@Test
+	public void encode() {
+		ValueEventColumns cols = ValueEventColumns
+				.of(Arrays.asList(new ValueEvent(UUID_1, TEST_CONFIG_ID, TEST_DATE.plusMillis(250), 1.0),
+						new ValueEvent(UUID_2, TEST_CONFIG_ID, TEST_DATE, 21.5)));
+		Assert.assertEquals("Size", 2, cols.size());
+		Assert.assertEquals("Base is earliest date", TEST_DATE.toEpochMilli(), cols.getBase());
+		Assert.assertArrayEquals("UUIDs", new String[] { "0e839a0b-00d8-1ab1-ffffa1b98ee6c71d",
+				"0e839a0b-00d8-1ab1-ffffa1b98ee6c71e" }, cols.getUuids());
+		Assert.assertArrayEquals("Values", new double[] { 1.0, 21.5 }, cols.getValues(), 0.0);
+		Assert.assertArrayEquals("Offsets", new long[] { 250L, 0L }, cols.getOffsets());
+	}
+
+	@Test
+	public void encodeIgnoresOtherEvents() {
+		ValueEventColumns cols = ValueEventColumns.of(
+				Arrays.asList(new TextEvent(UUID_1, TEST_CONFIG_ID, TEST_DATE, null, "Hello"),
+						new ValueEvent(UUID_2, TEST_CONFIG_ID, TEST_DATE, 21.5)));
+		Assert.assertEquals("Size", 1, cols.size());
+		Assert.assertArrayEquals("UUIDs", new String[] { "0e839a0b-00d8-1ab1-ffffa1b98ee6c71e" },
+				cols.getUuids());
+	}
+
+	@Test
+	public void encodeEmpty() {
+		ValueEventColumns cols = ValueEventColumns.of(Collections.emptyList());
+		Assert.assertEquals("Size", 0, cols.size());
+	}
+
+	@Test
+	public void json() throws IOException {
+		ValueEventColumns cols = ValueEventColumns
+				.of(Arrays.asList(new ValueEvent(UUID_1, TEST_CONFIG_ID, TEST_DATE, 21.5),
+						new ValueEvent(UUID_2, TEST_CONFIG_ID, TEST_DATE.plusMillis(250), 1.0)));
+		String json = new ObjectMapper().writeValueAsString(cols);
+		Assert.assertEquals("JSON",
+				"{\"t\":1760856506000,\"u\":[\"0e839a0b-00d8-1ab1-ffffa1b98ee6c71d\","
+						+ "\"0e839a0b-00d8-1ab1-ffffa1b98ee6c71e\"],\"v\":[21.5,1.0],\"dt\":[0,250]}",
+				json);
+	}
+
+}
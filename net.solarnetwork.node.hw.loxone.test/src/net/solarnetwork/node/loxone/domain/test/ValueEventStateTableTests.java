@@ -0,0 +1,132 @@
+/* ==================================================================
+ * ValueEventStateTableTests.java - 18/10/2026 10:04:17 AM
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.node.loxone.domain.test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.junit.Test;
+import net.solarnetwork.node.loxone.domain.ValueEvent;
+import net.solarnetwork.node.loxone.domain.ValueEventStateTable;
+
+/**
+ * Test cases for the {@link ValueEventStateTable} class.
+ *
+ * @author matt
+ * @version 1.0
+ */
+public class ValueEventStateTableTests {
+
+	private static final Long TEST_CONFIG_ID = 123L;
+
+	@Test
+	public void putNew() {
+		ValueEventStateTable table = new ValueEventStateTable(TEST_CONFIG_ID);
+		UUID uuid = UUID.randomUUID();
+		boolean changed = table.put(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(),
+				1.5, 1000L);
+		assertThat("New state is changed", changed, equalTo(true));
+		assertThat("Size", table.size(), equalTo(1));
+		assertThat("Contains", table.contains(uuid.getMostSignificantBits(),
+				uuid.getLeastSignificantBits()), equalTo(true));
+		assertThat("Value", table.value(uuid.getMostSignificantBits(),
+				uuid.getLeastSignificantBits(), Double.NaN), closeTo(1.5, 0.0001));
+	}
+
+	@Test
+	public void putUnchanged() {
+		ValueEventStateTable table = new ValueEventStateTable(TEST_CONFIG_ID);
+		UUID uuid = UUID.randomUUID();
+		table.put(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), 1.5, 1000L);
+		boolean changed = table.put(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(),
+				1.5, 2000L);
+		assertThat("Same value is not changed", changed, equalTo(false));
+		assertThat("Size", table.size(), equalTo(1));
+		assertThat("Time updated", table.get(uuid).getCreated(),
+				equalTo(Instant.ofEpochMilli(2000L)));
+	}
+
+	@Test
+	public void isChanged() {
+		ValueEventStateTable table = new ValueEventStateTable(TEST_CONFIG_ID);
+		UUID uuid = UUID.randomUUID();
+		final long hi = uuid.getMostSignificantBits();
+		final long lo = uuid.getLeastSignificantBits();
+		assertThat("Missing state is changed", table.isChanged(hi, lo, 1.5), equalTo(true));
+		table.put(hi, lo, 1.5, 1000L);
+		assertThat("Same value not changed", table.isChanged(hi, lo, 1.5), equalTo(false));
+		assertThat("Different value changed", table.isChanged(hi, lo, 2.5), equalTo(true));
+	}
+
+	@Test
+	public void getMissing() {
+		ValueEventStateTable table = new ValueEventStateTable(TEST_CONFIG_ID);
+		assertThat("Missing state", table.get(UUID.randomUUID()), nullValue());
+	}
+
+	@Test
+	public void putEvent() {
+		ValueEventStateTable table = new ValueEventStateTable(TEST_CONFIG_ID);
+		ValueEvent event = new ValueEvent(UUID.randomUUID(), TEST_CONFIG_ID,
+				Instant.ofEpochMilli(1000L), 2.5);
+		table.put(event);
+		ValueEvent result = table.get(event.getUuid());
+		assertThat("Event UUID", result.getUuid(), equalTo(event.getUuid()));
+		assertThat("Event config ID", result.getConfigId(), equalTo(TEST_CONFIG_ID));
+		assertThat("Event created", result.getCreated(), equalTo(event.getCreated()));
+		assertThat("Event value", result.getValue(), closeTo(2.5, 0.0001));
+	}
+
+	@Test
+	public void grow() {
+		ValueEventStateTable table = new ValueEventStateTable(TEST_CONFIG_ID, 4);
+		List<UUID> uuids = new ArrayList<>();
+		for ( int i = 0; i < 1000; i++ ) {
+			UUID uuid = UUID.randomUUID();
+			uuids.add(uuid);
+			table.put(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), i, i);
+		}
+		assertThat("Size", table.size(), equalTo(1000));
+		for ( int i = 0; i < 1000; i++ ) {
+			UUID uuid = uuids.get(i);
+			assertThat("Value " + i, table.value(uuid.getMostSignificantBits(),
+					uuid.getLeastSignificantBits(), Double.NaN), closeTo(i, 0.0001));
+		}
+	}
+
+	@Test
+	public void clear() {
+		ValueEventStateTable table = new ValueEventStateTable(TEST_CONFIG_ID);
+		UUID uuid = UUID.randomUUID();
+		table.put(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), 1.5, 1000L);
+		table.clear();
+		assertThat("Size", table.size(), equalTo(0));
+		assertThat("Cleared state", table.get(uuid), nullValue());
+	}
+
+}
@@ -43,6 +43,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import org.easymock.Capture;
+import org.easymock.CaptureType;
 import org.easymock.EasyMock;
 import org.junit.After;
 import org.junit.Assert;
@@ -74,7 +75,7 @@ import net.solarnetwork.service.StaticOptionalService;
  * Test cases for the {@link ControlDatumDataSource} class.
  *
  * @author matt
- * @version 2.0
+ * @version 2.1
  */
 public class ControlDatumDataSourceTests {
 
@@ -94,6 +95,7 @@ public class ControlDatumDataSourceTests {
 		dataSource = new ControlDatumDataSource(TEST_SETTING_UID, TEST_CONFIG_ID, controlDao,
 				settingDao);
 		dataSource.setDatumQueue(new StaticOptionalService<>(datumQueue));
+		dataSource.setCaptureTimesFlushSeconds(0);
 	}
 
 	@After
@@ -498,4 +500,217 @@ public class ControlDatumDataSourceTests {
 				equalTo(valueEvent2.getValue()));
 	}
 
+	private Event valueEventsUpdatedEvent(long date, Collection<ValueEvent> valueEvents) {
+		Map<String, Object> eventProps = new LinkedHashMap<>();
+		eventProps.put(LoxoneEvents.EVENT_PROPERTY_CONFIG_ID, TEST_CONFIG_ID);
+		eventProps.put(LoxoneEvents.EVENT_PROPERTY_DATE, date);
+		eventProps.put(ValueEventBinaryFileHandler.EVENT_PROPERTY_VALUE_EVENTS, valueEvents);
+		return new Event(ValueEventBinaryFileHandler.VALUE_EVENTS_UPDATED_EVENT, eventProps);
+	}
+
+	@Test
+	public void realTimeStatusDatumIndexed() {
+		// GIVEN
+		final long now = System.currentTimeMillis();
+		final Control control = new Control(UUID.randomUUID(), TEST_CONFIG_ID);
+		final ValueEvent valueEvent = new ValueEvent(UUID.randomUUID(), TEST_CONFIG_ID, 1.0);
+		control.setStates(Collections.singletonMap("Value", valueEvent.getUuid()));
+		final BasicControlDatumParameters controlParams = new BasicControlDatumParameters();
+		controlParams.setDatumParameters(new BasicDatumUUIDEntityParameters(300));
+		final BasicValueEventDatumParameters valueParams = new BasicValueEventDatumParameters();
+		valueParams.setDatumValueType(DatumValueType.Status);
+		valueParams.setName("foo");
+		valueParams.setValue(valueEvent.getValue());
+		controlParams
+				.setDatumPropertyParameters(Collections.singletonMap(valueEvent.getUuid(), valueParams));
+
+		final Control otherControl = new Control(UUID.randomUUID(), TEST_CONFIG_ID);
+		final UUID otherState = UUID.randomUUID();
+		otherControl.setStates(Collections.singletonMap("Value", otherState));
+		final BasicControlDatumParameters otherParams = new BasicControlDatumParameters();
+		otherParams.setDatumParameters(new BasicDatumUUIDEntityParameters(300));
+		final BasicValueEventDatumParameters otherValueParams = new BasicValueEventDatumParameters();
+		otherValueParams.setDatumValueType(DatumValueType.Status);
+		otherValueParams.setName("bar");
+		otherValueParams.setValue(2.0);
+		otherParams.setDatumPropertyParameters(Collections.singletonMap(otherState, otherValueParams));
+
+		final List<UUIDEntityParametersPair<Control, ControlDatumParameters>> uuidSet = Arrays.asList(
+				new UUIDEntityParametersPair<>(control, controlParams),
+				new UUIDEntityParametersPair<>(otherControl, otherParams));
+
+		// the index is loaded only once
+		expect(controlDao.findAllForDatumPropertyUUIDEntities(TEST_CONFIG_ID)).andReturn(uuidSet);
+
+		Capture<NodeDatum> datumCaptor = Capture.newInstance(CaptureType.ALL);
+		expect(datumQueue.offer(capture(datumCaptor))).andReturn(true).times(2);
+
+		// WHEN
+		replayAll();
+		dataSource.handleEvent(valueEventsUpdatedEvent(now, Collections.singleton(valueEvent)));
+		dataSource.handleEvent(valueEventsUpdatedEvent(now,
+				Collections.singleton(new ValueEvent(UUID.randomUUID(), TEST_CONFIG_ID, 3.0))));
+		final ValueEvent valueEvent2 = new ValueEvent(valueEvent.getUuid(), TEST_CONFIG_ID, 0.0);
+		dataSource.handleEvent(valueEventsUpdatedEvent(now + 1000L, Collections.singleton(valueEvent2)));
+
+		// THEN
+		verifyAll();
+
+		List<NodeDatum> datums = datumCaptor.getValues();
+		assertThat("Datum persisted for each update of control state", datums, hasSize(2));
+		for ( NodeDatum d : datums ) {
+			assertThat("Datum source ID", d.getSourceId(), equalTo(control.getSourceIdValue()));
+		}
+		assertThat("First datum has first value",
+				datums.get(0).asSampleOperations().getSampleDouble(Status, "foo"),
+				equalTo(valueEvent.getValue()));
+		assertThat("Second datum has updated value",
+				datums.get(1).asSampleOperations().getSampleDouble(Status, "foo"),
+				equalTo(valueEvent2.getValue()));
+	}
+
+	@Test
+	public void realTimeStatusDatumIndexInvalidated() {
+		// GIVEN
+		final long now = System.currentTimeMillis();
+		final Control control = new Control(UUID.randomUUID(), TEST_CONFIG_ID);
+		final ValueEvent valueEvent = new ValueEvent(UUID.randomUUID(), TEST_CONFIG_ID, 1.0);
+		control.setStates(Collections.singletonMap("Value", valueEvent.getUuid()));
+		final BasicControlDatumParameters controlParams = new BasicControlDatumParameters();
+		controlParams.setDatumParameters(new BasicDatumUUIDEntityParameters(300));
+		final BasicValueEventDatumParameters valueParams = new BasicValueEventDatumParameters();
+		valueParams.setDatumValueType(DatumValueType.Status);
+		valueParams.setName("foo");
+		valueParams.setValue(valueEvent.getValue());
+		controlParams
+				.setDatumPropertyParameters(Collections.singletonMap(valueEvent.getUuid(), valueParams));
+
+		// no datum configured at first, then the control is added
+		expect(controlDao.findAllForDatumPropertyUUIDEntities(TEST_CONFIG_ID))
+				.andReturn(Collections.emptyList());
+		expect(controlDao.findAllForDatumPropertyUUIDEntities(TEST_CONFIG_ID)).andReturn(
+				Collections.singletonList(new UUIDEntityParametersPair<>(control, controlParams)));
+
+		Capture<NodeDatum> datumCaptor = Capture.newInstance();
+		expect(datumQueue.offer(capture(datumCaptor))).andReturn(true);
+
+		// WHEN
+		replayAll();
+		Event event = valueEventsUpdatedEvent(now, Collections.singleton(valueEvent));
+		dataSource.handleEvent(event);
+		dataSource.invalidateDatumIndex();
+		dataSource.handleEvent(event);
+
+		// THEN
+		verifyAll();
+
+		NodeDatum d = datumCaptor.getValue();
+		assertThat("Datum persisted after invalidation", d, notNullValue());
+		assertThat("Datum source ID", d.getSourceId(), equalTo(control.getSourceIdValue()));
+	}
+
+	private UUIDEntityParametersPair<Control, ControlDatumParameters> datumControl(
+			Integer frequency, ValueEvent valueEvent, DatumValueType type, String name) {
+		final Control control = new Control(UUID.randomUUID(), TEST_CONFIG_ID);
+		control.setStates(Collections.singletonMap("Value", valueEvent.getUuid()));
+		final BasicControlDatumParameters controlParams = new BasicControlDatumParameters();
+		controlParams.setDatumParameters(new BasicDatumUUIDEntityParameters(frequency));
+		final BasicValueEventDatumParameters valueParams = new BasicValueEventDatumParameters();
+		valueParams.setDatumValueType(type);
+		valueParams.setName(name);
+		controlParams
+				.setDatumPropertyParameters(Collections.singletonMap(valueEvent.getUuid(), valueParams));
+		return new UUIDEntityParametersPair<>(control, controlParams);
+	}
+
+	@Test
+	public void realTimeDatumForFrame() {
+		// GIVEN
+		dataSource.setDatumPersistOnlyStatusUpdates(false);
+		final long now = System.currentTimeMillis();
+		final ValueEvent valueEvent1 = new ValueEvent(UUID.randomUUID(), TEST_CONFIG_ID, 1.0);
+		final ValueEvent valueEvent2 = new ValueEvent(UUID.randomUUID(), TEST_CONFIG_ID, 2.0);
+		final ValueEvent valueEvent3 = new ValueEvent(UUID.randomUUID(), TEST_CONFIG_ID, 3.0);
+		final List<UUIDEntityParametersPair<Control, ControlDatumParameters>> uuidSet = Arrays.asList(
+				datumControl(300, valueEvent1, DatumValueType.Instantaneous, "foo"),
+				datumControl(null, valueEvent2, DatumValueType.Accumulating, null),
+				datumControl(-1, valueEvent3, DatumValueType.Instantaneous, "bam"));
+		expect(controlDao.findAllForDatumPropertyUUIDEntities(TEST_CONFIG_ID)).andReturn(uuidSet);
+
+		Capture<NodeDatum> datumCaptor = Capture.newInstance(CaptureType.ALL);
+		expect(datumQueue.offer(capture(datumCaptor))).andReturn(true).times(2);
+
+		// WHEN
+		replayAll();
+		dataSource.handleEvent(
+				valueEventsUpdatedEvent(now, Arrays.asList(valueEvent3, valueEvent2, valueEvent1)));
+
+		// THEN
+		verifyAll();
+
+		List<NodeDatum> datums = datumCaptor.getValues();
+		assertThat("Datum for each enabled control in frame", datums, hasSize(2));
+		assertThat("Datum 1 source ID", datums.get(0).getSourceId(),
+				equalTo(uuidSet.get(0).getEntity().getSourceIdValue()));
+		assertThat("Datum 1 value", datums.get(0).asSampleOperations().getSampleDouble(Instantaneous,
+				"foo"), equalTo(valueEvent1.getValue()));
+		assertThat("Datum 2 source ID", datums.get(1).getSourceId(),
+				equalTo(uuidSet.get(1).getEntity().getSourceIdValue()));
+		assertThat("Datum 2 default property name",
+				datums.get(1).asSampleOperations().getSampleDouble(Accumulating, "value"),
+				equalTo(valueEvent2.getValue()));
+	}
+
+	@Test
+	public void captureTimesTrackedInMemory() {
+		// GIVEN
+		dataSource.setCaptureTimesFlushSeconds(
+				ControlDatumDataSource.DEFAULT_CAPTURE_TIMES_FLUSH_SECONDS);
+		final String settingKey = settingKey();
+		final long now = System.currentTimeMillis();
+		final ValueEvent valueEvent = new ValueEvent(UUID.randomUUID(), TEST_CONFIG_ID, 1.0);
+		final UUIDEntityParametersPair<Control, ControlDatumParameters> pair = datumControl(300,
+				valueEvent, DatumValueType.Instantaneous, "foo");
+		((BasicValueEventDatumParameters) pair.getParameters().getDatumPropertyParameters()
+				.get(valueEvent.getUuid())).setValue(valueEvent.getValue());
+		final String sourceId = pair.getEntity().getSourceIdValue();
+		final ValueEvent otherValueEvent = new ValueEvent(UUID.randomUUID(), TEST_CONFIG_ID, 2.0);
+		final UUIDEntityParametersPair<Control, ControlDatumParameters> otherPair = datumControl(300,
+				otherValueEvent, DatumValueType.Instantaneous, "bar");
+		((BasicValueEventDatumParameters) otherPair.getParameters().getDatumPropertyParameters()
+				.get(otherValueEvent.getUuid())).setValue(otherValueEvent.getValue());
+		final String otherSourceId = otherPair.getEntity().getSourceIdValue();
+
+		// settings loaded only once; the other source was captured recently
+		expect(settingDao.getSettingValues(settingKey)).andReturn(
+				Arrays.asList(new KeyValuePair(otherSourceId, Long.toString(now - 1000L, 16))));
+		expect(controlDao.findAllForDatumPropertyUUIDEntities(TEST_CONFIG_ID))
+				.andReturn(Arrays.asList(pair, otherPair)).times(2);
+
+		// only the changed capture time is saved, on flush
+		Capture<Setting> settingCapture = Capture.newInstance();
+		settingDao.storeSetting(capture(settingCapture));
+
+		// WHEN
+		replayAll();
+		Collection<NodeDatum> results1 = dataSource.readMultipleDatum();
+		Collection<NodeDatum> results2 = dataSource.readMultipleDatum();
+		dataSource.flushCaptureTimes();
+		dataSource.flushCaptureTimes();
+
+		// THEN
+		verifyAll();
+
+		assertThat("First read captures source not captured recently", results1, hasSize(1));
+		assertThat("First read source ID", results1.iterator().next().getSourceId(),
+				equalTo(sourceId));
+		assertThat("Second read skips source captured by first read", results2, hasSize(0));
+
+		Setting savedSetting = settingCapture.getValue();
+		assertThat("Saved setting key", savedSetting.getKey(), equalTo(settingKey));
+		assertThat("Saved setting source ID", savedSetting.getType(), equalTo(sourceId));
+		assertThat("Setting value is now-ish", parseLong(savedSetting.getValue(), 16) / 1000.0,
+				closeTo(now / 1000.0, 0.5));
+	}
+
 }
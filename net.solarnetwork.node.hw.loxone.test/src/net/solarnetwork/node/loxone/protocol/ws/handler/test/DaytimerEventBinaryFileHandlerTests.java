@@ -46,7 +46,7 @@ import net.solarnetwork.service.StaticOptionalService;
  * Unit tests for the {@link DaytimerEventBinaryFileHandler} class.
  * 
  * @author matt
- * @version 2.0
+ * @version 2.1
  */
 public class DaytimerEventBinaryFileHandlerTests {
 
@@ -91,6 +91,7 @@ public class DaytimerEventBinaryFileHandlerTests {
 		verify(session, eventAdmin);
 
 		Assert.assertTrue("Handled", handled);
+		Assert.assertEquals("Message consumed", data.length, buffer.position());
 	}
 
 }
@@ -23,12 +23,14 @@
 package net.solarnetwork.node.loxone.protocol.ws.handler.test;
 
 import static org.easymock.EasyMock.capture;
+import static org.easymock.EasyMock.eq;
 import static org.easymock.EasyMock.expect;
 import static org.easymock.EasyMock.expectLastCall;
 import static org.easymock.EasyMock.replay;
 import static org.easymock.EasyMock.verify;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -36,10 +38,10 @@ import java.io.InputStreamReader;
 import java.io.Reader;
 import java.io.StringReader;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.UUID;
 import org.easymock.Capture;
-import org.easymock.CaptureType;
 import org.easymock.EasyMock;
 import org.junit.Assert;
 import org.junit.Before;
@@ -55,10 +57,12 @@ import net.solarnetwork.node.loxone.dao.CategoryDao;
 import net.solarnetwork.node.loxone.dao.ConfigDao;
 import net.solarnetwork.node.loxone.dao.ControlDao;
 import net.solarnetwork.node.loxone.dao.RoomDao;
+import net.solarnetwork.node.loxone.dao.StructureSnapshotDao;
 import net.solarnetwork.node.loxone.domain.Category;
 import net.solarnetwork.node.loxone.domain.Config;
 import net.solarnetwork.node.loxone.domain.Control;
 import net.solarnetwork.node.loxone.domain.Room;
+import net.solarnetwork.node.loxone.domain.StructureSnapshot;
 import net.solarnetwork.node.loxone.domain.UUIDDeserializer;
 import net.solarnetwork.node.loxone.domain.UUIDSerializer;
 import net.solarnetwork.node.loxone.protocol.ws.CommandType;
@@ -66,6 +70,7 @@ import net.solarnetwork.node.loxone.protocol.ws.LoxoneEndpoint;
 import net.solarnetwork.node.loxone.protocol.ws.LoxoneEvents;
 import net.solarnetwork.node.loxone.protocol.ws.MessageHeader;
 import net.solarnetwork.node.loxone.protocol.ws.MessageType;
+import net.solarnetwork.node.loxone.protocol.ws.TextFileStreamHandler;
 import net.solarnetwork.node.loxone.protocol.ws.handler.GetStructureFileCommandHandler;
 import net.solarnetwork.service.StaticOptionalService;
 
@@ -73,7 +78,7 @@ import net.solarnetwork.service.StaticOptionalService;
  * Unit tests for the {@link GetStructureFileCommandHandler} class.
  * 
  * @author matt
- * @version 2.0
+ * @version 2.5
  */
 public class GetStructureFileCommandHandlerTests {
 
@@ -128,6 +133,36 @@ public class GetStructureFileCommandHandlerTests {
 				handler.supportsTextMessage(header, new StringReader(testJson), testJson.length()));
 	}
 
+	@Test
+	public void supportsTextMessageWithLastModifiedAcrossReads() throws IOException {
+		StringBuilder buf = new StringBuilder("{\"msInfo\":\"");
+		while ( buf.length() < 60 ) {
+			buf.append('x');
+		}
+		String testJson = buf.append("\",\"last\"lastModified\":\"2016-09-19 08:28:15\"}")
+				.toString();
+		MessageHeader header = new MessageHeader(MessageType.BinaryFile, null, testJson.length());
+
+		Assert.assertTrue(
+				handler.supportsTextMessage(header, new StringReader(testJson), testJson.length()));
+	}
+
+	@Test
+	public void supportsTextMessageWithLastModifiedBeyondLimit() throws IOException {
+		String testJson = "{\"msInfo\":{},\"lastModified\":\"2016-09-19 08:28:15\"}";
+		MessageHeader header = new MessageHeader(MessageType.BinaryFile, null, testJson.length());
+
+		Assert.assertFalse(handler.supportsTextMessage(header, new StringReader(testJson), 20));
+	}
+
+	private static <T> T last(Collection<T> c) {
+		T result = null;
+		for ( T t : c ) {
+			result = t;
+		}
+		return result;
+	}
+
 	private void replayAll() {
 		replay(eventAdmin, session, configDao, categoryDao, controlDao, roomDao);
 	}
@@ -150,23 +185,17 @@ public class GetStructureFileCommandHandlerTests {
 		// then get the Config, but we have none yet
 		expect(configDao.getConfig(TEST_CONFIG_ID)).andReturn(null);
 
-		// now we find the categories; first delete existing...
-		Capture<Category> categoryCapture = Capture.newInstance();
-		expect(categoryDao.deleteAllForConfig(TEST_CONFIG_ID)).andReturn(0);
-		categoryDao.store(capture(categoryCapture));
-		expectLastCall().times(11);
+		// now we sync all the categories with any existing
+		Capture<Collection<Category>> categoryCapture = Capture.newInstance();
+		expect(categoryDao.syncAll(eq(TEST_CONFIG_ID), capture(categoryCapture))).andReturn(0);
 
 		// next up, controls
-		Capture<Control> controlCapture = Capture.newInstance();
-		expect(controlDao.deleteAllForConfig(TEST_CONFIG_ID)).andReturn(0);
-		controlDao.store(capture(controlCapture));
-		expectLastCall().times(37);
+		Capture<Collection<Control>> controlCapture = Capture.newInstance();
+		expect(controlDao.syncAll(eq(TEST_CONFIG_ID), capture(controlCapture))).andReturn(0);
 
 		// next up, rooms
-		Capture<Room> roomCapture = Capture.newInstance();
-		expect(roomDao.deleteAllForConfig(TEST_CONFIG_ID)).andReturn(0);
-		roomDao.store(capture(roomCapture));
-		expectLastCall().times(4);
+		Capture<Collection<Room>> roomCapture = Capture.newInstance();
+		expect(roomDao.syncAll(eq(TEST_CONFIG_ID), capture(roomCapture))).andReturn(0);
 
 		// store our config
 		Capture<Config> configCapture = Capture.newInstance();
@@ -200,8 +229,12 @@ public class GetStructureFileCommandHandlerTests {
 			assertEquals("Last modified date", 1474279810000L, config.getLastModified().getTime());
 		}
 
+		assertEquals("Category count", 11, categoryCapture.getValue().size());
+		assertEquals("Control count", 37, controlCapture.getValue().size());
+		assertEquals("Room count", 4, roomCapture.getValue().size());
+
 		// and verify just a sampling of the parsed data
-		Category cat = categoryCapture.getValues().get(0);
+		Category cat = last(categoryCapture.getValue());
 		assertEquals("Category config ID", TEST_CONFIG_ID, cat.getConfigId());
 		assertEquals("Category UUID", UUID.fromString("0dcf4c06-0264-37ef-ffff-a1b98ee6c71d"),
 				cat.getUuid());
@@ -209,7 +242,7 @@ public class GetStructureFileCommandHandlerTests {
 		assertEquals("Category color", "#83B817", cat.getColor());
 		assertEquals("Category image", "00000000-0000-0020-2000000000000000.svg", cat.getImage());
 
-		Control control = controlCapture.getValues().get(0);
+		Control control = last(controlCapture.getValue());
 		assertEquals("Control config ID", TEST_CONFIG_ID, control.getConfigId());
 		assertEquals("Control UUID", UUID.fromString("0e2bc5cf-01dc-684e-ffff-a1b98ee6c71d"),
 				control.getUuid());
@@ -219,7 +252,7 @@ public class GetStructureFileCommandHandlerTests {
 		assertEquals("Control room", UUID.fromString("0cb25281-0198-64a2-ffff-a1b98ee6c71d"),
 				control.getRoom());
 
-		Room room = roomCapture.getValues().get(0);
+		Room room = last(roomCapture.getValue());
 		assertEquals("Room config ID", TEST_CONFIG_ID, room.getConfigId());
 		assertEquals("Room UUID", UUID.fromString("0cb25281-0198-64a2-ffff-a1b98ee6c71d"),
 				room.getUuid());
@@ -241,23 +274,17 @@ public class GetStructureFileCommandHandlerTests {
 		// then get the Config, but we have none yet
 		expect(configDao.getConfig(TEST_CONFIG_ID)).andReturn(null);
 
-		// now we find the categories; first delete existing...
-		Capture<Category> categoryCapture = Capture.newInstance(CaptureType.ALL);
-		expect(categoryDao.deleteAllForConfig(TEST_CONFIG_ID)).andReturn(0);
-		categoryDao.store(capture(categoryCapture));
-		expectLastCall().times(6);
+		// now we sync all the categories with any existing
+		Capture<Collection<Category>> categoryCapture = Capture.newInstance();
+		expect(categoryDao.syncAll(eq(TEST_CONFIG_ID), capture(categoryCapture))).andReturn(0);
 
 		// next up, controls
-		Capture<Control> controlCapture = Capture.newInstance(CaptureType.ALL);
-		expect(controlDao.deleteAllForConfig(TEST_CONFIG_ID)).andReturn(0);
-		controlDao.store(capture(controlCapture));
-		expectLastCall().times(46);
+		Capture<Collection<Control>> controlCapture = Capture.newInstance();
+		expect(controlDao.syncAll(eq(TEST_CONFIG_ID), capture(controlCapture))).andReturn(0);
 
 		// next up, rooms
-		Capture<Room> roomCapture = Capture.newInstance(CaptureType.ALL);
-		expect(roomDao.deleteAllForConfig(TEST_CONFIG_ID)).andReturn(0);
-		roomDao.store(capture(roomCapture));
-		expectLastCall().times(11);
+		Capture<Collection<Room>> roomCapture = Capture.newInstance();
+		expect(roomDao.syncAll(eq(TEST_CONFIG_ID), capture(roomCapture))).andReturn(0);
 
 		// store our config
 		Capture<Config> configCapture = Capture.newInstance();
@@ -291,19 +318,23 @@ public class GetStructureFileCommandHandlerTests {
 			assertEquals("Last modified date", 1479910860000L, config.getLastModified().getTime());
 		}
 
+		assertEquals("Category count", 6, categoryCapture.getValue().size());
+		assertEquals("Control count", 46, controlCapture.getValue().size());
+		assertEquals("Room count", 11, roomCapture.getValue().size());
+
 		// and verify just a sampling of the parsed data
-		Category cat = categoryCapture.getValues().get(0);
+		Category cat = categoryCapture.getValue().iterator().next();
 		assertEquals("Category config ID", TEST_CONFIG_ID, cat.getConfigId());
 		assertEquals("Category UUID", UUID.fromString("0e6ab34c-0065-d858-ffff-6d9b8f6a24c4"),
 				cat.getUuid());
 		assertEquals("Category name", "Composting toilets", cat.getName());
 		assertEquals("Category color", "#83B817", cat.getColor());
 		assertEquals("Category image", "00000000-0000-0020-2000000000000000.svg", cat.getImage());
-		for ( Category c : categoryCapture.getValues() ) {
+		for ( Category c : categoryCapture.getValue() ) {
 			Assert.assertTrue("Category " + c.getUuid() + " valid", c.isValid());
 		}
 
-		Control control = controlCapture.getValues().get(0);
+		Control control = controlCapture.getValue().iterator().next();
 		assertEquals("Control config ID", TEST_CONFIG_ID, control.getConfigId());
 		assertEquals("Control UUID", UUID.fromString("0e8d5203-0255-110b-ffff-a86477da88e9"),
 				control.getUuid());
@@ -312,18 +343,187 @@ public class GetStructureFileCommandHandlerTests {
 				control.getCategory());
 		assertEquals("Control room", UUID.fromString("0dcf62d1-0138-2bc6-ffff-6d9b8f6a24c4"),
 				control.getRoom());
-		for ( Control c : controlCapture.getValues() ) {
+		for ( Control c : controlCapture.getValue() ) {
 			Assert.assertTrue("Control " + c.getUuid() + " valid", c.isValid());
 		}
 
-		Room room = roomCapture.getValues().get(0);
+		Room room = roomCapture.getValue().iterator().next();
 		assertEquals("Room config ID", TEST_CONFIG_ID, room.getConfigId());
 		assertEquals("Room UUID", UUID.fromString("0dcf62d1-0138-2bc6-ffff-6d9b8f6a24c4"),
 				room.getUuid());
 		assertEquals("Room name", "Bedroom 1", room.getName());
 		assertEquals("Room image", "00000000-0000-0019-2100000000000000.svg", room.getImage());
-		for ( Room ro : roomCapture.getValues() ) {
+		for ( Room ro : roomCapture.getValue() ) {
 			Assert.assertTrue("Room " + ro.getUuid() + " valid", ro.isValid());
 		}
 	}
+
+	@Test
+	public void streamStructureFile() throws IOException {
+		InputStream in = getClass().getResourceAsStream("structure-file-01.json");
+		String json = new String(FileCopyUtils.copyToByteArray(in), "UTF-8");
+		MessageHeader header = new MessageHeader(MessageType.BinaryFile, null, json.length());
+
+		expect(session.getUserProperties()).andReturn(
+				Collections.singletonMap(LoxoneEndpoint.CONFIG_ID_USER_PROPERTY, TEST_CONFIG_ID));
+		expect(configDao.getConfig(TEST_CONFIG_ID)).andReturn(null);
+
+		Capture<Collection<Category>> categoryCapture = Capture.newInstance();
+		expect(categoryDao.syncAll(eq(TEST_CONFIG_ID), capture(categoryCapture))).andReturn(0);
+
+		Capture<Collection<Control>> controlCapture = Capture.newInstance();
+		expect(controlDao.syncAll(eq(TEST_CONFIG_ID), capture(controlCapture))).andReturn(0);
+
+		Capture<Collection<Room>> roomCapture = Capture.newInstance();
+		expect(roomDao.syncAll(eq(TEST_CONFIG_ID), capture(roomCapture))).andReturn(0);
+
+		Capture<Config> configCapture = Capture.newInstance();
+		configDao.storeConfig(capture(configCapture));
+
+		eventAdmin.postEvent(EasyMock.anyObject(Event.class));
+
+		replayAll();
+
+		// write the file in small parts, as a websocket partial message handler would
+		TextFileStreamHandler.Stream stream = handler.openTextFileStream(header, session);
+		assertNotNull("Stream opened", stream);
+		TextFileStreamHandler.Status status = null;
+		final int partSize = 37;
+		for ( int i = 0; i < json.length(); i += partSize ) {
+			int end = Math.min(i + partSize, json.length());
+			status = stream.write(json.substring(i, end), end == json.length());
+			Assert.assertNotEquals("Not rejected", TextFileStreamHandler.Status.Rejected, status);
+		}
+
+		verifyAll();
+
+		assertEquals("Accepted", TextFileStreamHandler.Status.Accepted, status);
+		assertEquals("Category count", 11, categoryCapture.getValue().size());
+		assertEquals("Control count", 37, controlCapture.getValue().size());
+		assertEquals("Room count", 4, roomCapture.getValue().size());
+		assertEquals("Last modified date", 1474279810000L,
+				configCapture.getValue().getLastModified().getTime());
+	}
+
+	@Test
+	public void streamStructureFileWithoutDifferentialSync() throws IOException {
+		InputStream in = getClass().getResourceAsStream("structure-file-02.json");
+		String json = new String(FileCopyUtils.copyToByteArray(in), "UTF-8");
+		MessageHeader header = new MessageHeader(MessageType.BinaryFile, null, json.length());
+		handler.setDifferentialSync(false);
+
+		expect(session.getUserProperties()).andReturn(
+				Collections.singletonMap(LoxoneEndpoint.CONFIG_ID_USER_PROPERTY, TEST_CONFIG_ID));
+		expect(configDao.getConfig(TEST_CONFIG_ID)).andReturn(null);
+
+		// all entities replaced
+		categoryDao.storeAll(eq(TEST_CONFIG_ID), EasyMock.<Collection<Category>> anyObject());
+		controlDao.storeAll(eq(TEST_CONFIG_ID), EasyMock.<Collection<Control>> anyObject());
+		roomDao.storeAll(eq(TEST_CONFIG_ID), EasyMock.<Collection<Room>> anyObject());
+
+		configDao.storeConfig(EasyMock.anyObject(Config.class));
+		eventAdmin.postEvent(EasyMock.anyObject(Event.class));
+
+		replayAll();
+
+		TextFileStreamHandler.Stream stream = handler.openTextFileStream(header, session);
+		TextFileStreamHandler.Status status = stream.write(json, true);
+
+		verifyAll();
+
+		assertEquals("Accepted", TextFileStreamHandler.Status.Accepted, status);
+	}
+
+	@Test
+	public void streamStructureFileStoresSnapshot() throws IOException {
+		InputStream in = getClass().getResourceAsStream("structure-file-02.json");
+		String json = new String(FileCopyUtils.copyToByteArray(in), "UTF-8");
+		MessageHeader header = new MessageHeader(MessageType.BinaryFile, null, json.length());
+		StructureSnapshotDao snapshotDao = EasyMock.createMock(StructureSnapshotDao.class);
+		handler.setStructureSnapshotDao(snapshotDao);
+
+		expect(session.getUserProperties()).andReturn(
+				Collections.singletonMap(LoxoneEndpoint.CONFIG_ID_USER_PROPERTY, TEST_CONFIG_ID));
+		expect(configDao.getConfig(TEST_CONFIG_ID)).andReturn(null);
+		expect(categoryDao.syncAll(eq(TEST_CONFIG_ID), EasyMock.<Collection<Category>> anyObject()))
+				.andReturn(0);
+		expect(controlDao.syncAll(eq(TEST_CONFIG_ID), EasyMock.<Collection<Control>> anyObject()))
+				.andReturn(0);
+		expect(roomDao.syncAll(eq(TEST_CONFIG_ID), EasyMock.<Collection<Room>> anyObject()))
+				.andReturn(0);
+
+		Capture<Config> configCapture = Capture.newInstance();
+		configDao.storeConfig(capture(configCapture));
+		Capture<StructureSnapshot> snapshotCapture = Capture.newInstance();
+		snapshotDao.storeSnapshot(capture(snapshotCapture));
+		eventAdmin.postEvent(EasyMock.anyObject(Event.class));
+
+		replayAll();
+		replay(snapshotDao);
+
+		TextFileStreamHandler.Stream stream = handler.openTextFileStream(header, session);
+		TextFileStreamHandler.Status status = stream.write(json, true);
+
+		verifyAll();
+		verify(snapshotDao);
+
+		assertEquals("Accepted", TextFileStreamHandler.Status.Accepted, status);
+		StructureSnapshot snapshot = snapshotCapture.getValue();
+		assertEquals("Snapshot config", TEST_CONFIG_ID, snapshot.getConfigId());
+		assertEquals("Snapshot date", configCapture.getValue().getLastModified(),
+				snapshot.getLastModified());
+		assertEquals("Snapshot categories", 11, snapshot.getCategories().size());
+		assertEquals("Snapshot controls", 37, snapshot.getControls().size());
+		assertEquals("Snapshot rooms", 4, snapshot.getRooms().size());
+	}
+
+	@Test
+	public void streamRejectsOtherFile() throws IOException {
+		String svg = "<svg xmlns=\"http://www.w3.org/2000/svg\"></svg>";
+		MessageHeader header = new MessageHeader(MessageType.BinaryFile, null, svg.length());
+
+		expect(session.getUserProperties()).andReturn(
+				Collections.singletonMap(LoxoneEndpoint.CONFIG_ID_USER_PROPERTY, TEST_CONFIG_ID));
+
+		replayAll();
+
+		TextFileStreamHandler.Stream stream = handler.openTextFileStream(header, session);
+		TextFileStreamHandler.Status status = stream.write(svg, true);
+
+		verifyAll();
+
+		assertEquals("Rejected", TextFileStreamHandler.Status.Rejected, status);
+	}
+
+	@Test
+	public void streamRejectsOtherJson() throws IOException {
+		String json = "{\"LL\":{\"control\":\"jdev/sps/io\",\"value\":\"1\",\"Code\":\"200\"}}";
+		MessageHeader header = new MessageHeader(MessageType.BinaryFile, null, json.length());
+
+		expect(session.getUserProperties()).andReturn(
+				Collections.singletonMap(LoxoneEndpoint.CONFIG_ID_USER_PROPERTY, TEST_CONFIG_ID));
+
+		replayAll();
+
+		TextFileStreamHandler.Stream stream = handler.openTextFileStream(header, session);
+		assertEquals("Undecided before first property", TextFileStreamHandler.Status.Undecided,
+				stream.write(json.substring(0, 1), false));
+		assertEquals("Rejected", TextFileStreamHandler.Status.Rejected,
+				stream.write(json.substring(1), true));
+
+		verifyAll();
+	}
+
+	@Test
+	public void noStreamWithoutConfigId() {
+		MessageHeader header = new MessageHeader(MessageType.BinaryFile, null, 0);
+		expect(session.getUserProperties()).andReturn(Collections.emptyMap());
+
+		replayAll();
+
+		assertNull("No stream", handler.openTextFileStream(header, session));
+
+		verifyAll();
+	}
+
 }
@@ -22,13 +22,16 @@
 
 package net.solarnetwork.node.loxone.protocol.ws.handler.test;
 
+import static org.easymock.EasyMock.capture;
 import static org.easymock.EasyMock.expect;
 import static org.easymock.EasyMock.replay;
 import static org.easymock.EasyMock.verify;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.Base64;
+import java.util.Collection;
 import java.util.Collections;
+import org.easymock.Capture;
 import org.easymock.EasyMock;
 import org.junit.Assert;
 import org.junit.Before;
@@ -36,6 +39,8 @@ import org.junit.Test;
 import org.osgi.service.event.EventAdmin;
 import org.springframework.util.FileCopyUtils;
 import jakarta.websocket.Session;
+import net.solarnetwork.node.loxone.dao.TextEventDao;
+import net.solarnetwork.node.loxone.domain.TextEvent;
 import net.solarnetwork.node.loxone.protocol.ws.LoxoneEndpoint;
 import net.solarnetwork.node.loxone.protocol.ws.MessageHeader;
 import net.solarnetwork.node.loxone.protocol.ws.MessageType;
@@ -46,7 +51,7 @@ import net.solarnetwork.service.StaticOptionalService;
  * Unit tests for the {@link TextEventBinaryFileHandler} class.
  * 
  * @author matt
- * @version 2.0
+ * @version 2.1
  */
 public class TextEventBinaryFileHandlerTests {
 
@@ -92,4 +97,36 @@ public class TextEventBinaryFileHandlerTests {
 		Assert.assertTrue("Handled", handled);
 	}
 
+	@Test
+	public void parseEventTableStoresChangedEvents() throws IOException {
+		byte[] data = FileCopyUtils.copyToByteArray(
+				Base64.getMimeDecoder().wrap(getClass().getResourceAsStream("text-events-01.b64")));
+		ByteBuffer buffer = ByteBuffer.wrap(data);
+		MessageHeader header = new MessageHeader(MessageType.EventTableTextStates, null, data.length);
+
+		TextEventDao eventDao = EasyMock.createMock(TextEventDao.class);
+		handler.setEventDao(eventDao);
+
+		// get Config ID from session
+		expect(session.getUserProperties()).andReturn(
+				Collections.singletonMap(LoxoneEndpoint.CONFIG_ID_USER_PROPERTY, TEST_CONFIG_ID));
+
+		// no texts changed, so nothing published
+		Capture<Collection<TextEvent>> storedCaptor = new Capture<>();
+		expect(eventDao.storeChangedEvents(capture(storedCaptor)))
+				.andReturn(Collections.<TextEvent> emptyList());
+
+		replay(session, eventAdmin, eventDao);
+
+		boolean handled = handler.handleDataMessage(header, session, buffer);
+
+		verify(session, eventAdmin, eventDao);
+
+		Assert.assertTrue("Handled", handled);
+		Assert.assertFalse("Parsed events stored", storedCaptor.getValue().isEmpty());
+		for ( TextEvent event : storedCaptor.getValue() ) {
+			Assert.assertEquals("Config ID", TEST_CONFIG_ID, event.getConfigId());
+		}
+	}
+
 }
@@ -30,11 +30,15 @@ import static org.easymock.EasyMock.verify;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.closeTo;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.notNullValue;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 import java.util.UUID;
 import org.easymock.Capture;
 import org.easymock.CaptureType;
@@ -47,6 +51,7 @@ import org.springframework.util.FileCopyUtils;
 import jakarta.websocket.Session;
 import net.solarnetwork.node.loxone.dao.ValueEventDao;
 import net.solarnetwork.node.loxone.domain.ValueEvent;
+import net.solarnetwork.node.loxone.domain.ValueEventStateTable;
 import net.solarnetwork.node.loxone.protocol.ws.LoxoneEndpoint;
 import net.solarnetwork.node.loxone.protocol.ws.MessageHeader;
 import net.solarnetwork.node.loxone.protocol.ws.MessageType;
@@ -57,7 +62,7 @@ import net.solarnetwork.service.StaticOptionalService;
  * Unit tests for the {@link ValueEventBinaryFileHandler} class.
  * 
  * @author matt
- * @version 2.0
+ * @version 2.2
  */
 public class ValueEventBinaryFileHandlerTests {
 
@@ -97,13 +102,13 @@ public class ValueEventBinaryFileHandlerTests {
 		expect(session.getUserProperties()).andReturn(
 				Collections.singletonMap(LoxoneEndpoint.CONFIG_ID_USER_PROPERTY, TEST_CONFIG_ID));
 
-		// should query for existing data, to only store updated values
-		expect(valueEventDao.loadEvent(EasyMock.anyObject(Long.class), EasyMock.anyObject(UUID.class)))
-				.andReturn(null).times(111);
+		// should use state table for existing data, to only store updated values
+		ValueEventStateTable stateTable = new ValueEventStateTable(TEST_CONFIG_ID);
+		expect(valueEventDao.getStateTable(TEST_CONFIG_ID)).andReturn(stateTable);
 
-		Capture<ValueEvent> valueEventCapture = Capture.newInstance(CaptureType.ALL);
-		valueEventDao.storeEvent(capture(valueEventCapture));
-		expectLastCall().times(111);
+		// should store all updated values in a single batch
+		Capture<Collection<ValueEvent>> valueEventCapture = Capture.newInstance();
+		valueEventDao.storeEvents(capture(valueEventCapture));
 
 		replay(session, eventAdmin, valueEventDao);
 
@@ -118,9 +123,11 @@ public class ValueEventBinaryFileHandlerTests {
 				{ "0c89ebac-0025-02d0-ffff-a1b98ee6c71d", 376.0 },
 				{ "0c89ebac-0026-02d3-ffff-a1b98ee6c71d", 1093.0 }, };
 
+		List<ValueEvent> stored = new ArrayList<>(valueEventCapture.getValue());
+		assertThat("Stored value count", stored, hasSize(111));
 		int i = 0;
 		for ( Object[] eventData : expectedEventData ) {
-			ValueEvent event = valueEventCapture.getValues().get(i++);
+			ValueEvent event = stored.get(i++);
 			assertThat("ValueEvent created date " + i, event.getCreated(), notNullValue());
 			assertThat("ValueEvent config ID " + i, event.getConfigId(), equalTo(TEST_CONFIG_ID));
 			assertThat("ValueEvent UUID " + i, event.getUuid(),
@@ -142,18 +149,19 @@ public class ValueEventBinaryFileHandlerTests {
 						Collections.singletonMap(LoxoneEndpoint.CONFIG_ID_USER_PROPERTY, TEST_CONFIG_ID))
 				.times(2);
 
-		// should first query for existing data but not find value
-		expect(valueEventDao.loadEvent(EasyMock.anyObject(Long.class), EasyMock.anyObject(UUID.class)))
-				.andReturn(null);
+		// should use state table for existing data, which first will not have value
+		final ValueEventStateTable stateTable = new ValueEventStateTable(TEST_CONFIG_ID);
+		expect(valueEventDao.getStateTable(TEST_CONFIG_ID)).andReturn(stateTable).times(2);
 
-		ValueEvent seenValueEvent = new ValueEvent(
-				UUID.fromString("0c37ae7e-016c-2e06-ffff-6d9b8f6a24c4"), TEST_CONFIG_ID, 18.375);
-		expect(valueEventDao.loadEvent(EasyMock.anyObject(Long.class), EasyMock.anyObject(UUID.class)))
-				.andReturn(seenValueEvent);
-
-		Capture<ValueEvent> valueEventCapture = Capture.newInstance(CaptureType.ALL);
-		valueEventDao.storeEvent(capture(valueEventCapture));
-		expectLastCall().times(1);
+		// storing updates the state table, as the DAO does
+		Capture<Collection<ValueEvent>> valueEventCapture = Capture.newInstance();
+		valueEventDao.storeEvents(capture(valueEventCapture));
+		expectLastCall().andAnswer(() -> {
+			for ( ValueEvent event : valueEventCapture.getValue() ) {
+				stateTable.put(event);
+			}
+			return null;
+		});
 
 		replay(session, eventAdmin, valueEventDao);
 
@@ -167,7 +175,8 @@ public class ValueEventBinaryFileHandlerTests {
 
 		verify(session, eventAdmin, valueEventDao);
 
-		ValueEvent ve = valueEventCapture.getValue();
+		assertThat("Stored value count", valueEventCapture.getValue(), hasSize(1));
+		ValueEvent ve = valueEventCapture.getValue().iterator().next();
 		assertThat("UUID", ve.getUuid(),
 				equalTo(UUID.fromString("0c37ae7e-016c-2e06-ffff-6d9b8f6a24c4")));
 		assertThat("Value", ve.getValue(), closeTo(18.375, 0.0001));
@@ -189,8 +198,8 @@ public class ValueEventBinaryFileHandlerTests {
 
 		// should NOT query for existing data
 
-		Capture<ValueEvent> valueEventCapture = Capture.newInstance(CaptureType.ALL);
-		valueEventDao.storeEvent(capture(valueEventCapture));
+		Capture<Collection<ValueEvent>> valueEventCapture = Capture.newInstance(CaptureType.ALL);
+		valueEventDao.storeEvents(capture(valueEventCapture));
 		expectLastCall().times(2);
 
 		replay(session, eventAdmin, valueEventDao);
@@ -206,7 +215,9 @@ public class ValueEventBinaryFileHandlerTests {
 		verify(session, eventAdmin, valueEventDao);
 
 		for ( int i = 0; i < 2; i++ ) {
-			ValueEvent ve = valueEventCapture.getValues().get(i);
+			assertThat("Stored value count " + (i + 1), valueEventCapture.getValues().get(i),
+					hasSize(1));
+			ValueEvent ve = valueEventCapture.getValues().get(i).iterator().next();
 			assertThat("UUID " + (i + 1), ve.getUuid(),
 					equalTo(UUID.fromString("0c37ae7e-016c-2e06-ffff-6d9b8f6a24c4")));
 			assertThat("Value " + (i + 1), ve.getValue(), closeTo(18.375, 0.0001));
@@ -0,0 +1,158 @@
+/* ==================================================================
+ * BinaryFileHandlerRoutesTests.java - 18/10/2026 4:38:20 PM
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.node.loxone.protocol.ws.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import org.junit.Test;
+import jakarta.websocket.Session;
+import net.solarnetwork.node.loxone.protocol.ws.BinaryFileHandler;
+import net.solarnetwork.node.loxone.protocol.ws.BinaryFileHandlerRoutes;
+import net.solarnetwork.node.loxone.protocol.ws.MessageHeader;
+import net.solarnetwork.node.loxone.protocol.ws.MessageType;
+
+/**
+ * Unit tests for the {@link BinaryFileHandlerRoutes} class.
+ *
+ * @author matt
+ * @version 1.0
+ */
+public class BinaryFileHandlerRoutesTests {
+
+	private static class TestHandler implements BinaryFileHandler {
+
+		private final Set<MessageType> types;
+		private final boolean supports;
+		private int supportsCount;
+
+		private TestHandler(Set<MessageType> types, boolean supports) {
+			super();
+			this.types = types;
+			this.supports = supports;
+		}
+
+		@Override
+		public boolean supportsTextMessage(MessageHeader header, Reader reader, int limit) {
+			return false;
+		}
+
+		@Override
+		public boolean handleTextMessage(MessageHeader header, Session session, Reader reader) {
+			return false;
+		}
+
+		@Override
+		public boolean supportsDataMessage(MessageHeader header, ByteBuffer buffer) {
+			supportsCount++;
+			// sniff some content, like the icon handler does
+			while ( buffer.hasRemaining() ) {
+				buffer.get();
+			}
+			return supports;
+		}
+
+		@Override
+		public boolean handleDataMessage(MessageHeader header, Session session, ByteBuffer buffer) {
+			return false;
+		}
+
+		@Override
+		public Set<MessageType> getDataMessageTypes() {
+			return types;
+		}
+
+	}
+
+	private final TestHandler valueHandler = new TestHandler(
+			EnumSet.of(MessageType.EventTableValueStates), true);
+	private final TestHandler textHandler = new TestHandler(
+			EnumSet.of(MessageType.EventTableTextStates), true);
+
+	private BinaryFileHandlerRoutes routes(TestHandler fileHandler) {
+		return new BinaryFileHandlerRoutes(
+				new BinaryFileHandler[] { fileHandler, valueHandler, textHandler });
+	}
+
+	@Test
+	public void routeDeclaredType() {
+		// GIVEN
+		TestHandler fileHandler = new TestHandler(Collections.emptySet(), true);
+		BinaryFileHandlerRoutes routes = routes(fileHandler);
+
+		// WHEN
+		MessageHeader header = new MessageHeader(MessageType.EventTableValueStates, null, 24);
+		BinaryFileHandler result = routes.handlerFor(header, ByteBuffer.allocate(24));
+
+		// THEN
+		assertSame("Routed by type", valueHandler, result);
+		assertEquals("No content inspection", 0,
+				fileHandler.supportsCount + valueHandler.supportsCount);
+		assertEquals("Declared handlers", 1,
+				routes.handlersFor(MessageType.EventTableTextStates).length);
+	}
+
+	@Test
+	public void inspectUndeclaredType() {
+		// GIVEN
+		TestHandler fileHandler = new TestHandler(Collections.emptySet(), true);
+		BinaryFileHandlerRoutes routes = routes(fileHandler);
+
+		// WHEN
+		MessageHeader header = new MessageHeader(MessageType.BinaryFile, null, 8);
+		ByteBuffer buf = ByteBuffer.allocate(8);
+		BinaryFileHandler result = routes.handlerFor(header, buf);
+
+		// THEN
+		assertSame("Inspected handler", fileHandler, result);
+		assertEquals("Inspected once", 1, fileHandler.supportsCount);
+		assertEquals("Buffer position restored", 0, buf.position());
+	}
+
+	@Test
+	public void noHandler() {
+		// GIVEN
+		TestHandler fileHandler = new TestHandler(Collections.emptySet(), false);
+		BinaryFileHandlerRoutes routes = routes(fileHandler);
+
+		// WHEN
+		MessageHeader header = new MessageHeader(MessageType.EventTableDaytimerStates, null, 0);
+		BinaryFileHandler result = routes.handlerFor(header, ByteBuffer.allocate(0));
+
+		// THEN
+		assertNull("No handler", result);
+	}
+
+	@Test
+	public void noHandlers() {
+		BinaryFileHandlerRoutes routes = new BinaryFileHandlerRoutes(null);
+		MessageHeader header = new MessageHeader(MessageType.EventTableValueStates, null, 0);
+		assertNull("No handler", routes.handlerFor(header, ByteBuffer.allocate(0)));
+	}
+
+}
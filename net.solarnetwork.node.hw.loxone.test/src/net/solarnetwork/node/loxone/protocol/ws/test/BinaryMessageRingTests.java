@@ -0,0 +1,170 @@
+/* ==================================================================
+ * BinaryMessageRingTests.java - 18/10/2026 2:31:52 PM
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.node.loxone.protocol.ws.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import net.solarnetwork.node.loxone.protocol.ws.BackpressureMode;
+import net.solarnetwork.node.loxone.protocol.ws.BinaryMessageRing;
+import net.solarnetwork.node.loxone.protocol.ws.EventTableCursor;
+import net.solarnetwork.node.loxone.protocol.ws.MessageHeader;
+import net.solarnetwork.node.loxone.protocol.ws.MessageType;
+
+/**
+ * Unit tests for the {@link BinaryMessageRing} class.
+ *
+ * @author matt
+ * @version 1.0
+ */
+public class BinaryMessageRingTests {
+
+	private static final UUID TEST_UUID_1 = UUID.fromString("0c89ebac-0021-02be-ffff-a1b98ee6c71d");
+	private static final UUID TEST_UUID_2 = UUID.fromString("0c37ae7e-016c-2e06-ffff-6d9b8f6a24c4");
+	private static final UUID TEST_UUID_3 = UUID.fromString("0c89ebac-0025-02d0-ffff-a1b98ee6c71d");
+
+	private static BinaryMessageRing.Message valueStates(Object... uuidValuePairs) {
+		ByteBuffer buf = ByteBuffer.allocate(uuidValuePairs.length / 2 * 24);
+		for ( int i = 0; i < uuidValuePairs.length; i += 2 ) {
+			UUID uuid = (UUID) uuidValuePairs[i];
+			long hi = uuid.getMostSignificantBits();
+			buf.order(ByteOrder.LITTLE_ENDIAN);
+			buf.putInt((int) (hi >>> 32));
+			buf.putShort((short) (hi >>> 16));
+			buf.putShort((short) hi);
+			buf.order(ByteOrder.BIG_ENDIAN);
+			buf.putLong(uuid.getLeastSignificantBits());
+			buf.order(ByteOrder.LITTLE_ENDIAN);
+			buf.putDouble((Double) uuidValuePairs[i + 1]);
+		}
+		buf.flip();
+		return new BinaryMessageRing.Message(
+				new MessageHeader(MessageType.EventTableValueStates, null, buf.limit()), buf, null);
+	}
+
+	private static BinaryMessageRing.Message message(MessageType type) {
+		return new BinaryMessageRing.Message(new MessageHeader(type, null, 0), ByteBuffer.allocate(0),
+				null);
+	}
+
+	private static Map<UUID, Double> decode(BinaryMessageRing.Message m) {
+		Map<UUID, Double> result = new LinkedHashMap<>();
+		EventTableCursor cursor = new EventTableCursor().reset(m.getBuffer(),
+				(int) m.getHeader().getLength());
+		while ( cursor.next() ) {
+			result.put(cursor.uuid(), cursor.value());
+		}
+		return result;
+	}
+
+	@Test
+	public void fifo() throws InterruptedException {
+		BinaryMessageRing ring = new BinaryMessageRing(3, BackpressureMode.Block);
+		BinaryMessageRing.Message m1 = message(MessageType.EventTableTextStates);
+		BinaryMessageRing.Message m2 = message(MessageType.EventTableDaytimerStates);
+		BinaryMessageRing.Message m3 = message(MessageType.EventTableWeatherStates);
+		assertTrue(ring.put(m1));
+		assertTrue(ring.put(m2));
+		assertSame("First out", m1, ring.poll());
+		assertTrue(ring.put(m3));
+		assertEquals("Queued count", 2, ring.size());
+		assertSame("Second out", m2, ring.poll());
+		assertSame("Third out", m3, ring.poll());
+		assertNull("Empty", ring.poll());
+	}
+
+	@Test
+	public void blockWhenFull() throws Exception {
+		final BinaryMessageRing ring = new BinaryMessageRing(1, BackpressureMode.Block);
+		ring.put(message(MessageType.EventTableTextStates));
+
+		final CountDownLatch added = new CountDownLatch(1);
+		Thread producer = new Thread(() -> {
+			try {
+				ring.put(message(MessageType.EventTableTextStates));
+				added.countDown();
+			} catch ( InterruptedException e ) {
+				// ignore
+			}
+		});
+		producer.start();
+		assertFalse("Producer blocked", added.await(200, TimeUnit.MILLISECONDS));
+
+		ring.poll();
+		assertTrue("Producer unblocked", added.await(2, TimeUnit.SECONDS));
+		assertEquals("Blocked count", 1L, ring.getBlockedCount());
+		producer.join(1000);
+	}
+
+	@Test
+	public void coalesceValueStates() throws InterruptedException {
+		BinaryMessageRing ring = new BinaryMessageRing(2, BackpressureMode.Coalesce);
+		ring.put(valueStates(TEST_UUID_1, 1.0, TEST_UUID_2, 2.0));
+		ring.put(message(MessageType.EventTableTextStates));
+
+		boolean added = ring.put(valueStates(TEST_UUID_2, 22.0, TEST_UUID_3, 3.0));
+
+		assertFalse("Merged into queued message", added);
+		assertEquals("Queued count", 2, ring.size());
+		assertEquals("Coalesced count", 1L, ring.getCoalescedCount());
+
+		Map<UUID, Double> values = decode(ring.poll());
+		assertEquals("Merged state count", 3, values.size());
+		assertEquals("Older state kept", 1.0, values.get(TEST_UUID_1), 0.0);
+		assertEquals("Newer state replaced older", 22.0, values.get(TEST_UUID_2), 0.0);
+		assertEquals("Newer state added", 3.0, values.get(TEST_UUID_3), 0.0);
+		assertEquals("Text message remains", MessageType.EventTableTextStates,
+				ring.poll().getHeader().getType());
+	}
+
+	@Test
+	public void dropOldestTextStates() throws InterruptedException {
+		BinaryMessageRing ring = new BinaryMessageRing(3, BackpressureMode.DropOldest);
+		BinaryMessageRing.Message m1 = message(MessageType.EventTableDaytimerStates);
+		BinaryMessageRing.Message m2 = message(MessageType.EventTableTextStates);
+		BinaryMessageRing.Message m3 = message(MessageType.EventTableTextStates);
+		BinaryMessageRing.Message m4 = valueStates(TEST_UUID_1, 1.0);
+		ring.put(m1);
+		ring.put(m2);
+		ring.put(m3);
+
+		assertTrue(ring.put(m4));
+
+		assertEquals("Dropped count", 1L, ring.getDroppedCount());
+		assertSame("Non-text message kept", m1, ring.poll());
+		assertSame("Newer text message kept", m3, ring.poll());
+		assertSame("New message added", m4, ring.poll());
+		assertNull("Empty", ring.poll());
+	}
+
+}
@@ -0,0 +1,314 @@
+/* ==================================================================
+ * CoalescingEventPublisherTests.java - 19/10/2026 7:02:44 PM
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.node.loxone.protocol.ws.test;
+
+import static org.easymock.EasyMock.capture;
+import static org.easymock.EasyMock.eq;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.expectLastCall;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import org.easymock.Capture;
+import org.easymock.EasyMock;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.messaging.simp.user.SimpSession;
+import org.springframework.messaging.simp.user.SimpSubscription;
+import org.springframework.messaging.simp.user.SimpSubscriptionMatcher;
+import org.springframework.messaging.simp.user.SimpUser;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import net.solarnetwork.domain.Result;
+import net.solarnetwork.node.loxone.dao.ControlDao;
+import net.solarnetwork.node.loxone.domain.Config;
+import net.solarnetwork.node.loxone.domain.ValueEvent;
+import net.solarnetwork.node.loxone.domain.ValueEventColumns;
+import net.solarnetwork.node.loxone.protocol.ws.CoalescingEventPublisher;
+import net.solarnetwork.node.loxone.protocol.ws.LoxoneEvents;
+import net.solarnetwork.node.loxone.util.UUIDCodec;
+import net.solarnetwork.service.StaticOptionalService;
+
+/**
+ * Test cases for the {@link CoalescingEventPublisher} class.
+ *
+ * @author matt
+ * @version 1.2
+ */
+public class CoalescingEventPublisherTests {
+
+	private static final Long TEST_CONFIG_ID = 123L;
+	private static final String TEST_DEST = String.format(LoxoneEvents.VALUE_EVENT_MESSAGE_TOPIC,
+			Config.idToExternalForm(TEST_CONFIG_ID));
+	private static final String TEST_COMPACT_DEST = String.format(
+			LoxoneEvents.VALUE_EVENT_COMPACT_MESSAGE_TOPIC, Config.idToExternalForm(TEST_CONFIG_ID));
+
+	private SimpMessageSendingOperations ops;
+	private TestUserRegistry registry;
+	private CoalescingEventPublisher publisher;
+
+	/**
+	 * A registry with one subscription per configured destination.
+	 */
+	private static final class TestUserRegistry implements SimpUserRegistry {
+
+		private final Set<String> destinations = new HashSet<>();
+
+		@Override
+		public SimpUser getUser(String userName) {
+			return null;
+		}
+
+		@Override
+		public Set<SimpUser> getUsers() {
+			return new HashSet<>();
+		}
+
+		@Override
+		public int getUserCount() {
+			return 0;
+		}
+
+		@Override
+		public Set<SimpSubscription> findSubscriptions(SimpSubscriptionMatcher matcher) {
+			Set<SimpSubscription> result = new LinkedHashSet<>();
+			for ( String dest : destinations ) {
+				SimpSubscription sub = new SimpSubscription() {
+
+					@Override
+					public String getId() {
+						return dest;
+					}
+
+					@Override
+					public SimpSession getSession() {
+						return null;
+					}
+
+					@Override
+					public String getDestination() {
+						return dest;
+					}
+				};
+				if ( matcher.match(sub) ) {
+					result.add(sub);
+				}
+			}
+			return result;
+		}
+
+	}
+
+	@Before
+	public void setup() {
+		ops = EasyMock.createMock(SimpMessageSendingOperations.class);
+		registry = new TestUserRegistry();
+		publisher = new CoalescingEventPublisher(LoxoneEvents.VALUE_EVENT_MESSAGE_TOPIC);
+		publisher.setMessageSendingOps(new StaticOptionalService<>(ops));
+		publisher.setUserRegistry(new StaticOptionalService<>(registry));
+	}
+
+	@After
+	public void teardown() {
+		publisher.shutdown();
+		verify(ops);
+	}
+
+	private static ValueEvent event(UUID uuid, double value) {
+		return new ValueEvent(uuid, TEST_CONFIG_ID, Instant.now(), value);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<ValueEvent> sentEvents(Capture<Object> capture) {
+		Assert.assertTrue("Sent a Result", capture.getValue() instanceof Result);
+		return (List<ValueEvent>) ((Result<?>) capture.getValue()).getData();
+	}
+
+	@Test
+	public void coalesceLatestPerUuid() {
+		registry.destinations.add(TEST_DEST);
+		Capture<Object> sent = new Capture<>();
+		ops.convertAndSend(eq(TEST_DEST), capture(sent));
+		replay(ops);
+
+		UUID uuid1 = UUID.randomUUID();
+		UUID uuid2 = UUID.randomUUID();
+		ValueEvent latest = event(uuid1, 3.0);
+		publisher.offer(TEST_CONFIG_ID, Arrays.asList(event(uuid1, 1.0), event(uuid2, 2.0)));
+		publisher.offer(TEST_CONFIG_ID, Arrays.asList(latest));
+		publisher.flush();
+
+		List<ValueEvent> events = sentEvents(sent);
+		Assert.assertEquals("Coalesced event count", 2, events.size());
+		Assert.assertSame("Latest event sent", latest, events.get(0));
+		Assert.assertEquals("Other event sent", uuid2, events.get(1).getUuid());
+
+		// nothing more to send
+		publisher.flush();
+	}
+
+	@Test
+	public void noSubscribers() {
+		replay(ops);
+
+		publisher.offer(TEST_CONFIG_ID, Arrays.asList(event(UUID.randomUUID(), 1.0)));
+		publisher.flush();
+
+		// topic now known to be unsubscribed, so offers are discarded
+		publisher.offer(TEST_CONFIG_ID, Arrays.asList(event(UUID.randomUUID(), 2.0)));
+		publisher.flush();
+	}
+
+	@Test
+	public void subscriberAdded() {
+		Capture<Object> sent = new Capture<>();
+		ops.convertAndSend(eq(TEST_DEST), capture(sent));
+		replay(ops);
+
+		publisher.offer(TEST_CONFIG_ID, Arrays.asList(event(UUID.randomUUID(), 1.0)));
+		publisher.flush();
+
+		registry.destinations.add(TEST_DEST);
+		publisher.offer(TEST_CONFIG_ID, Arrays.asList(event(UUID.randomUUID(), 2.0)));
+		publisher.flush();
+
+		// first flush found the subscriber, so now offers are merged
+		ValueEvent event = event(UUID.randomUUID(), 3.0);
+		publisher.offer(TEST_CONFIG_ID, Arrays.asList(event));
+		publisher.flush();
+
+		List<ValueEvent> events = sentEvents(sent);
+		Assert.assertEquals("Sent event count", 1, events.size());
+		Assert.assertSame("Sent event", event, events.get(0));
+	}
+
+	@Test
+	public void noUserRegistry() {
+		publisher.setUserRegistry(null);
+		Capture<Object> sent = new Capture<>();
+		ops.convertAndSend(eq(TEST_DEST), capture(sent));
+		replay(ops);
+
+		ValueEvent event = event(UUID.randomUUID(), 1.0);
+		publisher.offer(TEST_CONFIG_ID, Arrays.asList(event));
+		publisher.flush();
+
+		Assert.assertEquals("Sent events", Arrays.asList(event), sentEvents(sent));
+	}
+
+	@Test
+	public void shutdownSendsPending() {
+		registry.destinations.add(TEST_DEST);
+		publisher.setMaxRate(0.01);
+		Capture<Object> sent = new Capture<>();
+		ops.convertAndSend(eq(TEST_DEST), capture(sent));
+		expectLastCall().once();
+		replay(ops);
+
+		publisher.startup();
+		ValueEvent event = event(UUID.randomUUID(), 1.0);
+		publisher.offer(TEST_CONFIG_ID, Arrays.asList(event));
+		publisher.shutdown();
+
+		Assert.assertEquals("Sent events", Arrays.asList(event), sentEvents(sent));
+	}
+
+	@Test
+	public void compactSubscriber() {
+		publisher.setCompactTopicTemplate(LoxoneEvents.VALUE_EVENT_COMPACT_MESSAGE_TOPIC);
+		registry.destinations.add(TEST_COMPACT_DEST);
+		Capture<Object> sent = new Capture<>();
+		ops.convertAndSend(eq(TEST_COMPACT_DEST), capture(sent));
+		replay(ops);
+
+		UUID uuid = UUID.randomUUID();
+		publisher.offer(TEST_CONFIG_ID, Arrays.asList(event(uuid, 1.0), event(uuid, 2.0)));
+		publisher.flush();
+
+		Assert.assertTrue("Sent a Result", sent.getValue() instanceof Result);
+		Object data = ((Result<?>) sent.getValue()).getData();
+		Assert.assertTrue("Sent compact encoding", data instanceof ValueEventColumns);
+		ValueEventColumns cols = (ValueEventColumns) data;
+		Assert.assertEquals("Coalesced event count", 1, cols.size());
+		Assert.assertArrayEquals("Latest value", new double[] { 2.0 }, cols.getValues(), 0.0);
+	}
+
+	@Test
+	public void compactAndFullSubscribers() {
+		publisher.setCompactTopicTemplate(LoxoneEvents.VALUE_EVENT_COMPACT_MESSAGE_TOPIC);
+		registry.destinations.add(TEST_DEST);
+		registry.destinations.add(TEST_COMPACT_DEST);
+		Capture<Object> sent = new Capture<>();
+		Capture<Object> sentCompact = new Capture<>();
+		ops.convertAndSend(eq(TEST_DEST), capture(sent));
+		ops.convertAndSend(eq(TEST_COMPACT_DEST), capture(sentCompact));
+		replay(ops);
+
+		ValueEvent event = event(UUID.randomUUID(), 1.0);
+		publisher.offer(TEST_CONFIG_ID, Arrays.asList(event));
+		publisher.flush();
+
+		Assert.assertEquals("Sent events", Arrays.asList(event), sentEvents(sent));
+		Assert.assertTrue("Sent compact encoding",
+				((Result<?>) sentCompact.getValue()).getData() instanceof ValueEventColumns);
+	}
+
+	@Test
+	public void filteredSubscriber() {
+		ControlDao controlDao = EasyMock.createMock(ControlDao.class);
+		publisher.setControlDao(controlDao);
+		UUID uuid = UUID.randomUUID();
+		expect(controlDao.load(TEST_CONFIG_ID, uuid)).andReturn(null);
+		final String filterDest = TEST_DEST + "/controls/" + UUIDCodec.encode(uuid);
+		registry.destinations.add(filterDest);
+		Capture<Object> sent = new Capture<>();
+		ops.convertAndSend(eq(filterDest), capture(sent));
+		replay(ops, controlDao);
+
+		// first flush discovers the filter
+		publisher.offer(TEST_CONFIG_ID, Arrays.asList(event(UUID.randomUUID(), 1.0)));
+		publisher.flush();
+
+		ValueEvent event = event(uuid, 2.0);
+		publisher.offer(TEST_CONFIG_ID, Arrays.asList(event(UUID.randomUUID(), 1.0), event));
+		publisher.flush();
+
+		Assert.assertEquals("Sent only filtered events", Arrays.asList(event), sentEvents(sent));
+		verify(controlDao);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void invalidMaxRate() {
+		replay(ops);
+		publisher.setMaxRate(0);
+	}
+
+}
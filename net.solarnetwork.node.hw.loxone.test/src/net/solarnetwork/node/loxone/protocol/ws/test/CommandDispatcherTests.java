@@ -0,0 +1,165 @@
+/* ==================================================================
+ * CommandDispatcherTests.java - 18/10/2026 5:52:18 PM
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.node.loxone.protocol.ws.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import org.junit.Test;
+import com.fasterxml.jackson.databind.JsonNode;
+import jakarta.websocket.Session;
+import net.solarnetwork.node.loxone.protocol.ws.CommandDispatcher;
+import net.solarnetwork.node.loxone.protocol.ws.CommandHandler;
+import net.solarnetwork.node.loxone.protocol.ws.CommandType;
+import net.solarnetwork.node.loxone.protocol.ws.MessageHeader;
+
+/**
+ * Unit tests for the {@link CommandDispatcher} class.
+ *
+ * @author matt
+ * @version 1.1
+ */
+public class CommandDispatcherTests {
+
+	private static final String[] CONTROL_VALUES = new String[] { "jdev/sys/getkey",
+			"jdev/sys/getkey2/admin", "dev/sys/getkey2/admin", "authenticate/abc", "authenticate",
+			"Auth", "jdev/sys/keyexchange/ABCD", "jdev/sys/gettoken/hash/admin/2/uuid/info",
+			"authwithtoken/hash/admin", "jdev/sys/refreshtoken/hash/admin",
+			"dev/sys/killtoken/hash/admin", "jdev/sys/enc/abc%2Bdef", "jdev/sps/LoxAPPversion3",
+			"dev/sps/LoxAPPversion3", "dev/sps/LoxAPPversion3/x", "data/LoxAPP3.json",
+			"jdev/sps/enablebinstatusupdate", "00000000-0000-0020-2000000000000000",
+			"0C89EBAC-0021-02BE-FFFFA1B98EE6C71D", "jdev/sps/io", "jdev/sps/io/",
+			"jdev/sps/io/0c89ebac-0021-02be-ffffa1b98ee6c71d",
+			"dev/sps/io/0c89ebac-0021-02be-ffffa1b98ee6c71d/on", "keepalive", "jdev/sys/enc/a\nb",
+			"jdev/sys/unknown", "", "j", "jdev/sps/iox" };
+
+	private static CommandType linearScan(String value) {
+		for ( CommandType t : CommandType.values() ) {
+			if ( t.getControlValue() != null && t.getControlValue().equals(value) ) {
+				return t;
+			}
+			Matcher m = t.getMatcher(value);
+			if ( m != null && m.matches() ) {
+				return t;
+			}
+		}
+		return null;
+	}
+
+	private static class TestHandler implements CommandHandler {
+
+		private final CommandType command;
+		private CommandType handled;
+
+		private TestHandler(CommandType command) {
+			super();
+			this.command = command;
+		}
+
+		@Override
+		public boolean supportsCommand(CommandType command) {
+			return (this.command == null || this.command == command);
+		}
+
+		@Override
+		public boolean handleCommand(CommandType command, MessageHeader header, Session session,
+				JsonNode json) {
+			handled = command;
+			return true;
+		}
+
+		@Override
+		public Future<?> sendCommand(CommandType command, Session session, Object... args) {
+			return null;
+		}
+
+	}
+
+	@Test
+	public void sameAsLinearScan() {
+		for ( String value : CONTROL_VALUES ) {
+			CommandDispatcher.Match m = CommandDispatcher.match(value);
+			assertEquals("Command for [" + value + "]", linearScan(value),
+					(m != null ? m.getCommand() : null));
+		}
+	}
+
+	@Test
+	public void nullValue() {
+		assertNull("Null value", CommandDispatcher.match(null));
+	}
+
+	@Test
+	public void ioControlGroups() {
+		CommandDispatcher.Match m = CommandDispatcher
+				.match("jdev/sps/io/0c89ebac-0021-02be-ffffa1b98ee6c71d/on");
+		assertEquals("Command", CommandType.IoControl, m.getCommand());
+		assertEquals("Group count", 2, m.getGroupCount());
+		assertEquals("UUID group", "0c89ebac-0021-02be-ffffa1b98ee6c71d", m.group(1));
+		assertEquals("Value group", "on", m.group(2));
+
+		m = CommandDispatcher.match("dev/sps/io/0c89ebac-0021-02be-ffffa1b98ee6c71d");
+		assertEquals("Command", CommandType.IoControl, m.getCommand());
+		assertNull("Missing value group", m.group(2));
+	}
+
+	@Test
+	public void prefixCommandHasNoGroups() {
+		CommandDispatcher.Match m = CommandDispatcher.match("jdev/sys/enc/abc");
+		assertEquals("Command", CommandType.EncryptedCommand, m.getCommand());
+		assertEquals("Group count", 0, m.getGroupCount());
+	}
+
+	@Test
+	public void handlers() {
+		TestHandler ioHandler = new TestHandler(CommandType.IoControl);
+		TestHandler anyHandler = new TestHandler(null);
+		CommandDispatcher d = new CommandDispatcher(ioHandler, anyHandler);
+
+		CommandDispatcher.Match m = d.dispatch("jdev/sps/io/0c89ebac-0021-02be-ffffa1b98ee6c71d");
+		assertSame("First supporting handler", ioHandler, m.getHandler());
+		assertSame("Fallback handler", anyHandler, d.dispatch("keepalive").getHandler());
+		assertSame("Handler by command", anyHandler, d.handlerFor(CommandType.Auth));
+		assertNull("Unknown value", d.dispatch("jdev/sys/unknown"));
+	}
+
+	@Test
+	public void handleMatch() throws Exception {
+		TestHandler handler = new TestHandler(null);
+		CommandDispatcher.Match m = new CommandDispatcher(handler).dispatch("keepalive");
+		assertTrue("Handled", m.getHandler().handleCommand(m, null, null, null));
+		assertEquals("Handled with matched command", CommandType.KeepAlive, handler.handled);
+	}
+
+	@Test
+	public void noHandlers() {
+		CommandDispatcher d = new CommandDispatcher();
+		CommandDispatcher.Match m = d.dispatch("keepalive");
+		assertEquals("Command", CommandType.KeepAlive, m.getCommand());
+		assertNull("No handler", m.getHandler());
+	}
+
+}
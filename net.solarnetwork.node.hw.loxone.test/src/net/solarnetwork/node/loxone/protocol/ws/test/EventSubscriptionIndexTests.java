@@ -0,0 +1,230 @@
+/* ==================================================================
+ * EventSubscriptionIndexTests.java - 19/10/2026 9:12:48 PM
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.node.loxone.protocol.ws.test;
+
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.isNull;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.easymock.EasyMock;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import net.solarnetwork.node.loxone.dao.ControlDao;
+import net.solarnetwork.node.loxone.domain.Control;
+import net.solarnetwork.node.loxone.domain.EventEntity;
+import net.solarnetwork.node.loxone.domain.ValueEvent;
+import net.solarnetwork.node.loxone.protocol.ws.EventSubscriptionIndex;
+import net.solarnetwork.node.loxone.util.UUIDCodec;
+
+/**
+ * Test cases for the {@link EventSubscriptionIndex} class.
+ *
+ * @author matt
+ * @version 1.1
+ */
+public class EventSubscriptionIndexTests {
+
+	private static final Long TEST_CONFIG_ID = 123L;
+	private static final String TEST_DEST = "/topic/7b/events/values";
+	private static final UUID TEST_ROOM = UUID.randomUUID();
+	private static final UUID TEST_OTHER_ROOM = UUID.randomUUID();
+
+	private ControlDao controlDao;
+	private EventSubscriptionIndex index;
+
+	@Before
+	public void setup() {
+		controlDao = EasyMock.createMock(ControlDao.class);
+		index = new EventSubscriptionIndex(TEST_CONFIG_ID, TEST_DEST, controlDao);
+	}
+
+	@After
+	public void teardown() {
+		verify(controlDao);
+	}
+
+	private static Control control(UUID room, UUID... states) {
+		Control c = new Control(UUID.randomUUID(), TEST_CONFIG_ID);
+		c.setRoom(room);
+		Map<String, UUID> map = new LinkedHashMap<>();
+		for ( int i = 0; i < states.length; i++ ) {
+			map.put("s" + i, states[i]);
+		}
+		c.setStates(map);
+		return c;
+	}
+
+	private static ValueEvent event(UUID uuid) {
+		return new ValueEvent(uuid, TEST_CONFIG_ID, 1.0);
+	}
+
+	@Test
+	public void filterDestination() {
+		replay(controlDao);
+		Assert.assertTrue("Room", index.isFilterDestination(TEST_DEST + "/room/abc"));
+		Assert.assertTrue("Category", index.isFilterDestination(TEST_DEST + "/category/abc"));
+		Assert.assertTrue("Controls", index.isFilterDestination(TEST_DEST + "/controls/abc"));
+		Assert.assertFalse("Unfiltered", index.isFilterDestination(TEST_DEST));
+		Assert.assertFalse("Compact", index.isFilterDestination(TEST_DEST + "/compact"));
+		Assert.assertFalse("Other config", index.isFilterDestination("/topic/8c/events/values/room/a"));
+	}
+
+	@Test
+	public void routeByRoom() {
+		UUID s1 = UUID.randomUUID();
+		UUID s2 = UUID.randomUUID();
+		UUID s3 = UUID.randomUUID();
+		Control c1 = control(TEST_ROOM, s1, s2);
+		Control c2 = control(TEST_OTHER_ROOM, s3);
+		expect(controlDao.findAllForConfig(EasyMock.eq(TEST_CONFIG_ID), isNull()))
+				.andReturn(Arrays.asList(c1, c2));
+		replay(controlDao);
+
+		final String dest = TEST_DEST + "/room/" + UUIDCodec.encode(TEST_ROOM);
+		Assert.assertTrue("Changed", index.update(Collections.singleton(dest)));
+		Assert.assertFalse("Unchanged", index.update(Collections.singleton(dest)));
+		Assert.assertEquals("Filter count", 1, index.size());
+
+		ValueEvent e1 = event(s1);
+		ValueEvent e2 = event(s2);
+		Map<EventSubscriptionIndex.Filter, List<EventEntity>> routes = index
+				.route(Arrays.asList(e1, event(s3), e2));
+		Assert.assertEquals("Route count", 1, routes.size());
+		EventSubscriptionIndex.Filter filter = routes.keySet().iterator().next();
+		Assert.assertEquals("Destination", dest, filter.getDestination());
+		Assert.assertFalse("Not compact", filter.isCompact());
+		Assert.assertEquals("Room UUIDs", new HashSet<>(Arrays.asList(c1.getUuid(), s1, s2)),
+				filter.getUuids());
+		Assert.assertEquals("Routed events", Arrays.asList(e1, e2), routes.get(filter));
+	}
+
+	@Test
+	public void invalidateResolvesAgain() {
+		UUID s1 = UUID.randomUUID();
+		UUID s2 = UUID.randomUUID();
+		Control c1 = control(TEST_ROOM, s1);
+		Control c2 = control(TEST_ROOM, s2);
+		expect(controlDao.findAllForConfig(EasyMock.eq(TEST_CONFIG_ID), isNull()))
+				.andReturn(Arrays.asList(c1));
+		expect(controlDao.findAllForConfig(EasyMock.eq(TEST_CONFIG_ID), isNull()))
+				.andReturn(Arrays.asList(c1, c2));
+		replay(controlDao);
+
+		final String dest = TEST_DEST + "/room/" + UUIDCodec.encode(TEST_ROOM);
+		index.update(Collections.singleton(dest));
+		ValueEvent e1 = event(s1);
+		ValueEvent e2 = event(s2);
+		Assert.assertEquals("Before structure change", Arrays.asList(e1),
+				index.route(Arrays.asList(e1, e2)).values().iterator().next());
+
+		// control added to the room by a structure change
+		index.invalidate();
+		Assert.assertTrue("Nothing routed when invalid",
+				index.route(Arrays.asList(e1, e2)).isEmpty());
+		Assert.assertTrue("Changed", index.update(Collections.singleton(dest)));
+		Assert.assertEquals("After structure change", Arrays.asList(e1, e2),
+				index.route(Arrays.asList(e1, e2)).values().iterator().next());
+	}
+
+	@Test
+	public void routeByControlsCompact() {
+		UUID s1 = UUID.randomUUID();
+		UUID s2 = UUID.randomUUID();
+		UUID state = UUID.randomUUID();
+		Control c1 = control(TEST_ROOM, s1, s2);
+		expect(controlDao.load(TEST_CONFIG_ID, c1.getUuid())).andReturn(c1);
+		expect(controlDao.load(TEST_CONFIG_ID, state)).andReturn(null);
+		replay(controlDao);
+
+		final String dest = TEST_DEST + "/controls/" + UUIDCodec.encode(c1.getUuid()) + ","
+				+ UUIDCodec.encode(state) + "/compact";
+		index.update(Collections.singleton(dest));
+
+		ValueEvent e1 = event(s2);
+		ValueEvent e2 = event(state);
+		Map<EventSubscriptionIndex.Filter, List<EventEntity>> routes = index
+				.route(Arrays.asList(e1, event(UUID.randomUUID()), e2));
+		Assert.assertEquals("Route count", 1, routes.size());
+		EventSubscriptionIndex.Filter filter = routes.keySet().iterator().next();
+		Assert.assertTrue("Compact", filter.isCompact());
+		Assert.assertEquals("Routed events", Arrays.asList(e1, e2), routes.get(filter));
+	}
+
+	@Test
+	public void overlappingFilters() {
+		UUID s1 = UUID.randomUUID();
+		UUID s2 = UUID.randomUUID();
+		expect(controlDao.load(TEST_CONFIG_ID, s1)).andReturn(null).times(2);
+		expect(controlDao.load(TEST_CONFIG_ID, s2)).andReturn(null);
+		replay(controlDao);
+
+		final String dest1 = TEST_DEST + "/controls/" + UUIDCodec.encode(s1);
+		final String dest2 = TEST_DEST + "/controls/" + UUIDCodec.encode(s1) + ","
+				+ UUIDCodec.encode(s2);
+		index.update(Arrays.asList(dest1, dest2));
+
+		ValueEvent e1 = event(s1);
+		ValueEvent e2 = event(s2);
+		Map<EventSubscriptionIndex.Filter, List<EventEntity>> routes = index
+				.route(Arrays.asList(e1, e2));
+		Assert.assertEquals("Route count", 2, routes.size());
+		for ( Map.Entry<EventSubscriptionIndex.Filter, List<EventEntity>> me : routes.entrySet() ) {
+			if ( me.getKey().getDestination().equals(dest1) ) {
+				Assert.assertEquals("Filter 1 events", Arrays.asList(e1), me.getValue());
+			} else {
+				Assert.assertEquals("Filter 2 events", Arrays.asList(e1, e2), me.getValue());
+			}
+		}
+	}
+
+	@Test
+	public void removeUnsubscribed() {
+		UUID s1 = UUID.randomUUID();
+		expect(controlDao.load(TEST_CONFIG_ID, s1)).andReturn(null);
+		replay(controlDao);
+
+		index.update(Collections.singleton(TEST_DEST + "/controls/" + UUIDCodec.encode(s1)));
+		Assert.assertTrue("Changed", index.update(Collections.emptySet()));
+		Assert.assertEquals("Filter count", 0, index.size());
+		Assert.assertTrue("Nothing routed", index.route(Arrays.asList(event(s1))).isEmpty());
+	}
+
+	@Test
+	public void invalidFilter() {
+		replay(controlDao);
+		index.update(Collections.singleton(TEST_DEST + "/controls/not-a-uuid"));
+		Assert.assertEquals("Filter kept", 1, index.size());
+		Assert.assertTrue("Nothing routed",
+				index.route(Arrays.asList(event(UUID.randomUUID()))).isEmpty());
+	}
+
+}
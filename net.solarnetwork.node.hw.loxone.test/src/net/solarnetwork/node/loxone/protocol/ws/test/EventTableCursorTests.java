@@ -0,0 +1,133 @@
+/* ==================================================================
+ * EventTableCursorTests.java - 18/10/2026 11:58:40 AM
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.node.loxone.protocol.ws.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.UUID;
+import org.junit.Test;
+import net.solarnetwork.node.loxone.protocol.ws.EventTableCursor;
+
+/**
+ * Unit tests for the {@link EventTableCursor} class.
+ *
+ * @author matt
+ * @version 1.0
+ */
+public class EventTableCursorTests {
+
+	private static final UUID TEST_UUID_1 = UUID.fromString("0c89ebac-0021-02be-ffff-a1b98ee6c71d");
+	private static final UUID TEST_UUID_2 = UUID.fromString("0c37ae7e-016c-2e06-ffff-6d9b8f6a24c4");
+
+	private static void putLoxoneUUID(ByteBuffer buf, UUID uuid) {
+		long hi = uuid.getMostSignificantBits();
+		buf.order(ByteOrder.LITTLE_ENDIAN);
+		buf.putInt((int) (hi >>> 32));
+		buf.putShort((short) (hi >>> 16));
+		buf.putShort((short) hi);
+		buf.order(ByteOrder.BIG_ENDIAN);
+		buf.putLong(uuid.getLeastSignificantBits());
+	}
+
+	private static ByteBuffer valueStates(ByteOrder order, Object... uuidValuePairs) {
+		ByteBuffer buf = ByteBuffer.allocate(uuidValuePairs.length / 2 * 24);
+		for ( int i = 0; i < uuidValuePairs.length; i += 2 ) {
+			putLoxoneUUID(buf, (UUID) uuidValuePairs[i]);
+			buf.order(ByteOrder.LITTLE_ENDIAN);
+			buf.putDouble((Double) uuidValuePairs[i + 1]);
+		}
+		buf.flip();
+		buf.order(order);
+		return buf;
+	}
+
+	@Test
+	public void walkValueStates() {
+		ByteBuffer buf = valueStates(ByteOrder.LITTLE_ENDIAN, TEST_UUID_1, 1.5, TEST_UUID_2, -2.25);
+		EventTableCursor cursor = new EventTableCursor().reset(buf, buf.limit());
+
+		assertTrue("First entry", cursor.next());
+		assertEquals("First UUID hi", TEST_UUID_1.getMostSignificantBits(), cursor.uuidHi());
+		assertEquals("First UUID lo", TEST_UUID_1.getLeastSignificantBits(), cursor.uuidLo());
+		assertEquals("First UUID", TEST_UUID_1, cursor.uuid());
+		assertEquals("First value", 1.5, cursor.value(), 0.0);
+
+		assertTrue("Second entry", cursor.next());
+		assertEquals("Second UUID", TEST_UUID_2, cursor.uuid());
+		assertEquals("Second value", -2.25, cursor.value(), 0.0);
+
+		assertFalse("No more entries", cursor.next());
+		assertEquals("Buffer positioned at end", 48, buf.position());
+		assertEquals("Byte order unchanged", ByteOrder.LITTLE_ENDIAN, buf.order());
+	}
+
+	@Test
+	public void walkValueStatesBigEndianBuffer() {
+		ByteBuffer buf = valueStates(ByteOrder.BIG_ENDIAN, TEST_UUID_1, 1.5);
+		EventTableCursor cursor = new EventTableCursor().reset(buf, buf.limit());
+
+		assertTrue("First entry", cursor.next());
+		assertEquals("First UUID", TEST_UUID_1, cursor.uuid());
+		assertEquals("First value", 1.5, cursor.value(), 0.0);
+		assertFalse("No more entries", cursor.next());
+		assertEquals("Byte order unchanged", ByteOrder.BIG_ENDIAN, buf.order());
+	}
+
+	@Test
+	public void partialEntryIgnored() {
+		ByteBuffer buf = valueStates(ByteOrder.LITTLE_ENDIAN, TEST_UUID_1, 1.5, TEST_UUID_2, 2.5);
+		EventTableCursor cursor = new EventTableCursor().reset(buf, 40);
+
+		assertTrue("First entry", cursor.next());
+		assertFalse("Partial entry not available", cursor.next());
+		assertEquals("Buffer positioned at end of last complete entry", 24, buf.position());
+	}
+
+	@Test
+	public void resetForReuse() {
+		ByteBuffer buf1 = valueStates(ByteOrder.LITTLE_ENDIAN, TEST_UUID_1, 1.5);
+		ByteBuffer buf2 = valueStates(ByteOrder.LITTLE_ENDIAN, TEST_UUID_2, 2.5);
+		EventTableCursor cursor = new EventTableCursor().reset(buf1, buf1.limit());
+		assertTrue("First message entry", cursor.next());
+		assertFalse("First message done", cursor.next());
+
+		cursor.reset(buf2, buf2.limit());
+		assertTrue("Second message entry", cursor.next());
+		assertEquals("Second message UUID", TEST_UUID_2, cursor.uuid());
+		assertEquals("Second message value", 2.5, cursor.value(), 0.0);
+	}
+
+	@Test
+	public void staticUuidDecode() {
+		ByteBuffer buf = valueStates(ByteOrder.LITTLE_ENDIAN, TEST_UUID_1, 1.5, TEST_UUID_2, 2.5);
+		assertEquals("UUID hi", TEST_UUID_2.getMostSignificantBits(),
+				EventTableCursor.uuidHi(buf, 24));
+		assertEquals("UUID lo", TEST_UUID_2.getLeastSignificantBits(),
+				EventTableCursor.uuidLo(buf, 24));
+		assertEquals("Position unchanged", 0, buf.position());
+	}
+
+}
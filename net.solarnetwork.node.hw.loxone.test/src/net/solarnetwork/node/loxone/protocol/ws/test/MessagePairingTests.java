@@ -0,0 +1,165 @@
+/* ==================================================================
+ * MessagePairingTests.java - 18/10/2026 3:41:07 PM
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.node.loxone.protocol.ws.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Collections;
+import java.util.EnumSet;
+import org.junit.Test;
+import net.solarnetwork.node.loxone.protocol.ws.MessageHeader;
+import net.solarnetwork.node.loxone.protocol.ws.MessageInfo;
+import net.solarnetwork.node.loxone.protocol.ws.MessagePairing;
+import net.solarnetwork.node.loxone.protocol.ws.MessageType;
+
+/**
+ * Unit tests for the {@link MessagePairing} class.
+ *
+ * @author matt
+ * @version 1.0
+ */
+public class MessagePairingTests {
+
+	private static MessageHeader header(MessageType type, long length) {
+		return new MessageHeader(type, Collections.emptySet(), length);
+	}
+
+	private static ByteBuffer headerFrame(MessageType type, long length) {
+		ByteBuffer buf = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+		buf.put(MessageHeader.MAGIC_BYTE).put(type.getRawValue()).put((byte) 0).put((byte) 0)
+				.putInt((int) length);
+		buf.flip();
+		return buf;
+	}
+
+	@Test
+	public void pairBinary() {
+		MessagePairing p = new MessagePairing();
+		MessageHeader h = header(MessageType.EventTableValueStates, 48);
+		assertTrue(p.offerHeader(h));
+
+		ByteBuffer payload = ByteBuffer.allocate(48);
+		assertTrue("Payload recognized", p.isPayload(payload));
+		assertSame("Header paired", h, p.takeForPayload(payload.remaining()));
+		assertEquals("Paired count", 1L, p.getPairedCount());
+		assertFalse("Nothing pending", p.isPayload(payload));
+	}
+
+	@Test
+	public void payloadLengthMismatch() {
+		MessagePairing p = new MessagePairing();
+		p.offerHeader(header(MessageType.EventTableValueStates, 48));
+
+		assertNull("Mismatched payload not paired", p.takeForPayload(24));
+		assertEquals("Mismatch count", 1L, p.getMismatchCount());
+		assertEquals("Paired count", 0L, p.getPairedCount());
+
+		// next pair works normally
+		MessageHeader h = header(MessageType.EventTableTextStates, 24);
+		assertTrue(p.offerHeader(h));
+		assertSame("Header paired after mismatch", h, p.takeForPayload(24));
+	}
+
+	@Test
+	public void estimatedHeaderReplaced() {
+		MessagePairing p = new MessagePairing();
+		MessageHeader est = new MessageHeader(MessageType.BinaryFile,
+				EnumSet.of(MessageInfo.EstimatedSize), 1000);
+		assertTrue(p.offerHeader(est));
+
+		ByteBuffer exactFrame = headerFrame(MessageType.BinaryFile, 1234);
+		assertFalse("Exact header frame not a payload", p.isPayload(exactFrame));
+
+		MessageHeader exact = new MessageHeader(exactFrame);
+		assertTrue("Exact header replaces estimate", p.offerHeader(exact));
+		assertEquals("No resync", 0L, p.getResyncCount());
+		assertSame("Exact header paired", exact, p.takeForPayload(1234));
+	}
+
+	@Test
+	public void estimatedHeaderPayloadLengthNotChecked() {
+		MessagePairing p = new MessagePairing();
+		MessageHeader est = new MessageHeader(MessageType.BinaryFile,
+				EnumSet.of(MessageInfo.EstimatedSize), 1000);
+		p.offerHeader(est);
+		assertSame("Estimated header paired", est, p.takeForPayload(1234));
+		assertEquals("No mismatch", 0L, p.getMismatchCount());
+	}
+
+	@Test
+	public void resyncOnMissingPayload() {
+		MessagePairing p = new MessagePairing();
+		p.offerHeader(header(MessageType.EventTableValueStates, 48));
+
+		ByteBuffer nextFrame = headerFrame(MessageType.EventTableTextStates, 36);
+		assertFalse("Header frame not a payload", p.isPayload(nextFrame));
+
+		MessageHeader next = new MessageHeader(nextFrame);
+		assertFalse("Stale header replaced", p.offerHeader(next));
+		assertEquals("Resync count", 1L, p.getResyncCount());
+		assertSame("New header paired", next, p.takeForPayload(36));
+	}
+
+	@Test
+	public void eightBytePayloadLooksLikeHeader() {
+		MessagePairing p = new MessagePairing();
+		p.offerHeader(header(MessageType.EventTableTextStates, 8));
+
+		ByteBuffer payload = headerFrame(MessageType.TextMessage, 0);
+		assertTrue("Exact 8 byte payload", p.isPayload(payload));
+	}
+
+	@Test
+	public void pairText() {
+		MessagePairing p = new MessagePairing();
+		MessageHeader h = header(MessageType.TextMessage, 100);
+		p.offerHeader(h);
+		assertSame("Text header paired", h, p.takeForText());
+		assertEquals("Paired count", 1L, p.getPairedCount());
+		assertNull("Nothing pending", p.takeForText());
+	}
+
+	@Test
+	public void textMismatch() {
+		MessagePairing p = new MessagePairing();
+		p.offerHeader(header(MessageType.EventTableValueStates, 48));
+		assertNull("Binary header not paired with text", p.takeForText());
+		assertEquals("Mismatch count", 1L, p.getMismatchCount());
+	}
+
+	@Test
+	public void reset() {
+		MessagePairing p = new MessagePairing();
+		p.offerHeader(header(MessageType.EventTableValueStates, 48));
+		p.reset();
+		assertFalse("Nothing pending", p.isPayload(ByteBuffer.allocate(48)));
+		assertTrue("No resync after reset",
+				p.offerHeader(header(MessageType.EventTableValueStates, 48)));
+	}
+
+}
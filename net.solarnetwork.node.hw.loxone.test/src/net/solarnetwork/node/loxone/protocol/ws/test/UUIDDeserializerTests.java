@@ -36,7 +36,7 @@ import net.solarnetwork.node.loxone.domain.UUIDDeserializer;
  * Unit tests for the {@link UUIDDeserializer} class.
  * 
  * @author matt
- * @version 2.0
+ * @version 2.1
  */
 public class UUIDDeserializerTests {
 
@@ -58,4 +58,25 @@ public class UUIDDeserializerTests {
 		Assert.assertEquals("0e839a0b-00d8-1ab1-ffff-a1b98ee6c71d", result.toString());
 	}
 
+	@Test
+	public void deserializeStandardForm() throws IOException {
+		UUID result = objectMapper.readValue("\"0e839a0b-00d8-1ab1-ffff-a1b98ee6c71d\"", UUID.class);
+		Assert.assertEquals("0e839a0b-00d8-1ab1-ffff-a1b98ee6c71d", result.toString());
+	}
+
+	@Test
+	public void deserializeArray() throws IOException {
+		UUID[] result = objectMapper.readValue(
+				"[\"0e839a0b-00d8-1ab1-ffffa1b98ee6c71d\",\"0e839a0b-00d8-1ab1-ffffa1b98ee6c71e\"]",
+				UUID[].class);
+		Assert.assertEquals(2, result.length);
+		Assert.assertEquals("0e839a0b-00d8-1ab1-ffff-a1b98ee6c71d", result[0].toString());
+		Assert.assertEquals("0e839a0b-00d8-1ab1-ffff-a1b98ee6c71e", result[1].toString());
+	}
+
+	@Test(expected = IOException.class)
+	public void deserializeInvalid() throws IOException {
+		objectMapper.readValue("\"0e839a0b-00d8-1ab1-ffffa1b98ee6c7\"", UUID.class);
+	}
+
 }
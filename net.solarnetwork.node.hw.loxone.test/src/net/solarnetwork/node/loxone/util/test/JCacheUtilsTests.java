@@ -0,0 +1,96 @@
+/* ==================================================================
+ * JCacheUtilsTests.java - 20/10/2026 10:04:18 AM
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.node.loxone.util.test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import java.util.concurrent.TimeUnit;
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.configuration.CompleteConfiguration;
+import javax.cache.expiry.Duration;
+import javax.cache.management.CacheStatisticsMXBean;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import net.solarnetwork.node.loxone.dao.jdbc.test.CacheUtils;
+import net.solarnetwork.node.loxone.util.JCacheUtils;
+
+/**
+ * Test cases for the {@link JCacheUtils} class.
+ *
+ * @author matt
+ * @version 1.0
+ */
+public class JCacheUtilsTests {
+
+	private CacheManager cacheManager;
+
+	@Before
+	public void setup() {
+		cacheManager = CacheUtils.createCacheManager();
+	}
+
+	@After
+	public void teardown() {
+		cacheManager.close();
+	}
+
+	@Test
+	public void createCache() {
+		Cache<String, Integer> cache = JCacheUtils.cache(cacheManager, "Test", 60);
+		assertThat("Cache name prefixed", cache.getName(),
+				equalTo(JCacheUtils.CACHE_NAME_PREFIX + "Test"));
+
+		@SuppressWarnings("unchecked")
+		CompleteConfiguration<String, Integer> config = cache
+				.getConfiguration(CompleteConfiguration.class);
+		assertThat("Statistics enabled", config.isStatisticsEnabled(), equalTo(true));
+		assertThat("Expires after access", config.getExpiryPolicyFactory().create().getExpiryForAccess(),
+				equalTo(new Duration(TimeUnit.SECONDS, 60)));
+	}
+
+	@Test
+	public void existingCache() {
+		Cache<String, Integer> existing = CacheUtils.createCache(cacheManager,
+				JCacheUtils.CACHE_NAME_PREFIX + "Test", String.class, Integer.class, null);
+		Cache<String, Integer> cache = JCacheUtils.cache(cacheManager, "Test", 60);
+		assertThat("Configured cache used", cache, sameInstance(existing));
+	}
+
+	@Test
+	public void statistics() {
+		Cache<String, Integer> cache = JCacheUtils.cache(cacheManager, "Test", 60);
+		cache.put("a", 1);
+		cache.get("a");
+		cache.get("b");
+
+		CacheStatisticsMXBean stats = JCacheUtils.statistics(cache);
+		assertThat("Statistics available", stats, notNullValue());
+		assertThat("Hits", stats.getCacheHits(), equalTo(1L));
+		assertThat("Misses", stats.getCacheMisses(), equalTo(1L));
+	}
+
+}
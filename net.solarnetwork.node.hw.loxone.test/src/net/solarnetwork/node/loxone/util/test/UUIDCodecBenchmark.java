@@ -0,0 +1,181 @@
+/* ==================================================================
+ * UUIDCodecBenchmark.java - 19/10/2026 5:58:14 PM
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.node.loxone.util.test;
+
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.codec.DecoderException;
+import org.apache.commons.codec.binary.Hex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import net.solarnetwork.node.loxone.util.UUIDCodec;
+
+/**
+ * JMH benchmark of {@link UUIDCodec}, compared to the string based encoding
+ * previously used by the UUID serializer and deserializer.
+ *
+ * <p>
+ * Run via the {@link #main(String[])} method with the JMH annotation processor
+ * on the class path, preferably with {@literal -prof gc} to compare
+ * allocation rates.
+ * </p>
+ *
+ * @author matt
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UUIDCodecBenchmark {
+
+	private static final int COUNT = 1024;
+
+	private UUID[] uuids;
+	private String[] values;
+	private char[][] chars;
+	private char[] buf;
+	private int index;
+
+	/**
+	 * Generate the UUIDs to encode and decode.
+	 */
+	@Setup(Level.Trial)
+	public void setup() {
+		Random rng = new Random(123L);
+		uuids = new UUID[COUNT];
+		values = new String[COUNT];
+		chars = new char[COUNT][];
+		buf = new char[UUIDCodec.LOXONE_UUID_LENGTH];
+		for ( int i = 0; i < COUNT; i++ ) {
+			uuids[i] = new UUID(rng.nextLong(), rng.nextLong());
+			values[i] = UUIDCodec.encode(uuids[i]);
+			chars[i] = values[i].toCharArray();
+		}
+	}
+
+	private int next() {
+		int i = index;
+		index = (i + 1) & (COUNT - 1);
+		return i;
+	}
+
+	/**
+	 * Encode with the previous string based method.
+	 *
+	 * @return the encoded value
+	 */
+	@Benchmark
+	public String encodeLegacy() {
+		StringBuilder b = new StringBuilder(uuids[next()].toString());
+		b.deleteCharAt(23);
+		return b.toString();
+	}
+
+	/**
+	 * Encode to a new string.
+	 *
+	 * @return the encoded value
+	 */
+	@Benchmark
+	public String encodeString() {
+		return UUIDCodec.encode(uuids[next()]);
+	}
+
+	/**
+	 * Encode into a reused buffer, as the JSON serializer does.
+	 *
+	 * @return the buffer
+	 */
+	@Benchmark
+	public char[] encodeBuffer() {
+		UUIDCodec.encode(uuids[next()], buf, 0);
+		return buf;
+	}
+
+	/**
+	 * Decode with the previous string based method.
+	 *
+	 * @return the decoded value
+	 * @throws DecoderException
+	 *         if the value cannot be decoded
+	 */
+	@Benchmark
+	public UUID decodeLegacy() throws DecoderException {
+		byte[] data = Hex.decodeHex(values[next()].replace("-", "").toCharArray());
+		LongBuffer b = ByteBuffer.wrap(data).asLongBuffer();
+		return new UUID(b.get(), b.get());
+	}
+
+	/**
+	 * Decode from a string.
+	 *
+	 * @return the decoded value
+	 */
+	@Benchmark
+	public UUID decodeString() {
+		return UUIDCodec.decode(values[next()]);
+	}
+
+	/**
+	 * Decode from a character buffer, as the JSON deserializer does.
+	 *
+	 * @return the decoded value
+	 */
+	@Benchmark
+	public UUID decodeBuffer() {
+		char[] c = chars[next()];
+		return UUIDCodec.decode(c, 0, c.length);
+	}
+
+	/**
+	 * Run the benchmark.
+	 *
+	 * @param args
+	 *        the arguments, not used
+	 * @throws RunnerException
+	 *         if the benchmark fails
+	 */
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(UUIDCodecBenchmark.class.getSimpleName()).build())
+				.run();
+	}
+
+}
@@ -0,0 +1,131 @@
+/* ==================================================================
+ * UUIDCodecTests.java - 19/10/2026 5:40:51 PM
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.node.loxone.util.test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import java.util.Random;
+import java.util.UUID;
+import org.junit.Test;
+import net.solarnetwork.node.loxone.util.UUIDCodec;
+
+/**
+ * Test cases for the {@link UUIDCodec} class.
+ *
+ * @author matt
+ * @version 1.1
+ */
+public class UUIDCodecTests {
+
+	private static final UUID TEST_UUID = UUID.fromString("0e839a0b-00d8-1ab1-ffff-a1b98ee6c71d");
+	private static final String TEST_LOXONE_UUID = "0e839a0b-00d8-1ab1-ffffa1b98ee6c71d";
+
+	/**
+	 * The Loxone encoding as previously implemented.
+	 */
+	private static String legacyEncode(UUID uuid) {
+		StringBuilder buf = new StringBuilder(uuid.toString());
+		buf.deleteCharAt(23);
+		return buf.toString();
+	}
+
+	@Test
+	public void encode() {
+		assertThat("Encoded", UUIDCodec.encode(TEST_UUID), equalTo(TEST_LOXONE_UUID));
+	}
+
+	@Test
+	public void encodeIntoBuffer() {
+		char[] buf = new char[UUIDCodec.LOXONE_UUID_LENGTH + 4];
+		int end = UUIDCodec.encode(TEST_UUID, buf, 2);
+		assertThat("End offset", end, equalTo(UUIDCodec.LOXONE_UUID_LENGTH + 2));
+		assertThat("Encoded", new String(buf, 2, UUIDCodec.LOXONE_UUID_LENGTH),
+				equalTo(TEST_LOXONE_UUID));
+	}
+
+	@Test
+	public void decode() {
+		assertThat("Decoded", UUIDCodec.decode(TEST_LOXONE_UUID), equalTo(TEST_UUID));
+	}
+
+	@Test
+	public void decodeStandardForm() {
+		assertThat("Decoded", UUIDCodec.decode(TEST_UUID.toString()), equalTo(TEST_UUID));
+	}
+
+	@Test
+	public void decodeUpperCase() {
+		assertThat("Decoded", UUIDCodec.decode(TEST_LOXONE_UUID.toUpperCase()), equalTo(TEST_UUID));
+	}
+
+	@Test
+	public void decodeFromBuffer() {
+		char[] buf = ("\"" + TEST_LOXONE_UUID + "\"").toCharArray();
+		assertThat("Decoded", UUIDCodec.decode(buf, 1, TEST_LOXONE_UUID.length()),
+				equalTo(TEST_UUID));
+	}
+
+	@Test
+	public void roundTripMatchesLegacyFormat() {
+		Random rng = new Random(123L);
+		char[] buf = new char[UUIDCodec.LOXONE_UUID_LENGTH];
+		for ( int i = 0; i < 1000; i++ ) {
+			UUID uuid = new UUID(rng.nextLong(), rng.nextLong());
+			String expected = legacyEncode(uuid);
+			assertThat("Encoded " + uuid, UUIDCodec.encode(uuid), equalTo(expected));
+			UUIDCodec.encode(uuid, buf, 0);
+			assertThat("Encoded to buffer " + uuid, new String(buf), equalTo(expected));
+			assertThat("Decoded " + uuid, UUIDCodec.decode(expected), equalTo(uuid));
+			assertThat("Decoded from buffer " + uuid, UUIDCodec.decode(buf, 0, buf.length),
+					equalTo(uuid));
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void decodeInvalidCharacter() {
+		UUIDCodec.decode("0e839a0b-00d8-1ab1-ffffa1b98ee6c71x");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void decodeTooShort() {
+		UUIDCodec.decode("0e839a0b-00d8-1ab1-ffffa1b98ee6c71");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void decodeTooLong() {
+		UUIDCodec.decode("0e839a0b-00d8-1ab1-ffffa1b98ee6c71d0");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void decodeBufferTooShort() {
+		char[] buf = TEST_LOXONE_UUID.toCharArray();
+		UUIDCodec.decode(buf, 0, buf.length - 1);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void decodeBufferTooLong() {
+		char[] buf = (TEST_LOXONE_UUID + "0").toCharArray();
+		UUIDCodec.decode(buf, 0, buf.length);
+	}
+
+}
@@ -36,6 +36,7 @@ import net.solarnetwork.node.loxone.domain.ConfigurationEntity;
 import net.solarnetwork.node.loxone.domain.Control;
 import net.solarnetwork.node.loxone.domain.EventEntity;
 import net.solarnetwork.node.loxone.domain.SourceMapping;
+import net.solarnetwork.node.loxone.domain.TextEvent;
 import net.solarnetwork.node.loxone.domain.UUIDEntityParameters;
 import net.solarnetwork.node.loxone.domain.UUIDSetEntity;
 import net.solarnetwork.node.loxone.domain.ValueEvent;
@@ -46,7 +47,7 @@ import net.solarnetwork.service.Identifiable;
  * API for a Loxone device.
  * 
  * @author matt
- * @version 2.0
+ * @version 2.1
  */
 public interface LoxoneService extends Identifiable {
 
@@ -198,6 +199,17 @@ public interface LoxoneService extends Identifiable {
 	 */
 	ValueEvent getControlState(UUID uuid);
 
+	/**
+	 * Get the current texts of a set of control states.
+	 * 
+	 * @param uuids
+	 *        the control state UUIDs to get the texts of, or {@literal null}
+	 *        for all available texts
+	 * @return the texts, never {@literal null}
+	 * @since 2.1
+	 */
+	Collection<TextEvent> getControlTextStates(Collection<UUID> uuids);
+
 	/**
 	 * Asynchronously set the value of a control.
 	 * 
@@ -22,6 +22,7 @@
 
 package net.solarnetwork.node.loxone.dao;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 import net.solarnetwork.domain.SortDescriptor;
@@ -33,7 +34,7 @@ import net.solarnetwork.node.loxone.domain.ConfigurationEntity;
  * @param <T>
  *        the entity type
  * @author matt
- * @version 1.1
+ * @version 1.2
  */
 public interface ConfigurationEntityDao<T extends ConfigurationEntity> {
 
@@ -53,6 +54,50 @@ public interface ConfigurationEntityDao<T extends ConfigurationEntity> {
 	 */
 	void store(T entity);
 
+	/**
+	 * Replace all entities for a given configuration.
+	 *
+	 * <p>
+	 * All existing entities for the configuration are deleted, and then the
+	 * given entities are inserted. As the entities are known not to exist,
+	 * this can be done in bulk, and is much faster than calling
+	 * {@link #deleteAllForConfig(Long)} followed by {@link #store(Object)} for
+	 * each entity.
+	 * </p>
+	 *
+	 * @param configId
+	 *        The config ID to replace all entities for.
+	 * @param entities
+	 *        The entities to store, all of which must have a {@code configId}
+	 *        matching {@code configId}; may be {@literal null} or empty to only
+	 *        delete the existing entities.
+	 * @since 1.2
+	 */
+	void storeAll(Long configId, Collection<T> entities);
+
+	/**
+	 * Synchronize all entities for a given configuration.
+	 *
+	 * <p>
+	 * The result is the same as {@link #storeAll(Long, Collection)}, but only
+	 * the entities that are new, have changed, or are no longer present are
+	 * inserted, updated, or deleted. Entities that have not changed are not
+	 * written at all, and their cached copies are kept.
+	 * </p>
+	 *
+	 * @param configId
+	 *        The config ID to synchronize all entities for.
+	 * @param entities
+	 *        The entities to store, all of which must have a {@code configId}
+	 *        matching {@code configId}; may be {@literal null} or empty to
+	 *        delete all existing entities.
+	 * @return The count of inserted, updated, and deleted entities.
+	 * @throws UnsupportedOperationException
+	 *         if the DAO does not support synchronizing entities
+	 * @since 1.2
+	 */
+	int syncAll(Long configId, Collection<T> entities);
+
 	/**
 	 * Get an entity for a given UUID.
 	 *
@@ -33,7 +33,7 @@ import net.solarnetwork.node.loxone.domain.UUIDEntityParametersPair;
  * DAO API of {@link Control} entities.
  * 
  * @author matt
- * @version 1.2
+ * @version 1.3
  */
 public interface ControlDao extends ConfigurationEntityDao<Control> {
 
@@ -71,4 +71,21 @@ public interface ControlDao extends ConfigurationEntityDao<Control> {
 	 * @since 1.2
 	 */
 	Control getForConfigAndState(Long configId, UUID stateUuid);
+
+	/**
+	 * Discard any in-memory copy of the
+	 * {@link #findAllForDatumPropertyUUIDEntities(Long)} results for a config.
+	 *
+	 * <p>
+	 * This must be called after changing any data those results are derived
+	 * from outside of this DAO, such as the datum or datum property UUID sets,
+	 * or the source mappings. Changes made via this DAO are handled
+	 * automatically.
+	 * </p>
+	 *
+	 * @param configId
+	 *        The config ID to discard the results for.
+	 * @since 1.3
+	 */
+	void invalidateDatumPropertyUUIDEntities(Long configId);
 }
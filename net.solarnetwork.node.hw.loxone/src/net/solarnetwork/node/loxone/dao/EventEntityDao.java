@@ -22,6 +22,7 @@
 
 package net.solarnetwork.node.loxone.dao;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 import net.solarnetwork.domain.SortDescriptor;
@@ -33,7 +34,7 @@ import net.solarnetwork.node.loxone.domain.EventEntity;
  * @param <T>
  *        the entity type
  * @author matt
- * @version 1.0
+ * @version 1.1
  */
 public interface EventEntityDao<T extends EventEntity> {
 
@@ -53,6 +54,35 @@ public interface EventEntityDao<T extends EventEntity> {
 	 */
 	void storeEvent(T event);
 
+	/**
+	 * Store (create or update) a collection of events in a single batch
+	 * operation.
+	 *
+	 * <p>
+	 * This is functionally equivalent to calling {@link #storeEvent(EventEntity)}
+	 * for each event, but allows the implementation to apply all changes with
+	 * as few round trips to the underlying storage as possible.
+	 * </p>
+	 *
+	 * @param events
+	 *        The events to store.
+	 * @since 1.1
+	 */
+	void storeEvents(Collection<T> events);
+
+	/**
+	 * Write any pending events to persistent storage.
+	 *
+	 * <p>
+	 * Implementations that defer writing events, for example to coalesce
+	 * frequent changes into fewer writes, must write all deferred events when
+	 * this method is called. Other implementations can do nothing.
+	 * </p>
+	 *
+	 * @since 1.1
+	 */
+	void flushEvents();
+
 	/**
 	 * Get an event for a given UUID.
 	 *
@@ -0,0 +1,59 @@
+/* ==================================================================
+ * StructureSnapshotDao.java - 19/10/2026 7:38:02 AM
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.node.loxone.dao;
+
+import net.solarnetwork.node.loxone.domain.StructureSnapshot;
+
+/**
+ * DAO API for {@link StructureSnapshot} data.
+ *
+ * <p>
+ * A snapshot allows the entities of a structure file to be restored without
+ * downloading the structure file from the Miniserver again, for example after
+ * the node database has been restored from a backup.
+ * </p>
+ *
+ * @author matt
+ * @version 1.0
+ * @since 2.2
+ */
+public interface StructureSnapshotDao {
+
+	/**
+	 * Store a snapshot, replacing any existing snapshot for the same config.
+	 *
+	 * @param snapshot
+	 *        the snapshot to store
+	 */
+	void storeSnapshot(StructureSnapshot snapshot);
+
+	/**
+	 * Get the snapshot for a config.
+	 *
+	 * @param configId
+	 *        the ID of the config to get the snapshot for
+	 * @return the snapshot, or {@literal null} if not available
+	 */
+	StructureSnapshot getSnapshot(Long configId);
+
+}
@@ -0,0 +1,73 @@
+/* ==================================================================
+ * TextEventDao.java - 19/10/2026 9:47:03 PM
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.node.loxone.dao;
+
+import java.util.Collection;
+import java.util.List;
+import net.solarnetwork.node.loxone.domain.TextEvent;
+
+/**
+ * DAO API for text events.
+ *
+ * <p>
+ * Only the latest text of each UUID is stored. Storing a text event whose
+ * icon and text are the same as the latest stored event of the same UUID does
+ * nothing, so the creation date of a stored event is the date its text last
+ * changed.
+ * </p>
+ *
+ * @author matt
+ * @version 1.0
+ * @since 2.3
+ */
+public interface TextEventDao extends EventEntityDao<TextEvent> {
+
+	/**
+	 * Store the events whose content has changed, and return them.
+	 *
+	 * <p>
+	 * This behaves like {@link #storeEvents(Collection)}, but returns the
+	 * subset of events that were actually stored.
+	 * </p>
+	 *
+	 * @param events
+	 *        the events to store
+	 * @return the changed events, never {@literal null}
+	 */
+	List<TextEvent> storeChangedEvents(Collection<TextEvent> events);
+
+	/**
+	 * Get the latest text event of every UUID of a configuration.
+	 *
+	 * <p>
+	 * Implementations are expected to serve this from memory where possible,
+	 * as it is called whenever a client needs the current texts.
+	 * </p>
+	 *
+	 * @param configId
+	 *        the configuration ID
+	 * @return the events, never {@literal null}
+	 */
+	List<TextEvent> getLatestEvents(Long configId);
+
+}
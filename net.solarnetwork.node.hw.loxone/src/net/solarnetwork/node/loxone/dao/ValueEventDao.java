@@ -23,13 +23,42 @@
 package net.solarnetwork.node.loxone.dao;
 
 import net.solarnetwork.node.loxone.domain.ValueEvent;
+import net.solarnetwork.node.loxone.domain.ValueEventStateTable;
 
 /**
  * DAO API for value events.
  * 
  * @author matt
- * @version 1.0
+ * @version 1.1
  */
 public interface ValueEventDao extends EventEntityDao<ValueEvent> {
 
+	/**
+	 * Get the in-memory state table for a configuration.
+	 *
+	 * <p>
+	 * The table holds the latest value of every persisted value event of the
+	 * configuration, and is kept up to date as events are stored. If the
+	 * table has not been loaded yet, it will be loaded from persistent storage
+	 * first.
+	 * </p>
+	 *
+	 * @param configId
+	 *        the configuration ID
+	 * @return the state table, never {@literal null}
+	 * @since 1.1
+	 */
+	ValueEventStateTable getStateTable(Long configId);
+
+	/**
+	 * Discard any in-memory state table for a configuration and load it again
+	 * from persistent storage.
+	 *
+	 * @param configId
+	 *        the configuration ID
+	 * @return the loaded state table, never {@literal null}
+	 * @since 1.1
+	 */
+	ValueEventStateTable reloadStateTable(Long configId);
+
 }
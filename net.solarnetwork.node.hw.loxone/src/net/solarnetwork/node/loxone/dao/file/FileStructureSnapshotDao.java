@@ -0,0 +1,326 @@
+/* ==================================================================
+ * FileStructureSnapshotDao.java - 19/10/2026 7:52:30 AM
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.node.loxone.dao.file;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import net.solarnetwork.node.loxone.dao.StructureSnapshotDao;
+import net.solarnetwork.node.loxone.domain.Category;
+import net.solarnetwork.node.loxone.domain.CategoryType;
+import net.solarnetwork.node.loxone.domain.Control;
+import net.solarnetwork.node.loxone.domain.ControlType;
+import net.solarnetwork.node.loxone.domain.Room;
+import net.solarnetwork.node.loxone.domain.StructureSnapshot;
+
+/**
+ * {@link StructureSnapshotDao} that persists each snapshot as a compact binary
+ * file.
+ *
+ * <p>
+ * One file is stored per config, named {@code structure-X.snapshot} where
+ * {@code X} is the hex config ID. Only the entity properties that are
+ * persisted in the database are included in the file. Files are written to a
+ * temporary file first and then moved into place, and read via a memory
+ * mapping.
+ * </p>
+ *
+ * @author matt
+ * @version 1.0
+ * @since 2.3
+ */
+public class FileStructureSnapshotDao implements StructureSnapshotDao {
+
+	/**
+	 * The default value for the {@code directory} property, relative to the
+	 * {@code sn.home} system property.
+	 */
+	public static final String DEFAULT_DIRECTORY = "var/loxone";
+
+	/** The snapshot file name suffix. */
+	public static final String FILE_SUFFIX = ".snapshot";
+
+	private static final int MAGIC = 0x4C585353; // LXSS
+	private static final short FORMAT_VERSION = 1;
+
+	private final Logger log = LoggerFactory.getLogger(getClass());
+
+	private Path directory = resolveDirectory(DEFAULT_DIRECTORY);
+
+	/**
+	 * Constructor.
+	 */
+	public FileStructureSnapshotDao() {
+		super();
+	}
+
+	private static Path resolveDirectory(String dir) {
+		Path p = Paths.get(dir);
+		if ( !p.isAbsolute() ) {
+			p = Paths.get(System.getProperty("sn.home", "")).resolve(p);
+		}
+		return p;
+	}
+
+	private Path snapshotPath(Long configId) {
+		return directory.resolve(String.format("structure-%016x%s", configId, FILE_SUFFIX));
+	}
+
+	@Override
+	public void storeSnapshot(StructureSnapshot snapshot) {
+		final Path path = snapshotPath(snapshot.getConfigId());
+		Path tmp = null;
+		try {
+			Files.createDirectories(directory);
+			tmp = Files.createTempFile(directory, "structure-", ".tmp");
+			try (DataOutputStream out = new DataOutputStream(
+					new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+				writeSnapshot(snapshot, out);
+			}
+			Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+			tmp = null;
+			log.debug("Saved {} to {}", snapshot, path);
+		} catch ( IOException e ) {
+			throw new UncheckedIOException("Error saving structure snapshot " + path, e);
+		} finally {
+			if ( tmp != null ) {
+				try {
+					Files.deleteIfExists(tmp);
+				} catch ( IOException e ) {
+					// ignore
+				}
+			}
+		}
+	}
+
+	@Override
+	public StructureSnapshot getSnapshot(Long configId) {
+		final Path path = snapshotPath(configId);
+		if ( !Files.isReadable(path) ) {
+			return null;
+		}
+		try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+			MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+			StructureSnapshot snapshot = readSnapshot(buf);
+			if ( snapshot != null && !configId.equals(snapshot.getConfigId()) ) {
+				log.warn("Ignoring structure snapshot {} for different config", path);
+				return null;
+			}
+			return snapshot;
+		} catch ( IOException | BufferUnderflowException | IllegalArgumentException e ) {
+			log.warn("Unable to read structure snapshot {}: {}", path, e.toString());
+			return null;
+		}
+	}
+
+	private static void writeSnapshot(StructureSnapshot snapshot, DataOutputStream out)
+			throws IOException {
+		out.writeInt(MAGIC);
+		out.writeShort(FORMAT_VERSION);
+		out.writeLong(snapshot.getConfigId());
+		out.writeLong(snapshot.getLastModified().getTime());
+
+		out.writeInt(snapshot.getCategories().size());
+		for ( Category category : snapshot.getCategories() ) {
+			writeUUID(category.getUuid(), out);
+			writeString(category.getName(), out);
+			out.writeInt(rating(category.getDefaultRating()));
+			writeString(category.getImage(), out);
+			out.writeShort(category.getType() != null ? category.getType().getIndex()
+					: CategoryType.Unknown.getIndex());
+		}
+
+		out.writeInt(snapshot.getRooms().size());
+		for ( Room room : snapshot.getRooms() ) {
+			writeUUID(room.getUuid(), out);
+			writeString(room.getName(), out);
+			out.writeInt(rating(room.getDefaultRating()));
+			writeString(room.getImage(), out);
+		}
+
+		out.writeInt(snapshot.getControls().size());
+		for ( Control control : snapshot.getControls() ) {
+			writeUUID(control.getUuid(), out);
+			writeString(control.getName(), out);
+			out.writeInt(rating(control.getDefaultRating()));
+			out.writeShort(control.getType() != null ? control.getType().getIndex()
+					: ControlType.Unknown.getIndex());
+			writeUUID(control.getRoom(), out);
+			writeUUID(control.getCategory(), out);
+			Map<String, UUID> states = control.getStates();
+			if ( states == null ) {
+				states = Collections.emptyMap();
+			}
+			out.writeInt(states.size());
+			for ( Map.Entry<String, UUID> me : states.entrySet() ) {
+				writeString(me.getKey(), out);
+				writeUUID(me.getValue(), out);
+			}
+		}
+	}
+
+	private static StructureSnapshot readSnapshot(ByteBuffer buf) {
+		if ( buf.getInt() != MAGIC ) {
+			throw new IllegalArgumentException("Not a structure snapshot");
+		}
+		final short version = buf.getShort();
+		if ( version != FORMAT_VERSION ) {
+			throw new IllegalArgumentException("Unsupported snapshot version " + version);
+		}
+		final Long configId = buf.getLong();
+		final Date lastModified = new Date(buf.getLong());
+
+		int count = buf.getInt();
+		List<Category> categories = new ArrayList<>(count);
+		for ( int i = 0; i < count; i++ ) {
+			Category category = new Category();
+			category.setConfigId(configId);
+			category.setUuid(readUUID(buf));
+			category.setName(readString(buf));
+			category.setDefaultRating(buf.getInt());
+			category.setImage(readString(buf));
+			category.setType(CategoryType.forIndexValue(buf.getShort()));
+			categories.add(category);
+		}
+
+		count = buf.getInt();
+		List<Room> rooms = new ArrayList<>(count);
+		for ( int i = 0; i < count; i++ ) {
+			Room room = new Room();
+			room.setConfigId(configId);
+			room.setUuid(readUUID(buf));
+			room.setName(readString(buf));
+			room.setDefaultRating(buf.getInt());
+			room.setImage(readString(buf));
+			rooms.add(room);
+		}
+
+		count = buf.getInt();
+		List<Control> controls = new ArrayList<>(count);
+		for ( int i = 0; i < count; i++ ) {
+			Control control = new Control(readUUID(buf), configId);
+			control.setName(readString(buf));
+			control.setDefaultRating(buf.getInt());
+			control.setType(ControlType.forIndexValue(buf.getShort()));
+			control.setRoom(readUUID(buf));
+			control.setCategory(readUUID(buf));
+			int stateCount = buf.getInt();
+			if ( stateCount > 0 ) {
+				Map<String, UUID> states = new LinkedHashMap<>(stateCount);
+				for ( int j = 0; j < stateCount; j++ ) {
+					String name = readString(buf);
+					states.put(name, readUUID(buf));
+				}
+				control.setStates(states);
+			}
+			controls.add(control);
+		}
+
+		return new StructureSnapshot(configId, lastModified, categories, rooms, controls);
+	}
+
+	private static int rating(Integer rating) {
+		return (rating != null ? rating.intValue() : 0);
+	}
+
+	private static void writeString(String s, DataOutputStream out) throws IOException {
+		if ( s == null ) {
+			out.writeInt(-1);
+			return;
+		}
+		byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(ByteBuffer buf) {
+		int len = buf.getInt();
+		if ( len < 0 ) {
+			return null;
+		}
+		byte[] bytes = new byte[len];
+		buf.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static void writeUUID(UUID uuid, DataOutputStream out) throws IOException {
+		if ( uuid == null ) {
+			out.writeBoolean(false);
+			return;
+		}
+		out.writeBoolean(true);
+		out.writeLong(uuid.getMostSignificantBits());
+		out.writeLong(uuid.getLeastSignificantBits());
+	}
+
+	private static UUID readUUID(ByteBuffer buf) {
+		if ( buf.get() == 0 ) {
+			return null;
+		}
+		return new UUID(buf.getLong(), buf.getLong());
+	}
+
+	/**
+	 * Get the snapshot directory.
+	 *
+	 * @return the directory
+	 */
+	public Path getDirectory() {
+		return directory;
+	}
+
+	/**
+	 * Set the snapshot directory.
+	 *
+	 * @param directory
+	 *        the directory to set; a relative path is resolved against the
+	 *        {@code sn.home} system property; defaults to
+	 *        {@link #DEFAULT_DIRECTORY}
+	 */
+	public void setDirectory(String directory) {
+		this.directory = resolveDirectory(
+				directory != null && !directory.isEmpty() ? directory : DEFAULT_DIRECTORY);
+	}
+
+}
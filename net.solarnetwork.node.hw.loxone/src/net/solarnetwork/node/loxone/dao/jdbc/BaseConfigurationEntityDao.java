@@ -22,12 +22,16 @@
 
 package net.solarnetwork.node.loxone.dao.jdbc;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.cache.Cache;
-import javax.cache.Cache.Entry;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
@@ -43,7 +47,7 @@ import net.solarnetwork.node.loxone.domain.ConfigNameKey;
  * @param <T>
  *        the entity type
  * @author matt
- * @version 1.2
+ * @version 1.6
  */
 public abstract class BaseConfigurationEntityDao<T extends BaseConfigurationEntity>
 		extends BaseUUIDEntityDao<T> implements ConfigurationEntityDao<T> {
@@ -54,6 +58,8 @@ public abstract class BaseConfigurationEntityDao<T extends BaseConfigurationEnti
 	 */
 	public static final String SQL_FIND_FOR_NAME = "find-for-name";
 
+	private final ConcurrentMap<Long, AtomicLong> entityNameCacheGenerations = new ConcurrentHashMap<>(4);
+
 	private Cache<ConfigNameKey, List<T>> entityNameCache;
 
 	/**
@@ -109,6 +115,31 @@ public abstract class BaseConfigurationEntityDao<T extends BaseConfigurationEnti
 		storeEntity(entity);
 	}
 
+	/**
+	 * {@inheritDoc}
+	 *
+	 * <p>
+	 * The existing entities are deleted with one {@code DELETE} statement and
+	 * the given entities inserted as a single {@code INSERT} batch, without
+	 * checking for existing rows. All entities are then added to the entity
+	 * cache, if configured, in one operation.
+	 * </p>
+	 *
+	 * @since 1.3
+	 */
+	@Transactional(readOnly = false, propagation = Propagation.REQUIRED)
+	@Override
+	public void storeAll(Long configId, Collection<T> entities) {
+		deleteAllEntitiesForConfig(configId);
+		if ( entities == null || entities.isEmpty() ) {
+			return;
+		}
+		final List<T> list = (entities instanceof List ? (List<T>) entities
+				: new ArrayList<>(entities));
+		insertEntities(list);
+		storeEntitiesInCache(list);
+	}
+
 	@Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
 	@Override
 	public T load(Long configId, UUID uuid) {
@@ -132,10 +163,13 @@ public abstract class BaseConfigurationEntityDao<T extends BaseConfigurationEnti
 
 	/**
 	 * Remove all entities matching a specific {@code configId} from the entity
-	 * cache.
+	 * name cache.
 	 *
 	 * <p>
-	 * This method does nothing if the entity cache is not configured.
+	 * As with {@link #deleteAllEntitiesForConfigFromCache(Long)}, the cache
+	 * generation of the configuration is incremented rather than removing
+	 * each entry. This method does nothing if the entity name cache is not
+	 * configured.
 	 * </p>
 	 *
 	 * @param configId
@@ -143,19 +177,66 @@ public abstract class BaseConfigurationEntityDao<T extends BaseConfigurationEnti
 	 * @since 1.2
 	 */
 	protected void deleteAllEntitiesForConfigFromNameCache(Long configId) {
-		Cache<ConfigNameKey, List<T>> cache = getEntityNameCache();
-		if ( cache == null ) {
+		if ( getEntityNameCache() == null ) {
 			return;
 		}
-		Set<ConfigNameKey> keysToRemove = new HashSet<>();
-		for ( Entry<ConfigNameKey, List<T>> entry : cache ) {
-			if ( entry.getKey().getConfigId().equals(configId) ) {
-				keysToRemove.add(entry.getKey());
-			}
+		entityNameCacheGenerations.computeIfAbsent(configId, k -> new AtomicLong())
+				.incrementAndGet();
+	}
+
+	/**
+	 * Get the entity name cache key for a specific {@code configId} and
+	 * {@code name}.
+	 *
+	 * @param configId
+	 *        The configuration ID of the entities.
+	 * @param name
+	 *        The name of the entities.
+	 * @return The key, with the current name cache generation of the
+	 *         configuration.
+	 * @since 1.5
+	 */
+	protected ConfigNameKey entityNameCacheKey(Long configId, String name) {
+		return new ConfigNameKey(configId, name, getEntityNameCacheGeneration(configId));
+	}
+
+	/**
+	 * Get the current entity name cache generation of a configuration.
+	 *
+	 * @param configId
+	 *        The configuration ID.
+	 * @return The generation, starting from {@literal 0}.
+	 * @since 1.5
+	 */
+	public long getEntityNameCacheGeneration(Long configId) {
+		AtomicLong generation = entityNameCacheGenerations.get(configId);
+		return (generation != null ? generation.get() : 0L);
+	}
+
+	/**
+	 * Remove the entities matching a specific {@code configId} and set of
+	 * names from the entity name cache.
+	 *
+	 * <p>
+	 * This method does nothing if the entity cache is not configured.
+	 * </p>
+	 *
+	 * @param configId
+	 *        The ID of the {@link Config} to delete entities for.
+	 * @param names
+	 *        The names to delete.
+	 * @since 1.4
+	 */
+	protected void deleteEntitiesForConfigAndNamesFromNameCache(Long configId, Set<String> names) {
+		Cache<ConfigNameKey, List<T>> cache = getEntityNameCache();
+		if ( cache == null || names == null || names.isEmpty() ) {
+			return;
 		}
-		if ( !keysToRemove.isEmpty() ) {
-			cache.removeAll(keysToRemove);
+		Set<ConfigNameKey> keysToRemove = new HashSet<>(names.size());
+		for ( String name : names ) {
+			keysToRemove.add(entityNameCacheKey(configId, name));
 		}
+		cache.removeAll(keysToRemove);
 	}
 
 	@Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
@@ -211,7 +292,7 @@ public abstract class BaseConfigurationEntityDao<T extends BaseConfigurationEnti
 	protected void storeEntitiesForConfigAndNameInCache(Long configId, String name, List<T> entities) {
 		Cache<ConfigNameKey, List<T>> cache = getEntityNameCache();
 		if ( cache != null ) {
-			cache.put(new ConfigNameKey(configId, name), entities);
+			cache.put(entityNameCacheKey(configId, name), entities);
 		}
 	}
 
@@ -231,7 +312,7 @@ public abstract class BaseConfigurationEntityDao<T extends BaseConfigurationEnti
 		if ( cache == null ) {
 			return null;
 		}
-		return cache.get(new ConfigNameKey(configId, name));
+		return cache.get(entityNameCacheKey(configId, name));
 	}
 
 	/**
@@ -22,26 +22,70 @@
 
 package net.solarnetwork.node.loxone.dao.jdbc;
 
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledFuture;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import net.solarnetwork.domain.SortDescriptor;
 import net.solarnetwork.node.loxone.dao.EventEntityDao;
 import net.solarnetwork.node.loxone.domain.BaseEventEntity;
+import net.solarnetwork.node.loxone.domain.ConfigUUIDKey;
 
 /**
  * Base DAO for {@link BaseEventEntity} classes.
  *
+ * <p>
+ * An optional <i>write-behind</i> mode can be enabled by configuring a
+ * {@link #setTaskScheduler(TaskScheduler)} and a positive
+ * {@link #setWriteBehindFlushMs(long)}. In this mode stored events are held in
+ * memory, keyed by configuration ID and UUID so that only the latest event for
+ * each UUID is kept, and written to the database in a single batch every
+ * {@code writeBehindFlushMs} milliseconds, when more than
+ * {@link #setWriteBehindMaxDirtyCount(int)} events are pending, or when
+ * {@link #flushEvents()} is called.
+ * </p>
+ *
  * @param <T>
  *        the entity type
  * @author matt
- * @version 1.2
+ * @version 1.6
  */
 public abstract class BaseEventEntityDao<T extends BaseEventEntity> extends BaseUUIDEntityDao<T>
 		implements EventEntityDao<T> {
 
+	/** The {@code writeBehindMaxDirtyCount} property default value. */
+	public static final int DEFAULT_WRITE_BEHIND_MAX_DIRTY_COUNT = 1000;
+
+	private final Logger log = LoggerFactory.getLogger(getClass());
+
+	private final ConcurrentMap<ConfigUUIDKey, T> dirtyEvents = new ConcurrentHashMap<>(64, 0.75f,
+			2);
+	private final Object flushLock = new Object();
+
+	private TaskScheduler taskScheduler;
+	private TransactionTemplate transactionTemplate;
+	private long writeBehindFlushMs = 0;
+	private int writeBehindMaxDirtyCount = DEFAULT_WRITE_BEHIND_MAX_DIRTY_COUNT;
+	private ScheduledFuture<?> flushFuture;
+
 	/**
 	 * Init with an an entity name and table version, deriving various names
 	 * based on conventions.
@@ -94,6 +138,12 @@ public abstract class BaseEventEntityDao<T extends BaseEventEntity> extends Base
 	public void storeEvent(T entity) {
 		// we expect mostly updates, not inserts, so try for that first
 		assert entity.getUuid() != null;
+		if ( isWriteBehind() ) {
+			storeDirtyEvent(entity);
+			storeEntityInCache(entity);
+			flushIfFull();
+			return;
+		}
 		int count = updateDomainObject(entity, getSqlResource(SQL_UPDATE));
 		if ( count == 0 ) {
 			insertDomainObject(entity, getSqlResource(SQL_INSERT));
@@ -101,16 +151,369 @@ public abstract class BaseEventEntityDao<T extends BaseEventEntity> extends Base
 		storeEntityInCache(entity);
 	}
 
+	/**
+	 * {@inheritDoc}
+	 *
+	 * <p>
+	 * All events are first applied as a single {@code UPDATE} batch. Any
+	 * events that did not match an existing row are then applied as a single
+	 * {@code INSERT} batch. Finally all events are added to the entity cache,
+	 * if configured, in one operation.
+	 * </p>
+	 *
+	 * <p>
+	 * In write-behind mode the events are only added to the pending events
+	 * and the entity cache.
+	 * </p>
+	 *
+	 * @since 1.3
+	 */
+	@Transactional(readOnly = false, propagation = Propagation.REQUIRED)
+	@Override
+	public void storeEvents(Collection<T> events) {
+		if ( events == null || events.isEmpty() ) {
+			return;
+		}
+		final List<T> list = (events instanceof List ? (List<T>) events : new ArrayList<>(events));
+		if ( isWriteBehind() ) {
+			for ( T entity : list ) {
+				storeDirtyEvent(entity);
+			}
+			storeEntitiesInCache(list);
+			flushIfFull();
+			return;
+		}
+		batchStoreEvents(list);
+		storeEntitiesInCache(list);
+	}
+
+	private void batchStoreEvents(final List<T> list) {
+		final int[] counts = getJdbcTemplate().batchUpdate(getSqlResource(SQL_UPDATE),
+				new BatchPreparedStatementSetter() {
+
+					@Override
+					public void setValues(PreparedStatement ps, int i) throws SQLException {
+						setUpdateStatementValues(list.get(i), ps);
+					}
+
+					@Override
+					public int getBatchSize() {
+						return list.size();
+					}
+				});
+
+		// we expect mostly updates, so only insert those that did not update any row
+		final List<T> inserts = new ArrayList<>(8);
+		for ( int i = 0, len = list.size(); i < len; i++ ) {
+			int count = (i < counts.length ? counts[i] : Statement.SUCCESS_NO_INFO);
+			if ( count == 0 ) {
+				inserts.add(list.get(i));
+			} else if ( count == Statement.SUCCESS_NO_INFO ) {
+				// driver did not report the update count, so fall back to individual store
+				T entity = list.get(i);
+				if ( updateDomainObject(entity, getSqlResource(SQL_UPDATE)) == 0 ) {
+					inserts.add(entity);
+				}
+			}
+		}
+		if ( !inserts.isEmpty() ) {
+			getJdbcTemplate().batchUpdate(getSqlResource(SQL_INSERT),
+					new BatchPreparedStatementSetter() {
+
+						@Override
+						public void setValues(PreparedStatement ps, int i) throws SQLException {
+							setStoreStatementValues(inserts.get(i), ps);
+						}
+
+						@Override
+						public int getBatchSize() {
+							return inserts.size();
+						}
+					});
+		}
+	}
+
+	/**
+	 * Test if write-behind mode is enabled.
+	 *
+	 * @return {@literal true} if stored events are held in memory and written
+	 *         to the database later
+	 * @since 1.6
+	 */
+	protected boolean isWriteBehind() {
+		return (writeBehindFlushMs > 0 && taskScheduler != null);
+	}
+
+	private void storeDirtyEvent(T entity) {
+		dirtyEvents.put(new ConfigUUIDKey(entity.getConfigId(), entity.getUuid()), entity);
+		synchronized ( flushLock ) {
+			if ( flushFuture == null ) {
+				final Duration period = Duration.ofMillis(writeBehindFlushMs);
+				flushFuture = taskScheduler.scheduleWithFixedDelay(this::flushEventsQuietly,
+						Instant.now().plus(period), period);
+			}
+		}
+	}
+
+	private void flushIfFull() {
+		if ( dirtyEvents.size() >= writeBehindMaxDirtyCount ) {
+			flushEvents();
+		}
+	}
+
+	private void flushEventsQuietly() {
+		try {
+			flushEvents();
+		} catch ( RuntimeException e ) {
+			log.error("Error flushing {} pending {} events: {}", dirtyEvents.size(),
+					entityClass().getSimpleName(), e.toString());
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * <p>
+	 * All pending events are written as a single batch, in a transaction if a
+	 * {@link #setTransactionTemplate(TransactionTemplate)} is configured. If
+	 * the write fails the events remain pending, unless a newer event for the
+	 * same UUID has been stored in the meantime.
+	 * </p>
+	 *
+	 * @since 1.4
+	 */
+	@Override
+	public void flushEvents() {
+		synchronized ( flushLock ) {
+			if ( dirtyEvents.isEmpty() ) {
+				return;
+			}
+			final Map<ConfigUUIDKey, T> batch = new LinkedHashMap<>(dirtyEvents.size());
+			for ( Map.Entry<ConfigUUIDKey, T> me : dirtyEvents.entrySet() ) {
+				// only remove if not replaced by a newer event concurrently
+				if ( dirtyEvents.remove(me.getKey(), me.getValue()) ) {
+					batch.put(me.getKey(), me.getValue());
+				}
+			}
+			if ( batch.isEmpty() ) {
+				return;
+			}
+			final List<T> list = new ArrayList<>(batch.values());
+			try {
+				if ( transactionTemplate != null ) {
+					transactionTemplate.executeWithoutResult(status -> batchStoreEvents(list));
+				} else {
+					batchStoreEvents(list);
+				}
+				log.debug("Flushed {} pending {} events", list.size(), entityClass().getSimpleName());
+			} catch ( RuntimeException e ) {
+				// put back failed events, without replacing newer ones
+				for ( Map.Entry<ConfigUUIDKey, T> me : batch.entrySet() ) {
+					dirtyEvents.putIfAbsent(me.getKey(), me.getValue());
+				}
+				throw e;
+			}
+			eventsFlushed(list);
+		}
+	}
+
+	/**
+	 * Callback after pending write-behind events have been written.
+	 *
+	 * <p>
+	 * This method is called after {@link #flushEvents()} has written a batch
+	 * of events without error. If the flush joined an existing transaction,
+	 * that transaction has not committed yet. This implementation does
+	 * nothing.
+	 * </p>
+	 *
+	 * @param events
+	 *        the written events
+	 * @since 1.6
+	 */
+	protected void eventsFlushed(List<T> events) {
+		// extending classes can override
+	}
+
+	/**
+	 * Stop any scheduled write-behind task and write all pending events.
+	 *
+	 * <p>
+	 * This method is designed to be called when the DAO is no longer needed,
+	 * for example as a bean destroy method.
+	 * </p>
+	 *
+	 * @since 1.4
+	 */
+	public void close() {
+		synchronized ( flushLock ) {
+			if ( flushFuture != null ) {
+				flushFuture.cancel(false);
+				flushFuture = null;
+			}
+		}
+		flushEvents();
+	}
+
+	/**
+	 * Get the pending events for a configuration.
+	 *
+	 * @param configId
+	 *        the configuration ID to get the pending events for
+	 * @return the pending events, never {@literal null}
+	 * @since 1.4
+	 */
+	protected List<T> pendingEventsForConfig(Long configId) {
+		if ( dirtyEvents.isEmpty() ) {
+			return new ArrayList<>(0);
+		}
+		List<T> result = new ArrayList<>(8);
+		for ( T entity : dirtyEvents.values() ) {
+			if ( configId.equals(entity.getConfigId()) ) {
+				result.add(entity);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Get the pending event for a UUID.
+	 *
+	 * @param configId
+	 *        the configuration ID of the event
+	 * @param uuid
+	 *        the UUID of the event
+	 * @return the pending event, or {@literal null} if there is none
+	 * @since 1.6
+	 */
+	protected T pendingEvent(Long configId, UUID uuid) {
+		if ( dirtyEvents.isEmpty() ) {
+			return null;
+		}
+		return dirtyEvents.get(new ConfigUUIDKey(configId, uuid));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * <p>
+	 * Pending write-behind events are returned in preference to persisted
+	 * ones.
+	 * </p>
+	 */
 	@Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
 	@Override
 	public T loadEvent(Long configId, UUID uuid) {
+		T pending = pendingEvent(configId, uuid);
+		if ( pending != null ) {
+			return pending;
+		}
 		return getEntityByUUID(configId, uuid);
 	}
 
+	/**
+	 * {@inheritDoc}
+	 *
+	 * <p>
+	 * Pending write-behind events replace their persisted counterparts in the
+	 * results, and pending events that have not been persisted yet are
+	 * appended to the end of the results.
+	 * </p>
+	 */
 	@Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
 	@Override
 	public List<T> findAllForConfig(Long configId, List<SortDescriptor> sortDescriptors) {
-		return findAllEntitiesForConfig(configId, sortDescriptors);
+		List<T> results = findAllEntitiesForConfig(configId, sortDescriptors);
+		List<T> pending = pendingEventsForConfig(configId);
+		if ( pending.isEmpty() ) {
+			return results;
+		}
+		Map<UUID, T> pendingByUuid = new LinkedHashMap<>(pending.size());
+		for ( T entity : pending ) {
+			pendingByUuid.put(entity.getUuid(), entity);
+		}
+		List<T> merged = new ArrayList<>(results.size() + pending.size());
+		for ( T entity : results ) {
+			T p = pendingByUuid.remove(entity.getUuid());
+			merged.add(p != null ? p : entity);
+		}
+		merged.addAll(pendingByUuid.values());
+		return merged;
+	}
+
+	/**
+	 * Set the task scheduler to use for write-behind flushing.
+	 *
+	 * @param taskScheduler
+	 *        the task scheduler to use
+	 * @since 1.4
+	 */
+	public void setTaskScheduler(TaskScheduler taskScheduler) {
+		this.taskScheduler = taskScheduler;
+	}
+
+	/**
+	 * Set a transaction template to use when flushing write-behind events.
+	 *
+	 * @param transactionTemplate
+	 *        the template to use
+	 * @since 1.4
+	 */
+	public void setTransactionTemplate(TransactionTemplate transactionTemplate) {
+		this.transactionTemplate = transactionTemplate;
+	}
+
+	/**
+	 * Get the write-behind flush frequency.
+	 *
+	 * @return the frequency, in milliseconds; defaults to {@literal 0}
+	 * @since 1.4
+	 */
+	public long getWriteBehindFlushMs() {
+		return writeBehindFlushMs;
+	}
+
+	/**
+	 * Set the write-behind flush frequency.
+	 *
+	 * <p>
+	 * A value of {@literal 0} or less disables write-behind mode, so events are
+	 * written immediately.
+	 * </p>
+	 *
+	 * @param writeBehindFlushMs
+	 *        the frequency to flush pending events at, in milliseconds
+	 * @since 1.4
+	 */
+	public void setWriteBehindFlushMs(long writeBehindFlushMs) {
+		this.writeBehindFlushMs = writeBehindFlushMs;
+	}
+
+	/**
+	 * Get the maximum number of pending write-behind events.
+	 *
+	 * @return the maximum count; defaults to
+	 *         {@link #DEFAULT_WRITE_BEHIND_MAX_DIRTY_COUNT}
+	 * @since 1.4
+	 */
+	public int getWriteBehindMaxDirtyCount() {
+		return writeBehindMaxDirtyCount;
+	}
+
+	/**
+	 * Set the maximum number of pending write-behind events.
+	 *
+	 * <p>
+	 * When at least this many events are pending they will be flushed
+	 * immediately, without waiting for the next scheduled flush.
+	 * </p>
+	 *
+	 * @param writeBehindMaxDirtyCount
+	 *        the maximum count
+	 * @since 1.4
+	 */
+	public void setWriteBehindMaxDirtyCount(int writeBehindMaxDirtyCount) {
+		this.writeBehindMaxDirtyCount = writeBehindMaxDirtyCount;
 	}
 
 }
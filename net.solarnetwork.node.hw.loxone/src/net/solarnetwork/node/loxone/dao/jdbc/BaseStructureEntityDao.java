@@ -0,0 +1,204 @@
+/* ==================================================================
+ * BaseStructureEntityDao.java - 20/10/2026 11:26:03 AM
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.node.loxone.dao.jdbc;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import net.solarnetwork.node.loxone.domain.BaseConfigurationEntity;
+
+/**
+ * Base DAO for the {@link BaseConfigurationEntity} classes parsed from the
+ * structure file, which store a content hash with each entity so that
+ * {@link #syncAll(Long, Collection)} only writes changed entities.
+ *
+ * @param <T>
+ *        the entity type
+ * @author matt
+ * @version 1.0
+ * @since 2.3
+ */
+public abstract class BaseStructureEntityDao<T extends BaseConfigurationEntity>
+		extends BaseConfigurationEntityDao<T> {
+
+	/**
+	 * SQL resource to find the name and content hash of all entities for a
+	 * configuration. Accepts a {@code configId}, and must return the
+	 * {@code uuid_hi}, {@code uuid_lo}, {@code name}, and {@code chash}
+	 * columns.
+	 */
+	public static final String SQL_FIND_HASHES_FOR_CONFIG = "find-hashes-for-config";
+
+	/**
+	 * Init with an an entity name and table version, deriving various names
+	 * based on conventions.
+	 *
+	 * @param entityClass
+	 *        The class of the entity managed by this DAO.
+	 * @param entityName
+	 *        The entity name to use. This name forms the basis of the default
+	 *        SQL resource prefix, table name, tables version query, and SQL
+	 *        init resource.
+	 * @param version
+	 *        The tables version.
+	 * @param rowMapper
+	 *        A row mapper to use when mapping entity query results.
+	 */
+	public BaseStructureEntityDao(Class<T> entityClass, String entityName, int version,
+			RowMapper<T> rowMapper) {
+		super(entityClass, entityName, version, rowMapper);
+	}
+
+	/**
+	 * Init with an an entity name and table version, deriving various names
+	 * based on conventions.
+	 *
+	 * @param sqlResourcePrefixTemplate
+	 *        a template with a single {@code %s} parameter for the SQL resource
+	 *        prefix
+	 * @param tableNameTemplate
+	 *        a template with a single {@code %s} parameter for the SQL table
+	 *        name
+	 * @param entityClass
+	 *        The class of the entity managed by this DAO.
+	 * @param entityName
+	 *        The entity name to use. This name forms the basis of the default
+	 *        SQL resource prefix, table name, tables version query, and SQL
+	 *        init resource.
+	 * @param version
+	 *        The tables version.
+	 * @param rowMapper
+	 *        A row mapper to use when mapping entity query results.
+	 */
+	public BaseStructureEntityDao(String sqlResourcePrefixTemplate, String tableNameTemplate,
+			Class<T> entityClass, String entityName, int version, RowMapper<T> rowMapper) {
+		super(sqlResourcePrefixTemplate, tableNameTemplate, entityClass, entityName, version, rowMapper);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * <p>
+	 * The name and content hash of the stored entities are queried with the
+	 * {@link #SQL_FIND_HASHES_FOR_CONFIG} resource and compared to the
+	 * {@link #contentHash(BaseConfigurationEntity)} of the given entities. The
+	 * changes are then applied as one {@code DELETE}, {@code UPDATE}, and
+	 * {@code INSERT} batch each. Only the changed entities, and the names
+	 * they had or now have, are removed from or added to the caches.
+	 * </p>
+	 */
+	@Transactional(readOnly = false, propagation = Propagation.REQUIRED)
+	@Override
+	public int syncAll(Long configId, Collection<T> entities) {
+		final Map<UUID, StoredEntity> stored = findStoredEntities(configId);
+		final List<T> inserts = new ArrayList<>(8);
+		final List<T> updates = new ArrayList<>(8);
+		final Set<String> names = new HashSet<>(8);
+		if ( entities != null ) {
+			for ( T entity : entities ) {
+				StoredEntity existing = stored.remove(entity.getUuid());
+				if ( existing == null ) {
+					inserts.add(entity);
+					names.add(entity.getName());
+				} else if ( existing.hash == null || existing.hash.longValue() != contentHash(entity) ) {
+					updates.add(entity);
+					names.add(existing.name);
+					names.add(entity.getName());
+				}
+			}
+		}
+		final List<UUID> deletes = new ArrayList<>(stored.keySet());
+		for ( StoredEntity existing : stored.values() ) {
+			names.add(existing.name);
+		}
+
+		deleteEntities(configId, deletes);
+		updateEntities(updates);
+		insertEntities(inserts);
+
+		for ( T entity : updates ) {
+			// remove any cached entries of the previous version of the entity
+			deleteEntityFromCache(configId, entity.getUuid());
+		}
+		List<T> changed = new ArrayList<>(inserts.size() + updates.size());
+		changed.addAll(inserts);
+		changed.addAll(updates);
+		storeEntitiesInCache(changed);
+		deleteEntitiesForConfigAndNamesFromNameCache(configId, names);
+
+		return (deletes.size() + updates.size() + inserts.size());
+	}
+
+	/**
+	 * Compute a hash of all the persisted values of an entity.
+	 *
+	 * <p>
+	 * This hash is stored with each entity, to find entities that have
+	 * changed in {@link #syncAll(Long, Collection)}.
+	 * </p>
+	 *
+	 * @param entity
+	 *        The entity to compute the hash for.
+	 * @return The hash.
+	 */
+	protected abstract long contentHash(T entity);
+
+	private static final class StoredEntity {
+
+		private final String name;
+		private final Long hash;
+
+		private StoredEntity(String name, Long hash) {
+			super();
+			this.name = name;
+			this.hash = hash;
+		}
+	}
+
+	private Map<UUID, StoredEntity> findStoredEntities(Long configId) {
+		final Map<UUID, StoredEntity> result = new HashMap<>(64);
+		getJdbcTemplate().query(getSqlResource(SQL_FIND_HASHES_FOR_CONFIG), new RowCallbackHandler() {
+
+			@Override
+			public void processRow(ResultSet rs) throws SQLException {
+				UUID uuid = readUUID(1, rs);
+				String name = rs.getString(3);
+				long hash = rs.getLong(4);
+				result.put(uuid, new StoredEntity(name, rs.wasNull() ? null : hash));
+			}
+		}, configId);
+		return result;
+	}
+
+}
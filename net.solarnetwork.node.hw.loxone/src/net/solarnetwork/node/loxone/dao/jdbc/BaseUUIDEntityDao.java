@@ -26,15 +26,17 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Types;
+import java.util.Collection;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.cache.Cache;
-import javax.cache.Cache.Entry;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.RowMapper;
 import net.solarnetwork.domain.SortDescriptor;
 import net.solarnetwork.node.dao.jdbc.AbstractJdbcDao;
@@ -48,7 +50,7 @@ import net.solarnetwork.node.loxone.domain.UUIDEntity;
  * @param <T>
  *        the entity type
  * @author matt
- * @version 1.3
+ * @version 1.7
  */
 public abstract class BaseUUIDEntityDao<T extends UUIDEntity> extends AbstractJdbcDao<T> {
 
@@ -103,6 +105,8 @@ public abstract class BaseUUIDEntityDao<T extends UUIDEntity> extends AbstractJd
 	private final Class<T> entityClass;
 	private final RowMapper<T> rowMapper;
 
+	private final ConcurrentMap<Long, AtomicLong> entityCacheGenerations = new ConcurrentHashMap<>(4);
+
 	private Cache<ConfigUUIDKey, T> entityCache;
 
 	/**
@@ -216,6 +220,104 @@ public abstract class BaseUUIDEntityDao<T extends UUIDEntity> extends AbstractJd
 		storeEntityInCache(entity);
 	}
 
+	/**
+	 * Insert a list of entities as a single {@code INSERT} batch.
+	 *
+	 * <p>
+	 * No check for existing entities is made, so this should only be used for
+	 * entities known not to exist, such as after
+	 * {@link #deleteAllEntitiesForConfig(Long)}. The entities are not added to
+	 * the entity cache.
+	 * </p>
+	 *
+	 * @param entities
+	 *        The entities to insert.
+	 * @since 1.5
+	 */
+	protected void insertEntities(final List<T> entities) {
+		if ( entities == null || entities.isEmpty() ) {
+			return;
+		}
+		getJdbcTemplate().batchUpdate(getSqlResource(SQL_INSERT), new BatchPreparedStatementSetter() {
+
+			@Override
+			public void setValues(PreparedStatement ps, int i) throws SQLException {
+				setStoreStatementValues(entities.get(i), ps);
+			}
+
+			@Override
+			public int getBatchSize() {
+				return entities.size();
+			}
+		});
+	}
+
+	/**
+	 * Update a list of entities as a single {@code UPDATE} batch.
+	 *
+	 * <p>
+	 * The entities are not added to the entity cache.
+	 * </p>
+	 *
+	 * @param entities
+	 *        The entities to update.
+	 * @since 1.6
+	 */
+	protected void updateEntities(final List<T> entities) {
+		if ( entities == null || entities.isEmpty() ) {
+			return;
+		}
+		getJdbcTemplate().batchUpdate(getSqlResource(SQL_UPDATE), new BatchPreparedStatementSetter() {
+
+			@Override
+			public void setValues(PreparedStatement ps, int i) throws SQLException {
+				setUpdateStatementValues(entities.get(i), ps);
+			}
+
+			@Override
+			public int getBatchSize() {
+				return entities.size();
+			}
+		});
+	}
+
+	/**
+	 * Delete a list of entities as a single {@code DELETE} batch.
+	 *
+	 * <p>
+	 * The {@link BaseUUIDEntityDao#SQL_DELETE_BY_PK} resource is used. The
+	 * entities will also be removed from the entity cache, if configured.
+	 * </p>
+	 *
+	 * @param configId
+	 *        The ID of the {@link Config} of the entities to delete.
+	 * @param uuids
+	 *        The UUIDs of the entities to delete.
+	 * @since 1.6
+	 */
+	protected void deleteEntities(final Long configId, final List<UUID> uuids) {
+		if ( uuids == null || uuids.isEmpty() ) {
+			return;
+		}
+		getJdbcTemplate().batchUpdate(getSqlResource(SQL_DELETE_BY_PK),
+				new BatchPreparedStatementSetter() {
+
+					@Override
+					public void setValues(PreparedStatement ps, int i) throws SQLException {
+						prepareUUID(1, uuids.get(i), ps);
+						ps.setObject(3, configId);
+					}
+
+					@Override
+					public int getBatchSize() {
+						return uuids.size();
+					}
+				});
+		for ( UUID uuid : uuids ) {
+			deleteEntityFromCache(configId, uuid);
+		}
+	}
+
 	/**
 	 * Store an entity in the entity cache.
 	 *
@@ -230,10 +332,34 @@ public abstract class BaseUUIDEntityDao<T extends UUIDEntity> extends AbstractJd
 	protected void storeEntityInCache(T entity) {
 		Cache<ConfigUUIDKey, T> cache = getEntityCache();
 		if ( cache != null ) {
-			cache.put(new ConfigUUIDKey(entity.getConfigId(), entity.getUuid()), entity);
+			cache.put(entityCacheKey(entity.getConfigId(), entity.getUuid()), entity);
 		}
 	}
 
+	/**
+	 * Store a collection of entities in the entity cache, in a single
+	 * operation.
+	 *
+	 * <p>
+	 * This method does nothing if the entity cache is not configured.
+	 * </p>
+	 *
+	 * @param entities
+	 *        The entities to cache.
+	 * @since 1.4
+	 */
+	protected void storeEntitiesInCache(Collection<T> entities) {
+		Cache<ConfigUUIDKey, T> cache = getEntityCache();
+		if ( cache == null || entities == null || entities.isEmpty() ) {
+			return;
+		}
+		Map<ConfigUUIDKey, T> cacheEntries = new HashMap<>(entities.size());
+		for ( T entity : entities ) {
+			cacheEntries.put(entityCacheKey(entity.getConfigId(), entity.getUuid()), entity);
+		}
+		cache.putAll(cacheEntries);
+	}
+
 	/**
 	 * Load an entity by its UUID.
 	 *
@@ -277,8 +403,7 @@ public abstract class BaseUUIDEntityDao<T extends UUIDEntity> extends AbstractJd
 		if ( cache == null ) {
 			return null;
 		}
-		ConfigUUIDKey key = new ConfigUUIDKey(configId, uuid);
-		return cache.get(key);
+		return cache.get(entityCacheKey(configId, uuid));
 	}
 
 	/**
@@ -361,7 +486,11 @@ public abstract class BaseUUIDEntityDao<T extends UUIDEntity> extends AbstractJd
 	 * cache.
 	 *
 	 * <p>
-	 * This method does nothing if the entity cache is not configured.
+	 * The entities are not removed individually. Instead the cache generation
+	 * of the configuration is incremented, so the entities cached under the
+	 * previous generation are no longer found and are left to be evicted by
+	 * the cache. This method does nothing if the entity cache is not
+	 * configured.
 	 * </p>
 	 *
 	 * @param configId
@@ -369,19 +498,38 @@ public abstract class BaseUUIDEntityDao<T extends UUIDEntity> extends AbstractJd
 	 * @since 1.2
 	 */
 	protected void deleteAllEntitiesForConfigFromCache(Long configId) {
-		Cache<ConfigUUIDKey, T> cache = getEntityCache();
-		if ( cache == null ) {
+		if ( getEntityCache() == null ) {
 			return;
 		}
-		Set<ConfigUUIDKey> keysToRemove = new HashSet<>();
-		for ( Entry<ConfigUUIDKey, T> entry : cache ) {
-			if ( entry.getKey().getConfigId().equals(configId) ) {
-				keysToRemove.add(entry.getKey());
-			}
-		}
-		if ( !keysToRemove.isEmpty() ) {
-			cache.removeAll(keysToRemove);
-		}
+		entityCacheGenerations.computeIfAbsent(configId, k -> new AtomicLong()).incrementAndGet();
+	}
+
+	/**
+	 * Get the entity cache key for a specific {@code configId} and
+	 * {@code uuid}.
+	 *
+	 * @param configId
+	 *        The configuration ID of the entity.
+	 * @param uuid
+	 *        The UUID of the entity.
+	 * @return The key, with the current cache generation of the configuration.
+	 * @since 1.7
+	 */
+	protected ConfigUUIDKey entityCacheKey(Long configId, UUID uuid) {
+		return new ConfigUUIDKey(configId, uuid, getEntityCacheGeneration(configId));
+	}
+
+	/**
+	 * Get the current entity cache generation of a configuration.
+	 *
+	 * @param configId
+	 *        The configuration ID.
+	 * @return The generation, starting from {@literal 0}.
+	 * @since 1.7
+	 */
+	public long getEntityCacheGeneration(Long configId) {
+		AtomicLong generation = entityCacheGenerations.get(configId);
+		return (generation != null ? generation.get() : 0L);
 	}
 
 	/**
@@ -425,7 +573,7 @@ public abstract class BaseUUIDEntityDao<T extends UUIDEntity> extends AbstractJd
 		if ( cache == null ) {
 			return false;
 		}
-		return cache.remove(new ConfigUUIDKey(configId, uuid));
+		return cache.remove(entityCacheKey(configId, uuid));
 	}
 
 	/**
@@ -28,6 +28,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
@@ -35,6 +36,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import javax.cache.Cache;
 import org.springframework.dao.DataAccessException;
 import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.RowMapper;
@@ -42,6 +44,7 @@ import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import net.solarnetwork.domain.SortDescriptor;
 import net.solarnetwork.node.loxone.dao.UUIDSetDao;
+import net.solarnetwork.node.loxone.domain.ConfigUUIDKey;
 import net.solarnetwork.node.loxone.domain.UUIDEntityParameters;
 import net.solarnetwork.node.loxone.domain.UUIDSetEntity;
 
@@ -53,7 +56,7 @@ import net.solarnetwork.node.loxone.domain.UUIDSetEntity;
  * @param <P>
  *        the entity parameters type
  * @author matt
- * @version 1.1
+ * @version 1.2
  */
 public abstract class BaseUUIDSetDao<T extends UUIDSetEntity<P>, P extends UUIDEntityParameters>
 		extends BaseUUIDEntityDao<T> implements UUIDSetDao<T, P> {
@@ -347,6 +350,38 @@ public abstract class BaseUUIDSetDao<T extends UUIDSetEntity<P>, P extends UUIDE
 				return null;
 			}
 		});
+		deleteEntitiesFromCache(configId, add, remove, parameters);
+	}
+
+	/**
+	 * Remove the entities changed by
+	 * {@link #updateSetForConfig(Long, Collection, Collection, Map)} from the
+	 * entity cache, as that method changes the rows directly.
+	 */
+	private void deleteEntitiesFromCache(Long configId, Collection<UUID> add,
+			Collection<UUID> remove, Map<UUID, P> parameters) {
+		Cache<ConfigUUIDKey, T> cache = getEntityCache();
+		if ( cache == null ) {
+			return;
+		}
+		Set<UUID> uuids = new HashSet<>();
+		if ( add != null ) {
+			uuids.addAll(add);
+		}
+		if ( remove != null ) {
+			uuids.addAll(remove);
+		}
+		if ( parameters != null ) {
+			uuids.addAll(parameters.keySet());
+		}
+		if ( uuids.isEmpty() ) {
+			return;
+		}
+		Set<ConfigUUIDKey> keys = new HashSet<>(uuids.size());
+		for ( UUID uuid : uuids ) {
+			keys.add(entityCacheKey(configId, uuid));
+		}
+		cache.removeAll(keys);
 	}
 
 }
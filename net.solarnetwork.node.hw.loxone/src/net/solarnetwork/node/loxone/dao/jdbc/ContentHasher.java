@@ -0,0 +1,150 @@
+/* ==================================================================
+ * ContentHasher.java - 18/10/2026 8:12:40 PM
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.node.loxone.dao.jdbc;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Compute a 64-bit FNV-1a hash of the persisted values of an entity.
+ *
+ * <p>
+ * Each value is prefixed with its length, or a marker for {@literal null}, so
+ * that adjacent values cannot run together.
+ * </p>
+ *
+ * @author matt
+ * @version 1.0
+ */
+final class ContentHasher {
+
+	private static final long OFFSET_BASIS = 0xcbf29ce484222325L;
+	private static final long PRIME = 0x100000001b3L;
+
+	private static final int NULL_MARKER = -1;
+
+	private long hash = OFFSET_BASIS;
+
+	private void mix(int b) {
+		hash ^= (b & 0xFF);
+		hash *= PRIME;
+	}
+
+	private void mixInt(int v) {
+		mix(v >>> 24);
+		mix(v >>> 16);
+		mix(v >>> 8);
+		mix(v);
+	}
+
+	private void mixLong(long v) {
+		mixInt((int) (v >>> 32));
+		mixInt((int) v);
+	}
+
+	/**
+	 * Add a string value.
+	 *
+	 * @param s
+	 *        the value, or {@literal null}
+	 * @return this object
+	 */
+	ContentHasher add(String s) {
+		if ( s == null ) {
+			mixInt(NULL_MARKER);
+			return this;
+		}
+		final int len = s.length();
+		mixInt(len);
+		for ( int i = 0; i < len; i++ ) {
+			char c = s.charAt(i);
+			mix(c >>> 8);
+			mix(c);
+		}
+		return this;
+	}
+
+	/**
+	 * Add a number value.
+	 *
+	 * @param n
+	 *        the value
+	 * @return this object
+	 */
+	ContentHasher add(int n) {
+		mixInt(n);
+		return this;
+	}
+
+	/**
+	 * Add a UUID value.
+	 *
+	 * @param uuid
+	 *        the value, or {@literal null}
+	 * @return this object
+	 */
+	ContentHasher add(UUID uuid) {
+		if ( uuid == null ) {
+			mixInt(NULL_MARKER);
+			return this;
+		}
+		mixInt(16);
+		mixLong(uuid.getMostSignificantBits());
+		mixLong(uuid.getLeastSignificantBits());
+		return this;
+	}
+
+	/**
+	 * Add a map of UUID values, in key order.
+	 *
+	 * @param map
+	 *        the map, or {@literal null}; a {@literal null} and empty map
+	 *        produce the same hash, as they are persisted the same way
+	 * @return this object
+	 */
+	ContentHasher add(Map<String, UUID> map) {
+		if ( map == null || map.isEmpty() ) {
+			mixInt(0);
+			return this;
+		}
+		mixInt(map.size());
+		String[] keys = map.keySet().toArray(new String[map.size()]);
+		Arrays.sort(keys);
+		for ( String key : keys ) {
+			add(key);
+			add(map.get(key));
+		}
+		return this;
+	}
+
+	/**
+	 * Get the hash value.
+	 *
+	 * @return the hash
+	 */
+	long value() {
+		return hash;
+	}
+
+}
@@ -34,12 +34,12 @@ import net.solarnetwork.node.loxone.domain.CategoryType;
  * JDBC implementation of {@link CategoryDao}.
  * 
  * @author matt
- * @version 1.1
+ * @version 1.3
  */
-public class JdbcCategoryDao extends BaseConfigurationEntityDao<Category> implements CategoryDao {
+public class JdbcCategoryDao extends BaseStructureEntityDao<Category> implements CategoryDao {
 
 	/** The default tables version. */
-	public static final int TABLES_VERSION = 2;
+	public static final int TABLES_VERSION = 3;
 
 	/**
 	 * Constructor.
@@ -64,7 +64,7 @@ public class JdbcCategoryDao extends BaseConfigurationEntityDao<Category> implem
 
 	@Override
 	protected void setStoreStatementValues(Category category, PreparedStatement ps) throws SQLException {
-		// Row order is: uuid_hi, uuid_lo, config_id ,name, sort, image, ctype
+		// Row order is: uuid_hi, uuid_lo, config_id ,name, sort, image, ctype, chash
 		prepareUUID(1, category.getUuid(), ps);
 		ps.setObject(3, category.getConfigId());
 		ps.setString(4, category.getName());
@@ -72,20 +72,32 @@ public class JdbcCategoryDao extends BaseConfigurationEntityDao<Category> implem
 		ps.setString(6, category.getImage());
 		ps.setShort(7, category.getType() != null ? category.getType().getIndex()
 				: CategoryType.Unknown.getIndex());
+		ps.setLong(8, contentHash(category));
 	}
 
 	@Override
 	protected void setUpdateStatementValues(Category category, PreparedStatement ps)
 			throws SQLException {
-		// cols: name, sort, image, ctype
-		//       uuid_hi, uuid_lo
+		// cols: name, sort, image, ctype, chash
+		//       uuid_hi, uuid_lo, config_id
 		ps.setString(1, category.getName());
 		ps.setInt(2, (category.getDefaultRating() != null ? category.getDefaultRating().intValue() : 0));
 		ps.setString(3, category.getImage());
 		ps.setShort(4, category.getType() != null ? category.getType().getIndex()
 				: CategoryType.Unknown.getIndex());
-		prepareUUID(5, category.getUuid(), ps);
-		ps.setObject(7, category.getConfigId());
+		ps.setLong(5, contentHash(category));
+		prepareUUID(6, category.getUuid(), ps);
+		ps.setObject(8, category.getConfigId());
+	}
+
+	@Override
+	protected long contentHash(Category category) {
+		return new ContentHasher().add(category.getName())
+				.add(category.getDefaultRating() != null ? category.getDefaultRating().intValue() : 0)
+				.add(category.getImage())
+				.add(category.getType() != null ? category.getType().getIndex()
+						: CategoryType.Unknown.getIndex())
+				.value();
 	}
 
 	private static final class CategoryRowMapper implements RowMapper<Category> {
@@ -27,13 +27,20 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.cache.Cache;
 import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.PreparedStatementCreator;
 import org.springframework.jdbc.core.ResultSetExtractor;
@@ -41,9 +48,12 @@ import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import net.solarnetwork.domain.SortDescriptor;
 import net.solarnetwork.node.loxone.dao.ControlDao;
 import net.solarnetwork.node.loxone.dao.SourceMappingDao;
+import net.solarnetwork.node.loxone.dao.ValueEventDao;
 import net.solarnetwork.node.loxone.dao.jdbc.JdbcDatumUUIDSetDao.DatumUUIDEntityParametersRowMapper;
 import net.solarnetwork.node.loxone.domain.BasicControlDatumParameters;
 import net.solarnetwork.node.loxone.domain.BasicValueEventDatumParameters;
@@ -54,6 +64,8 @@ import net.solarnetwork.node.loxone.domain.ControlType;
 import net.solarnetwork.node.loxone.domain.DatumUUIDEntityParameters;
 import net.solarnetwork.node.loxone.domain.DatumValueType;
 import net.solarnetwork.node.loxone.domain.UUIDEntityParametersPair;
+import net.solarnetwork.node.loxone.domain.ValueEventDatumParameters;
+import net.solarnetwork.node.loxone.domain.ValueEventStateTable;
 
 /**
  * JDBC implementation of {@link ControlDao}.
@@ -65,13 +77,22 @@ import net.solarnetwork.node.loxone.domain.UUIDEntityParametersPair;
  * {@code sourceId} will be populated by a matching row from the
  * {@link SourceMappingDao} data.
  *
+ * <p>
+ * When a {@link ValueEventDao} is configured, the results of
+ * {@link #findAllForDatumPropertyUUIDEntities(Long)} are kept in memory as a
+ * view per config, without any values, and the current values are filled in
+ * from the {@link ValueEventDao#getStateTable(Long)} state table on each call.
+ * The view is discarded when controls are changed via this DAO, or when
+ * {@link #invalidateDatumPropertyUUIDEntities(Long)} is called.
+ * </p>
+ *
  * @author matt
- * @version 1.3
+ * @version 1.6
  */
-public class JdbcControlDao extends BaseConfigurationEntityDao<Control> implements ControlDao {
+public class JdbcControlDao extends BaseStructureEntityDao<Control> implements ControlDao {
 
 	/** The default tables version. */
-	public static final int TABLES_VERSION = 2;
+	public static final int TABLES_VERSION = 4;
 
 	/** SQL resource for find for property set. */
 	public static final String SQL_FIND_FOR_DATUM_PROPSET = "find-for-propset";
@@ -94,6 +115,18 @@ public class JdbcControlDao extends BaseConfigurationEntityDao<Control> implemen
 	/** SQL resource for count for config. */
 	public static final String SQL_COUNT_FOR_CONFIG = "count-for-config";
 
+	/**
+	 * SQL resource for find for property set, without values.
+	 *
+	 * @since 1.5
+	 */
+	public static final String SQL_FIND_FOR_DATUM_PROPSET_VIEW = "find-for-propset-view";
+
+	private final ConcurrentMap<Long, List<UUIDEntityParametersPair<Control, ControlDatumParameters>>> datumPropertyViews = new ConcurrentHashMap<>(
+			4, 0.9f, 1);
+	private final AtomicLong datumPropertyViewGeneration = new AtomicLong();
+	private ValueEventDao valueEventDao;
+
 	/**
 	 * Constructor.
 	 */
@@ -119,6 +152,7 @@ public class JdbcControlDao extends BaseConfigurationEntityDao<Control> implemen
 	@Override
 	public void store(final Control control) {
 		super.storeEntity(control);
+		invalidateDatumPropertyUUIDEntities(control.getConfigId());
 		getJdbcTemplate().execute(new ConnectionCallback<Object>() {
 
 			@Override
@@ -149,6 +183,123 @@ public class JdbcControlDao extends BaseConfigurationEntityDao<Control> implemen
 		});
 	}
 
+	@Transactional(readOnly = false, propagation = Propagation.REQUIRED)
+	@Override
+	public void storeAll(Long configId, Collection<Control> entities) {
+		super.storeAll(configId, entities);
+		invalidateDatumPropertyUUIDEntities(configId);
+	}
+
+	@Transactional(readOnly = false, propagation = Propagation.REQUIRED)
+	@Override
+	public int syncAll(Long configId, Collection<Control> entities) {
+		int result = super.syncAll(configId, entities);
+		if ( result > 0 ) {
+			invalidateDatumPropertyUUIDEntities(configId);
+		}
+		return result;
+	}
+
+	@Transactional(readOnly = false, propagation = Propagation.REQUIRED)
+	@Override
+	public int deleteAllForConfig(Long configId) {
+		int result = super.deleteAllForConfig(configId);
+		invalidateDatumPropertyUUIDEntities(configId);
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * <p>
+	 * The states of all controls are also inserted as a single {@code INSERT}
+	 * batch.
+	 * </p>
+	 *
+	 * @since 1.4
+	 */
+	@Override
+	protected void insertEntities(List<Control> controls) {
+		super.insertEntities(controls);
+		insertStates(controls);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * <p>
+	 * The states of all controls are also replaced, as a single
+	 * {@code DELETE} and {@code INSERT} batch.
+	 * </p>
+	 *
+	 * @since 1.4
+	 */
+	@Override
+	protected void updateEntities(final List<Control> controls) {
+		super.updateEntities(controls);
+		if ( controls == null || controls.isEmpty() ) {
+			return;
+		}
+		getJdbcTemplate().batchUpdate(
+				getSqlResource(String.format(getBaseSqlResourceTemplate() + "-%s", CONTROL_STATES_NAME,
+						SQL_CONTROL_STATES_DELETE_FOR_CONTROL)),
+				new BatchPreparedStatementSetter() {
+
+					@Override
+					public void setValues(PreparedStatement ps, int i) throws SQLException {
+						Control control = controls.get(i);
+						prepareUUID(1, control.getUuid(), ps);
+						ps.setObject(3, control.getConfigId());
+					}
+
+					@Override
+					public int getBatchSize() {
+						return controls.size();
+					}
+				});
+		insertStates(controls);
+	}
+
+	private void insertStates(List<Control> controls) {
+		if ( controls == null || controls.isEmpty() ) {
+			return;
+		}
+		final List<Control> stateControls = new ArrayList<>(controls.size() * 4);
+		final List<Map.Entry<String, UUID>> states = new ArrayList<>(controls.size() * 4);
+		for ( Control control : controls ) {
+			if ( control.getStates() == null ) {
+				continue;
+			}
+			for ( Map.Entry<String, UUID> entry : control.getStates().entrySet() ) {
+				stateControls.add(control);
+				states.add(entry);
+			}
+		}
+		if ( states.isEmpty() ) {
+			return;
+		}
+		getJdbcTemplate().batchUpdate(
+				getSqlResource(String.format(getBaseSqlResourceTemplate() + "-%s", CONTROL_STATES_NAME,
+						SQL_CONTROL_STATES_INSERT)),
+				new BatchPreparedStatementSetter() {
+
+					@Override
+					public void setValues(PreparedStatement ps, int i) throws SQLException {
+						Control control = stateControls.get(i);
+						Map.Entry<String, UUID> entry = states.get(i);
+						prepareUUID(1, control.getUuid(), ps);
+						ps.setObject(3, control.getConfigId());
+						ps.setString(4, entry.getKey());
+						prepareUUID(5, entry.getValue(), ps);
+					}
+
+					@Override
+					public int getBatchSize() {
+						return states.size();
+					}
+				});
+	}
+
 	@Override
 	protected void storeEntityInCache(Control entity) {
 		Cache<ConfigUUIDKey, Control> cache = getEntityCache();
@@ -164,15 +315,60 @@ public class JdbcControlDao extends BaseConfigurationEntityDao<Control> implemen
 		}
 
 		Map<ConfigUUIDKey, Control> cacheEntries = new HashMap<>(states.size());
-		for ( UUID stateUuid : states.values() ) {
-			cacheEntries.put(new ConfigUUIDKey(entity.getConfigId(), stateUuid), entity);
+		addCacheEntries(entity, cacheEntries);
+		cache.putAll(cacheEntries);
+	}
+
+	@Override
+	protected void storeEntitiesInCache(Collection<Control> entities) {
+		Cache<ConfigUUIDKey, Control> cache = getEntityCache();
+		if ( cache == null || entities == null || entities.isEmpty() ) {
+			return;
+		}
+		Map<ConfigUUIDKey, Control> cacheEntries = new HashMap<>(entities.size() * 4);
+		for ( Control entity : entities ) {
+			addCacheEntries(entity, cacheEntries);
 		}
-		ConfigUUIDKey controlUuidKey = new ConfigUUIDKey(entity.getConfigId(), entity.getUuid());
+		cache.putAll(cacheEntries);
+	}
+
+	@Override
+	protected boolean deleteEntityFromCache(Long configId, UUID uuid) {
+		Cache<ConfigUUIDKey, Control> cache = getEntityCache();
+		if ( cache == null ) {
+			return false;
+		}
+		final long generation = getEntityCacheGeneration(configId);
+		Control cached = cache.getAndRemove(new ConfigUUIDKey(configId, uuid, generation));
+		if ( cached == null ) {
+			return false;
+		}
+		// also remove the state keys added in storeEntityInCache()
+		Map<String, UUID> states = cached.getStates();
+		if ( states != null && !states.isEmpty() ) {
+			Set<ConfigUUIDKey> stateKeys = new HashSet<>(states.size());
+			for ( UUID stateUuid : states.values() ) {
+				stateKeys.add(new ConfigUUIDKey(configId, stateUuid, generation));
+			}
+			cache.removeAll(stateKeys);
+		}
+		return true;
+	}
+
+	private void addCacheEntries(Control entity, Map<ConfigUUIDKey, Control> cacheEntries) {
+		final long generation = getEntityCacheGeneration(entity.getConfigId());
+		Map<String, UUID> states = entity.getStates();
+		if ( states != null ) {
+			for ( UUID stateUuid : states.values() ) {
+				cacheEntries.put(new ConfigUUIDKey(entity.getConfigId(), stateUuid, generation),
+						entity);
+			}
+		}
+		ConfigUUIDKey controlUuidKey = new ConfigUUIDKey(entity.getConfigId(), entity.getUuid(),
+				generation);
 		if ( !cacheEntries.containsKey(controlUuidKey) ) {
 			cacheEntries.put(controlUuidKey, entity);
 		}
-
-		cache.putAll(cacheEntries);
 	}
 
 	@Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
@@ -261,17 +457,113 @@ public class JdbcControlDao extends BaseConfigurationEntityDao<Control> implemen
 		if ( configId == null ) {
 			return null;
 		}
+		if ( valueEventDao == null ) {
+			return findDatumPropertyUUIDEntities(configId, SQL_FIND_FOR_DATUM_PROPSET, true);
+		}
+		List<UUIDEntityParametersPair<Control, ControlDatumParameters>> view = datumPropertyViews
+				.get(configId);
+		if ( view == null ) {
+			final long generation = datumPropertyViewGeneration.get();
+			view = findDatumPropertyUUIDEntities(configId, SQL_FIND_FOR_DATUM_PROPSET_VIEW, false);
+			datumPropertyViews.put(configId, view);
+			if ( datumPropertyViewGeneration.get() != generation ) {
+				// invalidated while loading, so the view might be stale already
+				datumPropertyViews.remove(configId, view);
+			}
+		}
+		return withCurrentValues(view, valueEventDao.getStateTable(configId));
+	}
+
+	private List<UUIDEntityParametersPair<Control, ControlDatumParameters>> findDatumPropertyUUIDEntities(
+			final Long configId, final String sqlResource, final boolean withValues) {
 		return getJdbcTemplate().query(new PreparedStatementCreator() {
 
 			@Override
 			public PreparedStatement createPreparedStatement(Connection con) throws SQLException {
-				String sql = getSqlResource(SQL_FIND_FOR_DATUM_PROPSET);
+				String sql = getSqlResource(sqlResource);
 				PreparedStatement ps = con.prepareStatement(sql);
 				ps.setLong(1, configId.longValue());
 				return ps;
 			}
 		}, new ControlDatumPropertyResultSetExtractor(getRowMapper(),
-				new DatumUUIDEntityParametersRowMapper(11)));
+				new DatumUUIDEntityParametersRowMapper(11), withValues));
+	}
+
+	/**
+	 * Copy a view, with the current value of each property.
+	 *
+	 * <p>
+	 * Properties without a current value are left out, as they would be by
+	 * the value event join of the {@link #SQL_FIND_FOR_DATUM_PROPSET} query.
+	 * The controls and datum parameters are shared with the view, but each
+	 * property parameters object is a copy, so the view itself is never
+	 * modified.
+	 * </p>
+	 */
+	private static List<UUIDEntityParametersPair<Control, ControlDatumParameters>> withCurrentValues(
+			List<UUIDEntityParametersPair<Control, ControlDatumParameters>> view,
+			ValueEventStateTable states) {
+		List<UUIDEntityParametersPair<Control, ControlDatumParameters>> results = new ArrayList<>(
+				view.size());
+		for ( UUIDEntityParametersPair<Control, ControlDatumParameters> pair : view ) {
+			BasicControlDatumParameters params = null;
+			for ( Map.Entry<UUID, ValueEventDatumParameters> me : pair.getParameters()
+					.getDatumPropertyParameters().entrySet() ) {
+				UUID uuid = me.getKey();
+				long hi = uuid.getMostSignificantBits();
+				long lo = uuid.getLeastSignificantBits();
+				if ( !states.contains(hi, lo) ) {
+					continue;
+				}
+				if ( params == null ) {
+					params = new BasicControlDatumParameters();
+					params.setDatumParameters(pair.getParameters().getDatumParameters());
+				}
+				ValueEventDatumParameters viewParams = me.getValue();
+				BasicValueEventDatumParameters valueParams = new BasicValueEventDatumParameters();
+				valueParams.setName(viewParams.getName());
+				valueParams.setDatumValueType(viewParams.getDatumValueType());
+				valueParams.setValue(states.value(hi, lo, 0.0));
+				params.getDatumPropertyParameters().put(uuid, valueParams);
+			}
+			if ( params != null ) {
+				results.add(new UUIDEntityParametersPair<>(pair.getEntity(), params));
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * <p>
+	 * If called within a transaction, the view is discarded again once the
+	 * transaction commits, so a view loaded before the changes were visible
+	 * is not kept.
+	 * </p>
+	 *
+	 * @since 1.5
+	 */
+	@Override
+	public void invalidateDatumPropertyUUIDEntities(final Long configId) {
+		if ( configId == null ) {
+			return;
+		}
+		discardDatumPropertyView(configId);
+		if ( TransactionSynchronizationManager.isSynchronizationActive() ) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+				@Override
+				public void afterCompletion(int status) {
+					discardDatumPropertyView(configId);
+				}
+			});
+		}
+	}
+
+	private void discardDatumPropertyView(Long configId) {
+		datumPropertyViewGeneration.incrementAndGet();
+		datumPropertyViews.remove(configId);
 	}
 
 	@Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
@@ -291,7 +583,7 @@ public class JdbcControlDao extends BaseConfigurationEntityDao<Control> implemen
 
 	@Override
 	protected void setStoreStatementValues(Control control, PreparedStatement ps) throws SQLException {
-		// Row order is: uuid_hi, uuid_lo, config_id, name, sort, room_hi, room_lo, cat_hi, cat_lo
+		// Row order is: uuid_hi, uuid_lo, config_id, name, sort, ctype, room_hi, room_lo, cat_hi, cat_lo, chash
 		prepareUUID(1, control.getUuid(), ps);
 		ps.setObject(3, control.getConfigId());
 		ps.setString(4, control.getName());
@@ -300,11 +592,12 @@ public class JdbcControlDao extends BaseConfigurationEntityDao<Control> implemen
 				: ControlType.Unknown.getIndex());
 		prepareUUID(7, control.getRoom(), ps);
 		prepareUUID(9, control.getCategory(), ps);
+		ps.setLong(11, contentHash(control));
 	}
 
 	@Override
 	protected void setUpdateStatementValues(Control control, PreparedStatement ps) throws SQLException {
-		// cols: name, sort, ctype, room_hi, room_lo, cat_hi, cat_lo
+		// cols: name, sort, ctype, room_hi, room_lo, cat_hi, cat_lo, chash
 		//       uuid_hi, uuid_lo, config_id
 		ps.setString(1, control.getName());
 		ps.setInt(2, (control.getDefaultRating() != null ? control.getDefaultRating().intValue() : 0));
@@ -312,8 +605,43 @@ public class JdbcControlDao extends BaseConfigurationEntityDao<Control> implemen
 				: ControlType.Unknown.getIndex());
 		prepareUUID(4, control.getRoom(), ps);
 		prepareUUID(6, control.getCategory(), ps);
-		prepareUUID(8, control.getUuid(), ps);
-		ps.setObject(10, control.getConfigId());
+		ps.setLong(8, contentHash(control));
+		prepareUUID(9, control.getUuid(), ps);
+		ps.setObject(11, control.getConfigId());
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * <p>
+	 * The control states are included in the hash, as they are stored with
+	 * the control.
+	 * </p>
+	 */
+	@Override
+	protected long contentHash(Control control) {
+		return new ContentHasher().add(control.getName())
+				.add(control.getDefaultRating() != null ? control.getDefaultRating().intValue() : 0)
+				.add(control.getType() != null ? control.getType().getIndex()
+						: ControlType.Unknown.getIndex())
+				.add(control.getRoom()).add(control.getCategory()).add(control.getStates()).value();
+	}
+
+	/**
+	 * Set the value event DAO.
+	 *
+	 * <p>
+	 * When configured, the results of
+	 * {@link #findAllForDatumPropertyUUIDEntities(Long)} are kept in memory,
+	 * and the values are taken from the value event state table.
+	 * </p>
+	 *
+	 * @param valueEventDao
+	 *        the DAO to set
+	 * @since 1.5
+	 */
+	public void setValueEventDao(ValueEventDao valueEventDao) {
+		this.valueEventDao = valueEventDao;
 	}
 
 	private static final class ControlRowMapper implements RowMapper<Control> {
@@ -377,14 +705,17 @@ public class JdbcControlDao extends BaseConfigurationEntityDao<Control> implemen
 		private final RowMapper<Control> rowMapper;
 		private final RowMapper<DatumUUIDEntityParameters> datumParamsRowMapper;
 
+		private final boolean withValues;
+
 		private BasicControlDatumParameters lastParams;
 		private UUIDEntityParametersPair<Control, ControlDatumParameters> lastPair;
 
 		private ControlDatumPropertyResultSetExtractor(RowMapper<Control> rowMapper,
-				RowMapper<DatumUUIDEntityParameters> datumParamsRowMapper) {
+				RowMapper<DatumUUIDEntityParameters> datumParamsRowMapper, boolean withValues) {
 			super();
 			this.rowMapper = rowMapper;
 			this.datumParamsRowMapper = datumParamsRowMapper;
+			this.withValues = withValues;
 		}
 
 		@Override
@@ -406,7 +737,7 @@ public class JdbcControlDao extends BaseConfigurationEntityDao<Control> implemen
 				// after control and datum params, columns start at 13 and are
 				// st.event_hi, st.event_lo, st.name AS event_name
 				// ps.dtype,
-				// ve.fvalue
+				// ve.fvalue (if withValues)
 
 				UUID stateUuid = readUUID(13, rs);
 				BasicValueEventDatumParameters valueParams = (BasicValueEventDatumParameters) lastParams
@@ -417,7 +748,9 @@ public class JdbcControlDao extends BaseConfigurationEntityDao<Control> implemen
 				}
 				valueParams.setName(rs.getString(15));
 				valueParams.setDatumValueType(DatumValueType.forCodeValue(rs.getInt(16)));
-				valueParams.setValue(rs.getDouble(17));
+				if ( withValues ) {
+					valueParams.setValue(rs.getDouble(17));
+				}
 			}
 			return results;
 		}
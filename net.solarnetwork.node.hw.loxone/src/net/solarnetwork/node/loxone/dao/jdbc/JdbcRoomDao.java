@@ -33,12 +33,12 @@ import net.solarnetwork.node.loxone.domain.Room;
  * JDBC implementation of {@link RoomDao}.
  * 
  * @author matt
- * @version 1.1
+ * @version 1.3
  */
-public class JdbcRoomDao extends BaseConfigurationEntityDao<Room> implements RoomDao {
+public class JdbcRoomDao extends BaseStructureEntityDao<Room> implements RoomDao {
 
 	/** The default tables version. */
-	public static final int TABLES_VERSION = 2;
+	public static final int TABLES_VERSION = 3;
 
 	/**
 	 * Constructor.
@@ -63,23 +63,32 @@ public class JdbcRoomDao extends BaseConfigurationEntityDao<Room> implements Roo
 
 	@Override
 	protected void setStoreStatementValues(Room room, PreparedStatement ps) throws SQLException {
-		// Row order is: uuid_hi, uuid_lo, config_id, name, sort, image
+		// Row order is: uuid_hi, uuid_lo, config_id, name, sort, image, chash
 		prepareUUID(1, room.getUuid(), ps);
 		ps.setObject(3, room.getConfigId());
 		ps.setString(4, room.getName());
 		ps.setInt(5, (room.getDefaultRating() != null ? room.getDefaultRating().intValue() : 0));
 		ps.setString(6, room.getImage());
+		ps.setLong(7, contentHash(room));
 	}
 
 	@Override
 	protected void setUpdateStatementValues(Room room, PreparedStatement ps) throws SQLException {
-		// cols: name, sort, image
+		// cols: name, sort, image, chash
 		//       uuid_hi, uuid_lo, config_id
 		ps.setString(1, room.getName());
 		ps.setInt(2, (room.getDefaultRating() != null ? room.getDefaultRating().intValue() : 0));
 		ps.setString(3, room.getImage());
-		prepareUUID(4, room.getUuid(), ps);
-		ps.setObject(6, room.getConfigId());
+		ps.setLong(4, contentHash(room));
+		prepareUUID(5, room.getUuid(), ps);
+		ps.setObject(7, room.getConfigId());
+	}
+
+	@Override
+	protected long contentHash(Room room) {
+		return new ContentHasher().add(room.getName())
+				.add(room.getDefaultRating() != null ? room.getDefaultRating().intValue() : 0)
+				.add(room.getImage()).value();
 	}
 
 	private static final class RoomRowMapper implements RowMapper<Room> {
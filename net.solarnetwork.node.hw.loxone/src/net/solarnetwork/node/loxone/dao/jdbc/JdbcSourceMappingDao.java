@@ -25,6 +25,7 @@ package net.solarnetwork.node.loxone.dao.jdbc;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 import org.springframework.jdbc.core.RowMapper;
@@ -38,7 +39,7 @@ import net.solarnetwork.node.loxone.domain.SourceMapping;
  * JDBC based implementation of {@link SourceMappingDao}
  * 
  * @author matt
- * @version 1.1
+ * @version 1.3
  */
 public class JdbcSourceMappingDao extends BaseConfigurationEntityDao<SourceMapping>
 		implements SourceMappingDao {
@@ -78,6 +79,18 @@ public class JdbcSourceMappingDao extends BaseConfigurationEntityDao<SourceMappi
 		ps.setObject(4, sourceMapping.getConfigId());
 	}
 
+	/**
+	 * Source mappings are not part of the structure file, so are not
+	 * synchronized.
+	 *
+	 * @throws UnsupportedOperationException
+	 *         always
+	 */
+	@Override
+	public int syncAll(Long configId, Collection<SourceMapping> entities) {
+		throw new UnsupportedOperationException();
+	}
+
 	@Override
 	public List<SourceMapping> findAllForConfigAndName(Long configId, String name,
 			List<SortDescriptor> sortDescriptors) {
@@ -0,0 +1,399 @@
+/* ==================================================================
+ * JdbcTextEventDao.java - 19/10/2026 9:58:36 PM
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.node.loxone.dao.jdbc;
+
+import static net.solarnetwork.node.dao.jdbc.JdbcUtils.setUtcTimestampStatementValue;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import net.solarnetwork.node.dao.jdbc.JdbcUtils;
+import net.solarnetwork.node.loxone.dao.TextEventDao;
+import net.solarnetwork.node.loxone.domain.TextEvent;
+
+/**
+ * JDBC implementation of {@link TextEventDao}.
+ *
+ * <p>
+ * The latest stored text event of each UUID is kept in memory per
+ * configuration, along with a hash of its icon and text, so unchanged texts
+ * can be detected without a database query. Each configuration's latest
+ * events are loaded from the database when first needed, and hold at most the
+ * newest {@code maxLatestEventsPerConfig} events, discarding the least
+ * recently used. Once a configuration's latest events have been truncated in
+ * this way, {@link #getLatestEvents(Long)} falls back to querying the
+ * database, still overlaid with any pending write-behind events, and texts
+ * missing from memory are always treated as changed.
+ * </p>
+ *
+ * <p>
+ * Stored events are only added to the latest events once their transaction
+ * commits, so a rolled back text is stored again the next time it is seen.
+ * In write-behind mode a text is compared to its pending event first, and the
+ * pending events are added to the latest events once they are flushed.
+ * </p>
+ *
+ * <p>
+ * Texts are typically changed in bursts, for example when the Miniserver
+ * sends all text states after connecting, so enabling write-behind mode is
+ * recommended to store them in batches.
+ * </p>
+ *
+ * @author matt
+ * @version 1.2
+ * @since 2.3
+ */
+public class JdbcTextEventDao extends BaseEventEntityDao<TextEvent> implements TextEventDao {
+
+	/** The default tables version. */
+	public static final int TABLES_VERSION = 1;
+
+	/** The maximum stored text length, in characters. */
+	public static final int MAX_TEXT_LENGTH = 4096;
+
+	/** The {@code maxLatestEventsPerConfig} property default value. */
+	public static final int DEFAULT_MAX_LATEST_EVENTS_PER_CONFIG = 2000;
+
+	private final ConcurrentMap<Long, LatestEvents> latestEvents = new ConcurrentHashMap<>(4);
+
+	private int maxLatestEventsPerConfig = DEFAULT_MAX_LATEST_EVENTS_PER_CONFIG;
+
+	/**
+	 * The latest events of a configuration, in access order.
+	 */
+	private static final class LatestEvents extends LinkedHashMap<UUID, LatestEvent> {
+
+		private static final long serialVersionUID = -2484925386404758224L;
+
+		private final int maxSize;
+
+		// true while every persisted event of the configuration is held
+		private boolean complete = true;
+
+		private LatestEvents(int maxSize) {
+			super(64, 0.75f, true);
+			this.maxSize = maxSize;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<UUID, LatestEvent> eldest) {
+			if ( size() > maxSize ) {
+				complete = false;
+				return true;
+			}
+			return false;
+		}
+
+	}
+
+	private static final class LatestEvent {
+
+		private final TextEvent event;
+		private final long hash;
+
+		private LatestEvent(TextEvent event, long hash) {
+			super();
+			this.event = event;
+			this.hash = hash;
+		}
+
+	}
+
+	/**
+	 * Constructor.
+	 */
+	public JdbcTextEventDao() {
+		this(SQL_RESOURCE_PREFIX, TABLE_NAME_FORMAT);
+	}
+
+	/**
+	 * Construct with custom SQL settings.
+	 *
+	 * @param sqlResourcePrefixTemplate
+	 *        a template with a single {@code %s} parameter for the SQL resource
+	 *        prefix
+	 * @param tableNameTemplate
+	 *        a template with a single {@code %s} parameter for the SQL table
+	 *        name
+	 */
+	public JdbcTextEventDao(String sqlResourcePrefixTemplate, String tableNameTemplate) {
+		super(sqlResourcePrefixTemplate, tableNameTemplate, TextEvent.class, "tevent", TABLES_VERSION,
+				new TextEventRowMapper());
+	}
+
+	@Transactional(readOnly = false, propagation = Propagation.REQUIRED)
+	@Override
+	public void storeEvent(TextEvent event) {
+		storeChangedEvents(Collections.singletonList(event));
+	}
+
+	@Transactional(readOnly = false, propagation = Propagation.REQUIRED)
+	@Override
+	public void storeEvents(Collection<TextEvent> events) {
+		storeChangedEvents(events);
+	}
+
+	@Transactional(readOnly = false, propagation = Propagation.REQUIRED)
+	@Override
+	public List<TextEvent> storeChangedEvents(Collection<TextEvent> events) {
+		if ( events == null || events.isEmpty() ) {
+			return Collections.emptyList();
+		}
+		final List<TextEvent> changed = new ArrayList<>(events.size());
+		LatestEvents latest = null;
+		Long latestConfigId = null;
+		for ( TextEvent event : events ) {
+			if ( latest == null || !latestConfigId.equals(event.getConfigId()) ) {
+				latestConfigId = event.getConfigId();
+				latest = latestEventsForConfig(latestConfigId);
+			}
+			if ( isChanged(latest, event) ) {
+				changed.add(event);
+			}
+		}
+		if ( changed.isEmpty() ) {
+			return changed;
+		}
+		super.storeEvents(changed);
+		if ( !isWriteBehind() ) {
+			rememberAfterCommit(changed);
+		}
+		return changed;
+	}
+
+	private boolean isChanged(LatestEvents latest, TextEvent event) {
+		final long hash = contentHash(event);
+		TextEvent pending = pendingEvent(event.getConfigId(), event.getUuid());
+		if ( pending != null ) {
+			return (contentHash(pending) != hash);
+		}
+		synchronized ( latest ) {
+			LatestEvent existing = latest.get(event.getUuid());
+			return (existing == null || existing.hash != hash);
+		}
+	}
+
+	@Override
+	protected void eventsFlushed(List<TextEvent> events) {
+		rememberAfterCommit(events);
+	}
+
+	private void rememberAfterCommit(final List<TextEvent> events) {
+		if ( TransactionSynchronizationManager.isSynchronizationActive() ) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+				@Override
+				public void afterCommit() {
+					remember(events);
+				}
+			});
+		} else {
+			remember(events);
+		}
+	}
+
+	private void remember(List<TextEvent> events) {
+		for ( TextEvent event : events ) {
+			// configurations not loaded yet will load the event from the database
+			LatestEvents latest = latestEvents.get(event.getConfigId());
+			if ( latest != null ) {
+				synchronized ( latest ) {
+					latest.put(event.getUuid(), new LatestEvent(event, contentHash(event)));
+				}
+			}
+		}
+	}
+
+	@Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+	@Override
+	public List<TextEvent> getLatestEvents(Long configId) {
+		final LatestEvents latest = latestEventsForConfig(configId);
+		Map<UUID, TextEvent> result = null;
+		synchronized ( latest ) {
+			if ( latest.complete ) {
+				result = new LinkedHashMap<>(latest.size());
+				for ( LatestEvent e : latest.values() ) {
+					result.put(e.event.getUuid(), e.event);
+				}
+			}
+		}
+		if ( result == null ) {
+			// not all events held in memory, so start from the database
+			List<TextEvent> persisted = findAllEntitiesForConfig(configId, null);
+			result = new LinkedHashMap<>(persisted.size());
+			for ( TextEvent event : persisted ) {
+				result.put(event.getUuid(), event);
+			}
+		}
+		for ( TextEvent event : pendingEventsForConfig(configId) ) {
+			result.put(event.getUuid(), event);
+		}
+		return new ArrayList<>(result.values());
+	}
+
+	private LatestEvents latestEventsForConfig(Long configId) {
+		return latestEvents.computeIfAbsent(configId, this::loadLatestEvents);
+	}
+
+	private LatestEvents loadLatestEvents(final Long configId) {
+		final LatestEvents latest = new LatestEvents(maxLatestEventsPerConfig);
+		final RowMapper<TextEvent> mapper = getRowMapper();
+		final List<LatestEvent> newest = new ArrayList<>(64);
+		getJdbcTemplate().query(getSqlResource(SQL_FIND_FOR_CONFIG), new RowCallbackHandler() {
+
+			private int rowNum = 0;
+
+			@Override
+			public void processRow(ResultSet rs) throws SQLException {
+				// rows are ordered newest first, so keep only the first maxSize
+				if ( newest.size() >= latest.maxSize ) {
+					latest.complete = false;
+					return;
+				}
+				// Row order is: uuid_hi, uuid_lo, config_id, created, icon_hi, icon_lo, txt, chash
+				TextEvent event = mapper.mapRow(rs, rowNum++);
+				long hash = rs.getLong(8);
+				if ( rs.wasNull() ) {
+					hash = contentHash(event);
+				}
+				newest.add(new LatestEvent(event, hash));
+			}
+		}, configId);
+		// add oldest first, so the newest are the most recently used
+		for ( ListIterator<LatestEvent> itr = newest.listIterator(newest.size()); itr
+				.hasPrevious(); ) {
+			LatestEvent e = itr.previous();
+			latest.put(e.event.getUuid(), e);
+		}
+		return latest;
+	}
+
+	/**
+	 * Discard the latest events held in memory for a configuration.
+	 *
+	 * <p>
+	 * They will be loaded again from the database when next needed.
+	 * </p>
+	 *
+	 * @param configId
+	 *        the configuration ID
+	 */
+	public void invalidateLatestEvents(Long configId) {
+		latestEvents.remove(configId);
+	}
+
+	private static long contentHash(TextEvent event) {
+		return new ContentHasher().add(event.getIconUUID()).add(event.getText()).value();
+	}
+
+	private static String storedText(TextEvent event) {
+		String text = event.getText();
+		return (text != null && text.length() > MAX_TEXT_LENGTH ? text.substring(0, MAX_TEXT_LENGTH)
+				: text);
+	}
+
+	@Override
+	protected void setStoreStatementValues(TextEvent event, PreparedStatement ps) throws SQLException {
+		// Row order is: (uuid_hi, uuid_lo, config_id, created, icon_hi, icon_lo, txt, chash)
+		prepareUUID(1, event.getUuid(), ps);
+		ps.setObject(3, event.getConfigId());
+		setUtcTimestampStatementValue(ps, 4, event.getCreated() != null ? event.getCreated() : Instant.now());
+		prepareUUID(5, event.getIconUUID(), ps);
+		ps.setString(7, storedText(event));
+		ps.setLong(8, contentHash(event));
+	}
+
+	@Override
+	protected void setUpdateStatementValues(TextEvent event, PreparedStatement ps) throws SQLException {
+		// cols: created = ?, icon_hi = ?, icon_lo = ?, txt = ?, chash = ?
+		//       uuid_hi, uuid_lo, config_id
+		setUtcTimestampStatementValue(ps, 1, event.getCreated() != null ? event.getCreated() : Instant.now());
+		prepareUUID(2, event.getIconUUID(), ps);
+		ps.setString(4, storedText(event));
+		ps.setLong(5, contentHash(event));
+		prepareUUID(6, event.getUuid(), ps);
+		ps.setObject(8, event.getConfigId());
+	}
+
+	private static final class TextEventRowMapper implements RowMapper<TextEvent> {
+
+		@Override
+		public TextEvent mapRow(ResultSet rs, int rowNum) throws SQLException {
+			// Row order is: uuid_hi, uuid_lo, config_id, created, icon_hi, icon_lo, txt, chash
+			UUID uuid = readUUID(1, rs);
+			Long configId = rs.getLong(3);
+			Instant created = JdbcUtils.getUtcTimestampColumnValue(rs, 4);
+			UUID icon = readUUID(5, rs);
+			String text = rs.getString(7);
+			return new TextEvent(uuid, configId, created, icon, text);
+		}
+	}
+
+	/**
+	 * Get the maximum number of latest events to hold in memory per
+	 * configuration.
+	 *
+	 * @return the maximum count; defaults to
+	 *         {@link #DEFAULT_MAX_LATEST_EVENTS_PER_CONFIG}
+	 */
+	public int getMaxLatestEventsPerConfig() {
+		return maxLatestEventsPerConfig;
+	}
+
+	/**
+	 * Set the maximum number of latest events to hold in memory per
+	 * configuration.
+	 *
+	 * <p>
+	 * This applies to configurations loaded after it is changed.
+	 * </p>
+	 *
+	 * @param maxLatestEventsPerConfig
+	 *        the maximum count
+	 * @throws IllegalArgumentException
+	 *         if {@code maxLatestEventsPerConfig} is less than {@literal 1}
+	 */
+	public void setMaxLatestEventsPerConfig(int maxLatestEventsPerConfig) {
+		if ( maxLatestEventsPerConfig < 1 ) {
+			throw new IllegalArgumentException("The maxLatestEventsPerConfig must be at least 1.");
+		}
+		this.maxLatestEventsPerConfig = maxLatestEventsPerConfig;
+	}
+
+}
@@ -27,17 +27,36 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.Instant;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import net.solarnetwork.node.dao.jdbc.JdbcUtils;
 import net.solarnetwork.node.loxone.dao.ValueEventDao;
 import net.solarnetwork.node.loxone.domain.ValueEvent;
+import net.solarnetwork.node.loxone.domain.ValueEventStateTable;
 
 /**
  * JDBC implementation of {@link ValueEventDao}.
  *
+ * <p>
+ * A {@link ValueEventStateTable} is maintained for each configuration whose
+ * state table has been requested, and is updated with the stored events after
+ * they have been committed. In write-behind mode the table is updated after
+ * the pending events have been written, so it only ever holds persisted
+ * values.
+ * </p>
+ *
  * @author matt
- * @version 2.1
+ * @version 2.3
  */
 public class JdbcValueEventDao extends BaseEventEntityDao<ValueEvent> implements ValueEventDao {
 
@@ -47,6 +66,8 @@ public class JdbcValueEventDao extends BaseEventEntityDao<ValueEvent> implements
 	/** SQL resource to find value events for a datum set. */
 	public static final String SQL_FIND_FOR_DATUMSET = "vevent-find-for-datumset";
 
+	private final ConcurrentMap<Long, ValueEventStateTable> stateTables = new ConcurrentHashMap<>(4);
+
 	/**
 	 * Constructor.
 	 */
@@ -70,6 +91,87 @@ public class JdbcValueEventDao extends BaseEventEntityDao<ValueEvent> implements
 				new ValueEventRowMapper());
 	}
 
+	@Override
+	public void storeEvent(ValueEvent event) {
+		super.storeEvent(event);
+		if ( !isWriteBehind() ) {
+			updateStateTablesAfterCommit(Collections.singletonList(event));
+		}
+	}
+
+	@Override
+	public void storeEvents(Collection<ValueEvent> events) {
+		super.storeEvents(events);
+		if ( events != null && !isWriteBehind() ) {
+			updateStateTablesAfterCommit(events);
+		}
+	}
+
+	@Override
+	protected void eventsFlushed(List<ValueEvent> events) {
+		updateStateTablesAfterCommit(events);
+	}
+
+	private void updateStateTablesAfterCommit(final Collection<ValueEvent> events) {
+		if ( stateTables.isEmpty() ) {
+			return;
+		}
+		if ( TransactionSynchronizationManager.isSynchronizationActive() ) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+				@Override
+				public void afterCommit() {
+					updateStateTables(events);
+				}
+			});
+		} else {
+			updateStateTables(events);
+		}
+	}
+
+	private void updateStateTables(Collection<ValueEvent> events) {
+		ValueEventStateTable table = null;
+		for ( ValueEvent event : events ) {
+			if ( table == null || !table.getConfigId().equals(event.getConfigId()) ) {
+				// configurations not loaded yet will load the event from the database
+				table = stateTables.get(event.getConfigId());
+				if ( table == null ) {
+					continue;
+				}
+			}
+			table.put(event);
+		}
+	}
+
+	@Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+	@Override
+	public ValueEventStateTable getStateTable(Long configId) {
+		return stateTables.computeIfAbsent(configId, this::loadStateTable);
+	}
+
+	@Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+	@Override
+	public ValueEventStateTable reloadStateTable(Long configId) {
+		ValueEventStateTable table = loadStateTable(configId);
+		stateTables.put(configId, table);
+		return table;
+	}
+
+	private ValueEventStateTable loadStateTable(final Long configId) {
+		final ValueEventStateTable table = new ValueEventStateTable(configId);
+		getJdbcTemplate().query(getSqlResource(SQL_FIND_FOR_CONFIG), new RowCallbackHandler() {
+
+			@Override
+			public void processRow(ResultSet rs) throws SQLException {
+				// Row order is: uuid_hi, uuid_lo, config_id, created, value
+				Instant created = JdbcUtils.getUtcTimestampColumnValue(rs, 4);
+				table.put(rs.getLong(1), rs.getLong(2), rs.getDouble(5),
+						created != null ? created.toEpochMilli() : 0L);
+			}
+		}, configId);
+		return table;
+	}
+
 	@Override
 	protected void setStoreStatementValues(ValueEvent event, PreparedStatement ps) throws SQLException {
 		// Row order is: (uuid_hi, uuid_lo, config_id, created, value)
@@ -6,10 +6,11 @@ CREATE TABLE solarnode.loxone_category (
 	sort		INTEGER NOT NULL DEFAULT 0,
 	image		VARCHAR(48),
 	ctype		SMALLINT NOT NULL DEFAULT -1,
+	chash		BIGINT,
 	CONSTRAINT loxone_category_pk PRIMARY KEY (config_id, uuid_hi, uuid_lo)
 );
 
 CREATE INDEX loxone_category_name_idx ON solarnode.loxone_category (name);
 
 INSERT INTO solarnode.sn_settings (skey, svalue) 
-VALUES ('solarnode.loxone_category.version', '2');
+VALUES ('solarnode.loxone_category.version', '3');
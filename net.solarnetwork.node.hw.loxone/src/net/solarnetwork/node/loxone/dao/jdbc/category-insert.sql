@@ -1,3 +1,3 @@
 INSERT INTO solarnode.loxone_category
-	(uuid_hi, uuid_lo, config_id, name, sort, image, ctype)
-VALUES (?,?,?,?,?,?,?)
+	(uuid_hi, uuid_lo, config_id, name, sort, image, ctype, chash)
+VALUES (?,?,?,?,?,?,?,?)
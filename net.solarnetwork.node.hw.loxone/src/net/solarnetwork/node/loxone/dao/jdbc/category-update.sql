@@ -1,3 +1,3 @@
 UPDATE solarnode.loxone_category
-SET name = ?, sort = ?, image = ?, ctype = ?
+SET name = ?, sort = ?, image = ?, ctype = ?, chash = ?
 WHERE uuid_hi = ? AND uuid_lo = ? AND config_id = ?
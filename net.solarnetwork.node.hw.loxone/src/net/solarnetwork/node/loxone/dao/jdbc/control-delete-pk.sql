@@ -0,0 +1,2 @@
+DELETE FROM solarnode.loxone_control
+WHERE uuid_hi = ? AND uuid_lo = ? AND config_id = ?
@@ -0,0 +1,3 @@
+SELECT uuid_hi, uuid_lo, name, chash
+FROM  solarnode.loxone_control
+WHERE config_id = ?
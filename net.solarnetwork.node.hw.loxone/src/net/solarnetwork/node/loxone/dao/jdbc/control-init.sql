@@ -9,6 +9,7 @@ CREATE TABLE solarnode.loxone_control (
 	room_lo		BIGINT,
 	cat_hi		BIGINT,
 	cat_lo		BIGINT,
+	chash		BIGINT,
 	CONSTRAINT loxone_control_pk PRIMARY KEY (config_id, uuid_hi, uuid_lo)
 );
 
@@ -31,5 +32,8 @@ ON solarnode.loxone_control_state (config_id, uuid_hi, uuid_lo, name);
 
 CREATE INDEX loxone_control_state_name_idx ON solarnode.loxone_control_state (name);
 
+CREATE INDEX loxone_control_state_event_idx
+ON solarnode.loxone_control_state (config_id, event_hi, event_lo, uuid_hi, uuid_lo, name);
+
 INSERT INTO solarnode.sn_settings (skey, svalue) 
-VALUES ('solarnode.loxone_control.version', '2');
+VALUES ('solarnode.loxone_control.version', '4');
@@ -1,3 +1,3 @@
 INSERT INTO solarnode.loxone_control
-	(uuid_hi, uuid_lo, config_id, name, sort, ctype, room_hi, room_lo, cat_hi, cat_lo)
-VALUES (?,?,?,?,?,?,?,?,?,?)
+	(uuid_hi, uuid_lo, config_id, name, sort, ctype, room_hi, room_lo, cat_hi, cat_lo, chash)
+VALUES (?,?,?,?,?,?,?,?,?,?,?)
@@ -0,0 +1,5 @@
+CREATE INDEX loxone_control_state_event_idx
+ON solarnode.loxone_control_state (config_id, event_hi, event_lo, uuid_hi, uuid_lo, name);
+
+UPDATE solarnode.sn_settings SET svalue = '4'
+WHERE skey = 'solarnode.loxone_control.version';
@@ -1,3 +1,3 @@
 UPDATE solarnode.loxone_control
-SET name = ?, sort = ?, ctype = ?, room_hi = ?, room_lo = ?, cat_hi = ?, cat_lo = ?
+SET name = ?, sort = ?, ctype = ?, room_hi = ?, room_lo = ?, cat_hi = ?, cat_lo = ?, chash = ?
 WHERE uuid_hi = ? AND uuid_lo = ? AND config_id = ?
@@ -1,3 +1,3 @@
 INSERT INTO solarnode.loxone_room
-	(uuid_hi, uuid_lo, config_id, name, sort, image)
-VALUES (?,?,?,?,?,?)
+	(uuid_hi, uuid_lo, config_id, name, sort, image, chash)
+VALUES (?,?,?,?,?,?,?)
@@ -0,0 +1,4 @@
+ALTER TABLE solarnode.loxone_room ADD COLUMN chash BIGINT;
+
+UPDATE solarnode.sn_settings SET svalue = '3'
+WHERE skey = 'solarnode.loxone_room.version';
@@ -1,3 +1,3 @@
 UPDATE solarnode.loxone_room
-SET name = ?, sort = ?, image = ?
+SET name = ?, sort = ?, image = ?, chash = ?
 WHERE uuid_hi = ? AND uuid_lo = ? AND config_id = ?
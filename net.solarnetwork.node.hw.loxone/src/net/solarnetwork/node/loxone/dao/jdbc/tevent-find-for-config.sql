@@ -0,0 +1,4 @@
+SELECT uuid_hi, uuid_lo, config_id, created, icon_hi, icon_lo, txt, chash
+FROM  solarnode.loxone_tevent
+WHERE config_id = ?
+ORDER BY created DESC, uuid_hi ASC, uuid_lo ASC
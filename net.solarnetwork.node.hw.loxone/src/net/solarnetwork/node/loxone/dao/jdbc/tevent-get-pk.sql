@@ -0,0 +1,3 @@
+SELECT uuid_hi, uuid_lo, config_id, created, icon_hi, icon_lo, txt, chash
+FROM  solarnode.loxone_tevent
+WHERE uuid_hi = ? AND uuid_lo = ? AND config_id = ?
@@ -0,0 +1,14 @@
+CREATE TABLE solarnode.loxone_tevent (
+	uuid_hi		BIGINT NOT NULL,
+	uuid_lo		BIGINT NOT NULL,
+	config_id	BIGINT NOT NULL,
+	created		TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+	icon_hi		BIGINT,
+	icon_lo		BIGINT,
+	txt			VARCHAR(4096),
+	chash		BIGINT,
+	CONSTRAINT loxone_tevent_pk PRIMARY KEY (config_id, uuid_hi, uuid_lo)
+);
+
+INSERT INTO solarnode.sn_settings (skey, svalue) 
+VALUES ('solarnode.loxone_tevent.version', '1');
@@ -0,0 +1,3 @@
+INSERT INTO solarnode.loxone_tevent
+	(uuid_hi, uuid_lo, config_id, created, icon_hi, icon_lo, txt, chash)
+VALUES (?,?,?,?,?,?,?,?)
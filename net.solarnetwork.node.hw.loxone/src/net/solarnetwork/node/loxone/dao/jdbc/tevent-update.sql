@@ -0,0 +1,3 @@
+UPDATE solarnode.loxone_tevent
+SET created = ?, icon_hi = ?, icon_lo = ?, txt = ?, chash = ?
+WHERE uuid_hi = ? AND uuid_lo = ? AND config_id = ?
@@ -25,14 +25,20 @@ package net.solarnetwork.node.loxone.domain;
 /**
  * A key based on a configuration ID and a string name.
  * 
+ * <p>
+ * Keys used in caches can also include a generation number, as with
+ * {@link ConfigUUIDKey}.
+ * </p>
+ * 
  * @author matt
- * @version 1.0
+ * @version 1.1
  * @since 1.2
  */
 public class ConfigNameKey {
 
 	private final Long configId;
 	private final String name;
+	private final long generation;
 
 	/**
 	 * Constructor.
@@ -43,6 +49,21 @@ public class ConfigNameKey {
 	 *        the name
 	 */
 	public ConfigNameKey(Long configId, String name) {
+		this(configId, name, 0L);
+	}
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param configId
+	 *        the config ID
+	 * @param name
+	 *        the name
+	 * @param generation
+	 *        the generation
+	 * @since 1.1
+	 */
+	public ConfigNameKey(Long configId, String name, long generation) {
 		super();
 		if ( configId == null ) {
 			throw new IllegalArgumentException("The configId argument cannot be null.");
@@ -52,11 +73,13 @@ public class ConfigNameKey {
 		}
 		this.configId = configId;
 		this.name = name;
+		this.generation = generation;
 	}
 
 	@Override
 	public String toString() {
-		return "ConfigNameKey{configId=" + configId + ", name=" + name + "}";
+		return "ConfigNameKey{configId=" + configId + ", name=" + name + ", generation="
+				+ generation + "}";
 	}
 
 	@Override
@@ -65,6 +88,7 @@ public class ConfigNameKey {
 		int result = 1;
 		result = prime * result + ((configId == null) ? 0 : configId.hashCode());
 		result = prime * result + ((name == null) ? 0 : name.hashCode());
+		result = prime * result + Long.hashCode(generation);
 		return result;
 	}
 
@@ -80,6 +104,9 @@ public class ConfigNameKey {
 			return false;
 		}
 		ConfigNameKey other = (ConfigNameKey) obj;
+		if ( generation != other.generation ) {
+			return false;
+		}
 		if ( configId == null ) {
 			if ( other.configId != null ) {
 				return false;
@@ -115,4 +142,14 @@ public class ConfigNameKey {
 		return name;
 	}
 
+	/**
+	 * Get the generation.
+	 * 
+	 * @return the generation
+	 * @since 1.1
+	 */
+	public long getGeneration() {
+		return generation;
+	}
+
 }
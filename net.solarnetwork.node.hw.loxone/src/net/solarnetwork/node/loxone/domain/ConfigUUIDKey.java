@@ -29,19 +29,30 @@ import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 /**
  * A key based on a configuration ID and a UUID.
  *
+ * <p>
+ * Keys used in caches can also include a generation number. Keys of different
+ * generations are not equal, so all cached entries of a configuration can be
+ * invalidated by moving to a new generation.
+ * </p>
+ *
+ * <p>
+ * The key is stored as primitive {@code long} values with a precomputed hash
+ * code, as keys are created and compared for every cache operation.
+ * </p>
+ *
  * @author matt
- * @version 1.1
+ * @version 1.3
  * @since 1.2
  */
-public class ConfigUUIDKey implements Serializable {
+public final class ConfigUUIDKey implements Serializable {
 
-	private static final long serialVersionUID = 2754323180632544113L;
+	private static final long serialVersionUID = -4166432796018962725L;
 
-	/** The configuration ID. */
-	private final Long configId;
-
-	/** The UUID. */
-	private final UUID uuid;
+	private final long configId;
+	private final long uuidHi;
+	private final long uuidLo;
+	private final long generation;
+	private final int hash;
 
 	/**
 	 * Constructor.
@@ -52,6 +63,21 @@ public class ConfigUUIDKey implements Serializable {
 	 *        the UUID
 	 */
 	public ConfigUUIDKey(Long configId, UUID uuid) {
+		this(configId, uuid, 0L);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param configId
+	 *        the config ID
+	 * @param uuid
+	 *        the UUID
+	 * @param generation
+	 *        the generation
+	 * @since 1.2
+	 */
+	public ConfigUUIDKey(Long configId, UUID uuid, long generation) {
 		super();
 		if ( configId == null ) {
 			throw new IllegalArgumentException("The configId argument cannot be null.");
@@ -59,22 +85,26 @@ public class ConfigUUIDKey implements Serializable {
 		if ( uuid == null ) {
 			throw new IllegalArgumentException("The uuid argument cannot be null.");
 		}
-		this.configId = configId;
-		this.uuid = uuid;
+		this.configId = configId.longValue();
+		this.uuidHi = uuid.getMostSignificantBits();
+		this.uuidLo = uuid.getLeastSignificantBits();
+		this.generation = generation;
+		int h = Long.hashCode(this.configId);
+		h = 31 * h + Long.hashCode(uuidHi);
+		h = 31 * h + Long.hashCode(uuidLo);
+		h = 31 * h + Long.hashCode(generation);
+		this.hash = h;
 	}
 
 	@Override
 	public String toString() {
-		return "ConfigUUIDKey{configId=" + configId + ", uuid=" + uuid + "}";
+		return "ConfigUUIDKey{configId=" + configId + ", uuid=" + getUuid() + ", generation="
+				+ generation + "}";
 	}
 
 	@Override
 	public int hashCode() {
-		final int prime = 31;
-		int result = 1;
-		result = prime * result + ((configId == null) ? 0 : configId.hashCode());
-		result = prime * result + ((uuid == null) ? 0 : uuid.hashCode());
-		return result;
+		return hash;
 	}
 
 	@Override
@@ -82,28 +112,12 @@ public class ConfigUUIDKey implements Serializable {
 		if ( this == obj ) {
 			return true;
 		}
-		if ( obj == null ) {
-			return false;
-		}
 		if ( !(obj instanceof ConfigUUIDKey) ) {
 			return false;
 		}
 		ConfigUUIDKey other = (ConfigUUIDKey) obj;
-		if ( configId == null ) {
-			if ( other.configId != null ) {
-				return false;
-			}
-		} else if ( !configId.equals(other.configId) ) {
-			return false;
-		}
-		if ( uuid == null ) {
-			if ( other.uuid != null ) {
-				return false;
-			}
-		} else if ( !uuid.equals(other.uuid) ) {
-			return false;
-		}
-		return true;
+		return (hash == other.hash && uuidLo == other.uuidLo && uuidHi == other.uuidHi
+				&& configId == other.configId && generation == other.generation);
 	}
 
 	/**
@@ -122,7 +136,17 @@ public class ConfigUUIDKey implements Serializable {
 	 */
 	@JsonSerialize(using = UUIDSerializer.class)
 	public UUID getUuid() {
-		return uuid;
+		return new UUID(uuidHi, uuidLo);
+	}
+
+	/**
+	 * Get the generation.
+	 *
+	 * @return the generation
+	 * @since 1.2
+	 */
+	public long getGeneration() {
+		return generation;
 	}
 
 }
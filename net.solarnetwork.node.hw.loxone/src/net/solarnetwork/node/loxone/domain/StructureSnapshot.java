@@ -0,0 +1,134 @@
+/* ==================================================================
+ * StructureSnapshot.java - 19/10/2026 7:41:15 AM
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.node.loxone.domain;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * The parsed entities of a structure file, as of a given structure file
+ * modification date.
+ *
+ * @author matt
+ * @version 1.0
+ * @since 2.3
+ */
+public class StructureSnapshot {
+
+	private final Long configId;
+	private final Date lastModified;
+	private final List<Category> categories;
+	private final List<Room> rooms;
+	private final List<Control> controls;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param configId
+	 *        the config ID
+	 * @param lastModified
+	 *        the structure file modification date
+	 * @param categories
+	 *        the categories, or {@literal null}
+	 * @param rooms
+	 *        the rooms, or {@literal null}
+	 * @param controls
+	 *        the controls, or {@literal null}
+	 */
+	public StructureSnapshot(Long configId, Date lastModified, List<Category> categories,
+			List<Room> rooms, List<Control> controls) {
+		super();
+		this.configId = configId;
+		this.lastModified = lastModified;
+		this.categories = (categories != null ? categories : Collections.emptyList());
+		this.rooms = (rooms != null ? rooms : Collections.emptyList());
+		this.controls = (controls != null ? controls : Collections.emptyList());
+	}
+
+	/**
+	 * Test if this snapshot is for a given config modification date.
+	 *
+	 * @param config
+	 *        the config to test
+	 * @return {@literal true} if {@code config} has the same ID and
+	 *         modification date as this snapshot
+	 */
+	public boolean isCurrentFor(Config config) {
+		return (config != null && configId != null && configId.equals(config.getId())
+				&& lastModified != null && lastModified.equals(config.getLastModified()));
+	}
+
+	@Override
+	public String toString() {
+		return "StructureSnapshot{configId=" + Config.idToExternalForm(configId) + ", lastModified="
+				+ lastModified + ", categories=" + categories.size() + ", rooms=" + rooms.size()
+				+ ", controls=" + controls.size() + "}";
+	}
+
+	/**
+	 * Get the config ID.
+	 *
+	 * @return the config ID
+	 */
+	public Long getConfigId() {
+		return configId;
+	}
+
+	/**
+	 * Get the structure file modification date.
+	 *
+	 * @return the date
+	 */
+	public Date getLastModified() {
+		return lastModified;
+	}
+
+	/**
+	 * Get the categories.
+	 *
+	 * @return the categories, never {@literal null}
+	 */
+	public List<Category> getCategories() {
+		return categories;
+	}
+
+	/**
+	 * Get the rooms.
+	 *
+	 * @return the rooms, never {@literal null}
+	 */
+	public List<Room> getRooms() {
+		return rooms;
+	}
+
+	/**
+	 * Get the controls.
+	 *
+	 * @return the controls, never {@literal null}
+	 */
+	public List<Control> getControls() {
+		return controls;
+	}
+
+}
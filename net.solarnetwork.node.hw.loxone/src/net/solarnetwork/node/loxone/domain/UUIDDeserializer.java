@@ -23,19 +23,23 @@
 package net.solarnetwork.node.loxone.domain;
 
 import java.io.IOException;
-import java.nio.ByteBuffer;
-import java.nio.LongBuffer;
 import java.util.UUID;
-import org.apache.commons.codec.DecoderException;
-import org.apache.commons.codec.binary.Hex;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.deser.std.FromStringDeserializer;
+import net.solarnetwork.node.loxone.util.UUIDCodec;
 
 /**
  * Deserializer for Loxone encoded UUID values.
  *
+ * <p>
+ * String values are decoded directly from the parser's text buffer, without
+ * creating a string.
+ * </p>
+ *
  * @author matt
- * @version 1.0
+ * @version 1.1
  */
 public class UUIDDeserializer extends FromStringDeserializer<UUID> {
 
@@ -48,6 +52,15 @@ public class UUIDDeserializer extends FromStringDeserializer<UUID> {
 		super(UUID.class);
 	}
 
+	@Override
+	public UUID deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+		if ( parser.hasToken(JsonToken.VALUE_STRING) && parser.getTextLength() > 0 ) {
+			return deserializeUUID(parser.getTextCharacters(), parser.getTextOffset(),
+					parser.getTextLength());
+		}
+		return super.deserialize(parser, context);
+	}
+
 	@Override
 	protected UUID _deserialize(String value, DeserializationContext context) throws IOException {
 		return deserializeUUID(value);
@@ -64,15 +77,36 @@ public class UUIDDeserializer extends FromStringDeserializer<UUID> {
 	 *         If any parsing error occurs.
 	 */
 	public static final UUID deserializeUUID(String value) throws IOException {
-		byte[] data;
 		try {
-			data = Hex.decodeHex(value.replace("-", "").toCharArray());
-		} catch ( DecoderException e ) {
+			return UUIDCodec.decode(value);
+		} catch ( IllegalArgumentException e ) {
 			throw new IOException("Error decoding UUID value [" + value + "]", e);
 		}
-		LongBuffer buf = ByteBuffer.wrap(data).asLongBuffer();
-		UUID uuid = new UUID(buf.get(), buf.get());
-		return uuid;
+	}
+
+	/**
+	 * Utility method for deserializing a Loxone UUID value from a character
+	 * buffer, such as the text buffer of a JSON parser. "Regular" Java style
+	 * UUID strings are supported, too.
+	 *
+	 * @param buf
+	 *        The buffer holding the Loxone UUID string value.
+	 * @param offset
+	 *        The offset within {@code buf} of the value.
+	 * @param len
+	 *        The length of the value.
+	 * @return The parsed UUID object.
+	 * @throws IOException
+	 *         If any parsing error occurs.
+	 * @since 1.1
+	 */
+	public static final UUID deserializeUUID(char[] buf, int offset, int len) throws IOException {
+		try {
+			return UUIDCodec.decode(buf, offset, len);
+		} catch ( IllegalArgumentException e ) {
+			throw new IOException(
+					"Error decoding UUID value [" + new String(buf, offset, len) + "]", e);
+		}
 	}
 
 }
@@ -63,7 +63,7 @@ import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
  * </pre>
  *
  * @author matt
- * @version 1.2
+ * @version 1.3
  * @since 1.0.4
  */
 public class UUIDMapDeserializer extends StdDeserializer<Map<String, UUID>> {
@@ -84,7 +84,8 @@ public class UUIDMapDeserializer extends StdDeserializer<Map<String, UUID>> {
 		JsonToken tok = parser.getCurrentToken();
 		while ( tok != null && tok != JsonToken.END_OBJECT ) {
 			if ( tok == JsonToken.VALUE_STRING && parser.currentName() != null ) {
-				result.put(parser.currentName(), UUIDDeserializer.deserializeUUID(parser.getText()));
+				result.put(parser.currentName(), UUIDDeserializer.deserializeUUID(
+						parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength()));
 			} else if ( tok == JsonToken.START_ARRAY && parser.currentName() != null ) {
 				// parse array values using indexed key names
 				String baseName = parser.currentName();
@@ -93,7 +94,9 @@ public class UUIDMapDeserializer extends StdDeserializer<Map<String, UUID>> {
 						&& tok != JsonToken.END_ARRAY; tok = parser.nextToken(), idx++ ) {
 					if ( tok == JsonToken.VALUE_STRING ) {
 						String arrayName = baseName + "[" + idx + "]";
-						result.put(arrayName, UUIDDeserializer.deserializeUUID(parser.getText()));
+						result.put(arrayName, UUIDDeserializer.deserializeUUID(
+								parser.getTextCharacters(), parser.getTextOffset(),
+								parser.getTextLength()));
 					}
 				}
 			}
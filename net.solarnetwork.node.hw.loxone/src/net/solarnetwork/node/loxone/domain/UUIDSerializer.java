@@ -29,17 +29,26 @@ import com.fasterxml.jackson.core.JsonGenerationException;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.SerializerProvider;
 import com.fasterxml.jackson.databind.ser.std.StdScalarSerializer;
+import net.solarnetwork.node.loxone.util.UUIDCodec;
 
 /**
  * JSON serializer for Loxone encoded {@link UUID} objects.
  *
+ * <p>
+ * Values are encoded into a per-thread buffer and written directly to the
+ * generator, without creating a string.
+ * </p>
+ *
  * @author matt
- * @version 1.2
+ * @version 1.3
  */
 public class UUIDSerializer extends StdScalarSerializer<UUID> implements Serializable {
 
 	private static final long serialVersionUID = 7754182067053966014L;
 
+	private static final ThreadLocal<char[]> BUFFER = ThreadLocal
+			.withInitial(() -> new char[UUIDCodec.LOXONE_UUID_LENGTH]);
+
 	/**
 	 * A specialized JSON serializer for Loxone UUID values used as keys in a
 	 * {@code Map}.
@@ -86,11 +95,12 @@ public class UUIDSerializer extends StdScalarSerializer<UUID> implements Seriali
 		if ( uuid == null ) {
 			generator.writeNull();
 		} else {
-			String value = serializeUUID(uuid);
 			if ( keyMode ) {
-				generator.writeFieldName(value);
+				generator.writeFieldName(serializeUUID(uuid));
 			} else {
-				generator.writeString(value);
+				char[] buf = BUFFER.get();
+				int len = UUIDCodec.encode(uuid, buf, 0);
+				generator.writeString(buf, 0, len);
 			}
 		}
 	}
@@ -104,9 +114,7 @@ public class UUIDSerializer extends StdScalarSerializer<UUID> implements Seriali
 	 * @since 1.2
 	 */
 	public static final String serializeUUID(UUID uuid) {
-		StringBuilder buf = new StringBuilder(uuid.toString());
-		buf.deleteCharAt(23);
-		return buf.toString();
+		return UUIDCodec.encode(uuid);
 	}
 
 }
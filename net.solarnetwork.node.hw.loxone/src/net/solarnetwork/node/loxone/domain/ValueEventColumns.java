@@ -0,0 +1,165 @@
+/* ==================================================================
+ * ValueEventColumns.java - 19/10/2026 7:48:26 PM
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.node.loxone.domain;
+
+import java.util.Collection;
+import com.fasterxml.jackson.annotation.JsonGetter;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import net.solarnetwork.node.loxone.util.UUIDCodec;
+
+/**
+ * A compact, columnar encoding of a list of {@link ValueEvent} objects.
+ *
+ * <p>
+ * This encodes to JSON like:
+ * </p>
+ *
+ * <pre>
+ * <code>{
+ *   "t"  : 1760856506000,
+ *   "u"  : ["0e839a0b-00d8-1ab1-ffffa1b98ee6c71d", "0e839a0b-00d8-1ab1-ffffa1b98ee6c71e"],
+ *   "v"  : [21.5, 1.0],
+ *   "dt" : [0, 250]
+ * }</code>
+ * </pre>
+ *
+ * <p>
+ * where {@code t} is the earliest event creation date, as milliseconds since
+ * the epoch, and the {@code u}, {@code v}, and {@code dt} arrays hold the
+ * Loxone encoded UUID, value, and creation date offset in milliseconds from
+ * {@code t} of each event. The configuration ID is not included, as it is
+ * implied by the message destination.
+ * </p>
+ *
+ * @author matt
+ * @version 1.0
+ * @since 2.4
+ */
+@JsonPropertyOrder({ "t", "u", "v", "dt" })
+public class ValueEventColumns {
+
+	private final long base;
+	private final String[] uuids;
+	private final double[] values;
+	private final long[] offsets;
+
+	private ValueEventColumns(long base, String[] uuids, double[] values, long[] offsets) {
+		super();
+		this.base = base;
+		this.uuids = uuids;
+		this.values = values;
+		this.offsets = offsets;
+	}
+
+	/**
+	 * Encode a collection of events.
+	 *
+	 * <p>
+	 * Any events that are not {@link ValueEvent} instances are ignored.
+	 * </p>
+	 *
+	 * @param events
+	 *        the events to encode
+	 * @return the encoded events, never {@literal null}
+	 */
+	public static ValueEventColumns of(Collection<? extends EventEntity> events) {
+		int count = 0;
+		long base = Long.MAX_VALUE;
+		if ( events != null ) {
+			for ( EventEntity event : events ) {
+				if ( event instanceof ValueEvent ) {
+					count++;
+					base = Math.min(base, event.getCreated().toEpochMilli());
+				}
+			}
+		}
+		if ( count == 0 ) {
+			return new ValueEventColumns(0L, new String[0], new double[0], new long[0]);
+		}
+		final String[] uuids = new String[count];
+		final double[] values = new double[count];
+		final long[] offsets = new long[count];
+		int i = 0;
+		for ( EventEntity event : events ) {
+			if ( event instanceof ValueEvent ) {
+				uuids[i] = UUIDCodec.encode(event.getUuid());
+				values[i] = ((ValueEvent) event).getValue();
+				offsets[i] = event.getCreated().toEpochMilli() - base;
+				i++;
+			}
+		}
+		return new ValueEventColumns(base, uuids, values, offsets);
+	}
+
+	/**
+	 * Get the number of encoded events.
+	 *
+	 * @return the event count
+	 */
+	public int size() {
+		return uuids.length;
+	}
+
+	/**
+	 * Get the base creation date.
+	 *
+	 * @return the earliest event creation date, as milliseconds since the
+	 *         epoch
+	 */
+	@JsonGetter("t")
+	public long getBase() {
+		return base;
+	}
+
+	/**
+	 * Get the event UUIDs.
+	 *
+	 * @return the Loxone encoded UUIDs
+	 */
+	@JsonGetter("u")
+	public String[] getUuids() {
+		return uuids;
+	}
+
+	/**
+	 * Get the event values.
+	 *
+	 * @return the values
+	 */
+	@JsonGetter("v")
+	public double[] getValues() {
+		return values;
+	}
+
+	/**
+	 * Get the event creation date offsets.
+	 *
+	 * @return the creation date of each event, as milliseconds from
+	 *         {@link #getBase()}
+	 */
+	@JsonGetter("dt")
+	public long[] getOffsets() {
+		return offsets;
+	}
+
+}
@@ -0,0 +1,285 @@
+/* ==================================================================
+ * ValueEventStateTable.java - 18/10/2026 9:12:41 AM
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.node.loxone.domain;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * An in-memory table of the latest value of every value event state of a
+ * single configuration.
+ *
+ * <p>
+ * The table is an open-addressing hash table using linear probing. Each state
+ * UUID is stored as two {@code long} columns (the most and least significant
+ * bits) next to its {@code double} value and {@code long} timestamp (epoch
+ * milliseconds), so no {@link UUID}, boxed number, or {@link ValueEvent}
+ * objects are retained per state.
+ * </p>
+ *
+ * <p>
+ * This class is thread-safe.
+ * </p>
+ *
+ * @author matt
+ * @version 1.0
+ * @since 2.2
+ */
+public class ValueEventStateTable {
+
+	/** The default initial capacity. */
+	public static final int DEFAULT_INITIAL_CAPACITY = 256;
+
+	private final Long configId;
+
+	private long[] his;
+	private long[] los;
+	private double[] values;
+	private long[] times;
+	private boolean[] used;
+	private int mask;
+	private int size;
+	private int resizeThreshold;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param configId
+	 *        the configuration ID the table holds states for
+	 */
+	public ValueEventStateTable(Long configId) {
+		this(configId, DEFAULT_INITIAL_CAPACITY);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param configId
+	 *        the configuration ID the table holds states for
+	 * @param expectedSize
+	 *        the expected number of states
+	 */
+	public ValueEventStateTable(Long configId, int expectedSize) {
+		super();
+		this.configId = configId;
+		allocate(capacityFor(expectedSize));
+	}
+
+	private static int capacityFor(int expectedSize) {
+		// keep the load factor at or below 0.5
+		int cap = 16;
+		while ( cap < expectedSize * 2 && cap < (1 << 30) ) {
+			cap <<= 1;
+		}
+		return cap;
+	}
+
+	private void allocate(int capacity) {
+		his = new long[capacity];
+		los = new long[capacity];
+		values = new double[capacity];
+		times = new long[capacity];
+		used = new boolean[capacity];
+		mask = capacity - 1;
+		resizeThreshold = capacity >> 1;
+		size = 0;
+	}
+
+	private static int hash(long hi, long lo) {
+		long h = hi * 0x9E3779B97F4A7C15L ^ lo;
+		h ^= (h >>> 32);
+		h *= 0xC2B2AE3D27D4EB4FL;
+		return (int) (h ^ (h >>> 29));
+	}
+
+	private int slot(long hi, long lo) {
+		int i = hash(hi, lo) & mask;
+		while ( used[i] && !(his[i] == hi && los[i] == lo) ) {
+			i = (i + 1) & mask;
+		}
+		return i;
+	}
+
+	private void grow() {
+		final long[] oldHis = his;
+		final long[] oldLos = los;
+		final double[] oldValues = values;
+		final long[] oldTimes = times;
+		final boolean[] oldUsed = used;
+		allocate(oldHis.length << 1);
+		for ( int i = 0; i < oldHis.length; i++ ) {
+			if ( oldUsed[i] ) {
+				int s = slot(oldHis[i], oldLos[i]);
+				his[s] = oldHis[i];
+				los[s] = oldLos[i];
+				values[s] = oldValues[i];
+				times[s] = oldTimes[i];
+				used[s] = true;
+				size++;
+			}
+		}
+	}
+
+	/**
+	 * Get the configuration ID the table holds states for.
+	 *
+	 * @return the configuration ID
+	 */
+	public Long getConfigId() {
+		return configId;
+	}
+
+	/**
+	 * Get the number of states in the table.
+	 *
+	 * @return the number of states
+	 */
+	public synchronized int size() {
+		return size;
+	}
+
+	/**
+	 * Remove all states from the table.
+	 */
+	public synchronized void clear() {
+		allocate(used.length);
+	}
+
+	/**
+	 * Store the value of a state.
+	 *
+	 * @param hi
+	 *        the most significant bits of the state UUID
+	 * @param lo
+	 *        the least significant bits of the state UUID
+	 * @param value
+	 *        the value
+	 * @param time
+	 *        the value timestamp, as milliseconds since the epoch
+	 * @return {@literal true} if the state was not previously in the table or
+	 *         the value changed
+	 */
+	public synchronized boolean put(long hi, long lo, double value, long time) {
+		int i = slot(hi, lo);
+		if ( used[i] ) {
+			boolean changed = Double.compare(values[i], value) != 0;
+			values[i] = value;
+			times[i] = time;
+			return changed;
+		}
+		his[i] = hi;
+		los[i] = lo;
+		values[i] = value;
+		times[i] = time;
+		used[i] = true;
+		if ( ++size > resizeThreshold ) {
+			grow();
+		}
+		return true;
+	}
+
+	/**
+	 * Store the value of a value event.
+	 *
+	 * @param event
+	 *        the event to store
+	 * @return {@literal true} if the state was not previously in the table or
+	 *         the value changed
+	 */
+	public boolean put(ValueEvent event) {
+		final UUID uuid = event.getUuid();
+		final Instant created = event.getCreated();
+		return put(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), event.getValue(),
+				created != null ? created.toEpochMilli() : System.currentTimeMillis());
+	}
+
+	/**
+	 * Test if a state is present in the table.
+	 *
+	 * @param hi
+	 *        the most significant bits of the state UUID
+	 * @param lo
+	 *        the least significant bits of the state UUID
+	 * @return {@literal true} if the state is present
+	 */
+	public synchronized boolean contains(long hi, long lo) {
+		return used[slot(hi, lo)];
+	}
+
+	/**
+	 * Test if a value differs from the value stored for a state.
+	 *
+	 * @param hi
+	 *        the most significant bits of the state UUID
+	 * @param lo
+	 *        the least significant bits of the state UUID
+	 * @param value
+	 *        the value to compare
+	 * @return {@literal true} if the state is not present in the table or its
+	 *         value is different from {@code value}
+	 */
+	public synchronized boolean isChanged(long hi, long lo, double value) {
+		int i = slot(hi, lo);
+		return !(used[i] && Double.compare(values[i], value) == 0);
+	}
+
+	/**
+	 * Get the value of a state.
+	 *
+	 * @param hi
+	 *        the most significant bits of the state UUID
+	 * @param lo
+	 *        the least significant bits of the state UUID
+	 * @param defaultValue
+	 *        the value to return if the state is not present
+	 * @return the value, or {@code defaultValue} if the state is not present
+	 */
+	public synchronized double value(long hi, long lo, double defaultValue) {
+		int i = slot(hi, lo);
+		return (used[i] ? values[i] : defaultValue);
+	}
+
+	/**
+	 * Get the value of a state as a new {@link ValueEvent}.
+	 *
+	 * @param uuid
+	 *        the state UUID
+	 * @return the event, or {@literal null} if the state is not present
+	 */
+	public ValueEvent get(UUID uuid) {
+		final long hi = uuid.getMostSignificantBits();
+		final long lo = uuid.getLeastSignificantBits();
+		final double value;
+		final long time;
+		synchronized ( this ) {
+			int i = slot(hi, lo);
+			if ( !used[i] ) {
+				return null;
+			}
+			value = values[i];
+			time = times[i];
+		}
+		return new ValueEvent(uuid, configId, Instant.ofEpochMilli(time), value);
+	}
+
+}
@@ -32,19 +32,23 @@ import static net.solarnetwork.node.loxone.protocol.ws.handler.ValueEventBinaryF
 import static net.solarnetwork.service.OptionalService.service;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.UUID;
-import java.util.stream.Collectors;
 import org.osgi.service.event.Event;
 import org.osgi.service.event.EventHandler;
 import org.springframework.core.task.TaskExecutor;
 import net.solarnetwork.domain.KeyValuePair;
+import net.solarnetwork.domain.datum.DatumSamplesType;
 import net.solarnetwork.domain.datum.DatumSamplesOperations;
 import net.solarnetwork.domain.datum.MutableDatumSamplesOperations;
 import net.solarnetwork.node.dao.SettingDao;
@@ -71,8 +75,25 @@ import net.solarnetwork.settings.SettingSpecifierProvider;
 /**
  * A {@link DatumDataSource} to upload Loxone values on a fixed schedule.
  *
+ * <p>
+ * To handle value event updates without scanning every datum-configured
+ * control, an index from control and state UUIDs to a pre-compiled datum
+ * template for each affected control is maintained. A template holds the
+ * resolved source ID, property names and sample types of its control, along
+ * with the current property values, which are updated from the value events as
+ * they arrive. The index is rebuilt each time {@link #readMultipleDatum()}
+ * runs, and after {@link #invalidateDatumIndex()} is called.
+ * </p>
+ *
+ * <p>
+ * The time each source was last captured is tracked in memory, loaded from
+ * the {@link SettingDao} once per config. The changed times are saved back to
+ * the {@link SettingDao} every {@code captureTimesFlushSeconds} and when
+ * {@link #flushCaptureTimes()} is called.
+ * </p>
+ *
  * @author matt
- * @version 2.1
+ * @version 2.2
  */
 public class ControlDatumDataSource extends DatumDataSourceSupport
 		implements MultiDatumDataSource, EventHandler, SettingSpecifierProvider {
@@ -90,6 +111,13 @@ public class ControlDatumDataSource extends DatumDataSourceSupport
 	 */
 	public static final boolean DEFAULT_PERSIST_ONLY_STATUS_UPDATES = true;
 
+	/**
+	 * The default {@code captureTimesFlushSeconds} property value.
+	 *
+	 * @since 2.2
+	 */
+	public static final int DEFAULT_CAPTURE_TIMES_FLUSH_SECONDS = 600;
+
 	private final ControlDao controlDao;
 	private final SettingDao settingDao;
 	private final String settingUid;
@@ -97,6 +125,9 @@ public class ControlDatumDataSource extends DatumDataSourceSupport
 	private int defaultFrequencySeconds = DEFAULT_FREQUENCY_SECONDS;
 	private boolean datumPersistOnlyStatusUpdates = DEFAULT_PERSIST_ONLY_STATUS_UPDATES;
 	private TaskExecutor taskExecutor;
+	private int captureTimesFlushSeconds = DEFAULT_CAPTURE_TIMES_FLUSH_SECONDS;
+	private volatile DatumIndex datumIndex;
+	private volatile CaptureTimes captureTimes;
 
 	/**
 	 * A setting key template, takes a single string parameter (the config ID).
@@ -152,10 +183,7 @@ public class ControlDatumDataSource extends DatumDataSourceSupport
 
 	@Override
 	public Collection<NodeDatum> readMultipleDatum() {
-		final String settingKey = settingKey();
-
-		// load all Datum "last created" settings
-		Map<String, String> createdSettings = loadCreationSettings(settingKey);
+		final CaptureTimes times = captureTimes();
 
 		List<UUIDEntityParametersPair<Control, ControlDatumParameters>> datumParameters = controlDao
 				.findAllForDatumPropertyUUIDEntities(configId);
@@ -164,13 +192,15 @@ public class ControlDatumDataSource extends DatumDataSourceSupport
 			return null;
 		}
 
+		// refresh the index while we have the full list at hand
+		datumIndex = new DatumIndex(configId, datumParameters);
+
 		final boolean statusOnly = isDatumPersistOnlyStatusUpdates();
 		final Instant now = Instant.now();
-		final String nowSetting = Long.toString(now.toEpochMilli(), 16);
 		List<NodeDatum> results = new ArrayList<>(datumParameters.size());
 
 		for ( UUIDEntityParametersPair<Control, ControlDatumParameters> pair : datumParameters ) {
-			NodeDatum datum = generateDatum(now, pair, createdSettings);
+			NodeDatum datum = generateDatum(now, pair, times);
 			if ( datum == null ) {
 				continue;
 			}
@@ -189,10 +219,11 @@ public class ControlDatumDataSource extends DatumDataSourceSupport
 			}
 
 			results.add(datum);
+			times.put(datum.getSourceId(), now.toEpochMilli());
+		}
 
-			Setting s = new Setting(settingKey, datum.getSourceId(), nowSetting,
-					EnumSet.of(SettingFlag.Volatile, SettingFlag.IgnoreModificationDate));
-			settingDao.storeSetting(s);
+		if ( times.isFlushDue(now.toEpochMilli(), captureTimesFlushSeconds * 1000L) ) {
+			storeCaptureTimes(times);
 		}
 
 		return results;
@@ -252,25 +283,26 @@ public class ControlDatumDataSource extends DatumDataSourceSupport
 			public void run() {
 				log.trace("Got VALUE_EVENTS_UPDATED event: {}", valueEvents);
 
-				Set<UUID> valueEventIds = valueEvents.stream().map(e -> e.getUuid())
-						.collect(Collectors.toSet());
+				final DatumIndex index = datumIndex(configId);
+				if ( index == null ) {
+					return;
+				}
 
-				List<UUIDEntityParametersPair<Control, ControlDatumParameters>> datumParameters = controlDao
-						.findAllForDatumPropertyUUIDEntities(configId);
+				final List<NodeDatum> datums;
+				synchronized ( index ) {
+					datums = index.update(now, valueEvents, isDatumPersistOnlyStatusUpdates());
+				}
+				if ( datums.isEmpty() ) {
+					return;
+				}
 
-				for ( UUIDEntityParametersPair<Control, ControlDatumParameters> pair : datumParameters ) {
-					final Control control = pair.getEntity();
-					final Collection<UUID> controlStates = (control.getStates() != null
-							? control.getStates().values()
-							: Collections.emptySet());
-					if ( !(valueEventIds.contains(control.getUuid()) || controlStates.stream()
-							.filter(u -> valueEventIds.contains(u)).findAny().isPresent()) ) {
-						continue;
-					}
-					NodeDatum d = generateDatum(now, pair, null);
-					if ( d != null ) {
-						persistDatum(valueEventIds, pair, d);
-					}
+				final DatumQueue queue = service(getDatumQueue());
+				if ( queue == null ) {
+					return;
+				}
+				for ( NodeDatum d : datums ) {
+					log.info("Persisting datum because of updated status property: {}", d);
+					queue.offer(d);
 				}
 			}
 		};
@@ -283,44 +315,202 @@ public class ControlDatumDataSource extends DatumDataSourceSupport
 		}
 	}
 
-	private void persistDatum(Set<UUID> valueEventIds,
-			UUIDEntityParametersPair<Control, ControlDatumParameters> pair, NodeDatum d) {
-		final DatumQueue queue = service(getDatumQueue());
-		if ( queue == null ) {
-			return;
+	private DatumIndex datumIndex(Long configId) {
+		DatumIndex index = datumIndex;
+		if ( index == null || !configId.equals(index.configId) ) {
+			List<UUIDEntityParametersPair<Control, ControlDatumParameters>> datumParameters = controlDao
+					.findAllForDatumPropertyUUIDEntities(configId);
+			if ( datumParameters == null ) {
+				return null;
+			}
+			index = new DatumIndex(configId, datumParameters);
+			datumIndex = index;
 		}
-		final ControlDatumParameters params = pair.getParameters();
-		final Map<UUID, ValueEventDatumParameters> propParams = (params != null
-				? params.getDatumPropertyParameters()
-				: null);
-		if ( propParams == null ) {
-			return;
+		return index;
+	}
+
+	/**
+	 * Discard the datum index, so it is rebuilt from the {@link ControlDao}
+	 * when next needed.
+	 *
+	 * <p>
+	 * This should be called after the datum or property UUID sets, or the
+	 * source mappings, have changed.
+	 * </p>
+	 *
+	 * @since 2.2
+	 */
+	public void invalidateDatumIndex() {
+		datumIndex = null;
+	}
+
+	/**
+	 * A pre-compiled datum for a single control, with the current value of
+	 * each datum property.
+	 */
+	private static final class DatumTemplate {
+
+		private final String sourceId;
+		private final UUID[] propertyUuids;
+		private final String[] propertyNames;
+		private final DatumSamplesType[] propertyTypes;
+		private final Double[] values;
+
+		private DatumTemplate(String sourceId, Map<UUID, ValueEventDatumParameters> propParams) {
+			super();
+			this.sourceId = sourceId;
+			final int len = propParams.size();
+			this.propertyUuids = new UUID[len];
+			this.propertyNames = new String[len];
+			this.propertyTypes = new DatumSamplesType[len];
+			this.values = new Double[len];
+			int i = 0;
+			for ( Map.Entry<UUID, ValueEventDatumParameters> me : propParams.entrySet() ) {
+				final ValueEventDatumParameters p = me.getValue();
+				propertyUuids[i] = me.getKey();
+				propertyNames[i] = (p.getName() != null ? p.getName() : "value");
+				propertyTypes[i] = samplesType(p.getDatumValueType());
+				values[i] = p.getValue();
+				i++;
+			}
 		}
 
-		final boolean statusOnly = isDatumPersistOnlyStatusUpdates();
-		boolean updateForStatusProperty = false;
-		if ( statusOnly ) {
-			for ( UUID eventUuid : valueEventIds ) {
-				ValueEventDatumParameters vedp = propParams.get(eventUuid);
-				if ( vedp != null && vedp.getDatumValueType() == DatumValueType.Status ) {
-					updateForStatusProperty = true;
-					break;
+		private int propertyIndex(UUID uuid) {
+			for ( int i = 0; i < propertyUuids.length; i++ ) {
+				if ( propertyUuids[i].equals(uuid) ) {
+					return i;
 				}
 			}
+			return -1;
 		}
 
-		if ( statusOnly && !updateForStatusProperty ) {
-			return;
+		private NodeDatum datum(Instant date) {
+			SimpleDatum datum = SimpleDatum.nodeDatum(sourceId, date);
+			MutableDatumSamplesOperations ops = datum.asMutableSampleOperations();
+			for ( int i = 0; i < propertyNames.length; i++ ) {
+				ops.putSampleValue(propertyTypes[i], propertyNames[i], values[i]);
+			}
+			return datum;
+		}
+	}
+
+	private static DatumSamplesType samplesType(DatumValueType type) {
+		if ( type == null || type == DatumValueType.Unknown || type == DatumValueType.Instantaneous ) {
+			return Instantaneous;
+		} else if ( type == DatumValueType.Accumulating ) {
+			return Accumulating;
+		}
+		return Status;
+	}
+
+	/**
+	 * An index of control and state UUIDs to the datum templates of the
+	 * controls they affect.
+	 */
+	private final class DatumIndex {
+
+		private final Long configId;
+		private final List<DatumTemplate> templates;
+		private final Map<UUID, int[]> controlsForUuid;
+
+		private DatumIndex(Long configId,
+				List<UUIDEntityParametersPair<Control, ControlDatumParameters>> datumParameters) {
+			super();
+			this.configId = configId;
+			this.templates = new ArrayList<>(datumParameters.size());
+			this.controlsForUuid = new HashMap<>(datumParameters.size() * 4);
+			for ( UUIDEntityParametersPair<Control, ControlDatumParameters> pair : datumParameters ) {
+				final ControlDatumParameters params = pair.getParameters();
+				final DatumUUIDEntityParameters datumParams = (params != null
+						? params.getDatumParameters()
+						: null);
+				if ( params == null || params.getDatumPropertyParameters() == null
+						|| params.getDatumPropertyParameters().isEmpty()
+						|| (datumParams != null && datumParams.getSaveFrequencySeconds() != null
+								&& datumParams.getSaveFrequencySeconds().intValue() < 0) ) {
+					// no datum would be generated for this control
+					continue;
+				}
+				final int i = templates.size();
+				final Control control = pair.getEntity();
+				templates.add(new DatumTemplate(resolvePlaceholders(control.getSourceIdValue()),
+						params.getDatumPropertyParameters()));
+				index(control.getUuid(), i);
+				if ( control.getStates() != null ) {
+					for ( UUID state : control.getStates().values() ) {
+						index(state, i);
+					}
+				}
+			}
+		}
+
+		private void index(UUID uuid, int i) {
+			if ( uuid == null ) {
+				return;
+			}
+			int[] controls = controlsForUuid.get(uuid);
+			if ( controls == null ) {
+				controls = new int[] { i };
+			} else if ( controls[controls.length - 1] != i ) {
+				controls = Arrays.copyOf(controls, controls.length + 1);
+				controls[controls.length - 1] = i;
+			} else {
+				return;
+			}
+			controlsForUuid.put(uuid, controls);
+		}
+
+		/**
+		 * Apply value events to the templates and generate datum for the
+		 * affected controls.
+		 *
+		 * @param date
+		 *        the datum date
+		 * @param valueEvents
+		 *        the events
+		 * @param statusOnly
+		 *        {@literal true} to only generate datum for controls with an
+		 *        updated {@link DatumValueType#Status} property
+		 * @return the generated datum, never {@literal null}
+		 */
+		private List<NodeDatum> update(Instant date, Collection<ValueEvent> valueEvents,
+				boolean statusOnly) {
+			final BitSet affected = new BitSet(templates.size());
+			final BitSet statusUpdated = new BitSet(templates.size());
+			for ( ValueEvent event : valueEvents ) {
+				int[] controls = controlsForUuid.get(event.getUuid());
+				if ( controls == null ) {
+					continue;
+				}
+				for ( int i : controls ) {
+					affected.set(i);
+					DatumTemplate template = templates.get(i);
+					int p = template.propertyIndex(event.getUuid());
+					if ( p >= 0 ) {
+						template.values[p] = event.getValue();
+						if ( template.propertyTypes[p] == Status ) {
+							statusUpdated.set(i);
+						}
+					}
+				}
+			}
+			final BitSet generate = (statusOnly ? statusUpdated : affected);
+			if ( generate.isEmpty() ) {
+				return Collections.emptyList();
+			}
+			final List<NodeDatum> result = new ArrayList<>(generate.cardinality());
+			for ( int i = generate.nextSetBit(0); i >= 0; i = generate.nextSetBit(i + 1) ) {
+				result.add(templates.get(i).datum(date));
+			}
+			return result;
 		}
-		log.info("Persisting datum because of updated status property: {}", d);
-		queue.offer(d);
 	}
 
 	private NodeDatum generateDatum(Instant now,
 			UUIDEntityParametersPair<Control, ControlDatumParameters> pair,
-			Map<String, String> createdSettings) {
+			CaptureTimes captureTimes) {
 		final Control valueEvent = pair.getEntity();
-		final String sourceId = valueEvent.getSourceIdValue();
+		final String sourceId = resolvePlaceholders(valueEvent.getSourceIdValue());
 		final ControlDatumParameters params = pair.getParameters();
 		final DatumUUIDEntityParameters datumParams = (params != null ? params.getDatumParameters()
 				: null);
@@ -335,11 +525,9 @@ public class ControlDatumDataSource extends DatumDataSourceSupport
 			if ( datumParams != null && datumParams.getSaveFrequencySeconds() != null ) {
 				offset = datumParams.getSaveFrequencySeconds().intValue();
 			}
-			if ( createdSettings != null ) {
-				final Long lastSaveTime = (createdSettings.containsKey(sourceId)
-						? Long.valueOf(createdSettings.get(sourceId), 16)
-						: null);
-				if ( lastSaveTime == null || (lastSaveTime + (offset * 1000)) < now.toEpochMilli() ) {
+			if ( captureTimes != null ) {
+				final long lastSaveTime = captureTimes.get(sourceId);
+				if ( lastSaveTime < 0 || (lastSaveTime + (offset * 1000)) < now.toEpochMilli() ) {
 					create = true;
 				}
 			} else {
@@ -349,22 +537,15 @@ public class ControlDatumDataSource extends DatumDataSourceSupport
 		if ( !create ) {
 			return null;
 		}
-		SimpleDatum datum = SimpleDatum.nodeDatum(resolvePlaceholders(sourceId), now);
+		SimpleDatum datum = SimpleDatum.nodeDatum(sourceId, now);
 		MutableDatumSamplesOperations ops = datum.asMutableSampleOperations();
 		for ( ValueEventDatumParameters propParams : propParamsList ) {
 			String propName = propParams.getName();
 			if ( propName == null ) {
 				propName = "value";
 			}
-			if ( propParams.getDatumValueType() == null
-					|| propParams.getDatumValueType() == DatumValueType.Unknown
-					|| propParams.getDatumValueType() == DatumValueType.Instantaneous ) {
-				ops.putSampleValue(Instantaneous, propName, propParams.getValue());
-			} else if ( propParams.getDatumValueType() == DatumValueType.Accumulating ) {
-				ops.putSampleValue(Accumulating, propName, propParams.getValue());
-			} else {
-				ops.putSampleValue(Status, propName, propParams.getValue());
-			}
+			ops.putSampleValue(samplesType(propParams.getDatumValueType()), propName,
+					propParams.getValue());
 		}
 		return datum;
 	}
@@ -374,16 +555,140 @@ public class ControlDatumDataSource extends DatumDataSourceSupport
 				(configId == null ? "0" : Config.idToExternalForm(configId)));
 	}
 
-	private Map<String, String> loadCreationSettings(String key) {
+	private CaptureTimes captureTimes() {
+		CaptureTimes times = captureTimes;
+		if ( times != null && Objects.equals(configId, times.configId) ) {
+			return times;
+		}
+		synchronized ( this ) {
+			times = captureTimes;
+			if ( times == null || !Objects.equals(configId, times.configId) ) {
+				if ( times != null ) {
+					storeCaptureTimes(times);
+				}
+				times = loadCaptureTimes(configId, settingKey());
+				captureTimes = times;
+			}
+		}
+		return times;
+	}
+
+	private CaptureTimes loadCaptureTimes(Long configId, String key) {
 		List<KeyValuePair> pairs = settingDao.getSettingValues(key);
-		Map<String, String> result;
-		if ( pairs != null && !pairs.isEmpty() ) {
-			result = pairs.stream()
-					.collect(Collectors.toMap(KeyValuePair::getKey, KeyValuePair::getValue));
-		} else {
-			result = Collections.emptyMap();
+		CaptureTimes times = new CaptureTimes(configId, key, System.currentTimeMillis());
+		if ( pairs != null ) {
+			for ( KeyValuePair pair : pairs ) {
+				try {
+					times.load(pair.getKey(), Long.parseLong(pair.getValue(), 16));
+				} catch ( NumberFormatException e ) {
+					log.debug("Ignoring invalid capture time setting {}: {}", pair.getKey(),
+							pair.getValue());
+				}
+			}
+		}
+		return times;
+	}
+
+	private void storeCaptureTimes(CaptureTimes times) {
+		List<Setting> settings = times.takeChanged(System.currentTimeMillis());
+		if ( settings.isEmpty() ) {
+			return;
+		}
+		log.debug("Saving {} Loxone datum capture times to {}", settings.size(), times.settingKey);
+		for ( Setting s : settings ) {
+			settingDao.storeSetting(s);
+		}
+	}
+
+	/**
+	 * Save any changed capture times to the {@link SettingDao}.
+	 *
+	 * <p>
+	 * This should be called when shutting down, to save the capture times
+	 * changed since the last periodic save.
+	 * </p>
+	 *
+	 * @since 2.2
+	 */
+	public void flushCaptureTimes() {
+		CaptureTimes times = captureTimes;
+		if ( times != null ) {
+			storeCaptureTimes(times);
+		}
+	}
+
+	/**
+	 * The last capture time of each source ID, as epoch milliseconds.
+	 *
+	 * <p>
+	 * Source IDs are assigned an index, and the times are kept in a primitive
+	 * array by that index.
+	 * </p>
+	 */
+	private static final class CaptureTimes {
+
+		private final Long configId;
+		private final String settingKey;
+		private final Map<String, Integer> indexes = new HashMap<>(64);
+		private final BitSet changed = new BitSet(64);
+		private String[] sourceIds = new String[64];
+		private long[] times = new long[64];
+		private long lastFlush;
+
+		private CaptureTimes(Long configId, String settingKey, long lastFlush) {
+			super();
+			this.configId = configId;
+			this.settingKey = settingKey;
+			this.lastFlush = lastFlush;
+		}
+
+		private synchronized long get(String sourceId) {
+			Integer i = indexes.get(sourceId);
+			return (i != null ? times[i.intValue()] : -1L);
+		}
+
+		private synchronized void load(String sourceId, long time) {
+			times[index(sourceId)] = time;
+		}
+
+		private synchronized void put(String sourceId, long time) {
+			int i = index(sourceId);
+			times[i] = time;
+			changed.set(i);
+		}
+
+		private int index(String sourceId) {
+			Integer idx = indexes.get(sourceId);
+			if ( idx != null ) {
+				return idx.intValue();
+			}
+			final int i = indexes.size();
+			if ( i == times.length ) {
+				times = Arrays.copyOf(times, i * 2);
+				sourceIds = Arrays.copyOf(sourceIds, i * 2);
+			}
+			sourceIds[i] = sourceId;
+			indexes.put(sourceId, i);
+			return i;
+		}
+
+		private synchronized boolean isFlushDue(long now, long interval) {
+			return (!changed.isEmpty() && now - lastFlush >= interval);
+		}
+
+		private synchronized List<Setting> takeChanged(long now) {
+			lastFlush = now;
+			if ( changed.isEmpty() ) {
+				return Collections.emptyList();
+			}
+			List<Setting> result = new ArrayList<>(changed.cardinality());
+			for ( int i = changed.nextSetBit(0); i >= 0; i = changed.nextSetBit(i + 1) ) {
+				result.add(new Setting(settingKey, sourceIds[i], Long.toString(times[i], 16),
+						EnumSet.of(SettingFlag.Volatile, SettingFlag.IgnoreModificationDate)));
+			}
+			changed.clear();
+			return result;
 		}
-		return result;
 	}
 
 	/**
@@ -404,6 +709,7 @@ public class ControlDatumDataSource extends DatumDataSourceSupport
 	 */
 	public void setConfigId(Long configId) {
 		this.configId = configId;
+		this.datumIndex = null;
 	}
 
 	/**
@@ -430,6 +736,36 @@ public class ControlDatumDataSource extends DatumDataSourceSupport
 		this.datumPersistOnlyStatusUpdates = datumPersistOnlyStatusUpdates;
 	}
 
+	/**
+	 * Get the capture times flush frequency.
+	 *
+	 * @return the number of seconds between saving changed capture times;
+	 *         defaults to {@link #DEFAULT_CAPTURE_TIMES_FLUSH_SECONDS}
+	 * @since 2.2
+	 */
+	public int getCaptureTimesFlushSeconds() {
+		return captureTimesFlushSeconds;
+	}
+
+	/**
+	 * Set the capture times flush frequency.
+	 *
+	 * <p>
+	 * Changed capture times are saved when a scheduled read happens at least
+	 * this many seconds after the last save. Capture times not yet saved when
+	 * SolarNode stops unexpectedly are lost, so a datum might be captured
+	 * sooner than its frequency after a restart.
+	 * </p>
+	 *
+	 * @param captureTimesFlushSeconds
+	 *        the number of seconds between saving changed capture times, or
+	 *        {@literal 0} to save them after every scheduled read
+	 * @since 2.2
+	 */
+	public void setCaptureTimesFlushSeconds(int captureTimesFlushSeconds) {
+		this.captureTimesFlushSeconds = captureTimesFlushSeconds;
+	}
+
 	/**
 	 * Get the task executor.
 	 *
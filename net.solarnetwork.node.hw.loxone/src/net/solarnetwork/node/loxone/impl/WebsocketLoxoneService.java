@@ -31,14 +31,18 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
+import javax.cache.Cache;
+import javax.cache.management.CacheStatisticsMXBean;
 import jakarta.websocket.CloseReason;
 import jakarta.websocket.EndpointConfig;
 import jakarta.websocket.Session;
@@ -50,6 +54,7 @@ import org.springframework.scheduling.TaskScheduler;
 import org.springframework.scheduling.Trigger;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import net.solarnetwork.domain.BasicNodeControlInfo;
 import net.solarnetwork.domain.InstructionStatus.InstructionState;
 import net.solarnetwork.domain.NodeControlInfo;
@@ -65,22 +70,33 @@ import net.solarnetwork.node.loxone.dao.ConfigurationEntityDao;
 import net.solarnetwork.node.loxone.dao.ControlDao;
 import net.solarnetwork.node.loxone.dao.EventEntityDao;
 import net.solarnetwork.node.loxone.dao.SourceMappingDao;
+import net.solarnetwork.node.loxone.dao.StructureSnapshotDao;
+import net.solarnetwork.node.loxone.dao.TextEventDao;
 import net.solarnetwork.node.loxone.dao.UUIDSetDao;
+import net.solarnetwork.node.loxone.dao.ValueEventDao;
 import net.solarnetwork.node.loxone.domain.AuthenticationTokenPermission;
+import net.solarnetwork.node.loxone.domain.Category;
 import net.solarnetwork.node.loxone.domain.Config;
 import net.solarnetwork.node.loxone.domain.ConfigurationEntity;
 import net.solarnetwork.node.loxone.domain.Control;
 import net.solarnetwork.node.loxone.domain.ControlDatumParameters;
 import net.solarnetwork.node.loxone.domain.EventEntity;
+import net.solarnetwork.node.loxone.domain.Room;
 import net.solarnetwork.node.loxone.domain.SourceMapping;
+import net.solarnetwork.node.loxone.domain.StructureSnapshot;
+import net.solarnetwork.node.loxone.domain.TextEvent;
 import net.solarnetwork.node.loxone.domain.UUIDEntityParameters;
 import net.solarnetwork.node.loxone.domain.UUIDEntityParametersPair;
 import net.solarnetwork.node.loxone.domain.UUIDSetEntity;
 import net.solarnetwork.node.loxone.domain.ValueEvent;
+import net.solarnetwork.node.loxone.domain.ValueEventStateTable;
 import net.solarnetwork.node.loxone.domain.command.ControlCommand;
 import net.solarnetwork.node.loxone.protocol.ws.AuthenticationType;
+import net.solarnetwork.node.loxone.protocol.ws.BackpressureMode;
+import net.solarnetwork.node.loxone.protocol.ws.CoalescingEventPublisher;
 import net.solarnetwork.node.loxone.protocol.ws.CommandType;
 import net.solarnetwork.node.loxone.protocol.ws.LoxoneEndpoint;
+import net.solarnetwork.node.loxone.util.JCacheUtils;
 import net.solarnetwork.node.reactor.Instruction;
 import net.solarnetwork.node.reactor.InstructionHandler;
 import net.solarnetwork.node.reactor.InstructionStatus;
@@ -106,7 +122,7 @@ import net.solarnetwork.settings.support.BasicToggleSettingSpecifier;
  * Websocket based implementation of {@link LoxoneService}.
  *
  * @author matt
- * @version 2.1
+ * @version 2.5
  */
 public class WebsocketLoxoneService extends LoxoneEndpoint
 		implements LoxoneService, SettingSpecifierProvider, WebsocketLoxoneServiceSettings,
@@ -140,12 +156,16 @@ public class WebsocketLoxoneService extends LoxoneEndpoint
 	private SetupResourceProvider settingResourceProvider;
 	private SettingDao settingDao;
 	private ControlDao controlDao;
+	private StructureSnapshotDao structureSnapshotDao;
+	private TransactionTemplate transactionTemplate;
+	private CoalescingEventPublisher valueEventPublisher;
 	private SourceMappingDao sourceMappingDao;
 	private OptionalService<DatumQueue> datumQueue;
 	private int datumLoggerFrequencySeconds = DATUM_LOGGER_JOB_INTERVAL;
 	private MessageSource messageSource;
 	private TaskExecutor taskExecutor;
 	private ServiceRegistry serviceRegistry;
+	private List<Cache<?, ?>> caches;
 
 	private ControlDatumDataSource datumDataSource;
 	private ScheduledDatumDataSourcePollJob datumLoggerTrigger;
@@ -174,6 +194,10 @@ public class WebsocketLoxoneService extends LoxoneEndpoint
 	@Override
 	public void serviceDidShutdown() {
 		close();
+		flushEventDaos();
+		if ( datumDataSource != null ) {
+			datumDataSource.flushCaptureTimes();
+		}
 		if ( datumDataSourceRegistration != null && serviceRegistry != null ) {
 			serviceRegistry.unregisterService(datumDataSourceRegistration);
 			datumDataSourceRegistration = null;
@@ -186,6 +210,9 @@ public class WebsocketLoxoneService extends LoxoneEndpoint
 			serviceRegistry.unregisterService(datumDataSourceRegistration);
 			datumDataSourceRegistration = null;
 		}
+		if ( datumDataSource != null ) {
+			datumDataSource.flushCaptureTimes();
+		}
 		datumDataSource = new ControlDatumDataSource(getSettingUid(), null, controlDao, settingDao);
 		datumDataSource.setMessageSource(messageSource);
 		datumDataSource.setDatumQueue(datumQueue);
@@ -275,8 +302,39 @@ public class WebsocketLoxoneService extends LoxoneEndpoint
 		if ( config == null || config.getId() == null ) {
 			return null;
 		}
+		return currentValueEvent(config.getId(), uuid);
+	}
+
+	@Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+	@Override
+	public Collection<TextEvent> getControlTextStates(Collection<UUID> uuids) {
+		Config config = getConfiguration();
+		EventEntityDao<TextEvent> dao = eventDaoForType(TextEvent.class);
+		if ( config == null || config.getId() == null || dao == null ) {
+			return Collections.emptyList();
+		}
+		List<TextEvent> all = (dao instanceof TextEventDao
+				? ((TextEventDao) dao).getLatestEvents(config.getId())
+				: dao.findAllForConfig(config.getId(), null));
+		if ( uuids == null ) {
+			return all;
+		}
+		Set<UUID> filter = (uuids instanceof Set ? (Set<UUID>) uuids : new HashSet<>(uuids));
+		List<TextEvent> result = new ArrayList<>(Math.min(filter.size(), all.size()));
+		for ( TextEvent event : all ) {
+			if ( filter.contains(event.getUuid()) ) {
+				result.add(event);
+			}
+		}
+		return result;
+	}
+
+	private ValueEvent currentValueEvent(Long configId, UUID uuid) {
 		EventEntityDao<ValueEvent> valueEventDao = eventDaoForType(ValueEvent.class);
-		return valueEventDao.loadEvent(config.getId(), uuid);
+		if ( valueEventDao instanceof ValueEventDao ) {
+			return ((ValueEventDao) valueEventDao).getStateTable(configId).get(uuid);
+		}
+		return valueEventDao.loadEvent(configId, uuid);
 	}
 
 	@SuppressWarnings("unchecked")
@@ -335,6 +393,7 @@ public class WebsocketLoxoneService extends LoxoneEndpoint
 			UUIDSetDao<T, P> dao = uuidSetDaoForType(type);
 			if ( dao != null && config.getId() != null ) {
 				dao.updateSetForConfig(config.getId(), add, remove, parameters);
+				datumSettingsChanged(config.getId());
 			}
 		}
 	}
@@ -358,6 +417,7 @@ public class WebsocketLoxoneService extends LoxoneEndpoint
 				sourceMappingDao.delete(configId, uuid);
 			}
 		}
+		datumSettingsChanged(configId);
 	}
 
 	@Transactional(readOnly = false, propagation = Propagation.REQUIRED)
@@ -401,6 +461,15 @@ public class WebsocketLoxoneService extends LoxoneEndpoint
 				sourceMappingDao.store(mapping);
 			}
 		});
+		datumSettingsChanged(configId);
+	}
+
+	private void datumSettingsChanged(Long configId) {
+		// discard everything derived from the datum UUID sets and source mappings
+		controlDao.invalidateDatumPropertyUUIDEntities(configId);
+		if ( datumDataSource != null ) {
+			datumDataSource.invalidateDatumIndex();
+		}
 	}
 
 	@SuppressWarnings("unchecked")
@@ -580,6 +649,16 @@ public class WebsocketLoxoneService extends LoxoneEndpoint
 		results.add(new BasicTextFieldSettingSpecifier("tokenRefreshOffsetHours",
 				String.valueOf(defaults.getTokenRefreshOffsetHours())));
 
+		// message processing
+		results.add(new BasicTextFieldSettingSpecifier("messageBufferSize",
+				String.valueOf(defaults.getMessageBufferSize())));
+
+		BasicMultiValueSettingSpecifier backpressureSpec = new BasicMultiValueSettingSpecifier(
+				"backpressureModeCode", String.valueOf(defaults.getBackpressureModeCode()));
+		backpressureSpec.setValueTitles(Arrays.stream(BackpressureMode.values())
+				.collect(Collectors.toMap(t -> String.valueOf(t.getCode()), t -> t.toString())));
+		results.add(backpressureSpec);
+
 		// datum logging
 		results.add(new BasicTextFieldSettingSpecifier("datumLoggerFrequencySeconds",
 				String.valueOf(DATUM_LOGGER_JOB_INTERVAL)));
@@ -587,6 +666,13 @@ public class WebsocketLoxoneService extends LoxoneEndpoint
 				String.valueOf(ControlDatumDataSource.DEFAULT_FREQUENCY_SECONDS)));
 		results.add(new BasicToggleSettingSpecifier("datumDataSource.datumDaoPersistOnlyStatusUpdates",
 				ControlDatumDataSource.DEFAULT_PERSIST_ONLY_STATUS_UPDATES));
+		results.add(new BasicTextFieldSettingSpecifier("datumDataSource.captureTimesFlushSeconds",
+				String.valueOf(ControlDatumDataSource.DEFAULT_CAPTURE_TIMES_FLUSH_SECONDS)));
+
+		// caching
+		if ( caches != null && !caches.isEmpty() ) {
+			results.add(new BasicTitleSettingSpecifier("cacheStatistics", cacheStatistics(), true));
+		}
 
 		// other
 		String configurationId = getConfigurationIdExternalForm();
@@ -602,6 +688,25 @@ public class WebsocketLoxoneService extends LoxoneEndpoint
 		return results;
 	}
 
+	private String cacheStatistics() {
+		StringBuilder buf = new StringBuilder();
+		for ( Cache<?, ?> cache : caches ) {
+			if ( buf.length() > 0 ) {
+				buf.append("; ");
+			}
+			buf.append(cache.getName().substring(JCacheUtils.CACHE_NAME_PREFIX.length()))
+					.append(": ");
+			CacheStatisticsMXBean stats = JCacheUtils.statistics(cache);
+			if ( stats == null ) {
+				buf.append("no statistics");
+			} else {
+				buf.append(stats.getCacheHits()).append(" hits, ").append(stats.getCacheMisses())
+						.append(" misses, ").append(stats.getCacheEvictions()).append(" evictions");
+			}
+		}
+		return buf.toString();
+	}
+
 	@Override
 	protected Config configurationIdDidChange() {
 		super.configurationIdDidChange();
@@ -614,10 +719,10 @@ public class WebsocketLoxoneService extends LoxoneEndpoint
 		Config result = null;
 
 		// if we have a last modified date, but no actual controls, assume we have restored
-		// from backup and need to refresh from the miniserver
+		// from backup and need to restore from the snapshot or refresh from the miniserver
 		if ( config.getLastModified() != null ) {
 			int controlCount = controlDao.countForConfig(config.getId());
-			if ( controlCount < 1 ) {
+			if ( controlCount < 1 && !restoreStructureSnapshot(config) ) {
 				log.info("Loxone {} control information not available: forcing a refresh.",
 						config.idToExternalForm());
 				result = config.withLastModified(null);
@@ -630,12 +735,90 @@ public class WebsocketLoxoneService extends LoxoneEndpoint
 		return result;
 	}
 
+	@Override
+	protected void structureFileDidSave(Long configId) {
+		if ( valueEventPublisher != null ) {
+			valueEventPublisher.invalidateFilters(configId);
+		}
+	}
+
+	private boolean restoreStructureSnapshot(Config config) {
+		if ( structureSnapshotDao == null ) {
+			return false;
+		}
+		StructureSnapshot snapshot = structureSnapshotDao.getSnapshot(config.getId());
+		if ( snapshot == null || !snapshot.isCurrentFor(config) ) {
+			return false;
+		}
+		ConfigurationEntityDao<Category> categoryDao = configurationDaoForType(Category.class);
+		ConfigurationEntityDao<Room> roomDao = configurationDaoForType(Room.class);
+		ConfigurationEntityDao<Control> controlEntityDao = configurationDaoForType(Control.class);
+		if ( categoryDao == null || roomDao == null || controlEntityDao == null ) {
+			return false;
+		}
+		final Long configId = config.getId();
+		try {
+			if ( transactionTemplate == null ) {
+				categoryDao.storeAll(configId, snapshot.getCategories());
+				roomDao.storeAll(configId, snapshot.getRooms());
+				controlEntityDao.storeAll(configId, snapshot.getControls());
+			} else {
+				transactionTemplate.executeWithoutResult(tx -> {
+					categoryDao.storeAll(configId, snapshot.getCategories());
+					roomDao.storeAll(configId, snapshot.getRooms());
+					controlEntityDao.storeAll(configId, snapshot.getControls());
+				});
+			}
+		} catch ( RuntimeException e ) {
+			log.warn("Error restoring Loxone {} from {}: {}", config.idToExternalForm(), snapshot,
+					e.toString());
+			return false;
+		}
+		log.info("Loxone {} control information restored from {}.", config.idToExternalForm(),
+				snapshot);
+		return true;
+	}
+
 	@Override
 	public void onOpen(Session session, EndpointConfig config) {
 		super.onOpen(session, config);
+		reloadValueEventStateTable();
 		scheduleDatumLoggerJobIfNeeded();
 	}
 
+	private void flushEventDaos() {
+		if ( eventDaos == null ) {
+			return;
+		}
+		for ( EventEntityDao<? extends EventEntity> dao : eventDaos ) {
+			try {
+				dao.flushEvents();
+			} catch ( RuntimeException e ) {
+				log.error("Error flushing {} events: {}", dao.entityClass().getSimpleName(),
+						e.toString());
+			}
+		}
+	}
+
+	private void reloadValueEventStateTable() {
+		final Config config = getConfiguration();
+		if ( config == null || config.getId() == null ) {
+			return;
+		}
+		EventEntityDao<ValueEvent> valueEventDao = eventDaoForType(ValueEvent.class);
+		if ( valueEventDao instanceof ValueEventDao ) {
+			try {
+				ValueEventStateTable table = ((ValueEventDao) valueEventDao)
+						.reloadStateTable(config.getId());
+				log.debug("Loaded {} value states for Loxone {}", table.size(),
+						config.idToExternalForm());
+			} catch ( RuntimeException e ) {
+				log.error("Error loading value states for Loxone {}: {}", config.idToExternalForm(),
+						e.toString());
+			}
+		}
+	}
+
 	private void scheduleDatumLoggerJobIfNeeded() {
 		configureLoxoneDatumLoggerJob(datumLoggerFrequencySeconds);
 	}
@@ -756,9 +939,8 @@ public class WebsocketLoxoneService extends LoxoneEndpoint
 		}
 		log.debug("Reading {} status", controlId);
 		SimpleNodeControlInfoDatum result = null;
-		EventEntityDao<ValueEvent> valueEventDao = eventDaoForType(ValueEvent.class);
 		try {
-			ValueEvent value = valueEventDao.loadEvent(config.getId(), control.getUuid());
+			ValueEvent value = currentValueEvent(config.getId(), control.getUuid());
 			result = newNodeControlInfoDatum(controlId, value);
 		} catch ( Exception e ) {
 			log.error("Error reading {} status: {}", controlId, e.getMessage());
@@ -919,6 +1101,56 @@ public class WebsocketLoxoneService extends LoxoneEndpoint
 		this.controlDao = controlDao;
 	}
 
+	/**
+	 * Set the structure snapshot DAO.
+	 *
+	 * <p>
+	 * When configured, and no controls are available for the configuration
+	 * when it is loaded, the categories, controls, and rooms are restored from
+	 * the snapshot if its modification date matches the configuration's. The
+	 * structure file is only downloaded from the Miniserver otherwise.
+	 * </p>
+	 *
+	 * @param structureSnapshotDao
+	 *        the DAO to set
+	 * @since 2.3
+	 */
+	public void setStructureSnapshotDao(StructureSnapshotDao structureSnapshotDao) {
+		this.structureSnapshotDao = structureSnapshotDao;
+	}
+
+	/**
+	 * Set the transaction template to restore a structure snapshot with.
+	 *
+	 * <p>
+	 * When configured, the categories, rooms, and controls of a snapshot are
+	 * restored in one transaction.
+	 * </p>
+	 *
+	 * @param transactionTemplate
+	 *        the template to set
+	 * @since 2.5
+	 */
+	public void setTransactionTemplate(TransactionTemplate transactionTemplate) {
+		this.transactionTemplate = transactionTemplate;
+	}
+
+	/**
+	 * Set the value event publisher.
+	 *
+	 * <p>
+	 * When configured, its subscription filters are resolved again after the
+	 * structure file is saved.
+	 * </p>
+	 *
+	 * @param valueEventPublisher
+	 *        the publisher to set
+	 * @since 2.5
+	 */
+	public void setValueEventPublisher(CoalescingEventPublisher valueEventPublisher) {
+		this.valueEventPublisher = valueEventPublisher;
+	}
+
 	/**
 	 * Set the source mapping DAO.
 	 *
@@ -964,6 +1196,41 @@ public class WebsocketLoxoneService extends LoxoneEndpoint
 		return (type != null ? type.getCode() : AuthenticationType.Auto.getCode());
 	}
 
+	/**
+	 * Configure the {@link BackpressureMode} via a code value.
+	 *
+	 * <p>
+	 * If {@code code} is not supported, then {@link BackpressureMode#Block}
+	 * will be used.
+	 * </p>
+	 *
+	 * @param code
+	 *        the {@link BackpressureMode#getCode()} value to use
+	 * @see #setBackpressureMode(BackpressureMode)
+	 * @since 2.2
+	 */
+	public void setBackpressureModeCode(int code) {
+		BackpressureMode mode;
+		try {
+			mode = BackpressureMode.forCode(code);
+		} catch ( IllegalArgumentException e ) {
+			mode = BackpressureMode.Block;
+		}
+		setBackpressureMode(mode);
+	}
+
+	/**
+	 * Get the {@link BackpressureMode} as a code value.
+	 *
+	 * @return the {@link BackpressureMode} code
+	 * @see #getBackpressureMode()
+	 * @since 2.2
+	 */
+	public int getBackpressureModeCode() {
+		BackpressureMode mode = getBackpressureMode();
+		return (mode != null ? mode.getCode() : BackpressureMode.Block.getCode());
+	}
+
 	/**
 	 * Get the {@link AuthenticationTokenPermission} code to request for
 	 * authentication tokens.
@@ -1048,4 +1315,22 @@ public class WebsocketLoxoneService extends LoxoneEndpoint
 		this.serviceRegistry = serviceRegistry;
 	}
 
+	/**
+	 * Set the entity caches used by the DAOs.
+	 *
+	 * <p>
+	 * These caches are shared by all Miniserver configurations, so their
+	 * limits are configured once, in the {@code net.solarnetwork.node.loxone}
+	 * configuration or by the cache provider. Their statistics are shown in
+	 * the settings.
+	 * </p>
+	 *
+	 * @param caches
+	 *        the caches to set
+	 * @since 2.3
+	 */
+	public void setCaches(List<Cache<?, ?>> caches) {
+		this.caches = caches;
+	}
+
 }
@@ -0,0 +1,84 @@
+/* ==================================================================
+ * BackpressureMode.java - 18/10/2026 1:14:22 PM
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.node.loxone.protocol.ws;
+
+/**
+ * The behaviour to use when a {@link BinaryMessageRing} is full.
+ *
+ * @author matt
+ * @version 1.0
+ */
+public enum BackpressureMode {
+
+	/**
+	 * Block the websocket read thread until space is available.
+	 */
+	Block(0),
+
+	/**
+	 * Merge a {@link MessageType#EventTableValueStates} message into the most
+	 * recently queued message of the same type, so only the latest value of
+	 * each state is kept. Other message types block.
+	 */
+	Coalesce(1),
+
+	/**
+	 * Discard the oldest queued {@link MessageType#EventTableTextStates}
+	 * message to make room. If no such message is queued, block.
+	 */
+	DropOldest(2);
+
+	private int code;
+
+	private BackpressureMode(int code) {
+		this.code = code;
+	}
+
+	/**
+	 * Get a code value for this enum.
+	 *
+	 * @return the code
+	 */
+	public int getCode() {
+		return code;
+	}
+
+	/**
+	 * Get an enum instance for a code value.
+	 *
+	 * @param code
+	 *        the code value to get the enum for
+	 * @return the enum
+	 * @throws IllegalArgumentException
+	 *         if {@code code} is not supported
+	 */
+	public static BackpressureMode forCode(int code) {
+		for ( BackpressureMode t : BackpressureMode.values() ) {
+			if ( code == t.code ) {
+				return t;
+			}
+		}
+		throw new IllegalArgumentException("Unknown code: " + code);
+	}
+
+}
@@ -25,13 +25,15 @@ package net.solarnetwork.node.loxone.protocol.ws;
 import java.io.IOException;
 import java.io.Reader;
 import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.Set;
 import jakarta.websocket.Session;
 
 /**
  * API for handling binary file data from the Loxone.
  * 
  * @author matt
- * @version 1.0
+ * @version 1.1
  */
 public interface BinaryFileHandler {
 
@@ -76,6 +78,23 @@ public interface BinaryFileHandler {
 	 */
 	boolean supportsDataMessage(MessageHeader header, ByteBuffer buffer);
 
+	/**
+	 * Get the binary message types this instance handles.
+	 * 
+	 * <p>
+	 * Binary messages of these types are passed to this instance without first
+	 * calling {@link #supportsDataMessage(MessageHeader, ByteBuffer)}.
+	 * Handlers that must inspect the message content to decide should return
+	 * an empty set, which is the default.
+	 * </p>
+	 * 
+	 * @return the supported message types, never {@literal null}
+	 * @since 1.1
+	 */
+	default Set<MessageType> getDataMessageTypes() {
+		return Collections.emptySet();
+	}
+
 	/**
 	 * Handle a binary file response from the Loxone server.
 	 * 
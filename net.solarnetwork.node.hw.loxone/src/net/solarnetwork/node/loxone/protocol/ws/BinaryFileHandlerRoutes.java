@@ -0,0 +1,130 @@
+/* ==================================================================
+ * BinaryFileHandlerRoutes.java - 18/10/2026 4:12:33 PM
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.node.loxone.protocol.ws;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Routing table from binary message type to {@link BinaryFileHandler}.
+ *
+ * <p>
+ * Handlers that declare message types via
+ * {@link BinaryFileHandler#getDataMessageTypes()} are looked up directly by
+ * type. Other handlers are asked in order via
+ * {@link BinaryFileHandler#supportsDataMessage(MessageHeader, ByteBuffer)},
+ * only when no handler has declared the message type.
+ * </p>
+ *
+ * @author matt
+ * @version 1.0
+ */
+public class BinaryFileHandlerRoutes {
+
+	private static final BinaryFileHandler[] NO_HANDLERS = new BinaryFileHandler[0];
+
+	private final Map<MessageType, BinaryFileHandler[]> routes;
+	private final BinaryFileHandler[] inspectingHandlers;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param handlers
+	 *        the handlers to route to, in order of preference; may be
+	 *        {@literal null}
+	 */
+	public BinaryFileHandlerRoutes(BinaryFileHandler[] handlers) {
+		super();
+		Map<MessageType, List<BinaryFileHandler>> typed = new EnumMap<>(MessageType.class);
+		List<BinaryFileHandler> inspecting = new ArrayList<>();
+		if ( handlers != null ) {
+			for ( BinaryFileHandler handler : handlers ) {
+				Set<MessageType> types = handler.getDataMessageTypes();
+				if ( types == null || types.isEmpty() ) {
+					inspecting.add(handler);
+					continue;
+				}
+				for ( MessageType type : types ) {
+					typed.computeIfAbsent(type, k -> new ArrayList<>(2)).add(handler);
+				}
+			}
+		}
+		Map<MessageType, BinaryFileHandler[]> r = new EnumMap<>(MessageType.class);
+		for ( Map.Entry<MessageType, List<BinaryFileHandler>> me : typed.entrySet() ) {
+			r.put(me.getKey(), me.getValue().toArray(NO_HANDLERS));
+		}
+		this.routes = r;
+		this.inspectingHandlers = inspecting.toArray(NO_HANDLERS);
+	}
+
+	/**
+	 * Get the handlers that declared a given message type.
+	 *
+	 * @param type
+	 *        the message type
+	 * @return the handlers, never {@literal null}
+	 */
+	public BinaryFileHandler[] handlersFor(MessageType type) {
+		BinaryFileHandler[] list = routes.get(type);
+		return (list != null ? list : NO_HANDLERS);
+	}
+
+	/**
+	 * Find the handler for a binary message.
+	 *
+	 * <p>
+	 * The first handler that declared the header's message type is returned.
+	 * Otherwise the handlers without declared types are asked in order, with
+	 * the buffer position restored after each one.
+	 * </p>
+	 *
+	 * @param header
+	 *        the message header
+	 * @param buffer
+	 *        the message payload
+	 * @return the handler, or {@literal null} if none support the message
+	 */
+	public BinaryFileHandler handlerFor(MessageHeader header, ByteBuffer buffer) {
+		BinaryFileHandler[] list = routes.get(header.getType());
+		if ( list != null ) {
+			return list[0];
+		}
+		list = inspectingHandlers;
+		if ( list.length > 0 ) {
+			buffer.mark();
+			for ( BinaryFileHandler handler : list ) {
+				boolean supports = handler.supportsDataMessage(header, buffer);
+				buffer.reset();
+				if ( supports ) {
+					return handler;
+				}
+			}
+		}
+		return null;
+	}
+
+}
@@ -0,0 +1,308 @@
+/* ==================================================================
+ * BinaryMessageRing.java - 18/10/2026 1:22:48 PM
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.node.loxone.protocol.ws;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded ring buffer of binary messages waiting to be processed.
+ *
+ * <p>
+ * The ring is designed to be filled by a single websocket read thread and
+ * drained by a single processing thread. When the ring is full the configured
+ * {@link BackpressureMode} determines what happens to a new message.
+ * </p>
+ *
+ * @author matt
+ * @version 1.0
+ */
+public class BinaryMessageRing {
+
+	/**
+	 * A queued binary message.
+	 */
+	public static final class Message {
+
+		private final MessageHeader header;
+		private final ByteBuffer buffer;
+		private final BinaryFileHandler handler;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param header
+		 *        the message header
+		 * @param buffer
+		 *        the message payload
+		 * @param handler
+		 *        the handler to process the message with
+		 */
+		public Message(MessageHeader header, ByteBuffer buffer, BinaryFileHandler handler) {
+			super();
+			this.header = header;
+			this.buffer = buffer;
+			this.handler = handler;
+		}
+
+		/**
+		 * Get the message header.
+		 *
+		 * @return the header
+		 */
+		public MessageHeader getHeader() {
+			return header;
+		}
+
+		/**
+		 * Get the message payload.
+		 *
+		 * @return the payload
+		 */
+		public ByteBuffer getBuffer() {
+			return buffer;
+		}
+
+		/**
+		 * Get the handler to process the message with.
+		 *
+		 * @return the handler
+		 */
+		public BinaryFileHandler getHandler() {
+			return handler;
+		}
+
+	}
+
+	private final Message[] items;
+	private final BackpressureMode mode;
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition notFull = lock.newCondition();
+
+	private int head;
+	private int count;
+	private volatile long blockedCount;
+	private volatile long coalescedCount;
+	private volatile long droppedCount;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param capacity
+	 *        the maximum number of messages to hold
+	 * @param mode
+	 *        the behaviour to use when full
+	 * @throws IllegalArgumentException
+	 *         if {@code capacity} is less than {@literal 1}
+	 */
+	public BinaryMessageRing(int capacity, BackpressureMode mode) {
+		super();
+		if ( capacity < 1 ) {
+			throw new IllegalArgumentException("The capacity must be at least 1.");
+		}
+		this.items = new Message[capacity];
+		this.mode = (mode != null ? mode : BackpressureMode.Block);
+	}
+
+	/**
+	 * Add a message to the ring.
+	 *
+	 * <p>
+	 * If the ring is full, the configured {@link BackpressureMode} is applied,
+	 * which can cause this method to block until space is available.
+	 * </p>
+	 *
+	 * @param message
+	 *        the message to add
+	 * @return {@literal true} if the message was added, or
+	 *         {@literal false} if it was merged into an already queued message
+	 * @throws InterruptedException
+	 *         if interrupted while waiting for space
+	 */
+	public boolean put(Message message) throws InterruptedException {
+		final ReentrantLock lock = this.lock;
+		lock.lockInterruptibly();
+		try {
+			while ( count == items.length ) {
+				if ( mode == BackpressureMode.Coalesce && coalesce(message) ) {
+					coalescedCount++;
+					return false;
+				}
+				if ( mode == BackpressureMode.DropOldest
+						&& removeOldest(MessageType.EventTableTextStates) ) {
+					droppedCount++;
+					continue;
+				}
+				blockedCount++;
+				notFull.await();
+			}
+			items[(head + count) % items.length] = message;
+			count++;
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Remove the oldest message from the ring.
+	 *
+	 * @return the message, or {@literal null} if the ring is empty
+	 */
+	public Message poll() {
+		final ReentrantLock lock = this.lock;
+		lock.lock();
+		try {
+			if ( count == 0 ) {
+				return null;
+			}
+			Message m = items[head];
+			items[head] = null;
+			head = (head + 1) % items.length;
+			count--;
+			notFull.signal();
+			return m;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Get the number of queued messages.
+	 *
+	 * @return the count
+	 */
+	public int size() {
+		final ReentrantLock lock = this.lock;
+		lock.lock();
+		try {
+			return count;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private boolean coalesce(Message message) {
+		if ( message.header.getType() != MessageType.EventTableValueStates ) {
+			return false;
+		}
+		// merge into the newest queued value states message
+		for ( int i = count - 1; i >= 0; i-- ) {
+			int idx = (head + i) % items.length;
+			Message m = items[idx];
+			if ( m.header.getType() == MessageType.EventTableValueStates ) {
+				ByteBuffer merged = mergeValueStates(m.buffer, message.buffer);
+				items[idx] = new Message(new MessageHeader(MessageType.EventTableValueStates,
+						m.header.getInfo(), merged.remaining()), merged, m.handler);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private boolean removeOldest(MessageType type) {
+		for ( int i = 0; i < count; i++ ) {
+			int idx = (head + i) % items.length;
+			if ( items[idx].header.getType() == type ) {
+				// shift the older messages forward by one to fill the gap
+				for ( int j = i; j > 0; j-- ) {
+					items[(head + j) % items.length] = items[(head + j - 1) % items.length];
+				}
+				items[head] = null;
+				head = (head + 1) % items.length;
+				count--;
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Merge two value states payloads, so that states in {@code newer} replace
+	 * the same states in {@code older}.
+	 *
+	 * @param older
+	 *        the older payload
+	 * @param newer
+	 *        the newer payload
+	 * @return the merged payload
+	 */
+	static ByteBuffer mergeValueStates(ByteBuffer older, ByteBuffer newer) {
+		final EventTableCursor cursor = new EventTableCursor();
+		final Set<UUID> newStates = new HashSet<>(newer.remaining() / EventTableCursor.VALUE_STATE_LENGTH);
+		ByteBuffer src = newer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+		cursor.reset(src, src.remaining());
+		while ( cursor.next() ) {
+			newStates.add(cursor.uuid());
+		}
+
+		ByteBuffer out = ByteBuffer.allocate(older.remaining() + newer.remaining())
+				.order(ByteOrder.LITTLE_ENDIAN);
+		src = older.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+		int entry = src.position();
+		cursor.reset(src, src.remaining());
+		while ( cursor.next() ) {
+			if ( !newStates.contains(cursor.uuid()) ) {
+				out.put(older.duplicate().limit(entry + EventTableCursor.VALUE_STATE_LENGTH)
+						.position(entry));
+			}
+			entry += EventTableCursor.VALUE_STATE_LENGTH;
+		}
+		out.put(newer.duplicate());
+		out.flip();
+		return out;
+	}
+
+	/**
+	 * Get the number of times a new message had to wait for space.
+	 *
+	 * @return the count
+	 */
+	public long getBlockedCount() {
+		return blockedCount;
+	}
+
+	/**
+	 * Get the number of messages merged into an already queued message.
+	 *
+	 * @return the count
+	 */
+	public long getCoalescedCount() {
+		return coalescedCount;
+	}
+
+	/**
+	 * Get the number of queued messages discarded to make room.
+	 *
+	 * @return the count
+	 */
+	public long getDroppedCount() {
+		return droppedCount;
+	}
+
+}
@@ -0,0 +1,458 @@
+/* ==================================================================
+ * CoalescingEventPublisher.java - 19/10/2026 6:31:02 PM
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.node.loxone.protocol.ws;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.messaging.simp.user.SimpSubscription;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import net.solarnetwork.domain.Result;
+import net.solarnetwork.node.loxone.dao.ControlDao;
+import net.solarnetwork.node.loxone.domain.Config;
+import net.solarnetwork.node.loxone.domain.EventEntity;
+import net.solarnetwork.node.loxone.domain.ValueEventColumns;
+import net.solarnetwork.service.OptionalService;
+
+/**
+ * Publish event entities to a message topic per {@link Config}, coalescing
+ * updates and sending at a limited rate.
+ *
+ * <p>
+ * Events offered to the publisher are merged so only the latest event per
+ * UUID is kept, and the merged events are sent as a single message from a
+ * dedicated thread at most {@code maxRate} times per second. This keeps the
+ * message conversion off the Miniserver message processing threads, and
+ * bounds the number of messages sent to browsers when values change
+ * rapidly.
+ * </p>
+ *
+ * <p>
+ * If a {@link SimpUserRegistry} is available, then topics without any
+ * subscribers are checked on each flush and events offered for them are
+ * discarded without merging. Without a registry all topics are assumed to
+ * have subscribers.
+ * </p>
+ *
+ * <p>
+ * If a {@code compactTopicTemplate} is configured, the events are also sent
+ * to that topic as {@link ValueEventColumns}, for clients that opt in to the
+ * compact encoding by subscribing to it. Each encoding is only sent if its
+ * topic has subscribers.
+ * </p>
+ *
+ * <p>
+ * If a {@link ControlDao} and {@link SimpUserRegistry} are available, then
+ * clients can also subscribe to filtered destinations below the topic, as
+ * described in {@link EventSubscriptionIndex}, to receive only the events of
+ * a room, category, or list of controls. The filters are discovered from the
+ * registry on each flush, and only the matching subset of events is sent to
+ * each one. The filters must be invalidated with
+ * {@link #invalidateFilters(Long)} after the controls of a configuration
+ * change.
+ * </p>
+ *
+ * @author matt
+ * @version 1.3
+ * @since 2.3
+ */
+public class CoalescingEventPublisher {
+
+	/** The default value for the {@code maxRate} property. */
+	public static final double DEFAULT_MAX_RATE = 5.0;
+
+	private static final Logger log = LoggerFactory.getLogger(CoalescingEventPublisher.class);
+
+	private final String topicTemplate;
+	private final ConcurrentMap<Long, Topic> topics = new ConcurrentHashMap<>(4);
+
+	private OptionalService<SimpMessageSendingOperations> messageSendingOps;
+	private OptionalService<SimpUserRegistry> userRegistry;
+	private double maxRate = DEFAULT_MAX_RATE;
+	private String compactTopicTemplate;
+	private ControlDao controlDao;
+
+	private ScheduledExecutorService executor;
+	private ScheduledFuture<?> flushFuture;
+
+	/**
+	 * The pending events of a single topic.
+	 */
+	private static final class Topic {
+
+		private final String destination;
+		private final String compactDestination;
+		private final EventSubscriptionIndex filters;
+
+		// guarded by this
+		private Map<UUID, EventEntity> latest = new LinkedHashMap<>();
+
+		private volatile boolean subscribed = true;
+
+		private Topic(String destination, String compactDestination,
+				EventSubscriptionIndex filters) {
+			super();
+			this.destination = destination;
+			this.compactDestination = compactDestination;
+			this.filters = filters;
+		}
+
+		private synchronized List<EventEntity> drain() {
+			if ( latest.isEmpty() ) {
+				return null;
+			}
+			List<EventEntity> result = new ArrayList<>(latest.values());
+			latest = new LinkedHashMap<>(result.size());
+			return result;
+		}
+
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param topicTemplate
+	 *        the message topic template, which must accept a single string
+	 *        parameter for the external form of the {@link Config} ID, for
+	 *        example {@link LoxoneEvents#VALUE_EVENT_MESSAGE_TOPIC}
+	 * @throws IllegalArgumentException
+	 *         if {@code topicTemplate} is {@literal null}
+	 */
+	public CoalescingEventPublisher(String topicTemplate) {
+		super();
+		if ( topicTemplate == null ) {
+			throw new IllegalArgumentException("The topicTemplate argument cannot be null.");
+		}
+		this.topicTemplate = topicTemplate;
+	}
+
+	/**
+	 * Start the flush thread.
+	 */
+	public synchronized void startup() {
+		if ( executor != null ) {
+			return;
+		}
+		final String name = "Loxone-Event-Publisher-"
+				+ topicTemplate.substring(topicTemplate.lastIndexOf('/') + 1);
+		executor = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, name);
+			t.setDaemon(true);
+			return t;
+		});
+		scheduleFlush();
+	}
+
+	/**
+	 * Stop the flush thread, sending any pending events first.
+	 */
+	public synchronized void shutdown() {
+		if ( executor == null ) {
+			return;
+		}
+		flushFuture.cancel(false);
+		flushFuture = null;
+		executor.shutdown();
+		executor = null;
+		flushQuietly();
+	}
+
+	private void scheduleFlush() {
+		final long period = Math.max(1L, Math.round(1000.0 / maxRate));
+		flushFuture = executor.scheduleWithFixedDelay(this::flushQuietly, period, period,
+				TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Offer events to publish.
+	 *
+	 * <p>
+	 * The events replace any pending events with the same UUID, and will be
+	 * sent on the next flush. If the configuration's topic had no subscribers
+	 * on the last flush, the events are discarded.
+	 * </p>
+	 *
+	 * @param configId
+	 *        the ID of the {@link Config} the events are for
+	 * @param events
+	 *        the events to publish
+	 */
+	public void offer(Long configId, Collection<? extends EventEntity> events) {
+		if ( configId == null || events == null || events.isEmpty() ) {
+			return;
+		}
+		final Topic topic = topics.computeIfAbsent(configId, this::createTopic);
+		if ( !topic.subscribed ) {
+			return;
+		}
+		synchronized ( topic ) {
+			for ( EventEntity event : events ) {
+				topic.latest.put(event.getUuid(), event);
+			}
+		}
+	}
+
+	private Topic createTopic(Long configId) {
+		final String id = Config.idToExternalForm(configId);
+		final String destination = String.format(topicTemplate, id);
+		return new Topic(destination,
+				compactTopicTemplate != null ? String.format(compactTopicTemplate, id) : null,
+				controlDao != null ? new EventSubscriptionIndex(configId, destination, controlDao)
+						: null);
+	}
+
+	/**
+	 * Send all pending events, one message per topic.
+	 *
+	 * <p>
+	 * This also updates the subscription status and filters of each topic.
+	 * This method is called periodically by the flush thread, but can be called
+	 * directly as well.
+	 * </p>
+	 */
+	public void flush() {
+		final SimpMessageSendingOperations ops = (messageSendingOps != null
+				? messageSendingOps.service()
+				: null);
+		final SimpUserRegistry registry = (userRegistry != null ? userRegistry.service() : null);
+		for ( Topic topic : topics.values() ) {
+			final Set<String> destinations = (ops != null && registry != null
+					? subscribedDestinations(registry, topic.destination)
+					: null);
+			final boolean full = (ops != null
+					&& (destinations == null || destinations.contains(topic.destination)));
+			final boolean compact = (ops != null && topic.compactDestination != null
+					&& (destinations == null || destinations.contains(topic.compactDestination)));
+			boolean filtered = false;
+			if ( topic.filters != null ) {
+				topic.filters.update(
+						destinations != null ? destinations : Collections.<String> emptySet());
+				filtered = (topic.filters.size() > 0);
+			}
+			topic.subscribed = (full || compact || filtered);
+			final List<EventEntity> events = topic.drain();
+			if ( events == null ) {
+				continue;
+			}
+			if ( full ) {
+				log.trace("Publishing {} events to {}", events.size(), topic.destination);
+				ops.convertAndSend(topic.destination, Result.result(events));
+			}
+			if ( compact ) {
+				ValueEventColumns columns = ValueEventColumns.of(events);
+				if ( columns.size() > 0 ) {
+					log.trace("Publishing {} compact events to {}", columns.size(),
+							topic.compactDestination);
+					ops.convertAndSend(topic.compactDestination, Result.result(columns));
+				}
+			}
+			if ( filtered ) {
+				publishFiltered(ops, topic.filters.route(events));
+			}
+		}
+	}
+
+	/**
+	 * Discard the resolved subscription filters of a configuration.
+	 *
+	 * <p>
+	 * The filters are resolved again from the {@link ControlDao} on the next
+	 * flush. This should be called after the configuration's controls have
+	 * changed.
+	 * </p>
+	 *
+	 * @param configId
+	 *        the ID of the {@link Config} whose controls have changed
+	 * @since 1.3
+	 */
+	public void invalidateFilters(Long configId) {
+		if ( configId == null ) {
+			return;
+		}
+		final Topic topic = topics.get(configId);
+		if ( topic != null && topic.filters != null ) {
+			topic.filters.invalidate();
+		}
+	}
+
+	private static void publishFiltered(SimpMessageSendingOperations ops,
+			Map<EventSubscriptionIndex.Filter, List<EventEntity>> routes) {
+		for ( Map.Entry<EventSubscriptionIndex.Filter, List<EventEntity>> me : routes.entrySet() ) {
+			final EventSubscriptionIndex.Filter filter = me.getKey();
+			log.trace("Publishing {} filtered events to {}", me.getValue().size(),
+					filter.getDestination());
+			if ( filter.isCompact() ) {
+				ops.convertAndSend(filter.getDestination(),
+						Result.result(ValueEventColumns.of(me.getValue())));
+			} else {
+				ops.convertAndSend(filter.getDestination(), Result.result(me.getValue()));
+			}
+		}
+	}
+
+	private void flushQuietly() {
+		try {
+			flush();
+		} catch ( RuntimeException e ) {
+			log.warn("Error publishing events to {}: {}", topicTemplate, e.toString());
+		}
+	}
+
+	private static Set<String> subscribedDestinations(SimpUserRegistry registry,
+			String destination) {
+		Set<String> result = new HashSet<>(4);
+		for ( SimpSubscription sub : registry.findSubscriptions(
+				s -> s.getDestination() != null && s.getDestination().startsWith(destination)) ) {
+			result.add(sub.getDestination());
+		}
+		return result;
+	}
+
+	/**
+	 * Set a {@link SimpMessageSendingOperations} to publish messages with.
+	 *
+	 * @param messageSendingOps
+	 *        the service to use
+	 */
+	public void setMessageSendingOps(
+			OptionalService<SimpMessageSendingOperations> messageSendingOps) {
+		this.messageSendingOps = messageSendingOps;
+	}
+
+	/**
+	 * Set a {@link SimpUserRegistry} to find topic subscriptions with.
+	 *
+	 * @param userRegistry
+	 *        the registry to use
+	 */
+	public void setUserRegistry(OptionalService<SimpUserRegistry> userRegistry) {
+		this.userRegistry = userRegistry;
+	}
+
+	/**
+	 * Get the message topic template.
+	 *
+	 * @return the template, never {@literal null}
+	 * @since 1.3
+	 */
+	public String getTopicTemplate() {
+		return topicTemplate;
+	}
+
+	/**
+	 * Get the compact message topic template.
+	 *
+	 * @return the template, or {@literal null} if compact messages are not
+	 *         sent
+	 * @since 1.1
+	 */
+	public String getCompactTopicTemplate() {
+		return compactTopicTemplate;
+	}
+
+	/**
+	 * Set the compact message topic template.
+	 *
+	 * <p>
+	 * This must be configured before any events are offered.
+	 * </p>
+	 *
+	 * @param compactTopicTemplate
+	 *        the template, which must accept a single string parameter for the
+	 *        external form of the {@link Config} ID, for example
+	 *        {@link LoxoneEvents#VALUE_EVENT_COMPACT_MESSAGE_TOPIC}, or
+	 *        {@literal null} to not send compact messages
+	 * @since 1.1
+	 */
+	public void setCompactTopicTemplate(String compactTopicTemplate) {
+		this.compactTopicTemplate = compactTopicTemplate;
+	}
+
+	/**
+	 * Set the DAO to resolve the controls of filtered subscriptions with.
+	 *
+	 * <p>
+	 * This must be configured before any events are offered. If not
+	 * configured, filtered subscriptions are not supported.
+	 * </p>
+	 *
+	 * @param controlDao
+	 *        the DAO to use
+	 * @since 1.2
+	 */
+	public void setControlDao(ControlDao controlDao) {
+		this.controlDao = controlDao;
+	}
+
+	/**
+	 * Get the maximum number of messages to send per topic per second.
+	 *
+	 * @return the maximum rate; defaults to {@link #DEFAULT_MAX_RATE}
+	 */
+	public double getMaxRate() {
+		return maxRate;
+	}
+
+	/**
+	 * Set the maximum number of messages to send per topic per second.
+	 *
+	 * <p>
+	 * If the flush thread is running it will be rescheduled to use the new
+	 * rate.
+	 * </p>
+	 *
+	 * @param maxRate
+	 *        the maximum rate
+	 * @throws IllegalArgumentException
+	 *         if {@code maxRate} is not greater than {@literal 0}
+	 */
+	public synchronized void setMaxRate(double maxRate) {
+		if ( !(maxRate > 0) ) {
+			throw new IllegalArgumentException("The maxRate must be greater than 0.");
+		}
+		if ( maxRate == this.maxRate ) {
+			return;
+		}
+		this.maxRate = maxRate;
+		if ( flushFuture != null ) {
+			flushFuture.cancel(false);
+			scheduleFlush();
+		}
+	}
+
+}
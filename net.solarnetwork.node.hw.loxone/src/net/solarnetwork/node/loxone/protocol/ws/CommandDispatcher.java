@@ -0,0 +1,404 @@
+/* ==================================================================
+ * CommandDispatcher.java - 18/10/2026 5:06:44 PM
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.node.loxone.protocol.ws;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+
+/**
+ * Resolve Loxone control values to a {@link CommandType} and
+ * {@link CommandHandler}.
+ *
+ * <p>
+ * The control values and regular expressions of all {@link CommandType}
+ * values are indexed once in a character trie keyed on their literal prefix,
+ * such as {@code jdev/sys/} or {@code jdev/sps/io/}. Looking up a control
+ * value walks the trie once, and matches most commands by simple string
+ * comparison. A regular expression is only run for commands whose pattern
+ * is more than a literal prefix, for example to extract the
+ * {@link CommandType#IoControl} groups. The result is the same as
+ * {@link CommandType#forControlValue(String)} previously returned by testing
+ * each command in declaration order.
+ * </p>
+ *
+ * <p>
+ * Each instance also holds the {@link CommandHandler} for every command type,
+ * resolved once when the instance is created. The resulting {@link Match},
+ * with the command type, handler, and groups extracted from the control value,
+ * is passed to
+ * {@link CommandHandler#handleCommand(Match, MessageHeader, jakarta.websocket.Session, com.fasterxml.jackson.databind.JsonNode)}
+ * so the handler does not need to parse the control value again.
+ * </p>
+ *
+ * @author matt
+ * @version 1.1
+ */
+public class CommandDispatcher {
+
+	/**
+	 * The result of a control value lookup.
+	 */
+	public static final class Match {
+
+		private final CommandType command;
+		private final CommandHandler handler;
+		private final String[] groups;
+
+		private Match(CommandType command, CommandHandler handler, String[] groups) {
+			super();
+			this.command = command;
+			this.handler = handler;
+			this.groups = groups;
+		}
+
+		/**
+		 * Get the matched command type.
+		 *
+		 * @return the command type, never {@literal null}
+		 */
+		public CommandType getCommand() {
+			return command;
+		}
+
+		/**
+		 * Get the handler for the command.
+		 *
+		 * @return the handler, or {@literal null} if no handler supports the
+		 *         command
+		 */
+		public CommandHandler getHandler() {
+			return handler;
+		}
+
+		/**
+		 * Get the number of groups extracted from the control value.
+		 *
+		 * @return the group count
+		 */
+		public int getGroupCount() {
+			return groups.length;
+		}
+
+		/**
+		 * Get a group extracted from the control value.
+		 *
+		 * @param group
+		 *        the group number, starting from {@literal 1} as with
+		 *        {@link Matcher#group(int)}
+		 * @return the group value, or {@literal null} if the group did not
+		 *         match anything
+		 * @throws IndexOutOfBoundsException
+		 *         if {@code group} is not valid
+		 */
+		public String group(int group) {
+			if ( group < 1 || group > groups.length ) {
+				throw new IndexOutOfBoundsException("No group " + group);
+			}
+			return groups[group - 1];
+		}
+
+	}
+
+	private static final String[] NO_GROUPS = new String[0];
+
+	/** How a command type candidate is tested against a control value. */
+	private static enum Kind {
+		/** The value must equal the trie path. */
+		Exact,
+
+		/** The value must start with the trie path, followed by any line. */
+		Prefix,
+
+		/** The value must match the command type regular expression. */
+		Regex;
+	}
+
+	private static final class Candidate {
+
+		private final CommandType type;
+		private final Kind kind;
+
+		private Candidate(CommandType type, Kind kind) {
+			super();
+			this.type = type;
+			this.kind = kind;
+		}
+	}
+
+	private static final class Node {
+
+		private char[] keys = new char[0];
+		private Node[] children = new Node[0];
+		private Candidate[] candidates = new Candidate[0];
+
+		private Node child(char c) {
+			final char[] k = keys;
+			for ( int i = 0; i < k.length; i++ ) {
+				if ( k[i] == c ) {
+					return children[i];
+				}
+			}
+			return null;
+		}
+
+		private Node addChild(char c) {
+			Node n = child(c);
+			if ( n == null ) {
+				n = new Node();
+				keys = Arrays.copyOf(keys, keys.length + 1);
+				keys[keys.length - 1] = c;
+				children = Arrays.copyOf(children, children.length + 1);
+				children[children.length - 1] = n;
+			}
+			return n;
+		}
+
+		private void addCandidate(Candidate c) {
+			candidates = Arrays.copyOf(candidates, candidates.length + 1);
+			candidates[candidates.length - 1] = c;
+		}
+	}
+
+	private static final Node ROOT = new Node();
+
+	/** Command types whose pattern has no literal prefix. */
+	private static final CommandType[] UNPREFIXED;
+
+	static {
+		List<CommandType> unprefixed = new ArrayList<>();
+		for ( CommandType t : CommandType.values() ) {
+			if ( t.getControlValue() != null ) {
+				index(t.getControlValue(), new Candidate(t, Kind.Exact));
+			}
+			if ( t.getRegex() == null ) {
+				continue;
+			}
+			String src = t.getRegex().pattern();
+			if ( src.startsWith("^") ) {
+				src = src.substring(1);
+			}
+			String[] variants = (src.startsWith("j?")
+					? new String[] { "j" + src.substring(2), src.substring(2) }
+					: new String[] { src });
+			for ( String v : variants ) {
+				int end = literalPrefixLength(v);
+				String literal = v.substring(0, end);
+				String tail = v.substring(end);
+				if ( literal.isEmpty() ) {
+					unprefixed.add(t);
+					break;
+				}
+				Kind kind = (tail.isEmpty() ? Kind.Exact
+						: ".*".equals(tail) ? Kind.Prefix : Kind.Regex);
+				index(literal, new Candidate(t, kind));
+			}
+		}
+		UNPREFIXED = unprefixed.toArray(new CommandType[unprefixed.size()]);
+	}
+
+	private static void index(String path, Candidate c) {
+		Node n = ROOT;
+		for ( int i = 0, len = path.length(); i < len; i++ ) {
+			n = n.addChild(path.charAt(i));
+		}
+		n.addCandidate(c);
+	}
+
+	private static int literalPrefixLength(String regex) {
+		for ( int i = 0, len = regex.length(); i < len; i++ ) {
+			char c = regex.charAt(i);
+			if ( "?*+{".indexOf(c) >= 0 ) {
+				// the previous character is quantified, so is not part of the literal
+				return Math.max(0, i - 1);
+			}
+			if ( ".[]()}|\\^$".indexOf(c) >= 0 ) {
+				return i;
+			}
+		}
+		return regex.length();
+	}
+
+	private static boolean isLineTerminator(char c) {
+		// the line terminators not matched by a regular expression "."
+		return (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029');
+	}
+
+	private static boolean restIsLine(String value, int from) {
+		for ( int i = from, len = value.length(); i < len; i++ ) {
+			if ( isLineTerminator(value.charAt(i)) ) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static String[] groups(Matcher m) {
+		final int count = m.groupCount();
+		if ( count < 1 ) {
+			return NO_GROUPS;
+		}
+		String[] result = new String[count];
+		for ( int i = 0; i < count; i++ ) {
+			result[i] = m.group(i + 1);
+		}
+		return result;
+	}
+
+	private final Map<CommandType, CommandHandler> handlers;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param handlers
+	 *        the command handlers, in order of preference; for each command
+	 *        type the first handler that supports it is used; may be
+	 *        {@literal null}
+	 */
+	public CommandDispatcher(CommandHandler... handlers) {
+		super();
+		Map<CommandType, CommandHandler> m = new EnumMap<>(CommandType.class);
+		if ( handlers != null ) {
+			for ( CommandType t : CommandType.values() ) {
+				for ( CommandHandler h : handlers ) {
+					if ( h != null && h.supportsCommand(t) ) {
+						m.put(t, h);
+						break;
+					}
+				}
+			}
+		}
+		this.handlers = m;
+	}
+
+	/**
+	 * Get the handler for a command type.
+	 *
+	 * @param command
+	 *        the command type
+	 * @return the handler, or {@literal null} if none support the command
+	 */
+	public CommandHandler handlerFor(CommandType command) {
+		return (command != null ? handlers.get(command) : null);
+	}
+
+	/**
+	 * Resolve a control value to a command type and handler.
+	 *
+	 * @param value
+	 *        the control value
+	 * @return the match, or {@literal null} if the value does not match any
+	 *         command type
+	 */
+	public Match dispatch(String value) {
+		return match(value, this);
+	}
+
+	/**
+	 * Resolve a control value to a command type.
+	 *
+	 * @param value
+	 *        the control value
+	 * @return the match, with no handler, or {@literal null} if the value does
+	 *         not match any command type
+	 */
+	public static Match match(String value) {
+		return match(value, null);
+	}
+
+	private static Match match(String value, CommandDispatcher dispatcher) {
+		if ( value == null ) {
+			return null;
+		}
+		final int len = value.length();
+
+		// walk the trie; resolve the cheap candidates now and save regex candidates for later
+		CommandType best = null;
+		Candidate[] deferred = null;
+		int deferredCount = 0;
+		Node n = ROOT;
+		for ( int depth = 0; n != null; depth++ ) {
+			for ( Candidate c : n.candidates ) {
+				if ( best != null && c.type.ordinal() >= best.ordinal() ) {
+					continue;
+				}
+				switch (c.kind) {
+					case Exact:
+						if ( depth == len ) {
+							best = c.type;
+						}
+						break;
+
+					case Prefix:
+						if ( restIsLine(value, depth) ) {
+							best = c.type;
+						}
+						break;
+
+					default:
+						if ( deferred == null ) {
+							deferred = new Candidate[4];
+						} else if ( deferredCount == deferred.length ) {
+							deferred = Arrays.copyOf(deferred, deferredCount * 2);
+						}
+						deferred[deferredCount++] = c;
+				}
+			}
+			n = (depth < len ? n.child(value.charAt(depth)) : null);
+		}
+
+		// only run regular expressions that could take priority over a cheap match
+		String[] groups = NO_GROUPS;
+		for ( int i = 0; i < deferredCount; i++ ) {
+			CommandType t = deferred[i].type;
+			if ( best != null && t.ordinal() >= best.ordinal() ) {
+				continue;
+			}
+			Matcher m = t.getRegex().matcher(value);
+			if ( m.matches() ) {
+				best = t;
+				groups = groups(m);
+			}
+		}
+		for ( CommandType t : UNPREFIXED ) {
+			if ( best != null && t.ordinal() >= best.ordinal() ) {
+				break;
+			}
+			Matcher m = t.getRegex().matcher(value);
+			if ( m.matches() ) {
+				best = t;
+				groups = groups(m);
+				break;
+			}
+		}
+
+		if ( best == null ) {
+			return null;
+		}
+		return new Match(best, (dispatcher != null ? dispatcher.handlerFor(best) : null), groups);
+	}
+
+}
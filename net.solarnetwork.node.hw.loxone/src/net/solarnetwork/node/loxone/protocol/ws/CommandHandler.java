@@ -31,7 +31,7 @@ import com.fasterxml.jackson.databind.JsonNode;
  * API for objects that can deal with Loxone commands.
  * 
  * @author matt
- * @version 1.0
+ * @version 1.1
  */
 public interface CommandHandler {
 
@@ -62,6 +62,35 @@ public interface CommandHandler {
 	boolean handleCommand(CommandType command, MessageHeader header, Session session, JsonNode json)
 			throws IOException;
 
+	/**
+	 * Handle a command response from the Loxone server, resolved by a
+	 * {@link CommandDispatcher}.
+	 * 
+	 * <p>
+	 * This default implementation calls
+	 * {@link #handleCommand(CommandType, MessageHeader, Session, JsonNode)}
+	 * with the matched command. Implementations can override this to use the
+	 * groups extracted from the control value.
+	 * </p>
+	 * 
+	 * @param match
+	 *        The matched command.
+	 * @param header
+	 *        The message header.
+	 * @param session
+	 *        The websocket session.
+	 * @param json
+	 *        The JSON node.
+	 * @return <em>true</em> if the command was handled.
+	 * @throws IOException
+	 *         if any communication error occurs
+	 * @since 1.1
+	 */
+	default boolean handleCommand(CommandDispatcher.Match match, MessageHeader header,
+			Session session, JsonNode json) throws IOException {
+		return handleCommand(match.getCommand(), header, session, json);
+	}
+
 	/**
 	 * Send a command request to the Loxone server.
 	 * 
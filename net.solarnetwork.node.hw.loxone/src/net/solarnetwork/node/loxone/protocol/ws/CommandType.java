@@ -29,7 +29,7 @@ import java.util.regex.Pattern;
  * Supported commands.
  * 
  * @author matt
- * @version 1.2
+ * @version 1.3
  */
 public enum CommandType {
 
@@ -150,22 +150,33 @@ public enum CommandType {
 		return control;
 	}
 
+	/**
+	 * Get the regular expression used to match control values.
+	 * 
+	 * @return the pattern, or {@literal null} if only the control value is
+	 *         matched
+	 * @since 1.3
+	 */
+	Pattern getRegex() {
+		return regex;
+	}
+
 	/**
 	 * Get an enum from a control value.
 	 * 
+	 * <p>
+	 * If more than one command matches the value, the first one declared in
+	 * this enum is returned.
+	 * </p>
+	 * 
 	 * @param value
 	 *        The control value.
 	 * @return The enum, or <em>null</em> if not known.
+	 * @see CommandDispatcher#match(String)
 	 */
 	public static CommandType forControlValue(String value) {
-		for ( CommandType t : CommandType.values() ) {
-			if ( t.control != null && t.control.equals(value) ) {
-				return t;
-			} else if ( t.regex != null && t.regex.matcher(value).matches() ) {
-				return t;
-			}
-		}
-		return null;
+		CommandDispatcher.Match m = CommandDispatcher.match(value);
+		return (m != null ? m.getCommand() : null);
 	}
 
 	/**
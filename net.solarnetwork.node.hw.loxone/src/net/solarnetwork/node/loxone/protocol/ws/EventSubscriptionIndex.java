@@ -0,0 +1,344 @@
+/* ==================================================================
+ * EventSubscriptionIndex.java - 19/10/2026 8:41:15 PM
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.node.loxone.protocol.ws;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import net.solarnetwork.node.loxone.dao.ControlDao;
+import net.solarnetwork.node.loxone.domain.Control;
+import net.solarnetwork.node.loxone.domain.EventEntity;
+import net.solarnetwork.node.loxone.util.UUIDCodec;
+
+/**
+ * Index of the filtered event subscriptions of a single
+ * {@link net.solarnetwork.node.loxone.domain.Config}.
+ *
+ * <p>
+ * A filtered subscription is a message destination below the configuration's
+ * event topic that names the controls to receive events for, in one of these
+ * forms:
+ * </p>
+ *
+ * <ul>
+ * <li><code>{topic}/room/{uuid}</code> - the controls in a room</li>
+ * <li><code>{topic}/category/{uuid}</code> - the controls in a category</li>
+ * <li><code>{topic}/controls/{uuid},{uuid},...</code> - a list of control (or
+ * control state) UUIDs</li>
+ * </ul>
+ *
+ * <p>
+ * Any of these may end with <code>/compact</code> to receive the events as
+ * {@link net.solarnetwork.node.loxone.domain.ValueEventColumns}. Each filter
+ * is resolved into the set of its controls' state UUIDs once, when its
+ * destination is first seen, and the index maps each state UUID to the
+ * filters that include it so a list of events can be split into the subset
+ * for each filter without examining every filter. After the controls change,
+ * {@link #invalidate()} must be called so the filters are resolved again.
+ * </p>
+ *
+ * @author matt
+ * @version 1.1
+ * @since 2.4
+ */
+public class EventSubscriptionIndex {
+
+	/** The filter destination segment for a room. */
+	public static final String ROOM_FILTER = "room";
+
+	/** The filter destination segment for a category. */
+	public static final String CATEGORY_FILTER = "category";
+
+	/** The filter destination segment for a list of controls. */
+	public static final String CONTROLS_FILTER = "controls";
+
+	/** The filter destination suffix for the compact encoding. */
+	public static final String COMPACT_SUFFIX = "compact";
+
+	private static final Filter[] NO_FILTERS = new Filter[0];
+
+	private static final Logger log = LoggerFactory.getLogger(EventSubscriptionIndex.class);
+
+	private final Long configId;
+	private final String prefix;
+	private final ControlDao controlDao;
+
+	// guarded by this
+	private final Map<String, Filter> filters = new LinkedHashMap<>(8);
+
+	private volatile Map<UUID, Filter[]> index = Collections.emptyMap();
+
+	/**
+	 * A resolved filtered subscription.
+	 */
+	public static final class Filter {
+
+		private final String destination;
+		private final boolean compact;
+		private final Set<UUID> uuids;
+
+		private Filter(String destination, boolean compact, Set<UUID> uuids) {
+			super();
+			this.destination = destination;
+			this.compact = compact;
+			this.uuids = uuids;
+		}
+
+		/**
+		 * Get the message destination.
+		 *
+		 * @return the destination
+		 */
+		public String getDestination() {
+			return destination;
+		}
+
+		/**
+		 * Get the compact encoding flag.
+		 *
+		 * @return {@literal true} if events should be sent using the compact
+		 *         encoding
+		 */
+		public boolean isCompact() {
+			return compact;
+		}
+
+		/**
+		 * Get the UUIDs matched by this filter.
+		 *
+		 * @return the UUIDs
+		 */
+		public Set<UUID> getUuids() {
+			return uuids;
+		}
+
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param configId
+	 *        the ID of the configuration to index
+	 * @param destination
+	 *        the configuration's unfiltered event message destination
+	 * @param controlDao
+	 *        the DAO to resolve the controls of a filter with
+	 * @throws IllegalArgumentException
+	 *         if any argument is {@literal null}
+	 */
+	public EventSubscriptionIndex(Long configId, String destination, ControlDao controlDao) {
+		super();
+		if ( configId == null ) {
+			throw new IllegalArgumentException("The configId argument cannot be null.");
+		}
+		if ( destination == null ) {
+			throw new IllegalArgumentException("The destination argument cannot be null.");
+		}
+		if ( controlDao == null ) {
+			throw new IllegalArgumentException("The controlDao argument cannot be null.");
+		}
+		this.configId = configId;
+		this.prefix = destination + '/';
+		this.controlDao = controlDao;
+	}
+
+	/**
+	 * Test if a message destination might be a filtered subscription of this
+	 * index.
+	 *
+	 * @param destination
+	 *        the destination to test
+	 * @return {@literal true} if {@code destination} starts with a filter
+	 *         segment
+	 */
+	public boolean isFilterDestination(String destination) {
+		if ( destination == null || !destination.startsWith(prefix) ) {
+			return false;
+		}
+		return (destination.startsWith(ROOM_FILTER + '/', prefix.length())
+				|| destination.startsWith(CATEGORY_FILTER + '/', prefix.length())
+				|| destination.startsWith(CONTROLS_FILTER + '/', prefix.length()));
+	}
+
+	/**
+	 * Update the index to hold exactly a given set of filter destinations.
+	 *
+	 * <p>
+	 * Filters no longer in {@code destinations} are removed, and new ones are
+	 * resolved and added. Any destination that cannot be parsed is kept as a
+	 * filter that matches nothing.
+	 * </p>
+	 *
+	 * @param destinations
+	 *        the current filter destinations
+	 * @return {@literal true} if the index changed
+	 */
+	public synchronized boolean update(Collection<String> destinations) {
+		boolean changed = false;
+		for ( Iterator<String> itr = filters.keySet().iterator(); itr.hasNext(); ) {
+			if ( !destinations.contains(itr.next()) ) {
+				itr.remove();
+				changed = true;
+			}
+		}
+		for ( String destination : destinations ) {
+			if ( !filters.containsKey(destination) && isFilterDestination(destination) ) {
+				filters.put(destination, resolve(destination));
+				changed = true;
+			}
+		}
+		if ( changed ) {
+			reindex();
+		}
+		return changed;
+	}
+
+	/**
+	 * Discard all resolved filters.
+	 *
+	 * <p>
+	 * The index is empty until the next call to {@link #update(Collection)},
+	 * which resolves every filter destination again. This should be called
+	 * after the configuration's controls have changed, for example after the
+	 * structure file has been saved.
+	 * </p>
+	 *
+	 * @since 1.1
+	 */
+	public synchronized void invalidate() {
+		if ( filters.isEmpty() ) {
+			return;
+		}
+		filters.clear();
+		reindex();
+	}
+
+	/**
+	 * Get the number of filters in the index.
+	 *
+	 * @return the filter count
+	 */
+	public synchronized int size() {
+		return filters.size();
+	}
+
+	/**
+	 * Split a list of events into the subset for each filter.
+	 *
+	 * @param events
+	 *        the events to route
+	 * @return the events of each filter with at least one matching event,
+	 *         never {@literal null}
+	 */
+	public Map<Filter, List<EventEntity>> route(Collection<? extends EventEntity> events) {
+		final Map<UUID, Filter[]> idx = index;
+		if ( idx.isEmpty() || events == null ) {
+			return Collections.emptyMap();
+		}
+		Map<Filter, List<EventEntity>> result = new LinkedHashMap<>(8);
+		for ( EventEntity event : events ) {
+			for ( Filter filter : idx.getOrDefault(event.getUuid(), NO_FILTERS) ) {
+				result.computeIfAbsent(filter, k -> new ArrayList<>()).add(event);
+			}
+		}
+		return result;
+	}
+
+	private void reindex() {
+		Map<UUID, List<Filter>> lists = new HashMap<>();
+		for ( Filter filter : filters.values() ) {
+			for ( UUID uuid : filter.uuids ) {
+				lists.computeIfAbsent(uuid, k -> new ArrayList<>(2)).add(filter);
+			}
+		}
+		Map<UUID, Filter[]> idx = new HashMap<>(lists.size());
+		for ( Map.Entry<UUID, List<Filter>> me : lists.entrySet() ) {
+			idx.put(me.getKey(), me.getValue().toArray(NO_FILTERS));
+		}
+		index = idx;
+	}
+
+	private Filter resolve(String destination) {
+		String[] segments = destination.substring(prefix.length()).split("/");
+		boolean compact = (segments.length == 3 && COMPACT_SUFFIX.equals(segments[2]));
+		Set<UUID> uuids = new HashSet<>();
+		if ( segments.length == 2 || compact ) {
+			try {
+				switch (segments[0]) {
+					case ROOM_FILTER:
+					case CATEGORY_FILTER:
+						resolveGroup(segments[0], UUIDCodec.decode(segments[1]), uuids);
+						break;
+
+					default:
+						for ( String uuid : segments[1].split(",") ) {
+							resolveControl(UUIDCodec.decode(uuid), uuids);
+						}
+				}
+			} catch ( IllegalArgumentException e ) {
+				log.debug("Ignoring invalid filter destination [{}]: {}", destination,
+						e.getMessage());
+				uuids.clear();
+			}
+		}
+		log.debug("Resolved filter destination [{}] to {} UUIDs", destination, uuids.size());
+		return new Filter(destination, compact, uuids);
+	}
+
+	private void resolveGroup(String type, UUID group, Set<UUID> uuids) {
+		for ( Control control : controlDao.findAllForConfig(configId, null) ) {
+			UUID uuid = (ROOM_FILTER.equals(type) ? control.getRoom() : control.getCategory());
+			if ( group.equals(uuid) ) {
+				addControl(control, uuids);
+			}
+		}
+	}
+
+	private void resolveControl(UUID uuid, Set<UUID> uuids) {
+		Control control = controlDao.load(configId, uuid);
+		if ( control != null ) {
+			addControl(control, uuids);
+		} else {
+			// assume a state UUID
+			uuids.add(uuid);
+		}
+	}
+
+	private static void addControl(Control control, Set<UUID> uuids) {
+		uuids.add(control.getUuid());
+		if ( control.getStates() != null ) {
+			uuids.addAll(control.getStates().values());
+		}
+	}
+
+}
@@ -0,0 +1,226 @@
+/* ==================================================================
+ * EventTableCursor.java - 18/10/2026 11:26:05 AM
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.node.loxone.protocol.ws;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.UUID;
+
+/**
+ * A reusable, allocation-free cursor over the entries of a
+ * {@link MessageType#EventTableValueStates} binary message.
+ *
+ * <p>
+ * Each value state entry is 24 bytes: a 16 byte Loxone UUID followed by an
+ * 8 byte little endian {@code double} value. The cursor reads the entries with
+ * absolute {@link ByteBuffer} methods, so it does not create any objects per
+ * entry and does not change the buffer's byte order. Call {@link #next()} to
+ * move to each entry in turn, and then {@link #uuidHi()}, {@link #uuidLo()},
+ * and {@link #value()} to read the entry's values. A {@link UUID} is only
+ * created if {@link #uuid()} is called.
+ * </p>
+ *
+ * <p>
+ * The static {@link #uuidHi(ByteBuffer, int)} and
+ * {@link #uuidLo(ByteBuffer, int)} methods can be used to decode Loxone UUIDs
+ * from other event table types.
+ * </p>
+ *
+ * <p>
+ * This class is not thread-safe.
+ * </p>
+ *
+ * @author matt
+ * @version 1.0
+ */
+public class EventTableCursor {
+
+	/** The length of an encoded Loxone UUID, in bytes. */
+	public static final int UUID_LENGTH = 16;
+
+	/** The length of a value state entry, in bytes. */
+	public static final int VALUE_STATE_LENGTH = UUID_LENGTH + 8;
+
+	private ByteBuffer buffer;
+	private int end;
+	private int entry;
+	private int nextEntry;
+	private boolean littleEndian;
+	private long uuidHi;
+	private long uuidLo;
+
+	/**
+	 * Constructor.
+	 *
+	 * <p>
+	 * The cursor must be initialized via
+	 * {@link #reset(ByteBuffer, int)} before use.
+	 * </p>
+	 */
+	public EventTableCursor() {
+		super();
+	}
+
+	/**
+	 * Prepare the cursor to read a new message.
+	 *
+	 * <p>
+	 * The first entry is taken to start at the buffer's current position.
+	 * </p>
+	 *
+	 * @param buffer
+	 *        the buffer to read
+	 * @param length
+	 *        the length of the message, in bytes
+	 * @return this cursor
+	 */
+	public EventTableCursor reset(ByteBuffer buffer, int length) {
+		this.buffer = buffer;
+		this.entry = buffer.position();
+		this.nextEntry = entry;
+		this.end = Math.min(entry + length, buffer.limit());
+		this.littleEndian = (buffer.order() == ByteOrder.LITTLE_ENDIAN);
+		this.uuidHi = 0;
+		this.uuidLo = 0;
+		return this;
+	}
+
+	/**
+	 * Move to the next value state entry.
+	 *
+	 * <p>
+	 * When this method returns {@literal false} the buffer position is set to
+	 * the end of the last complete entry.
+	 * </p>
+	 *
+	 * @return {@literal true} if an entry is available
+	 */
+	public boolean next() {
+		if ( nextEntry + VALUE_STATE_LENGTH > end ) {
+			buffer.position(nextEntry);
+			return false;
+		}
+		entry = nextEntry;
+		nextEntry += VALUE_STATE_LENGTH;
+		uuidHi = uuidHi(buffer, entry, littleEndian);
+		uuidLo = uuidLo(buffer, entry, littleEndian);
+		return true;
+	}
+
+	/**
+	 * Get the most significant bits of the current entry's UUID.
+	 *
+	 * @return the UUID high bits
+	 */
+	public long uuidHi() {
+		return uuidHi;
+	}
+
+	/**
+	 * Get the least significant bits of the current entry's UUID.
+	 *
+	 * @return the UUID low bits
+	 */
+	public long uuidLo() {
+		return uuidLo;
+	}
+
+	/**
+	 * Get the current entry's UUID.
+	 *
+	 * <p>
+	 * Note this method creates a new {@link UUID} instance on each call.
+	 * </p>
+	 *
+	 * @return the UUID
+	 */
+	public UUID uuid() {
+		return new UUID(uuidHi, uuidLo);
+	}
+
+	/**
+	 * Get the current entry's value.
+	 *
+	 * @return the value
+	 */
+	public double value() {
+		long bits = buffer.getLong(entry + UUID_LENGTH);
+		return Double.longBitsToDouble(littleEndian ? bits : Long.reverseBytes(bits));
+	}
+
+	/**
+	 * Decode the most significant bits of a Loxone UUID.
+	 *
+	 * <p>
+	 * Loxone encodes UUIDs as a little endian 32-bit integer, two little endian
+	 * 16-bit integers, and then 8 bytes in big endian order. The buffer's byte
+	 * order and position are not changed.
+	 * </p>
+	 *
+	 * @param buffer
+	 *        the buffer to read from
+	 * @param index
+	 *        the index of the start of the encoded UUID
+	 * @return the UUID high bits
+	 */
+	public static long uuidHi(ByteBuffer buffer, int index) {
+		return uuidHi(buffer, index, buffer.order() == ByteOrder.LITTLE_ENDIAN);
+	}
+
+	/**
+	 * Decode the least significant bits of a Loxone UUID.
+	 *
+	 * <p>
+	 * The buffer's byte order and position are not changed.
+	 * </p>
+	 *
+	 * @param buffer
+	 *        the buffer to read from
+	 * @param index
+	 *        the index of the start of the encoded UUID
+	 * @return the UUID low bits
+	 * @see #uuidHi(ByteBuffer, int)
+	 */
+	public static long uuidLo(ByteBuffer buffer, int index) {
+		return uuidLo(buffer, index, buffer.order() == ByteOrder.LITTLE_ENDIAN);
+	}
+
+	private static long uuidHi(ByteBuffer buffer, int index, boolean littleEndian) {
+		int d1 = buffer.getInt(index);
+		short d2 = buffer.getShort(index + 4);
+		short d3 = buffer.getShort(index + 6);
+		if ( !littleEndian ) {
+			d1 = Integer.reverseBytes(d1);
+			d2 = Short.reverseBytes(d2);
+			d3 = Short.reverseBytes(d3);
+		}
+		return ((Integer.toUnsignedLong(d1) << 32) | (Short.toUnsignedLong(d2) << 16)
+				| Short.toUnsignedLong(d3));
+	}
+
+	private static long uuidLo(ByteBuffer buffer, int index, boolean littleEndian) {
+		long bits = buffer.getLong(index + 8);
+		return (littleEndian ? Long.reverseBytes(bits) : bits);
+	}
+
+}
@@ -42,13 +42,13 @@ import java.util.Base64;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.Map;
-import java.util.Queue;
 import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
 import org.apache.commons.codec.DecoderException;
@@ -94,7 +94,9 @@ import net.solarnetwork.service.OptionalService;
  * acts as a broker for the messages, and handles the authentication of the
  * connection. It then relies on {@link CommandHandler} instances to deal with
  * all other messages, configured via
- * {@link #setCommandHandlers(CommandHandler[])}.
+ * {@link #setCommandHandlers(CommandHandler[])}. Headers are paired with their
+ * payload by a {@link MessagePairing}, which recovers from lost or unexpected
+ * messages without reconnecting.
  *
  * This class also relies on a list of {@link BinaryFileHandler} instances to
  * deal with the {@code BinaryFile} message type, configured via
@@ -104,8 +106,13 @@ import net.solarnetwork.service.OptionalService;
  * {@code LoxoneEvents#STRUCTURE_FILE_MODIFICATION_DATE_EVENT} event and if that
  * date changes will request the structure file again from the Loxone server.
  *
+ * If a {@link StripedMessageExecutor} is configured via
+ * {@link #setMessageExecutor(StripedMessageExecutor)} then binary messages are
+ * queued in a {@link BinaryMessageRing} and processed on an executor thread,
+ * so slow message handlers do not block reading from the websocket.
+ *
  * @author matt
- * @version 2.12
+ * @version 2.18
  */
 public class LoxoneEndpoint extends Endpoint implements MessageHandler.Whole<ByteBuffer>, EventHandler {
 
@@ -139,6 +146,13 @@ public class LoxoneEndpoint extends Endpoint implements MessageHandler.Whole<Byt
 	 */
 	public static final String DEFAULT_CONTAINER_PROVIDER_CLASS_NAME = "org.glassfish.tyrus.container.jdk.client.JdkClientContainer";
 
+	/**
+	 * The {@code messageBufferSize} property default value.
+	 *
+	 * @since 2.13
+	 */
+	public static final int DEFAULT_MESSAGE_BUFFER_SIZE = 64;
+
 	private static final Set<CommandType> INTERNAL_CMDS = EnumSet.of(CommandType.GetAuthenticationKey,
 			CommandType.Authenticate, CommandType.Auth, CommandType.EnableInputStatusUpdate,
 			CommandType.KeepAlive, CommandType.KeyExchange, CommandType.EncryptedCommand,
@@ -186,6 +200,7 @@ public class LoxoneEndpoint extends Endpoint implements MessageHandler.Whole<Byt
 	private ObjectMapper objectMapper = new ObjectMapper();
 	private CommandHandler[] commandHandlers = null;
 	private BinaryFileHandler[] binaryFileHandlers = null;
+	private volatile BinaryFileHandlerRoutes binaryFileRoutes = new BinaryFileHandlerRoutes(null);
 	private OptionalService<EventAdmin> eventAdmin = null;
 	private final int keepAliveSeconds = 240;
 	private TaskScheduler taskScheduler;
@@ -197,18 +212,24 @@ public class LoxoneEndpoint extends Endpoint implements MessageHandler.Whole<Byt
 	private AuthenticationType authenticationType = AuthenticationType.Auto;
 	private AuthenticationTokenPermission tokenRequestPermission = AuthenticationTokenPermission.App;
 	private int tokenRefreshOffsetHours = 12;
+	private StripedMessageExecutor messageExecutor;
+	private int messageBufferSize = DEFAULT_MESSAGE_BUFFER_SIZE;
+	private BackpressureMode backpressureMode = BackpressureMode.Block;
 
 	/** A class-level logger. */
 	protected final Logger log = LoggerFactory.getLogger(getClass());
 
-	// create a fixed size queue for handling message headers
-	private final Queue<MessageHeader> headerQueue = new ArrayBlockingQueue<>(1, true);
+	// pairs message headers with the payload message that follows
+	private final MessagePairing messagePairing = new MessagePairing();
 
 	// create an internal handler for authentication, etc.
 	private final InternalCommandHandler internalCommandHandler = new InternalCommandHandler();
 
 	private final ReconnectHandler reconnectHandler = new ReconnectHandler();
 
+	// resolves control values to commands and handlers
+	private volatile CommandDispatcher commandDispatcher;
+
 	private boolean initialized;
 	private Session session;
 	private ScheduledFuture<?> keepAliveFuture = null;
@@ -218,6 +239,7 @@ public class LoxoneEndpoint extends Endpoint implements MessageHandler.Whole<Byt
 	private ConfigApi apiConfiguration = null;
 	private long messageCount = 0;
 	private ConfigAuthenticationToken configAuthToken = null;
+	private volatile MessagePipeline messagePipeline = null;
 
 	private final AtomicInteger authKeyState = new AtomicInteger(0);
 
@@ -226,6 +248,7 @@ public class LoxoneEndpoint extends Endpoint implements MessageHandler.Whole<Byt
 	 */
 	public LoxoneEndpoint() {
 		super();
+		commandDispatcher = new CommandDispatcher(internalCommandHandler);
 	}
 
 	private synchronized void connect() {
@@ -427,6 +450,17 @@ public class LoxoneEndpoint extends Endpoint implements MessageHandler.Whole<Byt
 		return null;
 	}
 
+	/**
+	 * Called after the structure file of the configuration has been saved.
+	 *
+	 * @param configId
+	 *        the ID of the saved configuration
+	 * @since 2.18
+	 */
+	protected void structureFileDidSave(Long configId) {
+		// subclasses can do something interesting here
+	}
+
 	/**
 	 * Disconnect from the Loxone server.
 	 */
@@ -479,8 +513,13 @@ public class LoxoneEndpoint extends Endpoint implements MessageHandler.Whole<Byt
 		if ( buf.order() != ByteOrder.LITTLE_ENDIAN ) {
 			buf.order(ByteOrder.LITTLE_ENDIAN);
 		}
-		MessageHeader h = headerQueue.poll();
-		if ( h != null ) {
+		if ( messagePairing.isPayload(buf) ) {
+			final MessageHeader h = messagePairing.takeForPayload(buf.remaining());
+			if ( h == null ) {
+				log.debug("Dropping {} byte message that does not match its header",
+						buf.remaining());
+				return;
+			}
 			log.trace("Got binary message {}", h);
 			if ( log.isTraceEnabled() ) {
 				try {
@@ -490,7 +529,7 @@ public class LoxoneEndpoint extends Endpoint implements MessageHandler.Whole<Byt
 					// ignore
 				}
 			}
-			if ( !handleBinaryFileIfPossible(h, buf) ) {
+			if ( !dispatchBinaryFile(h, buf) ) {
 				// hmm, seems sometimes we get more than one response from Loxone
 				log.debug("Dropping message: {}", h);
 			}
@@ -507,8 +546,8 @@ public class LoxoneEndpoint extends Endpoint implements MessageHandler.Whole<Byt
 				if ( MessageType.Keepalive.equals(header.getType()) ) {
 					log.info("Received keepalive message from Loxone "
 							+ configuredConfigIdExternalForm());
-				} else if ( !headerQueue.offer(header) ) {
-					log.warn("Dropping message header: {}", header);
+				} else if ( !messagePairing.offerHeader(header) ) {
+					log.debug("Message payload missing; resynchronized on header {}", header);
 				}
 			} catch ( IllegalArgumentException e ) {
 				log.warn("Dropping unsupported message header: {}", e.getMessage());
@@ -520,6 +559,78 @@ public class LoxoneEndpoint extends Endpoint implements MessageHandler.Whole<Byt
 		messageCount += 1;
 		if ( messageCount % statusMessageCount == 0 ) {
 			log.info("Loxone {} processed {} messages", configuredConfigIdExternalForm(), messageCount);
+			final MessagePipeline p = messagePipeline;
+			if ( p != null ) {
+				log.info("Loxone {} message buffer: queued {}, blocked {}, coalesced {}, dropped {}",
+						configuredConfigIdExternalForm(), p.ring.size(), p.ring.getBlockedCount(),
+						p.ring.getCoalescedCount(), p.ring.getDroppedCount());
+			}
+			log.info("Loxone {} message pairing: paired {}, mismatched {}, resynchronized {}",
+					configuredConfigIdExternalForm(), messagePairing.getPairedCount(),
+					messagePairing.getMismatchCount(), messagePairing.getResyncCount());
+		}
+	}
+
+	/**
+	 * Per-connection pipeline that queues binary messages for processing on a
+	 * {@link StripedMessageExecutor} thread.
+	 */
+	private final class MessagePipeline implements Runnable {
+
+		private final Session session;
+		private final Long key;
+		private final BinaryMessageRing ring;
+		private final StripedMessageExecutor executor;
+		private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+		private MessagePipeline(Session session, Long key, BinaryMessageRing ring,
+				StripedMessageExecutor executor) {
+			super();
+			this.session = session;
+			this.key = key;
+			this.ring = ring;
+			this.executor = executor;
+		}
+
+		private void submit(MessageHeader header, ByteBuffer buf, BinaryFileHandler handler)
+				throws InterruptedException {
+			// copy the payload, as the websocket container owns the buffer
+			ByteBuffer copy = ByteBuffer.allocate(buf.remaining()).order(ByteOrder.LITTLE_ENDIAN);
+			copy.put(buf).flip();
+			ring.put(new BinaryMessageRing.Message(header, copy, handler));
+			schedule();
+		}
+
+		private void schedule() {
+			if ( scheduled.compareAndSet(false, true) ) {
+				try {
+					executor.execute(key, this);
+				} catch ( RejectedExecutionException e ) {
+					// executor shut down; process on this thread
+					run();
+				}
+			}
+		}
+
+		@Override
+		public void run() {
+			try {
+				BinaryMessageRing.Message m;
+				while ( (m = ring.poll()) != null ) {
+					try {
+						if ( !m.getHandler().handleDataMessage(m.getHeader(), session, m.getBuffer()) ) {
+							log.debug("Dropping message: {}", m.getHeader());
+						}
+					} catch ( RuntimeException e ) {
+						logConciseException("Error processing message {}", e, m.getHeader());
+					}
+				}
+			} finally {
+				scheduled.set(false);
+			}
+			if ( ring.size() > 0 ) {
+				schedule();
+			}
 		}
 	}
 
@@ -531,6 +642,8 @@ public class LoxoneEndpoint extends Endpoint implements MessageHandler.Whole<Byt
 		stopTokenRefreshTask();
 		this.session = null;
 		this.configAuthToken = null;
+		this.messagePipeline = null;
+		messagePairing.reset();
 	}
 
 	@Override
@@ -575,6 +688,7 @@ public class LoxoneEndpoint extends Endpoint implements MessageHandler.Whole<Byt
 	@Override
 	public void onOpen(Session session, EndpointConfig config) {
 		this.session = session;
+		messagePairing.reset();
 
 		Long configId = configuredConfigId();
 		session.getUserProperties().put(CONFIG_ID_USER_PROPERTY, configId);
@@ -598,6 +712,13 @@ public class LoxoneEndpoint extends Endpoint implements MessageHandler.Whole<Byt
 
 		setConfiguration(cfg);
 
+		// hand binary messages off to a processing thread, if configured
+		final StripedMessageExecutor executor = messageExecutor;
+		messagePipeline = (executor != null
+				? new MessagePipeline(session, configId,
+						new BinaryMessageRing(messageBufferSize, backpressureMode), executor)
+				: null);
+
 		// add binary handler to decode message headers and other binary messages
 		session.addMessageHandler(this);
 
@@ -921,19 +1042,79 @@ public class LoxoneEndpoint extends Endpoint implements MessageHandler.Whole<Byt
 	/**
 	 * Text message handler that acts as a broker for {@link CommandHandler}
 	 * instances to process messages.
+	 *
+	 * <p>
+	 * Messages are received in parts. Text files such as the structure file
+	 * are passed to a {@link TextFileStreamHandler} as each part arrives, when
+	 * one accepts the file. Other messages are collected and processed once
+	 * complete.
+	 * </p>
 	 */
-	private class TextMessageHandler implements jakarta.websocket.MessageHandler.Whole<String> {
+	private class TextMessageHandler implements jakarta.websocket.MessageHandler.Partial<String> {
+
+		private boolean inMessage;
+		private MessageHeader header;
+		private StringBuilder text;
+		private TextFileStreamHandler.Stream stream;
 
 		@Override
-		public void onMessage(String payload) {
+		public void onMessage(String partial, boolean last) {
+			if ( !inMessage ) {
+				inMessage = true;
+				startMessage();
+			}
+			try {
+				if ( text != null ) {
+					text.append(partial);
+				}
+				if ( stream != null ) {
+					writeStream(partial, last);
+				}
+				if ( last && text != null ) {
+					onMessage(header, text.toString());
+				}
+			} finally {
+				if ( last ) {
+					inMessage = false;
+					header = null;
+					text = null;
+					stream = null;
+				}
+			}
+		}
+
+		private void startMessage() {
 			// take our corresponding message header
-			final MessageHeader header = headerQueue.poll();
+			header = messagePairing.takeForText();
 			if ( header == null ) {
 				// we expect to have that header, but we should also be able to continue
 				// without it so just log a message
 				log.debug("MessageHeader not available for text message!");
 			}
+			text = new StringBuilder();
+			if ( header != null && (header.getType() == MessageType.BinaryFile
+					|| header.getType() == MessageType.Unknown) ) {
+				stream = openTextFileStream(header);
+			}
+		}
 
+		private void writeStream(String partial, boolean last) {
+			try {
+				TextFileStreamHandler.Status status = stream.write(partial, last);
+				if ( status == TextFileStreamHandler.Status.Accepted ) {
+					// no longer need to collect the text
+					text = null;
+				} else if ( status == TextFileStreamHandler.Status.Rejected ) {
+					stream = null;
+				}
+			} catch ( IOException | RuntimeException e ) {
+				logConciseException("Error parsing text file {}", e, header);
+				stream = null;
+				text = null;
+			}
+		}
+
+		private void onMessage(MessageHeader header, String payload) {
 			log.debug("Got text message {}: {}", header, payload);
 
 			if ( (header != null && header.getType() == MessageType.TextMessage)
@@ -944,20 +1125,24 @@ public class LoxoneEndpoint extends Endpoint implements MessageHandler.Whole<Byt
 					if ( json.hasNonNull("LL") ) {
 						JsonNode root = json.path("LL");
 						String control = root.path("control").textValue();
-						CommandType command = CommandType.forControlValue(control);
+						final CommandDispatcher dispatcher = commandDispatcher;
+						CommandDispatcher.Match match = dispatcher.dispatch(control);
 
-						if ( command == CommandType.EncryptedCommand ) {
+						if ( match != null && match.getCommand() == CommandType.EncryptedCommand ) {
 							SecurityHelper helper = (SecurityHelper) session.getUserProperties()
 									.get(LoxoneEndpoint.SECURITY_HELPER_USER_PROPERTY);
 							if ( helper != null ) {
 								control = helper.decryptCommand(control);
-								command = CommandType.forControlValue(control);
-								log.debug("Decrypted command {} message: {}: {}", command, control,
+								match = dispatcher.dispatch(control);
+								log.debug("Decrypted command {} message: {}: {}",
+										(match != null ? match.getCommand() : null), control,
 										root.path("value").toString());
 							}
 						}
 
-						handleCommandIfPossible(command, header, root);
+						if ( match != null && match.getHandler() != null ) {
+							match.getHandler().handleCommand(match, header, session, root);
+						}
 					} else {
 						log.debug("Unknown command message {}: {}", header, payload);
 					}
@@ -975,6 +1160,22 @@ public class LoxoneEndpoint extends Endpoint implements MessageHandler.Whole<Byt
 		}
 	}
 
+	private TextFileStreamHandler.Stream openTextFileStream(MessageHeader header) {
+		BinaryFileHandler[] list = binaryFileHandlers;
+		if ( list != null ) {
+			for ( BinaryFileHandler handler : list ) {
+				if ( handler instanceof TextFileStreamHandler ) {
+					TextFileStreamHandler.Stream s = ((TextFileStreamHandler) handler)
+							.openTextFileStream(header, session);
+					if ( s != null ) {
+						return s;
+					}
+				}
+			}
+		}
+		return null;
+	}
+
 	private class ReconnectHandler extends org.glassfish.tyrus.client.ClientManager.ReconnectHandler {
 
 		private int counter = 0;
@@ -1039,30 +1240,8 @@ public class LoxoneEndpoint extends Endpoint implements MessageHandler.Whole<Byt
 		return null;
 	}
 
-	private boolean handleCommandIfPossible(CommandType command, MessageHeader header, JsonNode tree)
-			throws IOException {
-		CommandHandler handler = getCommandHandlerForCommand(command);
-		if ( handler != null ) {
-			return handler.handleCommand(command, header, session, tree);
-		}
-		return false;
-	}
-
 	private CommandHandler getCommandHandlerForCommand(CommandType command) {
-		// first check if the command is supported directly, and if so handle it
-		if ( internalCommandHandler.supportsCommand(command) ) {
-			return internalCommandHandler;
-		} else {
-			CommandHandler[] list = commandHandlers;
-			if ( list != null ) {
-				for ( CommandHandler handler : list ) {
-					if ( handler.supportsCommand(command) ) {
-						return handler;
-					}
-				}
-			}
-		}
-		return null;
+		return commandDispatcher.handlerFor(command);
 	}
 
 	private static final int BINARY_BUFFER_SIZE = 4096;
@@ -1111,18 +1290,41 @@ public class LoxoneEndpoint extends Endpoint implements MessageHandler.Whole<Byt
 		if ( header.getType() == MessageType.Keepalive ) {
 			return true;
 		}
-		BinaryFileHandler[] list = binaryFileHandlers;
-		if ( list != null ) {
-			buffer.mark();
-			for ( BinaryFileHandler handler : list ) {
-				boolean supports = handler.supportsDataMessage(header, buffer);
-				buffer.reset();
-				if ( supports ) {
-					return handler.handleDataMessage(header, session, buffer);
-				}
-			}
+		BinaryFileHandler handler = binaryFileHandlerFor(header, buffer);
+		return (handler != null ? handler.handleDataMessage(header, session, buffer) : false);
+	}
+
+	private BinaryFileHandler binaryFileHandlerFor(MessageHeader header, ByteBuffer buffer) {
+		return binaryFileRoutes.handlerFor(header, buffer);
+	}
+
+	/**
+	 * Handle a binary message, either directly or by queuing it for
+	 * processing on the configured message executor.
+	 *
+	 * @param header
+	 *        The current message header.
+	 * @param buffer
+	 *        The buffer to read from.
+	 * @return <em>true</em> if the message was handled or queued
+	 */
+	private boolean dispatchBinaryFile(MessageHeader header, ByteBuffer buffer) {
+		final MessagePipeline p = messagePipeline;
+		if ( p == null || header.getType() == MessageType.Keepalive ) {
+			return handleBinaryFileIfPossible(header, buffer);
 		}
-		return false;
+		BinaryFileHandler handler = binaryFileHandlerFor(header, buffer);
+		if ( handler == null ) {
+			return false;
+		}
+		try {
+			p.submit(header, buffer, handler);
+		} catch ( InterruptedException e ) {
+			Thread.currentThread().interrupt();
+			log.warn("Interrupted queuing message {}", header);
+			return false;
+		}
+		return true;
 	}
 
 	@Override
@@ -1163,6 +1365,7 @@ public class LoxoneEndpoint extends Endpoint implements MessageHandler.Whole<Byt
 		} else if ( LoxoneEvents.STRUCTURE_FILE_SAVED_EVENT.equals(topic) ) {
 			log.info("Loxone configuration saved; enabling status updates.");
 			setConfiguration(configDao.getConfig(configId));
+			structureFileDidSave(configId);
 			try {
 				sendCommandIfPossible(CommandType.EnableInputStatusUpdate);
 			} catch ( IOException e ) {
@@ -1332,11 +1535,23 @@ public class LoxoneEndpoint extends Endpoint implements MessageHandler.Whole<Byt
 	/**
 	 * Set the command handlers.
 	 *
+	 * <p>
+	 * This also builds the {@link CommandDispatcher} used to find the handler
+	 * for each command.
+	 * </p>
+	 *
 	 * @param commandHandlers
 	 *        the handlers to set
 	 */
 	public void setCommandHandlers(CommandHandler[] commandHandlers) {
 		this.commandHandlers = commandHandlers;
+		CommandHandler[] all = new CommandHandler[1
+				+ (commandHandlers != null ? commandHandlers.length : 0)];
+		all[0] = internalCommandHandler;
+		if ( commandHandlers != null ) {
+			System.arraycopy(commandHandlers, 0, all, 1, commandHandlers.length);
+		}
+		this.commandDispatcher = new CommandDispatcher(all);
 	}
 
 	/**
@@ -1351,11 +1566,17 @@ public class LoxoneEndpoint extends Endpoint implements MessageHandler.Whole<Byt
 	/**
 	 * Set the binary file handlers.
 	 *
+	 * <p>
+	 * This also builds the routing table used to find the handler for each
+	 * binary message.
+	 * </p>
+	 *
 	 * @param binaryFileHandlers
 	 *        the handlers to set
 	 */
 	public void setBinaryFileHandlers(BinaryFileHandler[] binaryFileHandlers) {
 		this.binaryFileHandlers = binaryFileHandlers;
+		this.binaryFileRoutes = new BinaryFileHandlerRoutes(binaryFileHandlers);
 	}
 
 	/**
@@ -1585,4 +1806,87 @@ public class LoxoneEndpoint extends Endpoint implements MessageHandler.Whole<Byt
 						: DEFAULT_CONTAINER_PROVIDER_CLASS_NAME);
 	}
 
+	/**
+	 * Get the executor to process binary messages with.
+	 *
+	 * @return the executor, or {@literal null} to process messages on the
+	 *         websocket read thread
+	 * @since 2.13
+	 */
+	public StripedMessageExecutor getMessageExecutor() {
+		return messageExecutor;
+	}
+
+	/**
+	 * Set the executor to process binary messages with.
+	 *
+	 * <p>
+	 * The executor is expected to be shared by all endpoints. Changes take
+	 * effect on the next connection.
+	 * </p>
+	 *
+	 * @param messageExecutor
+	 *        the executor to use, or {@literal null} to process messages on the
+	 *        websocket read thread
+	 * @since 2.13
+	 */
+	public void setMessageExecutor(StripedMessageExecutor messageExecutor) {
+		this.messageExecutor = messageExecutor;
+	}
+
+	/**
+	 * Get the maximum number of binary messages to queue for processing.
+	 *
+	 * @return the buffer size; defaults to {@link #DEFAULT_MESSAGE_BUFFER_SIZE}
+	 * @since 2.13
+	 */
+	public int getMessageBufferSize() {
+		return messageBufferSize;
+	}
+
+	/**
+	 * Set the maximum number of binary messages to queue for processing.
+	 *
+	 * <p>
+	 * Changes take effect on the next connection.
+	 * </p>
+	 *
+	 * @param messageBufferSize
+	 *        the buffer size; values less than {@literal 1} are ignored
+	 * @since 2.13
+	 */
+	public void setMessageBufferSize(int messageBufferSize) {
+		if ( messageBufferSize < 1 ) {
+			return;
+		}
+		this.messageBufferSize = messageBufferSize;
+	}
+
+	/**
+	 * Get the behaviour to use when the binary message buffer is full.
+	 *
+	 * @return the mode; defaults to {@link BackpressureMode#Block}
+	 * @since 2.13
+	 */
+	public BackpressureMode getBackpressureMode() {
+		return backpressureMode;
+	}
+
+	/**
+	 * Set the behaviour to use when the binary message buffer is full.
+	 *
+	 * <p>
+	 * Changes take effect on the next connection.
+	 * </p>
+	 *
+	 * @param backpressureMode
+	 *        the mode to use; if {@literal null} then
+	 *        {@link BackpressureMode#Block} will be used
+	 * @since 2.13
+	 */
+	public void setBackpressureMode(BackpressureMode backpressureMode) {
+		this.backpressureMode = (backpressureMode != null ? backpressureMode
+				: BackpressureMode.Block);
+	}
+
 }
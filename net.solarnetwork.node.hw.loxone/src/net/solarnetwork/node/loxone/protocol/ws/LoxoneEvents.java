@@ -26,13 +26,14 @@ import org.springframework.messaging.Message;
 import net.solarnetwork.node.loxone.domain.Config;
 import net.solarnetwork.node.loxone.domain.TextEvent;
 import net.solarnetwork.node.loxone.domain.ValueEvent;
+import net.solarnetwork.node.loxone.domain.ValueEventColumns;
 import net.solarnetwork.node.loxone.domain.WeatherEvent;
 
 /**
  * Event constants and utilities.
  * 
  * @author matt
- * @version 1.1
+ * @version 1.2
  */
 public abstract class LoxoneEvents {
 
@@ -74,6 +75,17 @@ public abstract class LoxoneEvents {
 	 */
 	public static final String VALUE_EVENT_MESSAGE_TOPIC = "/topic/%s/events/values";
 
+	/**
+	 * A {@link Message} destination for {@link ValueEvent} objects tied to a
+	 * specific {@link Config}, encoded as {@link ValueEventColumns}.
+	 * 
+	 * The template accepts a single string parameter, which is expected to be
+	 * the external string version of {@link Config#getId()}.
+	 * 
+	 * @since 1.2
+	 */
+	public static final String VALUE_EVENT_COMPACT_MESSAGE_TOPIC = "/topic/%s/events/values/compact";
+
 	/**
 	 * A {@link Message} destination for {@link TextEvent} objects tied to a
 	 * specific {@link Config}.
@@ -0,0 +1,227 @@
+/* ==================================================================
+ * MessagePairing.java - 18/10/2026 3:05:16 PM
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.node.loxone.protocol.ws;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Pairs each {@link MessageHeader} with the payload message that follows it.
+ *
+ * <p>
+ * The Loxone sends every message as a header message followed by a payload
+ * message. This class holds at most one pending header in a single slot that
+ * is updated without locking. A header marked with
+ * {@link MessageInfo#EstimatedSize} is expected to be followed by a second
+ * header with the exact length, which replaces it in the slot.
+ * </p>
+ *
+ * <p>
+ * If a payload is lost, the next header replaces the stale pending header
+ * (a <i>resync</i>). If a binary payload does not match the length of the
+ * pending header, the header and payload are both discarded (a
+ * <i>mismatch</i>). Either way later messages are paired correctly again,
+ * without needing to reconnect.
+ * </p>
+ *
+ * @author matt
+ * @version 1.0
+ */
+public class MessagePairing {
+
+	/** The length of a header message. */
+	public static final int HEADER_LENGTH = 8;
+
+	private final AtomicReference<MessageHeader> pending = new AtomicReference<>();
+	private final AtomicLong pairedCount = new AtomicLong();
+	private final AtomicLong mismatchCount = new AtomicLong();
+	private final AtomicLong resyncCount = new AtomicLong();
+
+	/**
+	 * Constructor.
+	 */
+	public MessagePairing() {
+		super();
+	}
+
+	/**
+	 * Test if a header has estimated length.
+	 *
+	 * @param header
+	 *        the header to test
+	 * @return {@literal true} if the header has the
+	 *         {@link MessageInfo#EstimatedSize} flag
+	 */
+	public static boolean isEstimated(MessageHeader header) {
+		return (header.getInfo() != null && header.getInfo().contains(MessageInfo.EstimatedSize));
+	}
+
+	/**
+	 * Test if a binary message looks like a header message.
+	 *
+	 * @param buf
+	 *        the message, from its current position
+	 * @return {@literal true} if the message has the length of a header and
+	 *         starts with {@link MessageHeader#MAGIC_BYTE}
+	 */
+	public static boolean looksLikeHeader(ByteBuffer buf) {
+		return (buf.remaining() == HEADER_LENGTH
+				&& buf.get(buf.position()) == MessageHeader.MAGIC_BYTE);
+	}
+
+	/**
+	 * Test if a binary message should be treated as the payload of the
+	 * pending header.
+	 *
+	 * <p>
+	 * A message that looks like a header is treated as a header unless the
+	 * pending header has an exact length of {@link #HEADER_LENGTH}.
+	 * </p>
+	 *
+	 * @param buf
+	 *        the message, from its current position
+	 * @return {@literal true} if a header is pending and {@code buf} is its
+	 *         payload
+	 */
+	public boolean isPayload(ByteBuffer buf) {
+		final MessageHeader h = pending.get();
+		if ( h == null ) {
+			return false;
+		}
+		if ( !looksLikeHeader(buf) ) {
+			return true;
+		}
+		return (!isEstimated(h) && h.getLength() == HEADER_LENGTH);
+	}
+
+	/**
+	 * Store a header to pair with the next payload.
+	 *
+	 * @param header
+	 *        the header
+	 * @return {@literal true} if the header was stored normally, or
+	 *         {@literal false} if it replaced a pending header whose payload
+	 *         never arrived
+	 */
+	public boolean offerHeader(MessageHeader header) {
+		final MessageHeader prev = pending.getAndSet(header);
+		if ( prev == null || isEstimated(prev) ) {
+			return true;
+		}
+		resyncCount.incrementAndGet();
+		return false;
+	}
+
+	/**
+	 * Take the pending header for a binary payload.
+	 *
+	 * <p>
+	 * Unless the header is estimated, {@code payloadLength} must match the
+	 * header length. On a mismatch the pending header is discarded and
+	 * {@literal null} is returned.
+	 * </p>
+	 *
+	 * @param payloadLength
+	 *        the payload length, in bytes
+	 * @return the header, or {@literal null} if no header is pending or the
+	 *         length does not match
+	 */
+	public MessageHeader takeForPayload(long payloadLength) {
+		final MessageHeader h = pending.getAndSet(null);
+		if ( h == null ) {
+			return null;
+		}
+		if ( !isEstimated(h) && h.getLength() != payloadLength ) {
+			mismatchCount.incrementAndGet();
+			return null;
+		}
+		pairedCount.incrementAndGet();
+		return h;
+	}
+
+	/**
+	 * Take the pending header for a text payload.
+	 *
+	 * <p>
+	 * Only {@link MessageType#TextMessage}, {@link MessageType#BinaryFile} and
+	 * {@link MessageType#Unknown} headers can pair with a text payload. Any
+	 * other pending header is discarded as a mismatch.
+	 * </p>
+	 *
+	 * @return the header, or {@literal null} if no suitable header is pending
+	 */
+	public MessageHeader takeForText() {
+		final MessageHeader h = pending.getAndSet(null);
+		if ( h == null ) {
+			return null;
+		}
+		switch (h.getType()) {
+			case TextMessage:
+			case BinaryFile:
+			case Unknown:
+				pairedCount.incrementAndGet();
+				return h;
+
+			default:
+				mismatchCount.incrementAndGet();
+				return null;
+		}
+	}
+
+	/**
+	 * Discard any pending header, for example when a connection closes.
+	 */
+	public void reset() {
+		pending.set(null);
+	}
+
+	/**
+	 * Get the number of headers paired with a payload.
+	 *
+	 * @return the count
+	 */
+	public long getPairedCount() {
+		return pairedCount.get();
+	}
+
+	/**
+	 * Get the number of payloads that did not match the pending header.
+	 *
+	 * @return the count
+	 */
+	public long getMismatchCount() {
+		return mismatchCount.get();
+	}
+
+	/**
+	 * Get the number of pending headers replaced because their payload never
+	 * arrived.
+	 *
+	 * @return the count
+	 */
+	public long getResyncCount() {
+		return resyncCount.get();
+	}
+
+}
@@ -0,0 +1,127 @@
+/* ==================================================================
+ * StripedMessageExecutor.java - 18/10/2026 1:47:09 PM
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.node.loxone.protocol.ws;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A pool of single-threaded executors, where tasks with the same key are
+ * always run on the same thread.
+ *
+ * <p>
+ * This allows the messages of many Loxone connections to be processed in
+ * parallel, while messages from any one Miniserver are processed in the order
+ * they were received.
+ * </p>
+ *
+ * @author matt
+ * @version 1.0
+ */
+public class StripedMessageExecutor {
+
+	private final ExecutorService[] stripes;
+
+	/**
+	 * Constructor.
+	 *
+	 * <p>
+	 * One stripe per available processor will be created.
+	 * </p>
+	 */
+	public StripedMessageExecutor() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param stripeCount
+	 *        the number of stripes (threads) to use
+	 * @throws IllegalArgumentException
+	 *         if {@code stripeCount} is less than {@literal 1}
+	 */
+	public StripedMessageExecutor(int stripeCount) {
+		super();
+		if ( stripeCount < 1 ) {
+			throw new IllegalArgumentException("The stripe count must be at least 1.");
+		}
+		this.stripes = new ExecutorService[stripeCount];
+		for ( int i = 0; i < stripeCount; i++ ) {
+			final String name = "Loxone-Message-Processor-" + (i + 1);
+			stripes[i] = Executors.newSingleThreadExecutor(r -> {
+				Thread t = new Thread(r, name);
+				t.setDaemon(true);
+				return t;
+			});
+		}
+	}
+
+	/**
+	 * Get the number of stripes.
+	 *
+	 * @return the stripe count
+	 */
+	public int getStripeCount() {
+		return stripes.length;
+	}
+
+	/**
+	 * Execute a task on the stripe assigned to a key.
+	 *
+	 * @param key
+	 *        the key, for example a {@link net.solarnetwork.node.loxone.domain.Config}
+	 *        ID
+	 * @param task
+	 *        the task to run
+	 * @throws RejectedExecutionException
+	 *         if the executor has been shut down
+	 */
+	public void execute(Object key, Runnable task) {
+		int h = (key != null ? key.hashCode() : 0);
+		h ^= (h >>> 16);
+		stripes[Math.floorMod(h, stripes.length)].execute(task);
+	}
+
+	/**
+	 * Shut down all stripes, waiting a short time for queued tasks to finish.
+	 */
+	public void shutdown() {
+		for ( ExecutorService s : stripes ) {
+			s.shutdown();
+		}
+		for ( ExecutorService s : stripes ) {
+			try {
+				if ( !s.awaitTermination(5, TimeUnit.SECONDS) ) {
+					s.shutdownNow();
+				}
+			} catch ( InterruptedException e ) {
+				s.shutdownNow();
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,89 @@
+/* ==================================================================
+ * TextFileStreamHandler.java - 18/10/2026 6:24:51 PM
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.node.loxone.protocol.ws;
+
+import java.io.IOException;
+import jakarta.websocket.Session;
+
+/**
+ * API for a {@link BinaryFileHandler} that can process a text file
+ * incrementally, as the parts of a websocket message arrive.
+ *
+ * @author matt
+ * @version 1.0
+ */
+public interface TextFileStreamHandler {
+
+	/**
+	 * The status of a text file stream.
+	 */
+	enum Status {
+
+		/** Not enough of the file has been seen to know if it is supported. */
+		Undecided,
+
+		/** The file is supported, and is being processed. */
+		Accepted,
+
+		/**
+		 * The file is not supported; the caller should process the complete
+		 * file in some other way.
+		 */
+		Rejected;
+
+	}
+
+	/**
+	 * An incremental text file consumer.
+	 */
+	interface Stream {
+
+		/**
+		 * Process the next part of the file.
+		 *
+		 * @param text
+		 *        the next part of the file
+		 * @param last
+		 *        {@literal true} if this is the last part of the file
+		 * @return the stream status; once {@code Rejected} is returned no more
+		 *         parts should be written
+		 * @throws IOException
+		 *         if the file cannot be processed
+		 */
+		Status write(String text, boolean last) throws IOException;
+
+	}
+
+	/**
+	 * Start processing a text file.
+	 *
+	 * @param header
+	 *        the message header
+	 * @param session
+	 *        the websocket session
+	 * @return the stream to write the file to, or {@literal null} if this
+	 *         handler cannot process files for the given header and session
+	 */
+	Stream openTextFileStream(MessageHeader header, Session session);
+
+}
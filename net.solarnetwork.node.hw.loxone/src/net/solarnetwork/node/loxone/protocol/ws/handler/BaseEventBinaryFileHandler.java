@@ -26,6 +26,7 @@ import java.io.IOException;
 import java.io.Reader;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import jakarta.websocket.Session;
@@ -42,6 +43,8 @@ import net.solarnetwork.node.loxone.dao.EventEntityDao;
 import net.solarnetwork.node.loxone.domain.BaseEventEntity;
 import net.solarnetwork.node.loxone.domain.Config;
 import net.solarnetwork.node.loxone.protocol.ws.BinaryFileHandler;
+import net.solarnetwork.node.loxone.protocol.ws.CoalescingEventPublisher;
+import net.solarnetwork.node.loxone.protocol.ws.EventTableCursor;
 import net.solarnetwork.node.loxone.protocol.ws.LoxoneEndpoint;
 import net.solarnetwork.node.loxone.protocol.ws.MessageHeader;
 import net.solarnetwork.service.OptionalService;
@@ -52,7 +55,7 @@ import net.solarnetwork.service.OptionalService;
  * @param <T>
  *        the entity type
  * @author matt
- * @version 2.0
+ * @version 2.2
  */
 public abstract class BaseEventBinaryFileHandler<T extends BaseEventEntity>
 		implements BinaryFileHandler {
@@ -66,6 +69,13 @@ public abstract class BaseEventBinaryFileHandler<T extends BaseEventEntity>
 	/** An optional {@link SimpMessageSendingOperations} service to use. */
 	protected OptionalService<SimpMessageSendingOperations> messageSendingOps;
 
+	/**
+	 * An optional publisher to send event messages with.
+	 *
+	 * @since 2.2
+	 */
+	protected CoalescingEventPublisher eventPublisher;
+
 	/** A class-level logger. */
 	protected final Logger log = LoggerFactory.getLogger(getClass());
 
@@ -145,14 +155,16 @@ public abstract class BaseEventBinaryFileHandler<T extends BaseEventEntity>
 	 * @param buffer
 	 *        The buffer to use.
 	 * @return The parsed UUID.
+	 * @see EventTableCursor#uuidHi(ByteBuffer, int)
 	 */
 	protected UUID readUUID(ByteBuffer buffer) {
-		ByteBuffer buf = buffer.order(ByteOrder.LITTLE_ENDIAN);
-		long d1 = Integer.toUnsignedLong(buf.getInt());
-		long d2 = Short.toUnsignedLong(buf.getShort());
-		long d3 = Short.toUnsignedLong(buf.getShort());
-		UUID uuid = new UUID(((d1 << 32) | (d2 << 16) | d3), buf.order(ByteOrder.BIG_ENDIAN).getLong());
-		buf.order(ByteOrder.LITTLE_ENDIAN);
+		if ( buffer.order() != ByteOrder.LITTLE_ENDIAN ) {
+			buffer.order(ByteOrder.LITTLE_ENDIAN);
+		}
+		final int pos = buffer.position();
+		UUID uuid = new UUID(EventTableCursor.uuidHi(buffer, pos),
+				EventTableCursor.uuidLo(buffer, pos));
+		buffer.position(pos + EventTableCursor.UUID_LENGTH);
 		return uuid;
 	}
 
@@ -229,6 +241,32 @@ public abstract class BaseEventBinaryFileHandler<T extends BaseEventEntity>
 		}
 	}
 
+	/**
+	 * Publish event messages for a configuration.
+	 *
+	 * <p>
+	 * If an {@link #setEventPublisher(CoalescingEventPublisher)} is configured
+	 * with the same topic template the events are offered to that, otherwise
+	 * they are posted immediately via {@link #postMessage(String, Object)}.
+	 * </p>
+	 *
+	 * @param topicTemplate
+	 *        the message topic template, which accepts the external form of
+	 *        the {@link Config} ID as its only parameter
+	 * @param configId
+	 *        the {@link Config} ID the events are for
+	 * @param events
+	 *        the events to publish
+	 * @since 2.2
+	 */
+	protected void publishEvents(String topicTemplate, Long configId, List<T> events) {
+		if ( eventPublisher != null && topicTemplate.equals(eventPublisher.getTopicTemplate()) ) {
+			eventPublisher.offer(configId, events);
+		} else {
+			postMessage(String.format(topicTemplate, Config.idToExternalForm(configId)), events);
+		}
+	}
+
 	/**
 	 * Set the DAO to use.
 	 *
@@ -274,4 +312,21 @@ public abstract class BaseEventBinaryFileHandler<T extends BaseEventEntity>
 		this.messageSendingOps = messagingOps;
 	}
 
+	/**
+	 * Set a publisher to send event messages with.
+	 *
+	 * <p>
+	 * When configured, event messages are coalesced and sent by the publisher
+	 * instead of being posted immediately via the
+	 * {@link #setMessageSendingOps(OptionalService)} service.
+	 * </p>
+	 *
+	 * @param eventPublisher
+	 *        the publisher to use
+	 * @since 2.2
+	 */
+	public void setEventPublisher(CoalescingEventPublisher eventPublisher) {
+		this.eventPublisher = eventPublisher;
+	}
+
 }
@@ -25,7 +25,10 @@ package net.solarnetwork.node.loxone.protocol.ws.handler;
 import java.nio.ByteBuffer;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 import jakarta.websocket.Session;
 import net.solarnetwork.node.loxone.domain.DaytimerEvent;
@@ -38,10 +41,13 @@ import net.solarnetwork.node.loxone.protocol.ws.MessageType;
  * {@link BinaryFileHandler} for daytimer-type event binary messages.
  *
  * @author matt
- * @version 2.0
+ * @version 2.2
  */
 public class DaytimerEventBinaryFileHandler extends BaseEventBinaryFileHandler<DaytimerEvent> {
 
+	private static final Set<MessageType> DATA_MESSAGE_TYPES = Collections
+			.unmodifiableSet(EnumSet.of(MessageType.EventTableDaytimerStates));
+
 	/**
 	 * Constructor.
 	 */
@@ -54,10 +60,20 @@ public class DaytimerEventBinaryFileHandler extends BaseEventBinaryFileHandler<D
 		return (header != null && header.getType() == MessageType.EventTableDaytimerStates);
 	}
 
+	@Override
+	public Set<MessageType> getDataMessageTypes() {
+		return DATA_MESSAGE_TYPES;
+	}
+
 	@Override
 	protected boolean handleDataMessage(MessageHeader header, Session session, ByteBuffer buffer,
 			Long configId) {
 		int end = buffer.position() + (int) header.getLength();
+		if ( !log.isTraceEnabled() ) {
+			// events are only logged, so skip decoding the message when not tracing
+			buffer.position(Math.min(end, buffer.limit()));
+			return true;
+		}
 		Instant now = Instant.now();
 		while ( buffer.hasRemaining() && buffer.position() < end ) {
 			UUID uuid = readUUID(buffer);
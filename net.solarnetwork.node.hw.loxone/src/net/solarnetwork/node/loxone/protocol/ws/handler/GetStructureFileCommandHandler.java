@@ -24,49 +24,113 @@ package net.solarnetwork.node.loxone.protocol.ws.handler;
 
 import java.io.IOException;
 import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
+import java.util.Set;
 import java.util.TimeZone;
 import org.osgi.service.event.Event;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
-import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
+import org.springframework.transaction.support.TransactionTemplate;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
 import jakarta.websocket.Session;
 import net.solarnetwork.node.loxone.dao.CategoryDao;
 import net.solarnetwork.node.loxone.dao.ConfigDao;
+import net.solarnetwork.node.loxone.dao.ConfigurationEntityDao;
 import net.solarnetwork.node.loxone.dao.ControlDao;
 import net.solarnetwork.node.loxone.dao.RoomDao;
+import net.solarnetwork.node.loxone.dao.StructureSnapshotDao;
 import net.solarnetwork.node.loxone.domain.Category;
 import net.solarnetwork.node.loxone.domain.Config;
+import net.solarnetwork.node.loxone.domain.ConfigurationEntity;
 import net.solarnetwork.node.loxone.domain.Control;
 import net.solarnetwork.node.loxone.domain.Room;
+import net.solarnetwork.node.loxone.domain.StructureSnapshot;
 import net.solarnetwork.node.loxone.protocol.ws.BinaryFileHandler;
 import net.solarnetwork.node.loxone.protocol.ws.CommandType;
 import net.solarnetwork.node.loxone.protocol.ws.LoxoneEvents;
 import net.solarnetwork.node.loxone.protocol.ws.MessageHeader;
+import net.solarnetwork.node.loxone.protocol.ws.TextFileStreamHandler;
 
 /**
  * Handle the Loxone structure file.
  *
+ * <p>
+ * The structure file is parsed as a stream of JSON tokens, so the complete
+ * file is never held in memory as a JSON tree. The categories, controls, and
+ * rooms are each stored in one batch via
+ * {@link ConfigurationEntityDao#syncAll(Long, java.util.Collection)} as soon as
+ * their section of the file has been parsed, so only the entities that have
+ * changed are written. When a
+ * {@link TransactionTemplate} is configured, the sections completed by each
+ * part of a streamed file are stored in one transaction.
+ * </p>
+ *
+ * <p>
+ * When a {@link StructureSnapshotDao} is configured, a snapshot of the
+ * entities is also stored, so they can be restored later without downloading
+ * the structure file again.
+ * </p>
+ *
  * @author matt
- * @version 1.1
+ * @version 1.4
  */
-public class GetStructureFileCommandHandler extends BaseCommandHandler implements BinaryFileHandler {
+public class GetStructureFileCommandHandler extends BaseCommandHandler
+		implements BinaryFileHandler, TextFileStreamHandler {
 
 	private static final String DATE_PATTERN = "yyyy-MM-dd HH:mm:ss"; //"2016-09-19 08:28:15";
 
+	/** The number of characters to read at a time from a text file reader. */
+	private static final int READ_BUFFER_SIZE = 8192;
+
+	/** Top-level structure file properties, used to recognize the file. */
+	private static final Set<String> STRUCTURE_FILE_PROPERTIES = Collections
+			.unmodifiableSet(new HashSet<>(Arrays.asList("lastModified", "msInfo", "globalStates",
+					"operatingModes", "rooms", "cats", "modes", "controls", "autopilot",
+					"weatherServer", "times", "caller", "messageCenter", "mediaServer")));
+
+	/**
+	 * The {@code differentialSync} property default value.
+	 *
+	 * @since 1.3
+	 */
+	public static final boolean DEFAULT_DIFFERENTIAL_SYNC = true;
+
+	/** The property that identifies a structure file. */
+	private static final char[] STRUCTURE_FILE_TOKEN = "\"lastModified\"".toCharArray();
+
+	/** The number of characters to inspect at a time for the token. */
+	private static final int INSPECT_BUFFER_SIZE = 64;
+
 	private ObjectMapper objectMapper;
+	private ObjectReader categoryReader;
+	private ObjectReader controlReader;
+	private ObjectReader roomReader;
 	private ConfigDao configDao;
 	private CategoryDao categoryDao;
 	private ControlDao controlDao;
 	private RoomDao roomDao;
+	private StructureSnapshotDao structureSnapshotDao;
+	private TransactionTemplate transactionTemplate;
+	private boolean differentialSync = DEFAULT_DIFFERENTIAL_SYNC;
 
 	/**
 	 * Constructor.
@@ -100,11 +164,29 @@ public class GetStructureFileCommandHandler extends BaseCommandHandler implement
 	@Override
 	public boolean supportsTextMessage(MessageHeader header, Reader reader, int limit)
 			throws IOException {
-		// read our limit to inspect what we have
-		char[] buf = new char[limit];
-		int count = reader.read(buf, 0, limit);
-		String s = new String(buf, 0, count);
-		return s.contains("\"lastModified\"");
+		// scan up to our limit for the token, stopping as soon as it is found
+		char[] buf = new char[Math.min(limit, INSPECT_BUFFER_SIZE)];
+		int matched = 0;
+		int remaining = limit;
+		while ( remaining > 0 ) {
+			int count = reader.read(buf, 0, Math.min(remaining, buf.length));
+			if ( count < 0 ) {
+				break;
+			}
+			for ( int i = 0; i < count; i++ ) {
+				char c = buf[i];
+				if ( c == STRUCTURE_FILE_TOKEN[matched] ) {
+					if ( ++matched == STRUCTURE_FILE_TOKEN.length ) {
+						return true;
+					}
+				} else {
+					// the token has no inner quotes, so a new match can only start at a quote
+					matched = (c == STRUCTURE_FILE_TOKEN[0] ? 1 : 0);
+				}
+			}
+			remaining -= count;
+		}
+		return false;
 	}
 
 	@Transactional(readOnly = false, propagation = Propagation.REQUIRED)
@@ -115,71 +197,293 @@ public class GetStructureFileCommandHandler extends BaseCommandHandler implement
 		if ( configId == null ) {
 			return false;
 		}
-		Config config = configDao.getConfig(configId);
-		if ( config == null ) {
-			config = new Config(configId);
+		StructureFileStream stream = new StructureFileStream(configId, true);
+		char[] buf = new char[READ_BUFFER_SIZE];
+		int count;
+		while ( (count = reader.read(buf)) >= 0 ) {
+			stream.feed(new String(buf, 0, count), false);
+			stream.parseAvailable();
+		}
+		stream.feed("", true);
+		return (stream.process(true) == Status.Accepted);
+	}
+
+	@Override
+	public Stream openTextFileStream(MessageHeader header, Session session) {
+		Long configId = getConfigId(session);
+		if ( configId == null ) {
+			return null;
+		}
+		return new StructureFileStream(configId, false);
+	}
+
+	/**
+	 * Incremental structure file parser.
+	 *
+	 * <p>
+	 * Text is encoded to UTF-8 and fed to a non-blocking JSON parser. The
+	 * tokens of each category, control, and room are collected in a
+	 * {@link TokenBuffer} and bound to an entity when complete.
+	 * </p>
+	 */
+	private final class StructureFileStream implements Stream {
+
+		private final Long configId;
+		private final JsonParser parser;
+		private final ByteArrayFeeder feeder;
+		private Status status;
+		private String pending = "";
+		private int depth = 0;
+		private String property;
+		private String section;
+		private TokenBuffer entity;
+		private List<Category> categories;
+		private List<Control> controls;
+		private List<Room> rooms;
+		private Date lastModified;
+
+		private StructureFileStream(Long configId, boolean accepted) {
+			super();
+			this.configId = configId;
+			try {
+				this.parser = objectMapper.getFactory().createNonBlockingByteArrayParser();
+			} catch ( IOException e ) {
+				throw new UncheckedIOException(e);
+			}
+			this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+			this.status = (accepted ? Status.Accepted : Status.Undecided);
+		}
+
+		@Override
+		public Status write(String text, boolean last) throws IOException {
+			feed(text, last);
+			if ( transactionTemplate == null ) {
+				return process(last);
+			}
+			try {
+				return transactionTemplate.execute(tx -> {
+					try {
+						return process(last);
+					} catch ( IOException e ) {
+						throw new UncheckedIOException(e);
+					}
+				});
+			} catch ( UncheckedIOException e ) {
+				throw e.getCause();
+			}
 		}
-		JsonNode json = objectMapper.readTree(reader);
-		if ( log.isTraceEnabled() ) {
-			log.trace("Got structure file: {}",
-					objectMapper.writer(new DefaultPrettyPrinter()).writeValueAsString(json));
+
+		private Status process(boolean last) throws IOException {
+			parseAvailable();
+			if ( last ) {
+				if ( status == Status.Accepted ) {
+					finish();
+				} else {
+					status = Status.Rejected;
+				}
+			}
+			return status;
+		}
+
+		private void feed(String text, boolean last) throws IOException {
+			String s = pending + text;
+			pending = "";
+			if ( !last && !s.isEmpty() && Character.isHighSurrogate(s.charAt(s.length() - 1)) ) {
+				// keep a split surrogate pair together
+				pending = s.substring(s.length() - 1);
+				s = s.substring(0, s.length() - 1);
+			}
+			byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+			feeder.feedInput(bytes, 0, bytes.length);
+			if ( last ) {
+				feeder.endOfInput();
+			}
 		}
-		for ( final Entry<String, JsonNode> entry : json.properties() ) {
-			if ( "lastModified".equals(entry.getKey()) ) {
+
+		private void parseAvailable() throws IOException {
+			JsonToken t;
+			while ( status != Status.Rejected ) {
+				try {
+					t = parser.nextToken();
+				} catch ( JsonProcessingException e ) {
+					if ( status == Status.Undecided ) {
+						// not JSON, so not a structure file
+						status = Status.Rejected;
+						return;
+					}
+					throw e;
+				}
+				if ( t == null || t == JsonToken.NOT_AVAILABLE ) {
+					return;
+				}
+				if ( entity != null ) {
+					entityToken(t);
+				} else if ( depth == 0 ) {
+					if ( t != JsonToken.START_OBJECT ) {
+						status = Status.Rejected;
+						return;
+					}
+					depth = 1;
+				} else if ( depth == 1 ) {
+					propertyToken(t);
+				} else if ( section != null && depth == 2 ) {
+					sectionToken(t);
+				} else if ( t.isStructStart() ) {
+					depth++;
+				} else if ( t.isStructEnd() ) {
+					depth--;
+				}
+			}
+		}
+
+		private void propertyToken(JsonToken t) throws IOException {
+			if ( t == JsonToken.FIELD_NAME ) {
+				property = parser.currentName();
+				if ( status == Status.Undecided ) {
+					status = (STRUCTURE_FILE_PROPERTIES.contains(property) ? Status.Accepted
+							: Status.Rejected);
+				}
+			} else if ( t == JsonToken.END_OBJECT ) {
+				depth = 0;
+			} else if ( t.isStructStart() ) {
+				depth = 2;
+				if ( "cats".equals(property) ) {
+					categories = new ArrayList<>(32);
+					section = property;
+				} else if ( "controls".equals(property) ) {
+					controls = new ArrayList<>(64);
+					section = property;
+				} else if ( "rooms".equals(property) ) {
+					rooms = new ArrayList<>(32);
+					section = property;
+				}
+			} else if ( "lastModified".equals(property) && t == JsonToken.VALUE_STRING ) {
+				String value = parser.getText();
 				SimpleDateFormat sdf = new SimpleDateFormat(DATE_PATTERN);
 				sdf.setTimeZone(TimeZone.getTimeZone("UTC"));
 				try {
-					Date d = sdf.parse(entry.getValue().textValue());
-					config = config.withLastModified(d);
+					lastModified = sdf.parse(value);
 				} catch ( ParseException e ) {
-					log.warn("Error parsing last modified date [{}]: {}", entry.getValue().asText(),
-							e.getMessage());
+					log.warn("Error parsing last modified date [{}]: {}", value, e.getMessage());
 				}
-			} else if ( "cats".equals(entry.getKey()) ) {
-				categoryDao.deleteAllForConfig(configId);
-				for ( JsonNode node : entry.getValue() ) {
-					Category category = objectMapper.treeToValue(node, Category.class);
-					category.setConfigId(config.getId());
+			}
+		}
+
+		private void sectionToken(JsonToken t) throws IOException {
+			if ( t == JsonToken.START_OBJECT ) {
+				entity = new TokenBuffer(parser);
+				entity.copyCurrentEvent(parser);
+				depth = 3;
+			} else if ( t.isStructEnd() ) {
+				storeSection();
+				section = null;
+				depth = 1;
+			} else if ( t.isStructStart() ) {
+				depth++;
+			}
+		}
+
+		private void entityToken(JsonToken t) throws IOException {
+			entity.copyCurrentEvent(parser);
+			if ( t.isStructStart() ) {
+				depth++;
+			} else if ( t.isStructEnd() ) {
+				depth--;
+				if ( depth == 2 ) {
+					TokenBuffer tokens = entity;
+					entity = null;
+					storeEntity(tokens);
+				}
+			}
+		}
+
+		private void storeEntity(TokenBuffer tokens) throws IOException {
+			try (JsonParser p = tokens.asParser()) {
+				if ( "cats".equals(section) ) {
+					Category category = categoryReader.readValue(p);
+					category.setConfigId(configId);
 					if ( category.isValid() ) {
-						categoryDao.store(category);
+						categories.add(category);
 					} else {
 						log.warn("Ignoring invalid category {}", category.getUuid());
 					}
-				}
-			} else if ( "controls".equals(entry.getKey()) ) {
-				controlDao.deleteAllForConfig(configId);
-				for ( JsonNode node : entry.getValue() ) {
-					Control control = objectMapper.treeToValue(node, Control.class);
-					control.setConfigId(config.getId());
+				} else if ( "controls".equals(section) ) {
+					Control control = controlReader.readValue(p);
+					control.setConfigId(configId);
 					if ( control.isValid() ) {
-						controlDao.store(control);
+						controls.add(control);
 					} else {
 						log.warn("Ignoring invalid control {}", control.getUuid());
 					}
-				}
-			} else if ( "rooms".equals(entry.getKey()) ) {
-				roomDao.deleteAllForConfig(configId);
-				for ( JsonNode node : entry.getValue() ) {
-					Room room = objectMapper.treeToValue(node, Room.class);
-					room.setConfigId(config.getId());
+				} else if ( "rooms".equals(section) ) {
+					Room room = roomReader.readValue(p);
+					room.setConfigId(configId);
 					if ( room.isValid() ) {
-						roomDao.store(room);
+						rooms.add(room);
 					} else {
 						log.warn("Ignoring invalid room {}", room.getUuid());
 					}
 				}
 			}
 		}
-		configDao.storeConfig(config);
 
-		// and finally, post our last modified event date
-		Map<String, Object> props = new HashMap<>(2);
-		props.put(LoxoneEvents.EVENT_PROPERTY_CONFIG_ID, configId);
-		props.put(LoxoneEvents.EVENT_PROPERTY_DATE, config.getLastModified().getTime());
-		Event e = new Event(LoxoneEvents.STRUCTURE_FILE_SAVED_EVENT, props);
-		postEvent(e);
+		private void storeSection() {
+			// store all entities for the config at once, now the whole section is known;
+			// the entities are kept for the structure snapshot
+			if ( "cats".equals(section) ) {
+				storeSection(categoryDao, categories);
+			} else if ( "controls".equals(section) ) {
+				storeSection(controlDao, controls);
+			} else if ( "rooms".equals(section) ) {
+				storeSection(roomDao, rooms);
+			}
+		}
+
+		private <T extends ConfigurationEntity> void storeSection(ConfigurationEntityDao<T> dao,
+				List<T> entities) {
+			if ( differentialSync ) {
+				int count = dao.syncAll(configId, entities);
+				log.debug("Synchronized {} {} of config {}: {} changed", entities.size(), section,
+						configId, count);
+			} else {
+				dao.storeAll(configId, entities);
+			}
+		}
+
+		private void finish() {
+			Config config = configDao.getConfig(configId);
+			if ( config == null ) {
+				config = new Config(configId);
+			}
+			if ( lastModified != null ) {
+				config = config.withLastModified(lastModified);
+			}
+			configDao.storeConfig(config);
+			storeSnapshot(config);
+
+			// and finally, post our last modified event date
+			Map<String, Object> props = new HashMap<>(2);
+			props.put(LoxoneEvents.EVENT_PROPERTY_CONFIG_ID, configId);
+			props.put(LoxoneEvents.EVENT_PROPERTY_DATE, config.getLastModified().getTime());
+			Event e = new Event(LoxoneEvents.STRUCTURE_FILE_SAVED_EVENT, props);
+			postEvent(e);
+		}
+
+		private void storeSnapshot(Config config) {
+			if ( structureSnapshotDao == null || config.getLastModified() == null
+					|| categories == null || controls == null || rooms == null ) {
+				return;
+			}
+			StructureSnapshot snapshot = new StructureSnapshot(configId, config.getLastModified(),
+					categories, rooms, controls);
+			try {
+				structureSnapshotDao.storeSnapshot(snapshot);
+			} catch ( RuntimeException e ) {
+				// the snapshot is only an optimization, so carry on without it
+				log.warn("Error saving {}: {}", snapshot, e.toString());
+			}
+		}
 
-		return true;
 	}
 
 	/**
@@ -212,6 +516,22 @@ public class GetStructureFileCommandHandler extends BaseCommandHandler implement
 		this.roomDao = roomDao;
 	}
 
+	/**
+	 * Set the structure snapshot DAO.
+	 *
+	 * <p>
+	 * When configured, a snapshot of the categories, controls, and rooms is
+	 * stored after each complete structure file has been saved.
+	 * </p>
+	 *
+	 * @param structureSnapshotDao
+	 *        the DAO to set
+	 * @since 1.4
+	 */
+	public void setStructureSnapshotDao(StructureSnapshotDao structureSnapshotDao) {
+		this.structureSnapshotDao = structureSnapshotDao;
+	}
+
 	/**
 	 * Set the configuration DAO.
 	 *
@@ -230,6 +550,40 @@ public class GetStructureFileCommandHandler extends BaseCommandHandler implement
 	 */
 	public void setObjectMapper(ObjectMapper objectMapper) {
 		this.objectMapper = objectMapper;
+		this.categoryReader = (objectMapper != null ? objectMapper.readerFor(Category.class) : null);
+		this.controlReader = (objectMapper != null ? objectMapper.readerFor(Control.class) : null);
+		this.roomReader = (objectMapper != null ? objectMapper.readerFor(Room.class) : null);
+	}
+
+	/**
+	 * Set the transaction template to store each part of a streamed structure
+	 * file with.
+	 *
+	 * @param transactionTemplate
+	 *        the template to set
+	 * @since 1.2
+	 */
+	public void setTransactionTemplate(TransactionTemplate transactionTemplate) {
+		this.transactionTemplate = transactionTemplate;
+	}
+
+	/**
+	 * Toggle differential synchronization of the structure file entities.
+	 *
+	 * <p>
+	 * When enabled, only the categories, controls, and rooms that have changed
+	 * since the structure file was last stored are written, via
+	 * {@link ConfigurationEntityDao#syncAll(Long, java.util.Collection)}. When
+	 * disabled, all entities are deleted and inserted again.
+	 * </p>
+	 *
+	 * @param differentialSync
+	 *        {@literal true} to only store changes; defaults to
+	 *        {@link #DEFAULT_DIFFERENTIAL_SYNC}
+	 * @since 1.3
+	 */
+	public void setDifferentialSync(boolean differentialSync) {
+		this.differentialSync = differentialSync;
 	}
 
 }
@@ -28,12 +28,12 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.Future;
-import java.util.regex.Matcher;
 import jakarta.websocket.Session;
 import com.fasterxml.jackson.databind.JsonNode;
 import net.solarnetwork.node.loxone.domain.UUIDDeserializer;
 import net.solarnetwork.node.loxone.domain.UUIDSerializer;
 import net.solarnetwork.node.loxone.domain.ValueEvent;
+import net.solarnetwork.node.loxone.protocol.ws.CommandDispatcher;
 import net.solarnetwork.node.loxone.protocol.ws.CommandType;
 import net.solarnetwork.node.loxone.protocol.ws.MessageHeader;
 
@@ -41,7 +41,7 @@ import net.solarnetwork.node.loxone.protocol.ws.MessageHeader;
  * Handler for {@code IoControl} messages.
  *
  * @author matt
- * @version 1.1
+ * @version 1.2
  * @since 1.1
  */
 public class IoControlCommandHandler extends QueuedCommandHandler<String, List<ValueEvent>> {
@@ -74,16 +74,34 @@ public class IoControlCommandHandler extends QueuedCommandHandler<String, List<V
 		return null;
 	}
 
+	/**
+	 * Handle a command response, using the control UUID extracted by the
+	 * dispatcher.
+	 */
+	@Override
+	public boolean handleCommand(CommandDispatcher.Match match, MessageHeader header,
+			Session session, JsonNode tree) throws IOException {
+		if ( extractResponseCode(tree) != 200 ) {
+			return handleCommand(match.getCommand(), header, session, tree);
+		}
+		return handleControlValue(match, session, tree, tree.path("value").textValue());
+	}
+
 	@Override
 	protected boolean handleCommandValue(CommandType command, MessageHeader header, Session session,
 			JsonNode tree, String value) throws IOException {
-		String control = tree.path("control").textValue();
-		Matcher m = CommandType.IoControl.getMatcher(control);
+		// not dispatched with a match, so resolve the control value now
+		return handleControlValue(CommandDispatcher.match(tree.path("control").textValue()), session,
+				tree, value);
+	}
+
+	private boolean handleControlValue(CommandDispatcher.Match match, Session session,
+			JsonNode tree, String value) {
 		Long configId = getConfigId(session);
 		List<ValueEvent> result = null;
-		if ( m.matches() ) {
-			log.debug("Set control {} value", control);
-			UUID controlUuid = UUIDDeserializer.deserializeUUID(m.group(1));
+		if ( match != null && match.getCommand() == CommandType.IoControl ) {
+			log.debug("Set control {} value", tree.path("control").textValue());
+			UUID controlUuid = UUIDDeserializer.deserializeUUID(match.group(1));
 			if ( tree.get("v1") != null ) {
 				// there is a list of results, and value is the number of results and there are uX, vX attributes
 				int numResults = Integer.parseInt(value);
@@ -22,14 +22,19 @@
 
 package net.solarnetwork.node.loxone.protocol.ws.handler;
 
-import java.io.UnsupportedEncodingException;
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 import jakarta.websocket.Session;
-import net.solarnetwork.node.loxone.domain.Config;
+import net.solarnetwork.node.loxone.dao.TextEventDao;
 import net.solarnetwork.node.loxone.domain.TextEvent;
 import net.solarnetwork.node.loxone.protocol.ws.BinaryFileHandler;
 import net.solarnetwork.node.loxone.protocol.ws.LoxoneEvents;
@@ -39,11 +44,20 @@ import net.solarnetwork.node.loxone.protocol.ws.MessageType;
 /**
  * {@link BinaryFileHandler} for text-type event binary messages.
  *
+ * <p>
+ * Text events are stored via the configured event DAO. If that is a
+ * {@link TextEventDao} then only the texts that have changed are stored and
+ * published.
+ * </p>
+ *
  * @author matt
- * @version 1.0
+ * @version 1.4
  */
 public class TextEventBinaryFileHandler extends BaseEventBinaryFileHandler<TextEvent> {
 
+	private static final Set<MessageType> DATA_MESSAGE_TYPES = Collections
+			.unmodifiableSet(EnumSet.of(MessageType.EventTableTextStates));
+
 	/**
 	 * Constructor.
 	 */
@@ -56,12 +70,24 @@ public class TextEventBinaryFileHandler extends BaseEventBinaryFileHandler<TextE
 		return (header != null && header.getType() == MessageType.EventTableTextStates);
 	}
 
+	@Override
+	public Set<MessageType> getDataMessageTypes() {
+		return DATA_MESSAGE_TYPES;
+	}
+
+	// wrap super with @Transactional
+	@Transactional(readOnly = false, propagation = Propagation.REQUIRED)
+	@Override
+	public boolean handleDataMessage(MessageHeader header, Session session, ByteBuffer buffer) {
+		return super.handleDataMessage(header, session, buffer);
+	}
+
 	@Override
 	protected boolean handleDataMessage(MessageHeader header, Session session, ByteBuffer buffer,
 			Long configId) {
 		final int end = buffer.position() + (int) header.getLength();
 		final Instant now = Instant.now();
-		final List<TextEvent> updated = new ArrayList<>();
+		List<TextEvent> updated = new ArrayList<>();
 		while ( buffer.hasRemaining() && buffer.position() < end ) {
 			UUID uuid = readUUID(buffer);
 			UUID icon = readUUID(buffer);
@@ -70,28 +96,48 @@ public class TextEventBinaryFileHandler extends BaseEventBinaryFileHandler<TextE
 			// NOTE: we are truncating to (int) here because Java doesn't allow 64-bit arrays...
 			//       really this should be safe, because hopefully the Loxone device cannot
 			//       actually send more than Integer.MAX_VALUE
-			byte[] textBytes = new byte[(int) len];
-			buffer.get(textBytes);
+			String text = readText(buffer, (int) len);
 			if ( padding > 0 ) {
 				buffer.position(buffer.position() + (4 - padding));
 			}
-			TextEvent te;
-			try {
-				te = new TextEvent(uuid, configId, now, icon, new String(textBytes, "UTF-8"));
-				log.trace("Parsed text event {} = {}", uuid, te.getText());
-				// TODO: are we going to store these? eventDao.storeEvent(te);
-				updated.add(te);
-			} catch ( UnsupportedEncodingException e ) {
-				// should never happen
-			}
+			TextEvent te = new TextEvent(uuid, configId, now, icon, text);
+			log.trace("Parsed text event {} = {}", uuid, te.getText());
+			updated.add(te);
+		}
+		if ( !updated.isEmpty() ) {
+			updated = storeEvents(updated);
 		}
 		// post updated values to message channel
 		if ( !updated.isEmpty() ) {
-			String dest = String.format(LoxoneEvents.TEXT_EVENT_MESSAGE_TOPIC,
-					Config.idToExternalForm(configId));
-			postMessage(dest, updated);
+			publishEvents(LoxoneEvents.TEXT_EVENT_MESSAGE_TOPIC, configId, updated);
 		}
 		return true;
 	}
 
+	private List<TextEvent> storeEvents(List<TextEvent> events) {
+		if ( eventDao instanceof TextEventDao ) {
+			List<TextEvent> changed = ((TextEventDao) eventDao).storeChangedEvents(events);
+			log.trace("Stored {} changed of {} text events", changed.size(), events.size());
+			return changed;
+		} else if ( eventDao != null ) {
+			eventDao.storeEvents(events);
+		}
+		return events;
+	}
+
+	private static String readText(ByteBuffer buffer, int len) {
+		final String text;
+		if ( buffer.hasArray() ) {
+			// decode directly from the backing array, without an intermediate copy
+			text = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), len,
+					StandardCharsets.UTF_8);
+			buffer.position(buffer.position() + len);
+		} else {
+			byte[] textBytes = new byte[len];
+			buffer.get(textBytes);
+			text = new String(textBytes, StandardCharsets.UTF_8);
+		}
+		return text;
+	}
+
 }
@@ -25,17 +25,22 @@ package net.solarnetwork.node.loxone.protocol.ws.handler;
 import java.nio.ByteBuffer;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import jakarta.websocket.Session;
 import org.osgi.service.event.Event;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
-import net.solarnetwork.node.loxone.domain.Config;
+import net.solarnetwork.node.loxone.dao.ValueEventDao;
 import net.solarnetwork.node.loxone.domain.ValueEvent;
+import net.solarnetwork.node.loxone.domain.ValueEventStateTable;
 import net.solarnetwork.node.loxone.protocol.ws.BinaryFileHandler;
+import net.solarnetwork.node.loxone.protocol.ws.EventTableCursor;
 import net.solarnetwork.node.loxone.protocol.ws.LoxoneEvents;
 import net.solarnetwork.node.loxone.protocol.ws.MessageHeader;
 import net.solarnetwork.node.loxone.protocol.ws.MessageType;
@@ -44,10 +49,13 @@ import net.solarnetwork.node.loxone.protocol.ws.MessageType;
  * {@link BinaryFileHandler} for value-type event binary messages.
  *
  * @author matt
- * @version 2.0
+ * @version 2.5
  */
 public class ValueEventBinaryFileHandler extends BaseEventBinaryFileHandler<ValueEvent> {
 
+	private static final Set<MessageType> DATA_MESSAGE_TYPES = Collections
+			.unmodifiableSet(EnumSet.of(MessageType.EventTableValueStates));
+
 	/**
 	 * Event broadcast with the last modification date of the Loxone structure
 	 * file after it has been successfully saved. The
@@ -81,6 +89,11 @@ public class ValueEventBinaryFileHandler extends BaseEventBinaryFileHandler<Valu
 		return (header != null && MessageType.EventTableValueStates == header.getType());
 	}
 
+	@Override
+	public Set<MessageType> getDataMessageTypes() {
+		return DATA_MESSAGE_TYPES;
+	}
+
 	// wrap super with @Transactional
 	@Transactional(readOnly = false, propagation = Propagation.REQUIRED)
 	@Override
@@ -91,28 +104,34 @@ public class ValueEventBinaryFileHandler extends BaseEventBinaryFileHandler<Valu
 	@Override
 	protected boolean handleDataMessage(MessageHeader header, Session session, ByteBuffer buffer,
 			Long configId) {
-		final int end = buffer.position() + (int) header.getLength();
+		final EventTableCursor cursor = new EventTableCursor().reset(buffer,
+				(int) header.getLength());
 		final Instant now = Instant.now();
 		final List<ValueEvent> updated = new ArrayList<>();
-		while ( buffer.hasRemaining() && buffer.position() < end ) {
-			UUID uuid = readUUID(buffer);
-			double value = buffer.asDoubleBuffer().get();
-			buffer.position(buffer.position() + 8);
-			log.trace("Parsed value event {} = {}", uuid, value);
+		final ValueEventStateTable stateTable = (ignoreUnchangedValues
+				&& eventDao instanceof ValueEventDao ? ((ValueEventDao) eventDao).getStateTable(configId)
+						: null);
+		while ( cursor.next() ) {
+			final double value = cursor.value();
 
 			// check existing value first, so we don't emit an event for a value that has not changed
-			ValueEvent existing = (ignoreUnchangedValues ? eventDao.loadEvent(configId, uuid) : null);
-			if ( existing != null && Double.compare(existing.getValue(), value) == 0 ) {
-				log.trace("ValueEvent {} unchanged: {}", uuid, value);
-			} else {
-				ValueEvent ve = new ValueEvent(uuid, configId, now, value);
-				eventDao.storeEvent(ve);
-				updated.add(ve);
+			if ( ignoreUnchangedValues && !isChanged(stateTable, configId, cursor, value) ) {
+				if ( log.isTraceEnabled() ) {
+					log.trace("ValueEvent {} unchanged: {}", cursor.uuid(), value);
+				}
+				continue;
 			}
+
+			// only create UUID for changed values
+			UUID uuid = cursor.uuid();
+			log.trace("Parsed value event {} = {}", uuid, value);
+			updated.add(new ValueEvent(uuid, configId, now, value));
 		}
 
 		// post updated values to message channel
 		if ( !updated.isEmpty() ) {
+			// persist all changed values in one batch
+			eventDao.storeEvents(updated);
 			log.trace("Got updated value events: {}", updated);
 			if ( sendValueEventsUpdatedEvents ) {
 				Map<String, Object> eventProps = new LinkedHashMap<>(2);
@@ -121,14 +140,21 @@ public class ValueEventBinaryFileHandler extends BaseEventBinaryFileHandler<Valu
 				eventProps.put(EVENT_PROPERTY_VALUE_EVENTS, updated);
 				postEvent(new Event(VALUE_EVENTS_UPDATED_EVENT, eventProps));
 			}
-			String dest = String.format(LoxoneEvents.VALUE_EVENT_MESSAGE_TOPIC,
-					Config.idToExternalForm(configId));
-			postMessage(dest, updated);
+			publishEvents(LoxoneEvents.VALUE_EVENT_MESSAGE_TOPIC, configId, updated);
 		}
 
 		return true;
 	}
 
+	private boolean isChanged(ValueEventStateTable stateTable, Long configId,
+			EventTableCursor cursor, double value) {
+		if ( stateTable != null ) {
+			return stateTable.isChanged(cursor.uuidHi(), cursor.uuidLo(), value);
+		}
+		ValueEvent existing = eventDao.loadEvent(configId, cursor.uuid());
+		return !(existing != null && Double.compare(existing.getValue(), value) == 0);
+	}
+
 	/**
 	 * Toggle the sending of {@link #VALUE_EVENTS_UPDATED_EVENT} events.
 	 *
@@ -25,10 +25,13 @@ package net.solarnetwork.node.loxone.protocol.ws.handler;
 import java.nio.ByteBuffer;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.EnumSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import jakarta.websocket.Session;
 import org.osgi.service.event.Event;
@@ -44,11 +47,14 @@ import net.solarnetwork.node.loxone.protocol.ws.MessageType;
  * {@link BinaryFileHandler} for weather-type event binary messages.
  *
  * @author matt
- * @version 2.0
+ * @version 2.1
  * @since 1.1
  */
 public class WeatherEventBinaryFileHandler extends BaseEventBinaryFileHandler<WeatherEvent> {
 
+	private static final Set<MessageType> DATA_MESSAGE_TYPES = Collections
+			.unmodifiableSet(EnumSet.of(MessageType.EventTableWeatherStates));
+
 	/**
 	 * Event broadcast with the last modification date of the Loxone structure
 	 * file after it has been successfully saved. The
@@ -77,6 +83,11 @@ public class WeatherEventBinaryFileHandler extends BaseEventBinaryFileHandler<We
 		return (header != null && header.getType() == MessageType.EventTableWeatherStates);
 	}
 
+	@Override
+	public Set<MessageType> getDataMessageTypes() {
+		return DATA_MESSAGE_TYPES;
+	}
+
 	@Override
 	protected boolean handleDataMessage(MessageHeader header, Session session, ByteBuffer buffer,
 			Long configId) {
@@ -0,0 +1,147 @@
+/* ==================================================================
+ * JCacheUtils.java - 20/10/2026 9:12:40 AM
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.node.loxone.util;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import javax.cache.Cache;
+import javax.cache.CacheException;
+import javax.cache.CacheManager;
+import javax.cache.configuration.MutableConfiguration;
+import javax.cache.expiry.AccessedExpiryPolicy;
+import javax.cache.expiry.Duration;
+import javax.cache.expiry.EternalExpiryPolicy;
+import javax.cache.management.CacheStatisticsMXBean;
+import javax.management.JMX;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Utility helpers for the JCache caches used by the Loxone DAOs.
+ *
+ * @author matt
+ * @version 1.0
+ * @since 2.3
+ */
+public final class JCacheUtils {
+
+	/** The prefix added to all Loxone cache names. */
+	public static final String CACHE_NAME_PREFIX = "net.solarnetwork.node.loxone.";
+
+	private static final Logger log = LoggerFactory.getLogger(JCacheUtils.class);
+
+	private JCacheUtils() {
+		// not available
+	}
+
+	/**
+	 * Get a cache from a cache manager, creating it if needed.
+	 *
+	 * <p>
+	 * The cache is named {@link #CACHE_NAME_PREFIX} followed by {@code name}.
+	 * If the cache provider configuration already declares a cache with that
+	 * name, that cache is used so the provider's limits, such as the maximum
+	 * number of entries, apply. Otherwise a cache is created that expires
+	 * entries {@code expirySeconds} after their last access. Statistics are
+	 * enabled either way.
+	 * </p>
+	 *
+	 * @param <K>
+	 *        the key type
+	 * @param <V>
+	 *        the value type
+	 * @param cacheManager
+	 *        the cache manager
+	 * @param name
+	 *        the cache name, without {@link #CACHE_NAME_PREFIX}
+	 * @param expirySeconds
+	 *        the number of seconds after their last access to expire entries,
+	 *        or {@literal 0} to never expire entries
+	 * @return the cache
+	 */
+	public static <K, V> Cache<K, V> cache(CacheManager cacheManager, String name,
+			int expirySeconds) {
+		final String cacheName = CACHE_NAME_PREFIX + name;
+		Cache<K, V> cache = cacheManager.getCache(cacheName);
+		if ( cache != null ) {
+			log.info("Using configured cache {}", cacheName);
+		} else {
+			MutableConfiguration<K, V> config = new MutableConfiguration<K, V>()
+					.setStoreByValue(false).setStatisticsEnabled(true)
+					.setExpiryPolicyFactory(expirySeconds > 0
+							? AccessedExpiryPolicy
+									.factoryOf(new Duration(TimeUnit.SECONDS, expirySeconds))
+							: EternalExpiryPolicy.factoryOf());
+			try {
+				cache = cacheManager.createCache(cacheName, config);
+			} catch ( CacheException e ) {
+				// created by another thread since we looked
+				cache = cacheManager.getCache(cacheName);
+				if ( cache == null ) {
+					throw e;
+				}
+			}
+		}
+		cacheManager.enableStatistics(cacheName, true);
+		return cache;
+	}
+
+	/**
+	 * Get the statistics of a cache.
+	 *
+	 * <p>
+	 * The statistics are read from the standard JCache statistics MXBean of
+	 * the cache, registered with the platform MBean server.
+	 * </p>
+	 *
+	 * @param cache
+	 *        the cache to get the statistics for
+	 * @return the statistics, or {@literal null} if they are not available
+	 */
+	public static CacheStatisticsMXBean statistics(Cache<?, ?> cache) {
+		if ( cache == null || cache.isClosed() ) {
+			return null;
+		}
+		final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		final ObjectName name;
+		try {
+			name = new ObjectName("javax.cache:type=CacheStatistics,CacheManager="
+					+ mbeanSafe(cache.getCacheManager().getURI().toString()) + ",Cache="
+					+ mbeanSafe(cache.getName()));
+		} catch ( MalformedObjectNameException e ) {
+			return null;
+		}
+		if ( !server.isRegistered(name) ) {
+			return null;
+		}
+		return JMX.newMXBeanProxy(server, name, CacheStatisticsMXBean.class);
+	}
+
+	private static String mbeanSafe(String value) {
+		return (value == null ? "" : value.replaceAll("[,:=\n]", "."));
+	}
+
+}
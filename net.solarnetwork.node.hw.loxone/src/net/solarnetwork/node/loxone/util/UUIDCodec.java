@@ -0,0 +1,203 @@
+/* ==================================================================
+ * UUIDCodec.java - 19/10/2026 5:12:08 PM
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.node.loxone.util;
+
+import java.util.UUID;
+
+/**
+ * Hex text codec for Loxone encoded UUID values.
+ *
+ * <p>
+ * Loxone encodes UUIDs like the standard Java form, but without the last
+ * dash, for example {@literal 0e839a0b-00d8-1ab1-ffffa1b98ee6c71d}. This
+ * codec converts directly between that text and the two {@code long} values
+ * of a {@link UUID}, without intermediate strings or byte arrays.
+ * </p>
+ *
+ * @author matt
+ * @version 1.0
+ * @since 2.3
+ */
+public final class UUIDCodec {
+
+	/** The length of a Loxone encoded UUID. */
+	public static final int LOXONE_UUID_LENGTH = 35;
+
+	private static final char[] DIGITS = "0123456789abcdef".toCharArray();
+
+	private static final byte[] NIBBLES = new byte[128];
+	static {
+		for ( int i = 0; i < NIBBLES.length; i++ ) {
+			NIBBLES[i] = -1;
+		}
+		for ( int i = 0; i < 10; i++ ) {
+			NIBBLES['0' + i] = (byte) i;
+		}
+		for ( int i = 0; i < 6; i++ ) {
+			NIBBLES['a' + i] = (byte) (10 + i);
+			NIBBLES['A' + i] = (byte) (10 + i);
+		}
+	}
+
+	private UUIDCodec() {
+		// not available
+	}
+
+	/**
+	 * Encode a UUID into a character buffer.
+	 *
+	 * @param uuid
+	 *        the UUID to encode
+	 * @param buf
+	 *        the buffer to encode into, which must have space for
+	 *        {@link #LOXONE_UUID_LENGTH} characters starting at {@code offset}
+	 * @param offset
+	 *        the offset within {@code buf} to start at
+	 * @return the offset within {@code buf} after the encoded UUID
+	 */
+	public static int encode(UUID uuid, char[] buf, int offset) {
+		final long hi = uuid.getMostSignificantBits();
+		final long lo = uuid.getLeastSignificantBits();
+		hex(hi >>> 32, 8, buf, offset);
+		buf[offset + 8] = '-';
+		hex(hi >>> 16, 4, buf, offset + 9);
+		buf[offset + 13] = '-';
+		hex(hi, 4, buf, offset + 14);
+		buf[offset + 18] = '-';
+		hex(lo >>> 48, 4, buf, offset + 19);
+		hex(lo, 12, buf, offset + 23);
+		return offset + LOXONE_UUID_LENGTH;
+	}
+
+	/**
+	 * Encode a UUID as a string.
+	 *
+	 * @param uuid
+	 *        the UUID to encode
+	 * @return the encoded UUID
+	 */
+	public static String encode(UUID uuid) {
+		char[] buf = new char[LOXONE_UUID_LENGTH];
+		encode(uuid, buf, 0);
+		return new String(buf);
+	}
+
+	private static void hex(long value, int digits, char[] buf, int offset) {
+		for ( int i = offset + digits - 1; i >= offset; i-- ) {
+			buf[i] = DIGITS[(int) (value & 0xF)];
+			value >>>= 4;
+		}
+	}
+
+	/**
+	 * Decode a UUID from text.
+	 *
+	 * <p>
+	 * Any dash characters are ignored, so both Loxone and standard Java UUID
+	 * strings are supported.
+	 * </p>
+	 *
+	 * @param value
+	 *        the text to decode
+	 * @return the UUID
+	 * @throws IllegalArgumentException
+	 *         if {@code value} is not 32 hex digits, ignoring dashes
+	 */
+	public static UUID decode(CharSequence value) {
+		long hi = 0;
+		long lo = 0;
+		int count = 0;
+		for ( int i = 0, end = value.length(); i < end; i++ ) {
+			char c = value.charAt(i);
+			if ( c == '-' ) {
+				continue;
+			}
+			int n = nibble(c);
+			if ( count < 16 ) {
+				hi = (hi << 4) | n;
+			} else if ( count < 32 ) {
+				lo = (lo << 4) | n;
+			} else {
+				throw new IllegalArgumentException("UUID value too long.");
+			}
+			count++;
+		}
+		return uuid(hi, lo, count);
+	}
+
+	/**
+	 * Decode a UUID from a character buffer.
+	 *
+	 * <p>
+	 * Any dash characters are ignored, so both Loxone and standard Java UUID
+	 * strings are supported.
+	 * </p>
+	 *
+	 * @param buf
+	 *        the buffer to decode from
+	 * @param offset
+	 *        the offset within {@code buf} to start at
+	 * @param len
+	 *        the number of characters to decode
+	 * @return the UUID
+	 * @throws IllegalArgumentException
+	 *         if the characters are not 32 hex digits, ignoring dashes
+	 */
+	public static UUID decode(char[] buf, int offset, int len) {
+		long hi = 0;
+		long lo = 0;
+		int count = 0;
+		for ( int i = offset, end = offset + len; i < end; i++ ) {
+			char c = buf[i];
+			if ( c == '-' ) {
+				continue;
+			}
+			int n = nibble(c);
+			if ( count < 16 ) {
+				hi = (hi << 4) | n;
+			} else if ( count < 32 ) {
+				lo = (lo << 4) | n;
+			} else {
+				throw new IllegalArgumentException("UUID value too long.");
+			}
+			count++;
+		}
+		return uuid(hi, lo, count);
+	}
+
+	private static UUID uuid(long hi, long lo, int count) {
+		if ( count != 32 ) {
+			throw new IllegalArgumentException("UUID value too short.");
+		}
+		return new UUID(hi, lo);
+	}
+
+	private static int nibble(char c) {
+		int n = (c < NIBBLES.length ? NIBBLES[c] : -1);
+		if ( n < 0 ) {
+			throw new IllegalArgumentException("Invalid UUID hex character [" + c + "].");
+		}
+		return n;
+	}
+
+}
@@ -32,6 +32,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.ResponseBody;
 import net.solarnetwork.node.loxone.LoxoneService;
+import net.solarnetwork.node.loxone.domain.TextEvent;
 import net.solarnetwork.node.loxone.domain.ValueEvent;
 import net.solarnetwork.web.jakarta.domain.Response;
 
@@ -39,7 +40,7 @@ import net.solarnetwork.web.jakarta.domain.Response;
  * Controller for websocket event publishing.
  * 
  * @author matt
- * @version 1.0
+ * @version 1.1
  */
 @Controller
 @RequestMapping("/a/loxone/{configId}/events")
@@ -67,4 +68,25 @@ public class WebsocketEventController extends BaseLoxoneWebServiceController {
 		return Response.response(results);
 	}
 
+	/**
+	 * Get the current text states.
+	 *
+	 * @param configId
+	 *        the configuration ID
+	 * @return the text states
+	 * @since 1.1
+	 */
+	@RequestMapping(value = "/texts", method = RequestMethod.GET)
+	@SubscribeMapping("/{configId}/events/texts")
+	@ResponseBody
+	public Response<Collection<TextEvent>> subscribeToTextEvents(
+			@DestinationVariable @PathVariable("configId") String configId) {
+		LoxoneService service = serviceForConfigId(configId);
+		if ( service == null ) {
+			return new Response<>(false, "404", "Configuration ID not available.", null);
+		}
+		Collection<TextEvent> results = service.getControlTextStates(null);
+		return Response.response(results);
+	}
+
 }
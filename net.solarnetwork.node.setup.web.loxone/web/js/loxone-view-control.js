@@ -161,13 +161,20 @@ Loxone.controlView = (function() {
                 controls = this.filterTable(controls, filter, [ 'name', 'source', 'type', 'cat', 'room' ]);
                 controls = this.sortTable(controls, this.controlView.sorting.column, this.controlView.sorting.ascending);
 
+                var shown = [];
                 for (var c = 0; c < controls.length; c++) {
                   var enabled = controls[c].uuid in datums;
                   var enableFilter = this.controlView.sorting.enable;
                   if(enableFilter == 'All' || (enableFilter == 'Enabled' && enabled) || (enableFilter == 'Disabled' && !enabled)) {
                     append(controls[c]);
+                    shown.push(controls[c].uuid);
                   }
                 }
+
+                // only receive value updates for the controls shown, when filtered
+                if(Loxone.websocket) {
+                  Loxone.websocket.subscribeControls(filter || this.controlView.sorting.enable != 'All' ? shown : null);
+                }
               });
             });
           });
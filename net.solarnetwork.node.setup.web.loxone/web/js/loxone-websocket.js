@@ -1,5 +1,92 @@
 Loxone.websocket = (function() {
 
+	// subscribe to the compact value event encoding; set to false for full ValueEvent objects
+	var compactValueEvents = true;
+
+	// the maximum number of controls to subscribe to by UUID, above which all values are subscribed to
+	var maxFilterControls = 100;
+
+	var client = null;
+	var valueEventUpdates = null;
+	var controlFilter = null;
+
+	function valueEventTopic() {
+		// /topic/X/events/values for all values, or /topic/X/events/values/controls/A,B,... for
+		// just the values of some controls, optionally followed by /compact for the compact encoding
+		var topic = `/topic/${Loxone.configID}/events/values`;
+		if ( controlFilter ) {
+			topic += '/controls/' + controlFilter;
+		}
+		return topic + (compactValueEvents ? '/compact' : '');
+	}
+
+	function handleDataMessage(message, successHandler, errorHandler) {
+		if ( message.body ) {
+			var json = JSON.parse(message.body);
+			if ( json.success ) {
+				if ( typeof successHandler === 'function' ) {
+					successHandler(json.data);
+				}
+			} else if ( typeof errorHandler === 'function' ) {
+				errorHandler(json);
+			}
+		} else {
+			console.log("got empty message");
+		}
+	}
+
+	function subscribeValueEvents() {
+		if ( !client || !client.connected ) {
+			return;
+		}
+		if ( valueEventUpdates ) {
+			valueEventUpdates.unsubscribe();
+		}
+		valueEventUpdates = client.subscribe(valueEventTopic(), function(message) {
+			handleDataMessage(message, compactValueEvents ? processCompactValueEvents : processValueEvents);
+		});
+	}
+
+	function refreshValueEvents() {
+		// Call /a/X/events/values to get a complete list of all available values, then subscribe for updates
+		Loxone.api.request({ method: 'GET', path: 'events/values', headers: {'Content-Type': 'application/json' }}, function(err, json) {
+			if(err || !json.success) console.log(`Error getting initial events/values: ${err}`);
+			else processValueEvents(json.data);
+			subscribeValueEvents();
+		});
+	}
+
+	/**
+	 * Only receive value updates for a set of controls, such as the controls currently shown.
+	 *
+	 * @param {string[]} uuids the control UUIDs, or null for all controls
+	 */
+	function subscribeControls(uuids) {
+		var filter = (uuids && uuids.length <= maxFilterControls ? uuids.slice().sort().join(',') : null);
+		if ( filter === controlFilter ) {
+			return;
+		}
+		controlFilter = filter;
+		refreshValueEvents();
+	}
+
+	/**
+	 * Decode a compact value event message, of the form
+	 * {t: base date, u: [uuid, ...], v: [value, ...], dt: [date offset, ...]},
+	 * into a list of {uuid, value, created} objects.
+	 */
+	function decodeCompactValueEvents(columns) {
+		var list = [], i, len = (columns && columns.u ? columns.u.length : 0);
+		for ( i = 0; i < len; i += 1 ) {
+			list.push({uuid: columns.u[i], value: columns.v[i], created: columns.t + columns.dt[i]});
+		}
+		return list;
+	}
+
+	function processCompactValueEvents(columns) {
+		processValueEvents(decodeCompactValueEvents(columns));
+	}
+
 	function processValueEvents(list) {
 		list.forEach(function(ve) {
 
@@ -29,38 +116,13 @@ Loxone.websocket = (function() {
 		var csrf = SolarNode.csrfData;
 		var url = 'ws://' +document.location.host +SolarNode.context.path('/ws');
 		var socket = new WebSocket(url);
-		var client = Stomp.over(socket);
+		client = Stomp.over(socket);
 		client.debug = null;
 		var headers = {};
 		headers[csrf.headerName] = csrf.token;
 		client.connect(headers, function(frame) {
 
-			function defaultHandleDataMessage(message, successHandler, errorHandler) {
-				if ( message.body ) {
-					var json = JSON.parse(message.body);
-					if ( json.success ) {
-						if ( typeof successHandler === 'function' ) {
-							successHandler(json.data);
-						}
-					} else if ( typeof errorHandler === 'function' ) {
-						errorHandler(json);
-					}
-				} else {
-					console.log("got empty message");
-				}
-			}
-
-			// Call /a/X/events/values to get a complete list of all available values
-		    Loxone.api.request({ method: 'GET', path: 'events/values', headers: {'Content-Type': 'application/json' }}, function(err, json) {
-					if(err || !json.success) console.log(`Error getting initial events/values: ${err}`);
-			    else processValueEvents(json.data);
-
-					// subscribe to /topic/X/events/values to get notified of updated values
-					var valueEventUpdates = client.subscribe(`/topic/${Loxone.configID}/events/values`, function(message) {
-						defaultHandleDataMessage(message, processValueEvents);
-					});
-		    });
-
+			refreshValueEvents();
 
 			// add a periodic call to /a/loxone/ping so the HTTP session stays alive;
 			// TODO: this may be undersirable, as a logged in user will forever stay logged in
@@ -75,4 +137,8 @@ Loxone.websocket = (function() {
 	    	console.log('STOMP protocol error %s', error);
 		});
 	})();
+
+	return {
+		subscribeControls: subscribeControls
+	};
 })();